@@ -1,5 +1,7 @@
 package com.platypii.baseline;
 
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.platform.AndroidPlatform;
 import android.app.Application;
 import org.greenrobot.eventbus.EventBus;
 
@@ -9,8 +11,25 @@ public class BaseApplication extends Application {
     public void onCreate() {
         super.onCreate();
 
+        // Logging, crash reporting and threads for the platform independent core
+        AndroidPlatform.install();
+
         // Configure EventBus
         EventBus.builder().logNoSubscriberMessages(false).installDefaultEventBus();
 
+        // Dump the flight recorder on crash, then hand off to the default handler (crashlytics)
+        final Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            FlightRecorder.record(FlightRecorder.CRASH, 0);
+            try {
+                Services.logger.dumpFlightRecorder();
+            } catch (Throwable t) {
+                // Never mask the original crash
+            }
+            if (defaultHandler != null) {
+                defaultHandler.uncaughtException(thread, e);
+            }
+        });
+
     }
 }
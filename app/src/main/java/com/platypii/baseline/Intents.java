@@ -14,6 +14,7 @@ import android.support.annotation.NonNull;
 import android.support.v4.content.FileProvider;
 import android.util.Log;
 import android.widget.Toast;
+import java.io.File;
 
 public class Intents {
     private static final String TAG = "Intents";
@@ -98,6 +99,25 @@ public class Intents {
         }
     }
 
+    /** Share a converted track file, such as kml */
+    public static void shareTrackExport(@NonNull Context context, @NonNull File file, @NonNull String mimeType) {
+        try {
+            final Uri uri = FileProvider.getUriForFile(context, "com.platypii.baseline.provider", file);
+            Log.d(TAG, "Sharing track export " + uri);
+            final Intent intent = new Intent();
+            intent.setAction(Intent.ACTION_SEND);
+            intent.putExtra(Intent.EXTRA_SUBJECT, file.getName());
+            intent.putExtra(Intent.EXTRA_STREAM, uri);
+            intent.setType(mimeType);
+            intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            context.startActivity(intent);
+        } catch(Exception e) {
+            Log.e(TAG, "Failed to share track export", e);
+            Toast.makeText(context, R.string.error_export_intent, Toast.LENGTH_SHORT).show();
+            Exceptions.report(e);
+        }
+    }
+
     /** Open help page in browser */
     public static void openHelpUrl(@NonNull Context context) {
         final Uri uri = Uri.parse("https://baseline.ws/help/app");
@@ -9,9 +9,11 @@ import com.platypii.baseline.jarvis.AutoStop;
 import com.platypii.baseline.jarvis.FlightComputer;
 import com.platypii.baseline.location.LandingZone;
 import com.platypii.baseline.location.LocationService;
+import com.platypii.baseline.location.NmeaCapture;
 import com.platypii.baseline.sensors.MySensorManager;
 import com.platypii.baseline.tracks.MigrateTracks;
 import com.platypii.baseline.tracks.TrackLogger;
+import com.platypii.baseline.tracks.TrackReprocessor;
 import com.platypii.baseline.tracks.TrackState;
 import com.platypii.baseline.util.Convert;
 import com.platypii.baseline.util.Exceptions;
@@ -138,6 +140,9 @@ public class Services {
             // Check if migration is necessary
             MigrateTracks.migrate(appContext);
 
+            // Bring track summaries up to date with the current analysis
+            TrackReprocessor.start(appContext);
+
             Log.i(TAG, "Services started in " + (System.currentTimeMillis() - startTime) + " ms");
         }
     }
@@ -180,6 +185,13 @@ public class Services {
         }
     }
 
+    /**
+     * True from start until services actually stop, including the shutdown delay
+     */
+    public static synchronized boolean isStarted() {
+        return initialized;
+    }
+
     /**
      * Stop services IF nothing is using them
      */
@@ -188,6 +200,7 @@ public class Services {
             if (!logger.isLogging() && !audible.isEnabled()) {
                 Log.i(TAG, "All activities have stopped. Stopping services.");
                 // Stop services
+                TrackReprocessor.cancel();
                 cloud.stop();
                 notifications.stop();
                 audible.stop();
@@ -220,6 +233,9 @@ public class Services {
         // Auto-stop
         AutoStop.preferenceEnabled = prefs.getBoolean("auto_stop_enabled", true);
 
+        // Raw nmea capture
+        NmeaCapture.preferenceEnabled = prefs.getBoolean("nmea_capture_enabled", false);
+
         // Bluetooth
         bluetooth.preferences.load(context);
 
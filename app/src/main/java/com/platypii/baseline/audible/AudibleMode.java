@@ -1,5 +1,6 @@
 package com.platypii.baseline.audible;
 
+import com.platypii.baseline.diagnostics.LatencyTrace;
 import android.support.annotation.NonNull;
 
 /**
@@ -46,6 +47,13 @@ public abstract class AudibleMode {
      */
     abstract public @NonNull AudibleSample currentSample(int precision);
 
+    /**
+     * Pipeline source of the samples, for latency tracing
+     */
+    public int source() {
+        return LatencyTrace.GPS;
+    }
+
     /**
      * Convert from local units to internal metric units
      * (local value) * units() = (internal metric value)
@@ -2,6 +2,8 @@ package com.platypii.baseline.audible;
 
 import com.platypii.baseline.BaseService;
 import com.platypii.baseline.Services;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.diagnostics.ServiceCost;
 import com.platypii.baseline.events.AudibleEvent;
 import com.platypii.baseline.jarvis.FlightMode;
 import com.platypii.baseline.util.Exceptions;
@@ -34,6 +36,8 @@ public class MyAudible implements BaseService {
     private long airplaneAnnounceTime;
     private static final long AIRPLANE_ANNOUNCE_INTERVAL = 30000; // 30 seconds
 
+    private final ServiceCost serviceCost = ServiceCost.get("MyAudible");
+
     // Was the last sample below/inside/above the boundary?
     private static final int STATE_MIN = -1;
     private static final int STATE_INSIDE = 0;
@@ -137,10 +141,13 @@ public class MyAudible implements BaseService {
     }
 
     void speak() {
+        serviceCost.begin();
+        final int source = AudibleSettings.mode.source();
         final String measurement = getMeasurement();
-        if(speech != null && !measurement.isEmpty()) {
-            speech.speakNow(measurement);
+        if(speech != null && !measurement.isEmpty() && speech.speakNow(measurement)) {
+            LatencyTrace.mark(LatencyTrace.SPEECH, source);
         }
+        serviceCost.end();
     }
 
     private void speakWhenReady() {
@@ -179,6 +186,7 @@ public class MyAudible implements BaseService {
      */
     private @NonNull String getMeasurementSample() {
         final AudibleSample sample = AudibleSettings.mode.currentSample(AudibleSettings.precision);
+        LatencyTrace.mark(LatencyTrace.AUDIBLE, AudibleSettings.mode.source());
         // Check for fresh signal (not applicable to vertical speed)
         if(AudibleSettings.mode.id.equals("vertical_speed") || goodGpsFix()) {
             // Check for real valued sample
@@ -19,16 +19,21 @@ class Speech implements TextToSpeech.OnInitListener {
         tts = new TextToSpeech(context, this);
     }
 
-    void speakNow(@Nullable String text) {
+    /**
+     * @return true if the text was handed to the speech engine
+     */
+    boolean speakNow(@Nullable String text) {
         if(text != null && text.length() > 0) {
             if(isReady) {
                 Log.i(TAG, "Saying: " + text);
                 tts.setSpeechRate(AudibleSettings.speechRate);
                 tts.speak(text, TextToSpeech.QUEUE_FLUSH, null);
+                return true;
             } else {
                 Log.e(TAG, "Speech not ready. Discarding message: " + text);
             }
         }
+        return false;
     }
 
     void speakWhenReady(@Nullable String text) {
@@ -3,8 +3,9 @@ package com.platypii.baseline.audible.modes;
 import com.platypii.baseline.Services;
 import com.platypii.baseline.audible.AudibleMode;
 import com.platypii.baseline.audible.AudibleSample;
+import com.platypii.baseline.location.Geo;
 import com.platypii.baseline.location.LandingZone;
-import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.location.LocationPredictor;
 import com.platypii.baseline.util.Convert;
 import android.support.annotation.NonNull;
 
@@ -17,6 +18,9 @@ public class NavigationMode extends AudibleMode {
     // Have we spoken "stationary" yet?
     private boolean stationary = false;
 
+    // Current state, projected from the last fix to now
+    private final LocationPredictor.State state = new LocationPredictor.State();
+
     public NavigationMode() {
         super("navigation", "Navigation", "distance", 0, 6096, 2);
     }
@@ -26,10 +30,10 @@ public class NavigationMode extends AudibleMode {
     AudibleSample currentSample(int precision) {
         double distance = 0.0;
         String measurement = "";
-        final MLocation lastLoc = Services.location.lastLoc;
-        if(LandingZone.homeLoc != null && lastLoc != null) {
-            distance = lastLoc.distanceTo(LandingZone.homeLoc);
-            if(lastLoc.groundSpeed() < 0.6) {
+        Services.location.predictNow(state);
+        if(LandingZone.homeLoc != null && state.valid) {
+            distance = Geo.distance(state.latitude, state.longitude, LandingZone.homeLoc.latitude, LandingZone.homeLoc.longitude);
+            if(state.groundSpeed() < 0.6) {
                 // Only say stationary once
                 if(!stationary) {
                     measurement = Convert.GLIDE_STATIONARY;
@@ -37,8 +41,8 @@ public class NavigationMode extends AudibleMode {
                 stationary = true;
             } else {
                 stationary = false;
-                final double homeBearing = lastLoc.bearingTo(LandingZone.homeLoc);
-                final double deltaBearing = homeBearing - lastLoc.bearing();
+                final double homeBearing = Geo.bearing(state.latitude, state.longitude, LandingZone.homeLoc.latitude, LandingZone.homeLoc.longitude);
+                final double deltaBearing = homeBearing - state.bearing();
                 if (Math.abs(distance) > Convert.FT) {
                     measurement = Convert.distance2(distance, precision, true) + " " + Convert.angle2(deltaBearing);
                 } else {
@@ -2,6 +2,7 @@ package com.platypii.baseline.audible.modes;
 
 import com.platypii.baseline.Services;
 import com.platypii.baseline.audible.AudibleSample;
+import com.platypii.baseline.diagnostics.LatencyTrace;
 import com.platypii.baseline.util.Convert;
 import android.support.annotation.NonNull;
 
@@ -22,4 +23,12 @@ public class VerticalSpeedMode extends SpeedMode {
         }
         return new AudibleSample(verticalSpeed, verticalSpeedString);
     }
+
+    /**
+     * Climb comes from the barometer once it is running
+     */
+    @Override
+    public int source() {
+        return Services.alti.baro_sample_count > 0 ? LatencyTrace.BARO : LatencyTrace.GPS;
+    }
 }
@@ -1,6 +1,7 @@
 package com.platypii.baseline.cloud;
 
 import com.platypii.baseline.BaseService;
+import com.platypii.baseline.diagnostics.ServiceCost;
 import android.content.Context;
 import android.support.annotation.NonNull;
 
@@ -9,6 +10,9 @@ public class BaselineCloud implements BaseService {
     static final String baselineServer = "https://baseline.ws";
     static final String listUrl = BaselineCloud.baselineServer + "/v1/tracks";
 
+    // Cloud tasks run on their own threads, charged to the cloud service
+    static final ServiceCost cloudCost = ServiceCost.get("BaselineCloud");
+
     public final TrackListing listing = new TrackListing();
     public final TrackDatabase tracks = new TrackDatabase();
     public final UploadManager uploads = new UploadManager();
@@ -22,7 +26,7 @@ public class BaselineCloud implements BaseService {
 
     public void deleteTrack(CloudData track, @NonNull String auth) {
         // Delete track on server
-        new Thread(new DeleteTask(auth, track)).start();
+        new Thread(cloudCost.wrap(new DeleteTask(auth, track)), "BaselineCloud").start();
     }
 
     @Override
@@ -42,7 +42,7 @@ public class UploadManager {
         // Mark track as queued for upload
         Services.trackState.setState(trackFile, TrackState.UPLOADING);
         // Start upload thread
-        new Thread(new UploadTask(context, trackFile)).start();
+        new Thread(BaselineCloud.cloudCost.wrap(new UploadTask(context, trackFile)), "BaselineCloud").start();
     }
 
     private void uploadAll() {
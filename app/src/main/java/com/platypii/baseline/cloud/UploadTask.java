@@ -2,6 +2,9 @@ package com.platypii.baseline.cloud;
 
 import com.platypii.baseline.BuildConfig;
 import com.platypii.baseline.Services;
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Histogram;
+import com.platypii.baseline.diagnostics.Metrics;
 import com.platypii.baseline.events.SyncEvent;
 import com.platypii.baseline.tracks.TrackFile;
 import com.platypii.baseline.util.Exceptions;
@@ -30,6 +33,10 @@ class UploadTask implements Runnable {
 
     private static final String postUrl = BaselineCloud.baselineServer + "/tracks";
 
+    // Metrics
+    private static final Counter uploadBytes = Metrics.counter("upload.bytes");
+    private static final Histogram uploadRate = Metrics.histogram("upload.bytes_per_s");
+
     private final Context context;
     private final TrackFile trackFile;
 
@@ -123,6 +130,7 @@ class UploadTask implements Runnable {
      * Copy bytes from track file to output stream, and update upload progress
      */
     private static void copy(@NonNull TrackFile trackFile, @NonNull OutputStream output) throws IOException {
+        final long startNano = System.nanoTime();
         final InputStream is = new FileInputStream(trackFile.file);
         final byte buffer[] = new byte[1024];
         int bytesRead;
@@ -130,6 +138,7 @@ class UploadTask implements Runnable {
         while((bytesRead = is.read(buffer)) != -1) {
             output.write(buffer, 0, bytesRead);
             bytesCopied += bytesRead;
+            uploadBytes.add(bytesRead);
 
             // Update upload progress state
             Services.trackState.setUploadProgress(trackFile, bytesCopied);
@@ -137,6 +146,10 @@ class UploadTask implements Runnable {
         }
         is.close();
         output.flush();
+        final long duration = System.nanoTime() - startNano;
+        if (duration > 0) {
+            uploadRate.add(bytesCopied * 1000000000L / duration);
+        }
     }
 
 }
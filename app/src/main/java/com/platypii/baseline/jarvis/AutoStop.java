@@ -15,10 +15,7 @@ public class AutoStop {
     public static boolean preferenceEnabled = true;
 
     // Jump detection state
-    private static final int STATE_STOPPED = 0;
-    private static final int STATE_STARTED = 1;
-    private static final int STATE_EXITED = 2;
-    private int state = STATE_STOPPED;
+    private final LandingDetector detector = new LandingDetector();
 
     private static final String landing_message = "Landing detected";
     private static final String timeout_message = "Jump timeout";
@@ -27,56 +24,14 @@ public class AutoStop {
     private final static Handler handler = new Handler();
     private static final long autoTimeout = 3600000; // 1 hour
 
-    private static final double minHeight = 60;
-
-    private double prExited = 0;
-    private double prLanded = 0;
-
-    private double altMin = Double.NaN;
-    private double altMax = Double.NaN;
-
     void update(@NonNull MLocation loc) {
-        final double alt = loc.altitude_gps;
-        // Update altitude range
-        if(!Double.isNaN(alt)) {
-            if(!(altMin < alt)) altMin = alt;
-            if(!(alt < altMax)) altMax = alt;
-        }
-        // Update state
-        if(state == STATE_STARTED) {
-            // Look for flight / freefall
-            if(loc.climb < -15 && altMax - alt > minHeight) {
-                prExited += (1 - prExited) * 0.6;
-            } else if(FlightMode.getMode(loc) == FlightMode.MODE_CANOPY && altMax - alt > minHeight) {
-                prExited += (1 - prExited) * 0.2;
-            } else {
-                prExited -= prExited * 0.6;
-            }
-            if(prExited > 0.85) {
-                Log.i(TAG, "Exit detected");
-                state = STATE_EXITED;
-            }
-        } else if(state == STATE_EXITED) {
-            // Look for landing
-            final double altNormalized = (alt - altMin) / (altMax - altMin);
-            if(FlightMode.getMode(loc) == FlightMode.MODE_GROUND && altMax - altMin > minHeight && altNormalized < 0.1) {
-                prLanded += (1 - prLanded) * 0.2;
-            }
-            if(prLanded > 0.99) {
-                landed(landing_message);
-            }
+        if(detector.update(loc)) {
+            landed(landing_message);
         }
     }
 
     void start() {
-        if(state == STATE_STOPPED) {
-            // Reset state
-            state = STATE_STARTED;
-            prExited = 0;
-            prLanded = 0;
-            // TODO: Should we reset altitude range per recording or per app session?
-            altMin = Double.NaN;
-            altMax = Double.NaN;
+        if(detector.start()) {
             // When auto stop is enabled, timeout after 1 hour
             handler.postDelayed(stopRunnable, autoTimeout);
         } else {
@@ -85,8 +40,7 @@ public class AutoStop {
     }
 
     void stop() {
-        if(state != STATE_STOPPED) {
-            state = STATE_STOPPED;
+        if(detector.stop()) {
             // Stop timeout thread
             handler.removeCallbacks(stopRunnable);
         } else {
@@ -96,7 +50,7 @@ public class AutoStop {
 
     private void landed(String msg) {
         Log.i(TAG, "Auto-stop landing detected: " + msg);
-        state = STATE_STOPPED;
+        detector.stop();
         // If audible enabled, say landing detected
         if(preferenceEnabled) {
             // If audible enabled, disable
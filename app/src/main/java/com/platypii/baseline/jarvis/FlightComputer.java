@@ -2,6 +2,7 @@ package com.platypii.baseline.jarvis;
 
 import com.platypii.baseline.BaseService;
 import com.platypii.baseline.Services;
+import com.platypii.baseline.diagnostics.FlightRecorder;
 import com.platypii.baseline.events.AudibleEvent;
 import com.platypii.baseline.events.LoggingEvent;
 import com.platypii.baseline.location.MyLocationListener;
@@ -42,7 +43,11 @@ public class FlightComputer implements BaseService, MyLocationListener {
     @Override
     public void onLocationChanged(@NonNull MLocation loc) {
         // Update flight mode
-        flightMode = FlightMode.getMode(loc);
+        final int mode = FlightMode.getMode(loc);
+        if (mode != flightMode) {
+            FlightRecorder.record(FlightRecorder.FLIGHT_MODE, mode);
+        }
+        flightMode = mode;
         // Update autostop
         autoStop.update(loc);
     }
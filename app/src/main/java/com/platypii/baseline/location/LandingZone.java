@@ -1,7 +1,6 @@
 package com.platypii.baseline.location;
 
 import com.platypii.baseline.Services;
-import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.Numbers;
 import android.support.annotation.Nullable;
 import com.google.android.gms.maps.model.LatLng;
@@ -9,6 +8,7 @@ import com.google.android.gms.maps.model.LatLng;
 /**
  * Stores the target landing zone to be displayed on the map.
  * Also computes projected landing zone based on current position, velocity and altitude AGL.
+ * Position and velocity are projected to now, so fix latency doesn't shift the landing point.
  */
 public class LandingZone {
 
@@ -18,6 +18,9 @@ public class LandingZone {
     @Nullable
     public static LatLng homeLoc;
 
+    // Avoid creating new objects unnecessarily, only used from the ui thread
+    private static final LocationPredictor.State state = new LocationPredictor.State();
+
     /**
      * Computes the estimated landing location based on current location and velocity
      */
@@ -25,17 +28,18 @@ public class LandingZone {
         // Compute time to ground
         final double timeToGround = timeToGround();
         if(Numbers.isReal(timeToGround) && Services.location.isFresh()) {
-
-            // Compute horizontal distance traveled at current velocity for timeToGround seconds
-            final double groundDistance = timeToGround * Services.location.groundSpeed();
-            final double bearing = Services.location.bearing();
-
-            // Compute estimated landing location
-            final MLocation currentLocation = Services.location.lastLoc;
-            return currentLocation.moveDirection(bearing, groundDistance);
-        } else {
-            return null;
+            Services.location.predictNow(state);
+            if(state.valid) {
+                // Compute horizontal distance traveled at current velocity for timeToGround seconds
+                final double groundDistance = timeToGround * state.groundSpeed();
+                final double bearing = state.bearing();
+
+                // Compute estimated landing location
+                final double[] landing = Geo.moveDirection(state.latitude, state.longitude, bearing, groundDistance);
+                return new LatLng(landing[0], landing[1]);
+            }
         }
+        return null;
     }
 
     /**
@@ -1,10 +1,15 @@
 package com.platypii.baseline.sensors;
 
 import com.platypii.baseline.BaseService;
+import com.platypii.baseline.Services;
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.diagnostics.ServiceCost;
 import com.platypii.baseline.measurements.MAccel;
 import com.platypii.baseline.measurements.MGravity;
 import com.platypii.baseline.measurements.MRotation;
 import com.platypii.baseline.measurements.MSensor;
+import com.platypii.baseline.tracks.TrackReader;
 import com.platypii.baseline.util.SyncedList;
 import android.content.Context;
 import android.hardware.Sensor;
@@ -12,6 +17,8 @@ import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.support.annotation.NonNull;
 import android.util.Log;
 import java.util.List;
@@ -28,6 +35,7 @@ public class MySensorManager implements SensorEventListener, BaseService {
 
     private static final int sensorDelay = SensorManager.SENSOR_DELAY_FASTEST; // microseconds
     private SensorManager sensorManager;
+    private HandlerThread sensorThread;
 
     // History
     public final SyncedList<MSensor> accel = new SyncedList<>();
@@ -36,6 +44,15 @@ public class MySensorManager implements SensorEventListener, BaseService {
 
     private final List<MySensorListener> listeners = new CopyOnWriteArrayList<>();
 
+    // Latest orientation, to rotate acceleration into the world frame for dead reckoning
+    private final float[] rotationVector = new float[4];
+    private final float[] rotationMatrix = new float[9];
+    private boolean hasRotation = false;
+
+    // Metrics
+    private final Counter sensorEvents = Metrics.counter("sensors.events");
+    private final ServiceCost serviceCost = ServiceCost.get("MySensorManager");
+
     /**
      * Initialize orientation sensor services
      *
@@ -56,10 +73,13 @@ public class MySensorManager implements SensorEventListener, BaseService {
             final Sensor accelSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
             final Sensor gravitySensor = sensorManager.getDefaultSensor(Sensor.TYPE_GRAVITY);
             final Sensor rotationSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
-            // Register listeners
-            sensorManager.registerListener(MySensorManager.this, accelSensor, sensorDelay);
-            sensorManager.registerListener(MySensorManager.this, gravitySensor, sensorDelay);
-            sensorManager.registerListener(MySensorManager.this, rotationSensor, sensorDelay);
+            // Register listeners on a named thread, for cpu accounting
+            sensorThread = new HandlerThread("MySensorManager");
+            sensorThread.start();
+            final Handler handler = new Handler(sensorThread.getLooper());
+            sensorManager.registerListener(MySensorManager.this, accelSensor, sensorDelay, handler);
+            sensorManager.registerListener(MySensorManager.this, gravitySensor, sensorDelay, handler);
+            sensorManager.registerListener(MySensorManager.this, rotationSensor, sensorDelay, handler);
         });
     }
 
@@ -68,6 +88,15 @@ public class MySensorManager implements SensorEventListener, BaseService {
     public void onAccuracyChanged(Sensor sensor, int accuracy) {}
     @Override
     public void onSensorChanged(@NonNull SensorEvent event) {
+        serviceCost.begin();
+        try {
+            updateSensor(event);
+        } finally {
+            serviceCost.end();
+        }
+    }
+
+    private void updateSensor(@NonNull SensorEvent event) {
         final long t = event.timestamp; // nano
         final float x = event.values[0];
         final float y = event.values[1];
@@ -78,6 +107,7 @@ public class MySensorManager implements SensorEventListener, BaseService {
             case Sensor.TYPE_ACCELEROMETER:
                 measurement = new MAccel(t, (float)Math.sqrt(x*x + y*y + z*z));
                 accel.append(measurement);
+                updateWorldAcceleration(x, y, z);
                 break;
             case Sensor.TYPE_GRAVITY:
                 measurement = new MRotation(t,x,y,z);
@@ -87,10 +117,48 @@ public class MySensorManager implements SensorEventListener, BaseService {
             case Sensor.TYPE_MAGNETIC_FIELD:
                 measurement = new MGravity(t,x,y,z);
                 rotation.append(measurement);
+                if(event.sensor.getType() == Sensor.TYPE_ROTATION_VECTOR) {
+                    updateRotation(event.values);
+                }
                 break;
             default:
                 Log.e("MySensorManager", "Received unexpected sensor event");
         }
+        publish(measurement);
+    }
+
+    /**
+     * Feed a recorded sensor row to the histories and listeners, as if it came from the sensor.
+     * Rows are logged by measurement class, so gravity events are rot rows and rotation vector events are grv rows.
+     * @param type TrackReader.ACC, GRV or ROT
+     */
+    public void replaySensor(int type, long nano, float x, float y, float z) {
+        serviceCost.begin();
+        try {
+            MSensor measurement = null;
+            switch(type) {
+                case TrackReader.ACC:
+                    // Only the magnitude is logged, so there is no world acceleration for dead reckoning
+                    measurement = new MAccel(nano, x);
+                    accel.append(measurement);
+                    break;
+                case TrackReader.ROT:
+                    measurement = new MRotation(nano, x, y, z);
+                    gravity.append(measurement);
+                    break;
+                case TrackReader.GRV:
+                    measurement = new MGravity(nano, x, y, z);
+                    rotation.append(measurement);
+                    break;
+            }
+            publish(measurement);
+        } finally {
+            serviceCost.end();
+        }
+    }
+
+    private void publish(MSensor measurement) {
+        sensorEvents.inc();
         // Notify listeners
         if(measurement != null) {
             for(MySensorListener listener : listeners) {
@@ -99,6 +167,28 @@ public class MySensorManager implements SensorEventListener, BaseService {
         }
     }
 
+    private void updateRotation(@NonNull float[] values) {
+        // Some devices send extra values, which getRotationMatrixFromVector rejects
+        rotationVector[0] = values[0];
+        rotationVector[1] = values[1];
+        rotationVector[2] = values[2];
+        rotationVector[3] = values.length > 3 ? values[3] : (float) Math.sqrt(Math.max(0, 1 - values[0]*values[0] - values[1]*values[1] - values[2]*values[2]));
+        SensorManager.getRotationMatrixFromVector(rotationMatrix, rotationVector);
+        hasRotation = true;
+    }
+
+    /**
+     * Horizontal acceleration in the world frame (east, north).
+     * Gravity is vertical, so the horizontal accelerometer components are true acceleration.
+     */
+    private void updateWorldAcceleration(float x, float y, float z) {
+        if(hasRotation) {
+            final float east = rotationMatrix[0] * x + rotationMatrix[1] * y + rotationMatrix[2] * z;
+            final float north = rotationMatrix[3] * x + rotationMatrix[4] * y + rotationMatrix[5] * z;
+            Services.location.predictor.onAcceleration(System.currentTimeMillis(), east, north);
+        }
+    }
+
 //    /**
 //     * Returns a string representation of all available sensors
 //     */
@@ -119,6 +209,10 @@ public class MySensorManager implements SensorEventListener, BaseService {
         if(sensorManager != null) {
             sensorManager.unregisterListener(this);
             sensorManager = null;
+            if(sensorThread != null) {
+                sensorThread.quit();
+                sensorThread = null;
+            }
         } else {
             Log.e(TAG, "Sensor manager already stopped");
         }
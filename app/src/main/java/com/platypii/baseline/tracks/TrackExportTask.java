@@ -0,0 +1,104 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.Intents;
+import com.platypii.baseline.R;
+import com.platypii.baseline.util.Exceptions;
+import android.app.Activity;
+import android.os.AsyncTask;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.widget.Toast;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+
+/**
+ * Converts a track to kml, gpx or geojson in the background, then shares it.
+ * Streams from the gzip track file straight to a cache file, in constant memory.
+ */
+public class TrackExportTask extends AsyncTask<Void,Void,File> {
+    private static final String TAG = "TrackExportTask";
+
+    // Held weakly, so that a long export does not keep a closed activity alive
+    private final WeakReference<Activity> activityRef;
+    private final File cacheDir;
+    private final TrackFile trackFile;
+    private final String format;
+    private final double tolerance;
+
+    /**
+     * @param format kml, gpx, or geojson
+     * @param tolerance simplify the path to within this many meters, or 0 to keep every point
+     */
+    public TrackExportTask(@NonNull Activity activity, @NonNull TrackFile trackFile, @NonNull String format, double tolerance) {
+        this.activityRef = new WeakReference<>(activity);
+        this.cacheDir = activity.getApplicationContext().getCacheDir();
+        this.trackFile = trackFile;
+        this.format = format;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    protected File doInBackground(Void... voids) {
+        final File exportDir = new File(cacheDir, "export");
+        if (!exportDir.isDirectory() && !exportDir.mkdirs()) {
+            Log.e(TAG, "Failed to create export directory " + exportDir);
+            return null;
+        }
+        final String name = trackFile.getName();
+        final File exportFile = new File(exportDir, name.replaceAll("\\.csv(\\.gz)?$", "") + "." + format);
+        final long start = System.currentTimeMillis();
+        try {
+            final TrackReader reader = new TrackReader(trackFile.file);
+            final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(exportFile), "UTF-8"), 65536);
+            try {
+                TrackExporter exporter = TrackExporter.create(format, out);
+                if (tolerance > 0) {
+                    exporter = new TrackSimplifier(exporter, tolerance);
+                }
+                final long points = exporter.export(reader, name);
+                Log.i(TAG, "Exported " + points + " points to " + exportFile + " in " + (System.currentTimeMillis() - start) + " ms");
+            } finally {
+                out.close();
+                reader.close();
+            }
+            return exportFile;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to export track " + trackFile, e);
+            Exceptions.report(e);
+            exportFile.delete();
+            return null;
+        }
+    }
+
+    @Override
+    protected void onPostExecute(File exportFile) {
+        final Activity activity = activityRef.get();
+        if (activity == null || activity.isFinishing()) {
+            Log.w(TAG, "Activity closed before export finished");
+        } else if (exportFile != null) {
+            Intents.shareTrackExport(activity, exportFile, mimeType(format));
+        } else {
+            Toast.makeText(activity, R.string.error_export_intent, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    @NonNull
+    private static String mimeType(@NonNull String format) {
+        switch (format) {
+            case "kml":
+                return "application/vnd.google-earth.kml+xml";
+            case "gpx":
+                return "application/gpx+xml";
+            case "geojson":
+                return "application/geo+json";
+            default:
+                return "text/plain";
+        }
+    }
+
+}
@@ -50,9 +50,30 @@ public class TrackFile {
         }
     }
 
+    /**
+     * Returns a file next to the track for extra data, such as diagnostics.
+     * For track_2018-01-01_12-00-00.csv.gz this is track_2018-01-01_12-00-00.{extension}
+     */
+    @NonNull
+    public File sidecar(@NonNull String extension) {
+        final String base = file.getName().replaceAll("\\.csv\\.gz$", "");
+        return new File(file.getParentFile(), base + "." + extension);
+    }
+
+    /** Sidecar files that currently exist for this track */
+    @NonNull
+    private File[] sidecars() {
+        final String prefix = file.getName().replaceAll("\\.csv\\.gz$", "") + ".";
+        final File[] files = file.getParentFile().listFiles((dir, name) -> name.startsWith(prefix) && !name.equals(file.getName()));
+        return files != null ? files : new File[0];
+    }
+
     /** Delete local track file */
     public boolean delete() {
         Log.w(TAG, "Deleting track file " + file);
+        for (File sidecar : sidecars()) {
+            sidecar.delete();
+        }
         return file.delete();
     }
 
@@ -66,6 +87,10 @@ public class TrackFile {
         if(!syncedDir.exists()) {
             syncedDir.mkdir();
         }
+        // Move sidecar files along with the track
+        for (File sidecar : sidecars()) {
+            sidecar.renameTo(new File(syncedDir, sidecar.getName()));
+        }
         // Move track file to synced directory
         final File destination = new File(syncedDir, file.getName());
         if(file.renameTo(destination)) {
@@ -2,8 +2,16 @@ package com.platypii.baseline.tracks;
 
 import com.platypii.baseline.BaseService;
 import com.platypii.baseline.Services;
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.diagnostics.Gauge;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.diagnostics.MetricsSnapshot;
+import com.platypii.baseline.diagnostics.ServiceCost;
 import com.platypii.baseline.events.LoggingEvent;
 import com.platypii.baseline.location.MyLocationListener;
+import com.platypii.baseline.location.NmeaCapture;
 import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.measurements.MPressure;
 import com.platypii.baseline.measurements.Measurement;
@@ -19,6 +27,7 @@ import org.greenrobot.eventbus.ThreadMode;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.text.SimpleDateFormat;
@@ -44,6 +53,12 @@ public class TrackLogger implements MyLocationListener, MySensorListener, BaseSe
     private TrackFile trackFile;
     private BufferedWriter log;
 
+    // Metrics
+    private final Counter bytesWritten = Metrics.counter("logger.bytes");
+    private final Gauge queueDepth = Metrics.gauge("logger.queue"); // lines waiting for the writer
+    private MetricsSnapshot startMetrics;
+    private final ServiceCost serviceCost = ServiceCost.get("TrackLogger");
+
     public void start(@NonNull final Context context) {
         AsyncTask.execute(() -> logDir = TrackFiles.getTrackDirectory(context));
     }
@@ -152,10 +167,18 @@ public class TrackLogger implements MyLocationListener, MySensorListener, BaseSe
         // Write header
         log.write(Measurement.header + "\n");
 
+        // Start fresh diagnostics for this track
+        LatencyTrace.reset();
+        startMetrics = Metrics.snapshot();
+        ServiceCost.reset();
+
         // Start sensor updates
         EventBus.getDefault().register(this);
-        Services.location.addListener(this);
+        Services.location.addRawListener(this);
         Services.sensors.addListener(this);
+        if (NmeaCapture.preferenceEnabled) {
+            Services.location.startCapture(trackFile.sidecar("nmea.txt.gz"), trackFile.sidecar("bluetooth.nmea.txt.gz"));
+        }
 
         Log.i(TAG, "Logging to " + logFile);
     }
@@ -169,13 +192,15 @@ public class TrackLogger implements MyLocationListener, MySensorListener, BaseSe
 
         // Stop sensor updates
         EventBus.getDefault().unregister(this);
-        Services.location.removeListener(this);
+        Services.location.removeRawListener(this);
         Services.sensors.removeListener(this);
+        Services.location.stopCapture();
 
         // Close file writer
         try {
             log.close();
             Log.i(TAG, "Logging stopped for " + trackFile);
+            writeSidecars(trackFile);
             return trackFile;
         } catch (IOException e) {
             Log.e(TAG, "Failed to close log file " + trackFile, e);
@@ -184,6 +209,54 @@ public class TrackLogger implements MyLocationListener, MySensorListener, BaseSe
         }
     }
 
+    /**
+     * Write diagnostics next to the track file, for post-jump analysis
+     */
+    private void writeSidecars(@NonNull TrackFile trackFile) {
+        final File latencyFile = trackFile.sidecar("latency.csv");
+        try (FileWriter writer = new FileWriter(latencyFile)) {
+            LatencyTrace.write(writer);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write latency trace " + latencyFile, e);
+        }
+        final File metricsFile = trackFile.sidecar("metrics.txt");
+        try (FileWriter writer = new FileWriter(metricsFile)) {
+            writer.write(Metrics.snapshot().format(startMetrics));
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write metrics " + metricsFile, e);
+        }
+        writeFlightRecorder(trackFile.sidecar("events.csv"));
+        final File servicesFile = trackFile.sidecar("services.txt");
+        try (FileWriter writer = new FileWriter(servicesFile)) {
+            writer.write(ServiceCost.summary());
+            writer.write('\n');
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write service costs " + servicesFile, e);
+        }
+    }
+
+    /**
+     * Dump recent internal events after an uncaught exception.
+     * Goes next to the current track if logging, otherwise in the track directory.
+     * Not synchronized, since the crashing thread may hold the lock.
+     */
+    public void dumpFlightRecorder() {
+        final TrackFile current = trackFile;
+        if (logging && current != null) {
+            writeFlightRecorder(current.sidecar("events.csv"));
+        } else if (logDir != null) {
+            writeFlightRecorder(new File(logDir, "crash_events.csv"));
+        }
+    }
+
+    private static void writeFlightRecorder(@NonNull File file) {
+        try (FileWriter writer = new FileWriter(file)) {
+            FlightRecorder.write(writer);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write flight recorder " + file, e);
+        }
+    }
+
     /**
      * Listen for altitude updates
      */
@@ -195,7 +268,7 @@ public class TrackLogger implements MyLocationListener, MySensorListener, BaseSe
     }
 
     /**
-     * Listen for location updates
+     * Listen for raw location updates, so the log has every fix as received
      */
     @Override
     public void onLocationChanged(@NonNull MLocation measure) {
@@ -216,11 +289,20 @@ public class TrackLogger implements MyLocationListener, MySensorListener, BaseSe
      * Write a measurement to the track file
      * @param line the measurement to store
      */
-    private synchronized void logLine(@NonNull String line) {
+    private void logLine(@NonNull String line) {
+        serviceCost.begin();
+        queueDepth.inc();
+        writeLine(line);
+        queueDepth.dec();
+        serviceCost.end();
+    }
+
+    private synchronized void writeLine(@NonNull String line) {
         if(logging) {
             try {
                 log.write(line);
                 log.write('\n');
+                bytesWritten.add(line.length() + 1);
             } catch (IOException e) {
                 Log.e(TAG, "Failed to write to track file " + trackFile, e);
                 Exceptions.report(e);
@@ -0,0 +1,80 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.Services;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.diagnostics.MetricsSnapshot;
+import com.platypii.baseline.diagnostics.ServiceCost;
+import com.platypii.baseline.location.LocationProviderTrack;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import java.io.File;
+
+/**
+ * Replays a recorded track through the live services, to profile them against real jumps on a bench.
+ * Pressure rows go through the barometric altimeter, and sensor rows to the sensor manager listeners.
+ * Service costs and metrics are logged when the replay finishes, to compare across builds.
+ * When the replay finishes or is cancelled, the live services are started again.
+ */
+public class TrackReplay implements LocationProviderTrack.SensorListener {
+    private static final String TAG = "TrackReplay";
+
+    // The replay in progress, only this one restarts live services when it finishes
+    private static TrackReplay current;
+
+    private final Context context;
+    private final MetricsSnapshot startMetrics;
+
+    private TrackReplay(@NonNull Context context) {
+        this.context = context;
+        ServiceCost.reset();
+        startMetrics = Metrics.snapshot();
+    }
+
+    /**
+     * Stop live sensors and replay the track instead
+     * @param speed 1 for real time, N for N times faster, or LocationProviderTrack.MAX_SPEED
+     */
+    public static void start(@NonNull Context context, @NonNull File file, double speed) {
+        Log.i(TAG, "Replaying " + file + " at speed " + speed);
+        Services.sensors.stop();
+        Services.alti.baro.stop();
+        final TrackReplay replay = new TrackReplay(context);
+        current = replay;
+        Services.location.startReplay(context, file, speed, replay);
+    }
+
+    @Override
+    public void onPressure(long nano, float pressure) {
+        Services.alti.baro.replayPressure(nano, pressure);
+    }
+
+    @Override
+    public void onSensor(int type, long nano, float x, float y, float z) {
+        Services.sensors.replaySensor(type, nano, x, y, z);
+    }
+
+    @Override
+    public void onReplayFinished() {
+        Log.i(TAG, "Replay finished\n" + ServiceCost.summary() + "\n" + Metrics.snapshot().format(startMetrics));
+        // Called on the replay thread, which location restart would wait on
+        new Handler(Looper.getMainLooper()).post(this::restartLive);
+    }
+
+    /**
+     * Start the live services that were stopped for the replay, unless services are shutting down
+     */
+    private void restartLive() {
+        if (current != this) return;
+        current = null;
+        if (Services.isStarted()) {
+            Log.i(TAG, "Restarting live services");
+            Services.location.restart(context);
+            Services.sensors.start(context);
+            Services.alti.baro.start(context);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.Services;
+import android.content.Context;
+import android.os.Build;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.RequiresApi;
+import android.util.Log;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Recomputes the summary of every local track, synced or not, in the background.
+ * Tracks already summarized by the current TrackBatch.VERSION are skipped, so this is cheap
+ * to start on every launch. Pauses while recording.
+ */
+public class TrackReprocessor implements TrackBatch.Listener {
+    private static final String TAG = "TrackReprocessor";
+
+    private static TrackBatch batch;
+
+    public static synchronized void start(@NonNull Context context) {
+        if (batch != null) {
+            Log.w(TAG, "Reprocessing already running");
+            return;
+        }
+        final TrackBatch newBatch = new TrackBatch(trackFiles(context), new TrackReprocessor());
+        batch = newBatch;
+        // Own thread, so the serial AsyncTask executor is not held for the whole batch
+        new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            final long start = System.currentTimeMillis();
+            final TrackStats stats;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                // Leave cores for the ui and the sensor threads
+                final int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+                stats = newBatch.runParallel(parallelism, BackgroundWorker::new);
+            } else {
+                stats = newBatch.run();
+            }
+            Log.i(TAG, "Reprocessed " + newBatch.processed + " tracks, skipped " + newBatch.skipped +
+                    (newBatch.isCancelled() ? ", cancelled" : "") + " in " + (System.currentTimeMillis() - start) + " ms: " + stats);
+            finished(newBatch);
+        }, "TrackReprocessor").start();
+    }
+
+    /**
+     * Fork-join worker at background priority. Setting the priority of the launching thread
+     * does not carry over to pool workers.
+     */
+    @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+    private static class BackgroundWorker extends ForkJoinWorkerThread {
+        BackgroundWorker(@NonNull ForkJoinPool pool) {
+            super(pool);
+        }
+        @Override
+        protected void onStart() {
+            super.onStart();
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        }
+    }
+
+    /**
+     * Stop before the next track. The next start resumes from there.
+     */
+    public static synchronized void cancel() {
+        if (batch != null) {
+            batch.cancel();
+        }
+    }
+
+    private static synchronized void finished(@NonNull TrackBatch finishedBatch) {
+        if (batch == finishedBatch) {
+            batch = null;
+        }
+    }
+
+    /**
+     * Local tracks, and the synced directory
+     */
+    @NonNull
+    private static List<File> trackFiles(@NonNull Context context) {
+        final List<File> files = new ArrayList<>();
+        for (TrackFile trackFile : TrackFiles.getTracks(context)) {
+            files.add(trackFile.file);
+        }
+        final File trackDir = TrackFiles.getTrackDirectory(context);
+        if (trackDir != null) {
+            final File[] synced = new File(trackDir, "synced").listFiles((dir, name) -> name.startsWith("track_") && name.endsWith(".csv.gz"));
+            if (synced != null) {
+                for (File file : synced) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    @Override
+    public void onProgress(int done, int total) {
+        Log.d(TAG, "Reprocessed " + done + " of " + total + " tracks");
+    }
+
+    /**
+     * Never compete with an active recording
+     */
+    @Override
+    public boolean isBusy() {
+        return Services.logger.isLogging();
+    }
+
+}
@@ -2,14 +2,21 @@ package com.platypii.baseline.views;
 
 import com.platypii.baseline.R;
 import com.platypii.baseline.Services;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.diagnostics.MetricsSnapshot;
+import com.platypii.baseline.diagnostics.ServiceCost;
 import com.platypii.baseline.location.MyLocationListener;
 import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.measurements.MPressure;
 import com.platypii.baseline.measurements.MSensor;
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.sensors.MySensorListener;
 import com.platypii.baseline.util.Convert;
 import com.platypii.baseline.util.Numbers;
 import com.platypii.baseline.util.SyncedList;
 import com.platypii.baseline.views.charts.SensorPlot;
+import com.platypii.baseline.views.charts.SkyView;
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.pm.ActivityInfo;
@@ -23,6 +30,8 @@ import android.widget.TextView;
 import org.greenrobot.eventbus.EventBus;
 import org.greenrobot.eventbus.Subscribe;
 import org.greenrobot.eventbus.ThreadMode;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 @SuppressLint("SetTextI18n")
@@ -41,6 +50,7 @@ public class SensorActivity extends Activity implements MyLocationListener {
     private TextView gpsSourceLabel;
     private TextView bluetoothStatusLabel;
     private TextView satelliteLabel;
+    private SkyView skyView;
     private TextView lastFixLabel;
     private TextView latitudeLabel;
     private TextView longitudeLabel;
@@ -57,10 +67,27 @@ public class SensorActivity extends Activity implements MyLocationListener {
     private TextView bearingLabel;
     // Misc
     private TextView flightModeLabel;
+    // Latency
+    private TextView latencyLabel;
+    // Services
+    private TextView serviceCostLabel;
+    // Metrics
+    private TextView metricsLabel;
+    private MetricsSnapshot prevMetrics; // Rates are computed relative to this snapshot
+    private static final long metricsInterval = 1000000000L; // nanoseconds
 
     // Sensors
     private LinearLayout sensorLayout;
-    // private final ArrayList<SensorPlot> plots = new ArrayList<>();
+    private final List<SensorPlot> plots = new ArrayList<>();
+    // Redraw plots when new sensor data arrives
+    private final MySensorListener sensorListener = new MySensorListener() {
+        @Override
+        public void onSensorChanged(@NonNull Measurement measurement) {
+            for(SensorPlot plot : plots) {
+                plot.invalidatePlot();
+            }
+        }
+    };
 
     // Periodic UI updates    
     private final Handler handler = new Handler();
@@ -89,6 +116,7 @@ public class SensorActivity extends Activity implements MyLocationListener {
         gpsSourceLabel = findViewById(R.id.gpsSourceLabel);
         bluetoothStatusLabel = findViewById(R.id.bluetoothStatusLabel);
         satelliteLabel = findViewById(R.id.satelliteLabel);
+        skyView = findViewById(R.id.skyView);
         lastFixLabel = findViewById(R.id.lastFixLabel);
         latitudeLabel = findViewById(R.id.latitudeLabel);
         longitudeLabel = findViewById(R.id.longitudeLabel);
@@ -107,6 +135,11 @@ public class SensorActivity extends Activity implements MyLocationListener {
         // Misc
         flightModeLabel = findViewById(R.id.flightModeLabel);
 
+        // Latency
+        latencyLabel = findViewById(R.id.latencyLabel);
+        serviceCostLabel = findViewById(R.id.serviceCostLabel);
+        metricsLabel = findViewById(R.id.metricsLabel);
+
         // Sensors
         sensorLayout = findViewById(R.id.sensorLayout);
         // TextView sensorsLabel = (TextView)findViewById(R.id.sensorsLabel);
@@ -145,6 +178,9 @@ public class SensorActivity extends Activity implements MyLocationListener {
         EventBus.getDefault().register(this);
         updateAltimeter();
 
+        // Start sensor plot updates
+        Services.sensors.addListener(sensorListener);
+
         // Periodic UI updates
         updateRunnable = new Runnable() {
             public void run() {
@@ -163,6 +199,7 @@ public class SensorActivity extends Activity implements MyLocationListener {
         updateRunnable = null;
         EventBus.getDefault().unregister(this);
         Services.location.removeListener(this);
+        Services.sensors.removeListener(sensorListener);
     }
 
     private void addPlot(String label, SyncedList<MSensor> history) {
@@ -176,7 +213,7 @@ public class SensorActivity extends Activity implements MyLocationListener {
             plot.loadHistory(history);
 
             sensorLayout.addView(plot);
-            // plots.add(plot);
+            plots.add(plot);
         }
     }
 
@@ -280,6 +317,24 @@ public class SensorActivity extends Activity implements MyLocationListener {
         }
         // Altitude refresh rate
         pressureLabel.setText(String.format(Locale.getDefault(), "Pressure: %s (%.2fHz)", Convert.pressure(Services.alti.baro.pressure), Services.alti.baro.refreshRate));
+        // Sky plot redraws when new satellite data arrives
+        skyView.setSource(Services.location.satellites());
+        skyView.update();
+        // Pipeline latency per stage
+        latencyLabel.setText(LatencyTrace.summary());
+        updateMetrics();
+    }
+
+    /** Render metrics once per second, with rates over the last second */
+    private void updateMetrics() {
+        final MetricsSnapshot snapshot = Metrics.snapshot();
+        if(prevMetrics == null) {
+            prevMetrics = snapshot;
+        } else if(snapshot.nano() - prevMetrics.nano() >= metricsInterval) {
+            metricsLabel.setText(snapshot.format(prevMetrics));
+            serviceCostLabel.setText(ServiceCost.summary());
+            prevMetrics = snapshot;
+        }
     }
 
     @Override
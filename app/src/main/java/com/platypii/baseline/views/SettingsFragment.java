@@ -6,6 +6,7 @@ import com.platypii.baseline.Services;
 import com.platypii.baseline.views.bluetooth.BluetoothActivity;
 import com.platypii.baseline.events.AuthEvent;
 import com.platypii.baseline.jarvis.AutoStop;
+import com.platypii.baseline.location.NmeaCapture;
 import com.platypii.baseline.util.Convert;
 import android.content.Intent;
 import android.os.Bundle;
@@ -62,6 +63,10 @@ public class SettingsFragment extends PreferenceFragment implements Preference.O
                 Log.i(TAG, "Setting auto-stop mode: " + value);
                 AutoStop.preferenceEnabled = (Boolean) value;
                 break;
+            case "nmea_capture_enabled":
+                Log.i(TAG, "Setting nmea capture: " + value);
+                NmeaCapture.preferenceEnabled = (Boolean) value;
+                break;
         }
         updateViews();
         return true;
@@ -4,10 +4,13 @@ import com.platypii.baseline.views.BaseActivity;
 import com.platypii.baseline.Intents;
 import com.platypii.baseline.R;
 import com.platypii.baseline.Services;
+import com.platypii.baseline.bluetooth.ReceiverConfig;
 import com.platypii.baseline.events.BluetoothEvent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
+import android.widget.AdapterView;
+import android.widget.Spinner;
 import android.widget.Switch;
 import android.widget.TextView;
 import com.google.firebase.analytics.FirebaseAnalytics;
@@ -22,6 +25,8 @@ public class BluetoothActivity extends BaseActivity {
 
     private Switch bluetoothSwitch;
     private TextView bluetoothStatus;
+    private Spinner receiverSpinner;
+    private Spinner rateSpinner;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -32,13 +37,47 @@ public class BluetoothActivity extends BaseActivity {
 
         bluetoothSwitch = findViewById(R.id.bluetooth_switch);
         bluetoothStatus = findViewById(R.id.bluetooth_status);
+        receiverSpinner = findViewById(R.id.bluetooth_receiver);
+        rateSpinner = findViewById(R.id.bluetooth_rate);
+        receiverSpinner.setOnItemSelectedListener(receiverListener);
+        rateSpinner.setOnItemSelectedListener(receiverListener);
     }
 
     private void updateViews() {
         bluetoothSwitch.setChecked(Services.bluetooth.preferences.preferenceEnabled);
         bluetoothStatus.setText(Services.bluetooth.getStatusMessage(this));
+        receiverSpinner.setSelection(Services.bluetooth.preferences.preferenceReceiver);
+        rateSpinner.setSelection(rateIndex(Services.bluetooth.preferences.preferenceRate));
+        final boolean selected = Services.bluetooth.preferences.preferenceDeviceId != null;
+        receiverSpinner.setEnabled(selected);
+        rateSpinner.setEnabled(selected);
     }
 
+    private static int rateIndex(int rate) {
+        for(int i = 0; i < ReceiverConfig.RATES.length; i++) {
+            if(ReceiverConfig.RATES[i] == rate) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private final AdapterView.OnItemSelectedListener receiverListener = new AdapterView.OnItemSelectedListener() {
+        @Override
+        public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+            final int receiver = receiverSpinner.getSelectedItemPosition();
+            final int rate = ReceiverConfig.RATES[rateSpinner.getSelectedItemPosition()];
+            if(receiver != Services.bluetooth.preferences.preferenceReceiver || rate != Services.bluetooth.preferences.preferenceRate) {
+                Log.i(TAG, "User selected receiver " + receiver + " at " + rate + " Hz");
+                Services.bluetooth.preferences.saveReceiver(BluetoothActivity.this, receiver, rate);
+                Services.bluetooth.reconfigure();
+            }
+        }
+
+        @Override
+        public void onNothingSelected(AdapterView<?> parent) {}
+    };
+
     public void clickEnable(View v) {
         // Save preference
         final boolean enable = !Services.bluetooth.preferences.preferenceEnabled;
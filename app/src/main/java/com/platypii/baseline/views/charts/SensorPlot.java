@@ -3,7 +3,6 @@ package com.platypii.baseline.views.charts;
 import com.platypii.baseline.measurements.MSensor;
 import com.platypii.baseline.util.AdjustBounds;
 import com.platypii.baseline.util.Bounds;
-import com.platypii.baseline.util.DataSeries;
 import com.platypii.baseline.util.SyncedList;
 import android.content.Context;
 import android.support.annotation.NonNull;
@@ -12,15 +11,23 @@ import java.util.Iterator;
 
 public class SensorPlot extends PlotView {
 
+    // Number of samples shown
+    private static final int window = 300;
+
     private SyncedList<MSensor> history;
+    private long historyCount = 0; // history values already added to the series
 
-    private final DataSeries xSeries = new DataSeries();
-    private final DataSeries ySeries = new DataSeries();
-    private final DataSeries zSeries = new DataSeries();
+    // Scrolling series, which only redraw new samples each frame
+    private final ScrollingPath xSeries = new ScrollingPath(window);
+    private final ScrollingPath ySeries = new ScrollingPath(window);
+    private final ScrollingPath zSeries = new ScrollingPath(window);
 
     final Bounds inner = new Bounds();
     final Bounds outer = new Bounds();
 
+    // Y axis scale, held until the data outgrows it so that the cached paths stay valid
+    private double scale = Double.NaN;
+
     public SensorPlot(Context context, AttributeSet attrs) {
         super(context, attrs);
 
@@ -30,8 +37,6 @@ public class SensorPlot extends PlotView {
         options.padding.left = (int) (2 * density);
         options.padding.right = (int) (6 * density);
 
-        inner.x.min = outer.x.min = 0;
-        inner.x.max = 100;
         inner.y.min = -1;
         inner.y.max = 1;
     }
@@ -42,59 +47,59 @@ public class SensorPlot extends PlotView {
      */
     public void loadHistory(SyncedList<MSensor> history) {
         this.history = history;
-    } 
+        historyCount = 0;
+        xSeries.reset();
+        ySeries.reset();
+        zSeries.reset();
+        invalidatePlot();
+    }
 
-    @Override
-    public void drawData(@NonNull Plot plot) {
+    /**
+     * Add only the sensor readings that arrived since the last frame
+     */
+    private void loadNew() {
         if(history != null) {
-            xSeries.reset();
-            ySeries.reset();
-            zSeries.reset();
-            // Copy values to data series (so that we don't block while drawing circles)
             synchronized(history) {
-                final Iterator<MSensor> it = history.iterator();
-                for(int i = 0; it.hasNext(); i++) {
-                    MSensor event = it.next();
-                    xSeries.addPoint(i, event.x());
-                    ySeries.addPoint(i, event.y());
-                    zSeries.addPoint(i, event.z());
+                final Iterator<MSensor> it = history.since(historyCount);
+                while(it.hasNext()) {
+                    final MSensor event = it.next();
+                    xSeries.add(event.x());
+                    ySeries.add(event.y());
+                    zSeries.add(event.z());
                 }
+                historyCount = history.count();
             }
-
-            // Point plot:
-            // drawPoints(canvas, xSeries, 1.5f, 0xffee0000);
-            // drawPoints(canvas, ySeries, 1.5f, 0xff00ee00);
-            // drawPoints(canvas, zSeries, 1.5f, 0xffee00ee);
-
-            // Area plot:
-            // paint.setColor(0xffee0000);
-            // drawArea(canvas, xSeries, 0, 1);
-            // paint.setColor(0xff00ee00);
-            // drawArea(canvas, ySeries, 0, 1);
-            // paint.setColor(0xffee00ee);
-            // drawArea(canvas, zSeries, 0, 1);
-
-            // Line plot:
-            paint.setStrokeMiter(2);
-            paint.setColor(0xffee0000);
-            plot.drawLine(xSeries, 1.5f, paint);
-            paint.setColor(0xff00ee00);
-            plot.drawLine(ySeries, 1.5f, paint);
-            paint.setColor(0xffee00ee);
-            plot.drawLine(zSeries, 1.5f, paint);
         }
     }
 
+    @Override
+    public void drawData(@NonNull Plot plot) {
+        // Line plot:
+        paint.setStrokeMiter(2);
+        paint.setColor(0xffee0000);
+        plot.drawLine(xSeries, 1.5f, paint);
+        paint.setColor(0xff00ee00);
+        plot.drawLine(ySeries, 1.5f, paint);
+        paint.setColor(0xffee00ee);
+        plot.drawLine(zSeries, 1.5f, paint);
+    }
+
     private final Bounds bounds = new Bounds();
     @NonNull
     @Override
     public Bounds getBounds(@NonNull Bounds dataBounds) {
-        // Show last N
+        // Load new samples first, so that the window ends at the newest sample
+        loadNew();
         bounds.set(dataBounds);
         AdjustBounds.clean(bounds, inner, outer);
-        // Symmetric Y axis
+        // Symmetric Y axis, with headroom so that it rarely changes
         final double topBottom = Math.max(Math.abs(bounds.y.max), Math.abs(bounds.y.min));
-        bounds.set(bounds.x.min, topBottom, bounds.x.max, -topBottom);
+        if(Double.isNaN(scale) || topBottom > scale || topBottom < scale / 2) {
+            scale = topBottom * 1.2;
+        }
+        // Show last N
+        final long count = xSeries.count();
+        bounds.set(count - window, scale, count - 1, -scale);
         return bounds;
     }
 
@@ -4,6 +4,7 @@ import com.platypii.baseline.R;
 import com.platypii.baseline.Services;
 import com.platypii.baseline.views.altimeter.AnalogAltimeterSettable;
 import com.platypii.baseline.location.LandingZone;
+import com.platypii.baseline.location.LocationPredictor;
 import com.platypii.baseline.location.MyLocationListener;
 import com.platypii.baseline.measurements.MAltitude;
 import com.platypii.baseline.measurements.MLocation;
@@ -13,6 +14,7 @@ import com.platypii.baseline.views.BaseActivity;
 import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.os.Bundle;
+import android.os.Handler;
 import android.preference.PreferenceManager;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -67,6 +69,18 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
     // Activity state
     private boolean ready = false;
 
+    // Move my position marker at display rate, between fixes
+    private static final long frameMillis = 33;
+    private final Handler handler = new Handler();
+    private final LocationPredictor.State predicted = new LocationPredictor.State();
+    private final Runnable frameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            updatePredictedPosition();
+            handler.postDelayed(this, frameMillis);
+        }
+    };
+
     // Drag listener
     private boolean dragged = false;
     private long lastDrag = 0;
@@ -110,7 +124,7 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
         map.setMapType(GoogleMap.MAP_TYPE_HYBRID);
         // Center priority: current location, home location, default location
         if(Services.location.lastLoc != null) {
-            final LatLng center = Services.location.lastLoc.latLng();
+            final LatLng center = latLng(Services.location.lastLoc);
             map.moveCamera(CameraUpdateFactory.newLatLngZoom(center, MapOptions.getZoom()));
             Log.i(TAG, "Centering map on " + center);
         } else if(LandingZone.homeLoc != null) {
@@ -237,7 +251,7 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
     private void updateLocation() {
         updateFlightStats();
         if(ready) {
-            final LatLng currentLoc = Services.location.lastLoc.latLng();
+            final LatLng currentLoc = latLng(Services.location.lastLoc);
 
             // Update markers and overlays
             updateMyPosition();
@@ -280,7 +294,7 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
             homeMarker.setPosition(LandingZone.homeLoc);
             homeMarker.setVisible(true);
             if(Services.location.lastLoc != null) {
-                final LatLng currentLoc = Services.location.lastLoc.latLng();
+                final LatLng currentLoc = latLng(Services.location.lastLoc);
                 homePoints.clear();
                 homePoints.add(currentLoc);
                 homePoints.add(LandingZone.homeLoc);
@@ -296,7 +310,7 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
     private void updateLanding() {
         final LatLng landingLocation = LandingZone.getLandingLocation();
         if(landingLocation != null) {
-            final LatLng currentLoc = Services.location.lastLoc.latLng();
+            final LatLng currentLoc = latLng(Services.location.lastLoc);
             landingMarker.setPosition(landingLocation);
             landingMarker.setVisible(true);
             landingPoints.clear();
@@ -332,7 +346,7 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
     private void updateMyPosition() {
         if(Services.location.isFresh()) {
             myPositionMarker.setVisible(true);
-            myPositionMarker.setPosition(Services.location.lastLoc.latLng());
+            myPositionMarker.setPosition(latLng(Services.location.lastLoc));
             final double groundSpeed = Services.location.groundSpeed();
             final double bearing = Services.location.bearing();
             if(Numbers.isReal(bearing) && groundSpeed > 0.1) {
@@ -345,11 +359,24 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
         }
     }
 
+    private void updatePredictedPosition() {
+        if(ready && Services.location.isFresh()) {
+            Services.location.predictNow(predicted);
+            if(predicted.valid) {
+                myPositionMarker.setPosition(new LatLng(predicted.latitude, predicted.longitude));
+                if(predicted.groundSpeed() > 0.1) {
+                    myPositionMarker.setRotation((float) predicted.bearing());
+                }
+            }
+        }
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
         // Start sensor updates
         Services.location.addListener(this);
+        handler.post(frameRunnable);
         EventBus.getDefault().register(this);
         // Recenter on last location
         if(Services.location.lastLoc != null) {
@@ -364,6 +391,7 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
         super.onPause();
         // Stop sensor updates
         Services.location.removeListener(this);
+        handler.removeCallbacks(frameRunnable);
         EventBus.getDefault().unregister(this);
     }
 
@@ -373,4 +401,9 @@ public class MapActivity extends BaseActivity implements MyLocationListener, OnM
         mapFragment.removeOnTouchListeners();
     }
 
+    @NonNull
+    private static LatLng latLng(@NonNull MLocation loc) {
+        return new LatLng(loc.latitude, loc.longitude);
+    }
+
 }
@@ -1,18 +1,22 @@
 package com.platypii.baseline.views.tracks;
 
+import com.platypii.baseline.BuildConfig;
 import com.platypii.baseline.Intents;
 import com.platypii.baseline.R;
 import com.platypii.baseline.Services;
 import com.platypii.baseline.cloud.CloudData;
 import com.platypii.baseline.events.AuthEvent;
 import com.platypii.baseline.events.SyncEvent;
+import com.platypii.baseline.tracks.TrackExportTask;
 import com.platypii.baseline.tracks.TrackFile;
 import com.platypii.baseline.tracks.TrackFiles;
+import com.platypii.baseline.tracks.TrackReplay;
 import com.platypii.baseline.tracks.TrackState;
 import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.views.BaseActivity;
 import android.app.AlertDialog;
 import android.content.DialogInterface;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.util.Log;
@@ -38,6 +42,11 @@ public class TrackLocalActivity extends BaseActivity implements DialogInterface.
 
     private TrackFile trackFile;
 
+    // Export formats, in the order of R.array.export_formats, followed by raw csv
+    private static final String[] exportFormats = {"kml", "gpx", "geojson"};
+    // Simplify map formats to within a meter, keep every point for gpx analysis tools
+    private static final double[] exportTolerance = {1, 0, 1};
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -66,6 +75,12 @@ public class TrackLocalActivity extends BaseActivity implements DialogInterface.
 
         findViewById(R.id.exportButton).setOnClickListener(this::clickExport);
         findViewById(R.id.deleteButton).setOnClickListener(this::clickDelete);
+        if(BuildConfig.DEBUG) {
+            // Bench testing only
+            final View replayButton = findViewById(R.id.replayButton);
+            replayButton.setVisibility(View.VISIBLE);
+            replayButton.setOnClickListener(this::clickReplay);
+        }
     }
 
     /**
@@ -136,9 +151,25 @@ public class TrackLocalActivity extends BaseActivity implements DialogInterface.
         }
     }
 
+    private void clickReplay(View v) {
+        Toast.makeText(getApplicationContext(), "Replaying " + trackFile.getName(), Toast.LENGTH_SHORT).show();
+        TrackReplay.start(getApplicationContext(), trackFile.file, 1);
+    }
+
     private void clickExport(View v) {
         firebaseAnalytics.logEvent("click_track_export", null);
-        Intents.exportTrackFile(this, trackFile);
+        alertDialog = new AlertDialog.Builder(this)
+            .setTitle(R.string.action_export)
+            .setItems(R.array.export_formats, (dialog, which) -> {
+                if(which < exportFormats.length) {
+                    // Thread pool, so that the export does not hold up location updates on the serial executor
+                    new TrackExportTask(this, trackFile, exportFormats[which], exportTolerance[which]).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+                } else {
+                    // Raw track data
+                    Intents.exportTrackFile(this, trackFile);
+                }
+            })
+            .show();
     }
 
     @Subscribe(threadMode = ThreadMode.MAIN)
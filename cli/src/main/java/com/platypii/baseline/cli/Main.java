@@ -0,0 +1,178 @@
+package com.platypii.baseline.cli;
+
+import com.platypii.baseline.diagnostics.ServiceCost;
+import com.platypii.baseline.tracks.TrackAnalyzer;
+import com.platypii.baseline.tracks.TrackExporter;
+import com.platypii.baseline.tracks.TrackSimplifier;
+import com.platypii.baseline.tracks.TrackStats;
+import com.platypii.baseline.tracks.TrackSummary;
+import android.support.annotation.NonNull;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Batch analyser for track archives.
+ *
+ * Usage: baseline <dir> [--out dir] [--format kml,gpx,geojson,csv] [--simplify meters] [--threads N]
+ *
+ * Finds every track (track_*.csv or track_*.csv.gz) under dir, skipping the output directory, and analyzes them in parallel on all cores.
+ * Writes summary.csv with one row per track, and optionally exports each track.
+ * Each worker streams one track at a time, so memory is bounded by the thread count.
+ */
+public class Main {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        File dir = null;
+        File out = new File(".");
+        String[] formats = {};
+        double tolerance = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                out = new File(args[++i]);
+            } else if ("--format".equals(args[i]) && i + 1 < args.length) {
+                formats = args[++i].split(",");
+            } else if ("--simplify".equals(args[i]) && i + 1 < args.length) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (dir == null && !args[i].startsWith("--")) {
+                dir = new File(args[i]);
+            } else {
+                usage();
+                return;
+            }
+        }
+        if (dir == null || !dir.isDirectory()) {
+            usage();
+            return;
+        }
+        if (!out.isDirectory() && !out.mkdirs()) {
+            System.err.println("Failed to create output directory " + out);
+            System.exit(1);
+        }
+
+        // Thread cpu time, for service accounting
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean.isCurrentThreadCpuTimeSupported()) {
+            ServiceCost.clock = threadBean::getCurrentThreadCpuTime;
+        }
+
+        final List<File> files = new ArrayList<>();
+        findTracks(dir, out.getCanonicalFile(), files);
+        System.out.printf(Locale.US, "Analyzing %d tracks on %d threads\n", files.size(), threads);
+
+        final long startNanos = System.nanoTime();
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final List<Future<TrackSummary>> futures = new ArrayList<>(files.size());
+        final String root = dir.getPath();
+        final File outDir = out;
+        final String[] exportFormats = formats;
+        final double exportTolerance = tolerance;
+        for (final File file : files) {
+            futures.add(pool.submit(() -> analyze(file, name(root, file), outDir, exportFormats, exportTolerance)));
+        }
+        pool.shutdown();
+
+        // Collect in file order, so the summary is deterministic
+        final TrackStats stats = new TrackStats();
+        final Writer summary = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(out, "summary.csv")), "UTF-8"));
+        try {
+            summary.write(TrackSummary.header + "\n");
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    final TrackSummary result = futures.get(i).get();
+                    summary.write(result.toRow() + "\n");
+                    stats.add(result);
+                } catch (ExecutionException e) {
+                    System.err.println("Failed to analyze " + files.get(i) + ": " + e.getCause());
+                    stats.failed++;
+                }
+            }
+        } finally {
+            summary.close();
+        }
+
+        final double seconds = (System.nanoTime() - startNanos) * 1e-9;
+        System.out.println(stats);
+        System.out.printf(Locale.US, "%.2f s: %.1f MB/s, %.1f tracks/s\n",
+                seconds, stats.bytes * 1e-6 / seconds, stats.tracks / seconds);
+        System.out.println(ServiceCost.summary());
+    }
+
+    @NonNull
+    private static TrackSummary analyze(@NonNull File file, @NonNull String name, @NonNull File out, @NonNull String[] formats, double tolerance) throws IOException {
+        final List<TrackExporter> exporters = new ArrayList<>(formats.length);
+        final List<Writer> writers = new ArrayList<>(formats.length);
+        try {
+            for (String format : formats) {
+                final File exportFile = new File(out, name.replaceAll("\\.csv(\\.gz)?$", "") + "." + format);
+                if (exportFile.getCanonicalFile().equals(file.getCanonicalFile())) {
+                    throw new IOException("Export would overwrite track " + file);
+                }
+                final File parent = exportFile.getParentFile();
+                if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                    throw new IOException("Failed to create directory " + parent);
+                }
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(exportFile), "UTF-8"), 65536);
+                writers.add(writer);
+                final TrackExporter exporter = TrackExporter.create(format, writer);
+                exporters.add(tolerance > 0 ? new TrackSimplifier(exporter, tolerance) : exporter);
+            }
+            return TrackAnalyzer.analyze(file, name, exporters);
+        } finally {
+            for (Writer writer : writers) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Recursively find track files, in a stable order.
+     * Skips the output directory, so that exports are not analysed as tracks.
+     */
+    private static void findTracks(@NonNull File dir, @NonNull File out, @NonNull List<File> files) throws IOException {
+        final File[] children = dir.listFiles();
+        if (children != null) {
+            Arrays.sort(children);
+            for (File child : children) {
+                final String name = child.getName();
+                if (child.isDirectory()) {
+                    if (!child.getCanonicalFile().equals(out)) {
+                        findTracks(child, out, files);
+                    }
+                } else if (name.startsWith("track_") && (name.endsWith(".csv") || name.endsWith(".csv.gz"))) {
+                    files.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Path of the file relative to the root directory
+     */
+    @NonNull
+    private static String name(@NonNull String root, @NonNull File file) {
+        final String path = file.getPath();
+        return path.startsWith(root) ? path.substring(root.length()).replaceFirst("^[/\\\\]+", "") : file.getName();
+    }
+
+    private static void usage() {
+        System.err.println("Usage: baseline <dir> [--out dir] [--format kml,gpx,geojson,csv] [--simplify meters] [--threads N]");
+    }
+
+}
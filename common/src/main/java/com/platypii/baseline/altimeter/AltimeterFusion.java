@@ -0,0 +1,175 @@
+package com.platypii.baseline.altimeter;
+
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.location.TimeOffset;
+import com.platypii.baseline.measurements.MAltitude;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.platform.Preferences;
+import com.platypii.baseline.util.Reporter;
+import android.support.annotation.NonNull;
+
+/**
+ * Fuses barometer and GPS into one altitude.
+ * Barometer gives smooth relative altitude, GPS corrects it to AMSL.
+ * Without a barometer, GPS altitude is used directly, with climb rate from a kalman filter.
+ * Platform independent: MyAltimeter feeds it on the phone, replays and batch tools feed it from files.
+ */
+public class AltimeterFusion {
+    private static final String TAG = "AltimeterFusion";
+
+    private static final Reporter altitudeNaN = new Reporter(TAG, "altimeter.altitude_nan");
+
+    // GPS altitude kalman filter
+    private final Filter gpsFilter;
+    private MLocation lastLoc;
+
+    // Last filtered pressure altitude
+    private double pressure_altitude = Double.NaN;
+
+    // official altitude AMSL = pressure_altitude - altitude_offset
+    // altitude_offset uses GPS to get absolute altitude right
+    private double altitude_offset = 0;
+
+    // Official altitude data
+    public double altitude = Double.NaN; // Meters AMSL
+    public double climb = Double.NaN; // Rate of climb m/s
+    // public static double verticalAcceleration = Double.NaN;
+
+    // Ground level
+    public final GroundLevel groundLevel;
+
+    // Sample counts
+    public long baro_sample_count = 0;
+    public long gps_sample_count = 0;
+
+    private long lastFixMillis; // milliseconds
+
+    // Live fusion uses the session clock offset and reports to the global diagnostics.
+    // Batch analysis has its own clock offset.
+    private final boolean live;
+    private final long offsetMillis;
+
+    public AltimeterFusion() {
+        live = true;
+        offsetMillis = 0;
+        gpsFilter = new FilterKalman();
+        groundLevel = new GroundLevel(true);
+    }
+
+    /**
+     * Fusion for batch analysis, which stays out of the live diagnostics
+     * @param offsetMillis phone time minus gps time of the recording
+     */
+    public AltimeterFusion(long offsetMillis) {
+        live = false;
+        this.offsetMillis = offsetMillis;
+        gpsFilter = new FilterKalman(false);
+        groundLevel = new GroundLevel(false);
+    }
+
+    /**
+     * Load ground level from preferences
+     */
+    public void loadGroundLevel(@NonNull Preferences prefs) {
+        groundLevel.start(prefs);
+    }
+
+    public double altitudeAGL() {
+        return groundLevel.altitudeAGL();
+    }
+
+    /**
+     * Process new barometer reading
+     */
+    public void updateBaro(@NonNull MPressure pressure) {
+        lastFixMillis = pressure.millis - (live ? TimeOffset.phoneOffsetMillis : offsetMillis); // Convert to GPS time
+
+        // Compute GPS corrected altitude AMSL
+        pressure_altitude = pressure.altitude;
+        altitude = pressure_altitude - altitude_offset;
+        climb = pressure.climb;
+
+        // Update ground level
+        groundLevel.onPressureEvent(pressure);
+        baro_sample_count++;
+
+        updateAltitude(LatencyTrace.BARO);
+    }
+
+    /**
+     * Process new GPS reading
+     */
+    public void updateGPS(@NonNull MLocation loc) {
+        // Log.d(TAG, "GPS Update Time: " + System.currentTimeMillis() + " " + System.nanoTime() + " " + loc.millis);
+        if (!Double.isNaN(loc.altitude_gps)) {
+            if (baro_sample_count > 0) {
+                // GPS correction for altitude AMSL
+                if (gps_sample_count == 0) {
+                    // First altitude reading. Calibrate ground level.
+                    altitude_offset = pressure_altitude - loc.altitude_gps;
+                } else {
+                    // Average the first N samples, then use moving average with lag 20
+                    final double altitude_error = altitude - loc.altitude_gps;
+                    final long correction_factor = Math.min(gps_sample_count, 20);
+                    final double altitude_correction = altitude_error / correction_factor;
+                    altitude_offset += altitude_correction;
+                }
+            }
+
+            // Update gps kalman filter
+            if (lastLoc != null) {
+                final long deltaTime = loc.millis - lastLoc.millis; // time since last gps altitude
+                gpsFilter.update(loc.altitude_gps, deltaTime * 0.001);
+            } else {
+                gpsFilter.init(loc.altitude_gps, 0);
+            }
+            lastLoc = loc;
+
+            // Use gps for altitude instead of barometer
+            if (baro_sample_count == 0) {
+                // No barometer use gps
+                lastFixMillis = loc.millis;
+                // Update the official altitude
+                altitude = loc.altitude_gps;
+                // Use kalman filter to compute climb rate
+                // We don't use kalman for altitude, since gps probably already smoothing
+                climb = gpsFilter.v;
+                // Only update official altitude if we are relying solely on GPS for altitude
+                updateAltitude(LatencyTrace.GPS);
+            }
+
+            // Update ground level
+            groundLevel.onLocationEvent(loc);
+            gps_sample_count++;
+        }
+    }
+
+    /**
+     * Saves an official altitude measurement
+     * @param source the LatencyTrace source that triggered the update
+     */
+    private void updateAltitude(int source) {
+        // Log.d(TAG, "Altimeter Update Time: " + System.currentTimeMillis() + " " + System.nanoTime() + " " + lastFixMillis + " " + lastFixNano);
+        if (live) {
+            if (Double.isNaN(altitude)) {
+                altitudeNaN.e(() -> "Altitude should not be NaN: altitude = " + altitude);
+            }
+            LatencyTrace.mark(LatencyTrace.ALTITUDE, source);
+        }
+        onAltitude(new MAltitude(lastFixMillis, altitude, climb));
+    }
+
+    /**
+     * Called with each official altitude measurement
+     */
+    protected void onAltitude(@NonNull MAltitude myAltitude) {}
+
+    /**
+     * GPS climb rate
+     */
+    public double gpsClimb() {
+        return gpsFilter.v;
+    }
+
+}
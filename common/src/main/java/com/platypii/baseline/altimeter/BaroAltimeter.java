@@ -1,16 +1,22 @@
 package com.platypii.baseline.altimeter;
 
 import com.platypii.baseline.BaseService;
-import com.platypii.baseline.location.TimeOffset;
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.diagnostics.ServiceCost;
 import com.platypii.baseline.measurements.MPressure;
-import com.platypii.baseline.util.Exceptions;
-import com.platypii.baseline.util.Numbers;
-import com.platypii.baseline.util.Stat;
+import com.platypii.baseline.util.Reporter;
 import android.content.Context;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.util.Log;
 import java.util.Arrays;
@@ -19,33 +25,20 @@ import org.greenrobot.eventbus.EventBus;
 /**
  * Barometric altimeter with kalman filter.
  * Altitude is measured AGL. Ground level is set to zero on initialization.
- * Kalman filter is used to smooth barometer data.
+ * Reads the Android pressure sensor, and publishes BaroFilter output on the EventBus.
  */
-public class BaroAltimeter implements BaseService, SensorEventListener {
+public class BaroAltimeter extends BaroFilter implements BaseService, SensorEventListener {
     private static final String TAG = "BaroAltimeter";
 
     private static final int sensorDelay = 100000; // microseconds
     private SensorManager sensorManager;
+    private HandlerThread sensorThread;
 
-    private long lastFixNano; // nanoseconds
+    private final Counter sensorEvents = Metrics.counter("baro.events");
+    private final ServiceCost serviceCost = ServiceCost.get("BaroAltimeter");
 
-    // Pressure data
-    public float pressure = Float.NaN; // hPa (millibars)
-    public double pressure_altitude_raw = Double.NaN; // pressure converted to altitude under standard conditions (unfiltered)
-    public double pressure_altitude_filtered = Double.NaN; // kalman filtered pressure altitude
-
-    // Pressure altitude kalman filter
-    private final Filter filter = new FilterKalman(); // Unfiltered(), AlphaBeta(), MovingAverage(), etc
-
-    // Official altitude data
-    public double climb = Double.NaN; // Rate of climb m/s
-    // public static double verticalAcceleration = Double.NaN;
-
-    // Stats
-    // Model error is the difference between our filtered output and the raw pressure altitude
-    // Model error should approximate the sensor variance, even when in motion
-    public final Stat model_error = new Stat();
-    public float refreshRate = 0; // Moving average of refresh rate in Hz
+    // Error reporting, rate limited
+    private static final Reporter invalidUpdate = new Reporter(TAG, "baro.invalid_update");
 
     /**
      * Initializes altimeter services, if not already running.
@@ -61,8 +54,10 @@ public class BaroAltimeter implements BaseService, SensorEventListener {
             if (sensorManager != null) {
                 final Sensor sensor = sensorManager.getDefaultSensor(Sensor.TYPE_PRESSURE);
                 if (sensor != null) {
-                    // Start sensor updates
-                    sensorManager.registerListener(BaroAltimeter.this, sensor, sensorDelay);
+                    // Start sensor updates on a named thread, for cpu accounting
+                    sensorThread = new HandlerThread("BaroAltimeter");
+                    sensorThread.start();
+                    sensorManager.registerListener(BaroAltimeter.this, sensor, sensorDelay, new Handler(sensorThread.getLooper()));
                 }
             }
         } else {
@@ -75,105 +70,73 @@ public class BaroAltimeter implements BaseService, SensorEventListener {
      */
     @Override
     public void onSensorChanged(@NonNull SensorEvent event) {
+        serviceCost.begin();
+        try {
+            updatePressure(event);
+        } finally {
+            serviceCost.end();
+        }
+    }
+
+    private void updatePressure(@NonNull SensorEvent event) {
         final long millis = System.currentTimeMillis(); // Record system time as soon as possible
+        sensorEvents.inc();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            // Sensor timestamps are usually elapsed realtime
+            LatencyTrace.arrival(LatencyTrace.BARO, Math.max(0, SystemClock.elapsedRealtimeNanos() - event.timestamp));
+        } else {
+            LatencyTrace.arrival(LatencyTrace.BARO, 0);
+        }
 
         // Sanity checks
         // assert event.sensor.getType() == Sensor.TYPE_PRESSURE;
         if (event.values.length == 0 || Double.isNaN(event.values[0])) {
-            Log.e(TAG, "Invalid update: " + Arrays.toString(event.values));
+            invalidUpdate.e(() -> "Invalid update: " + Arrays.toString(event.values));
+            FlightRecorder.record(FlightRecorder.DROPPED, LatencyTrace.BARO);
             return;
         }
-        if (event.timestamp == lastFixNano) {
-            Log.e(TAG, "Double update: " + lastFixNano);
-            return;
-        }
-        if (event.timestamp < lastFixNano) {
-            Log.e(TAG, "Negative time update: " + lastFixNano + " - " + event.timestamp + " = ");
-            // Update lastFixNano and return
-            // If we didn't update lastfix, altimeter would halt on one rogue future timestamp
-            lastFixNano = event.timestamp;
-            return;
-        }
-
-        // Convert system time to GPS time
-        final long lastFixMillis = millis - TimeOffset.phoneOffsetMillis;
-        // Compute time since last sample in nanoseconds
-        final long deltaTime = (lastFixNano == 0)? 0 : (event.timestamp - lastFixNano);
-
-        // Convert pressure to altitude
-        pressure = event.values[0];
-        pressure_altitude_raw = pressureToAltitude(pressure);
+        updatePressure(millis, event.timestamp, event.values[0]);
+    }
 
-        // Barometer refresh rate
-        if (deltaTime > 0) {
-            final float newRefreshRate = 1E9f / (float) (deltaTime); // Refresh rate based on last 2 samples
-            if (refreshRate == 0) {
-                refreshRate = newRefreshRate;
-            } else {
-                refreshRate += (newRefreshRate - refreshRate) * 0.5f; // Moving average
-            }
-            if (Double.isNaN(refreshRate)) {
-                Log.e(TAG, "Refresh rate is NaN, deltaTime = " + deltaTime + " refreshTime = " + newRefreshRate);
-                Exceptions.report(new Exception("Refresh rate is NaN, deltaTime = " + deltaTime + " newRefreshRate = " + newRefreshRate));
-                refreshRate = 0;
+    /**
+     * Feed a recorded pressure sample through the filter, as if it came from the sensor
+     * @param nano sensor timestamp in nanoseconds
+     * @param pressure hPa
+     */
+    public void replayPressure(long nano, float pressure) {
+        serviceCost.begin();
+        try {
+            sensorEvents.inc();
+            if (Float.isNaN(pressure)) {
+                FlightRecorder.record(FlightRecorder.DROPPED, LatencyTrace.BARO);
+                return;
             }
+            updatePressure(System.currentTimeMillis(), nano, pressure);
+        } finally {
+            serviceCost.end();
         }
+    }
 
-        // Apply kalman filter to pressure altitude, to produce smooth barometric pressure altitude.
-        if (lastFixNano <= 0) {
-            filter.init(pressure_altitude_raw, 0);
-        } else {
-            filter.update(pressure_altitude_raw, deltaTime * 1E-9);
-        }
-        pressure_altitude_filtered = filter.x;
-        climb = filter.v;
-
-        // Altitude should never be null:
-        if (!Numbers.isReal(pressure_altitude_filtered)) {
-            Exceptions.report(new IllegalArgumentException("Invalid pressure altitude: " + pressure + " -> " + pressure_altitude_filtered));
-            return;
+    private void updatePressure(long millis, long timestamp, float newPressure) {
+        final MPressure myPressure = update(millis, timestamp, newPressure);
+        if (myPressure != null) {
+            // Publish official altitude measurement
+            EventBus.getDefault().post(myPressure);
         }
-
-        // Compute model error
-        model_error.addSample(pressure_altitude_filtered - pressure_altitude_raw);
-
-        // Update last fix
-        lastFixNano = event.timestamp;
-
-        // Publish official altitude measurement
-        final MPressure myPressure = new MPressure(lastFixMillis, lastFixNano, pressure_altitude_filtered, climb, pressure);
-        EventBus.getDefault().post(myPressure);
     }
+
     @Override
     public void onAccuracyChanged(Sensor sensor, int accuracy) {}
 
-    // Physical constants and ISA standard atmosphere
-    private static final double pressure0 = SensorManager.PRESSURE_STANDARD_ATMOSPHERE; // ISA pressure 1013.25 hPa
-//    private static final double temp0 = 288.15; // ISA temperature 15 degrees celcius
-//    private static final double G = 9.80665; // Gravity (m/s^2)
-//    private static final double R = 8.31432; // Universal Gas Constant ((N m)/(mol K))
-//    private static final double M = 0.0289644; // Molar Mass of air (kg/mol)
-//    private static final double L = -0.0065; // Temperature Lapse Rate (K/m)
-    private static final double EXP = 0.190263237; // -L * R / (G * M);
-    private static final double SCALE = 44330.76923; // -temp0 / L
-
-    /**
-     * Convert air pressure to altitude according to standard lapse rate.
-     * alt = alt0 - (temp0 / L) * (1 - (pressure / pressure0)^(-LR/GM))
-     *
-     * @param pressure Pressure in hPa
-     * @return The pressure altitude in meters
-     */
-    private static double pressureToAltitude(double pressure) {
-        // Barometric formula
-        return SCALE * (1 - Math.pow(pressure / pressure0, EXP));
-    }
-
     @Override
     public void stop() {
         if (sensorManager != null) {
             sensorManager.unregisterListener(this);
             sensorManager = null;
+            if (sensorThread != null) {
+                sensorThread.quit();
+                sensorThread = null;
+            }
         } else {
             Log.e(TAG, "BaroAltimeter.stop() called, but service is already stopped");
         }
@@ -0,0 +1,167 @@
+package com.platypii.baseline.altimeter;
+
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.location.TimeOffset;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.Reporter;
+import com.platypii.baseline.util.Stat;
+import android.support.annotation.Nullable;
+
+/**
+ * Converts barometer samples to pressure altitude, and smooths them with a kalman filter.
+ * Platform independent: BaroAltimeter feeds it from the Android sensor,
+ * replays and batch tools feed it from track files.
+ */
+public class BaroFilter {
+    private static final String TAG = "BaroFilter";
+
+    private long lastFixNano; // nanoseconds
+
+    // Pressure data
+    public float pressure = Float.NaN; // hPa (millibars)
+    public double pressure_altitude_raw = Double.NaN; // pressure converted to altitude under standard conditions (unfiltered)
+    public double pressure_altitude_filtered = Double.NaN; // kalman filtered pressure altitude
+
+    // Pressure altitude kalman filter
+    private final Filter filter; // Unfiltered(), AlphaBeta(), MovingAverage(), etc
+
+    // Official altitude data
+    public double climb = Double.NaN; // Rate of climb m/s
+    // public static double verticalAcceleration = Double.NaN;
+
+    // Stats
+    // Model error is the difference between our filtered output and the raw pressure altitude
+    // Model error should approximate the sensor variance, even when in motion
+    public final Stat model_error = new Stat();
+    public float refreshRate = 0; // Moving average of refresh rate in Hz
+
+    // Error reporting, rate limited
+    private static final Reporter doubleUpdate = new Reporter(TAG, "baro.double_update");
+    private static final Reporter negativeTime = new Reporter(TAG, "baro.negative_time");
+    private static final Reporter refreshNaN = new Reporter(TAG, "baro.refresh_nan");
+    private static final Reporter invalidAltitude = new Reporter(TAG, "baro.invalid_altitude");
+
+    // Live filters use the session clock offset and report to the global diagnostics.
+    // Batch analysis has its own clock offset.
+    private final boolean live;
+    private final long offsetMillis;
+
+    public BaroFilter() {
+        live = true;
+        offsetMillis = 0;
+        filter = new FilterKalman();
+    }
+
+    /**
+     * Filter for batch analysis, which stays out of the live diagnostics
+     * @param offsetMillis phone time minus gps time of the recording
+     */
+    public BaroFilter(long offsetMillis) {
+        live = false;
+        this.offsetMillis = offsetMillis;
+        filter = new FilterKalman(false);
+    }
+
+    /**
+     * Process a pressure sample
+     * @param millis system time of the sample
+     * @param timestamp sensor time of the sample, nanoseconds
+     * @param newPressure hPa
+     * @return the filtered measurement, or null if the sample was dropped
+     */
+    @Nullable
+    public MPressure update(long millis, long timestamp, float newPressure) {
+        if (timestamp == lastFixNano) {
+            if (live) {
+                doubleUpdate.e(() -> "Double update: " + lastFixNano);
+                FlightRecorder.record(FlightRecorder.DROPPED, LatencyTrace.BARO);
+            }
+            return null;
+        }
+        if (timestamp < lastFixNano) {
+            if (live) {
+                negativeTime.e(() -> "Negative time update: " + lastFixNano + " - " + timestamp + " = ");
+                FlightRecorder.record(FlightRecorder.DROPPED, LatencyTrace.BARO);
+            }
+            // Update lastFixNano and return
+            // If we didn't update lastfix, altimeter would halt on one rogue future timestamp
+            lastFixNano = timestamp;
+            return null;
+        }
+
+        // Convert system time to GPS time
+        final long lastFixMillis = millis - (live ? TimeOffset.phoneOffsetMillis : offsetMillis);
+        // Compute time since last sample in nanoseconds
+        final long deltaTime = (lastFixNano == 0)? 0 : (timestamp - lastFixNano);
+
+        // Convert pressure to altitude
+        pressure = newPressure;
+        pressure_altitude_raw = pressureToAltitude(pressure);
+
+        // Barometer refresh rate
+        if (deltaTime > 0) {
+            final float newRefreshRate = 1E9f / (float) (deltaTime); // Refresh rate based on last 2 samples
+            if (refreshRate == 0) {
+                refreshRate = newRefreshRate;
+            } else {
+                refreshRate += (newRefreshRate - refreshRate) * 0.5f; // Moving average
+            }
+            if (Double.isNaN(refreshRate)) {
+                if (live) {
+                    refreshNaN.report(() -> new Exception("Refresh rate is NaN, deltaTime = " + deltaTime + " newRefreshRate = " + newRefreshRate));
+                }
+                refreshRate = 0;
+            }
+        }
+
+        // Apply kalman filter to pressure altitude, to produce smooth barometric pressure altitude.
+        if (lastFixNano <= 0) {
+            filter.init(pressure_altitude_raw, 0);
+        } else {
+            filter.update(pressure_altitude_raw, deltaTime * 1E-9);
+        }
+        pressure_altitude_filtered = filter.x;
+        climb = filter.v;
+
+        // Altitude should never be null:
+        if (!Numbers.isReal(pressure_altitude_filtered)) {
+            if (live) {
+                invalidAltitude.report(() -> new IllegalArgumentException("Invalid pressure altitude: " + pressure + " -> " + pressure_altitude_filtered));
+            }
+            return null;
+        }
+
+        // Compute model error
+        model_error.addSample(pressure_altitude_filtered - pressure_altitude_raw);
+
+        // Update last fix
+        lastFixNano = timestamp;
+
+        return new MPressure(lastFixMillis, lastFixNano, pressure_altitude_filtered, climb, pressure);
+    }
+
+    // Physical constants and ISA standard atmosphere
+    private static final double pressure0 = 1013.25; // ISA pressure 1013.25 hPa, SensorManager.PRESSURE_STANDARD_ATMOSPHERE
+//    private static final double temp0 = 288.15; // ISA temperature 15 degrees celcius
+//    private static final double G = 9.80665; // Gravity (m/s^2)
+//    private static final double R = 8.31432; // Universal Gas Constant ((N m)/(mol K))
+//    private static final double M = 0.0289644; // Molar Mass of air (kg/mol)
+//    private static final double L = -0.0065; // Temperature Lapse Rate (K/m)
+    private static final double EXP = 0.190263237; // -L * R / (G * M);
+    private static final double SCALE = 44330.76923; // -temp0 / L
+
+    /**
+     * Convert air pressure to altitude according to standard lapse rate.
+     * alt = alt0 - (temp0 / L) * (1 - (pressure / pressure0)^(-LR/GM))
+     *
+     * @param pressure Pressure in hPa
+     * @return The pressure altitude in meters
+     */
+    public static double pressureToAltitude(double pressure) {
+        // Barometric formula
+        return SCALE * (1 - Math.pow(pressure / pressure0, EXP));
+    }
+
+}
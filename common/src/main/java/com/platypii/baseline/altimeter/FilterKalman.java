@@ -1,6 +1,7 @@
 package com.platypii.baseline.altimeter;
 
-import android.util.Log;
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.util.Reporter;
 
 /**
  * Implements a Kalman Filter
@@ -8,6 +9,10 @@ import android.util.Log;
 public class FilterKalman extends Filter {
     private static final String TAG = "Kalman";
 
+    private static final Reporter notInitialized = new Reporter(TAG, "kalman.not_initialized");
+    private static final Reporter invalidUpdate = new Reporter(TAG, "kalman.invalid_update");
+    private static final Reporter invalidState = new Reporter(TAG, "kalman.invalid_state");
+
     // TODO: Acceleration
     // TODO: Determine sensor variance from model error
 
@@ -22,30 +27,48 @@ public class FilterKalman extends Filter {
 
     private boolean initialized = false;
 
+    // Batch analysis does not report to the global diagnostics
+    private final boolean live;
+
+    public FilterKalman() {
+        this(true);
+    }
+
+    FilterKalman(boolean live) {
+        this.live = live;
+    }
+
     @Override
     public void init(double z, double v) {
         this.x = z;
         this.v = v;
         // TODO: Reset params?
         initialized = true;
+        if (live) {
+            FlightRecorder.record(FlightRecorder.FILTER_RESET, 0);
+        }
     }
 
     @Override
     public void update(double z, double dt) {
         // Check for exceptions
-        if (!initialized) {
-            Log.e(TAG, "Invalid update: not initialized");
+        if (!initialized && live) {
+            notInitialized.e(() -> "Invalid update: not initialized");
         }
         if (Double.isNaN(z)) {
-            Log.e(TAG, "Invalid update: z = NaN");
+            if (live) {
+                invalidUpdate.e(() -> "Invalid update: z = NaN");
+            }
             return;
         }
         if (dt <= 0) {
-            Log.e(TAG, "Invalid update: dt = " + dt);
+            if (live) {
+                invalidUpdate.e(() -> "Invalid update: dt = " + dt);
+            }
             return;
         }
-        if (Double.isNaN(x) || Double.isNaN(v)) {
-            Log.w(TAG,"Invalid kalman state: x = " + x + " v = " + v);
+        if ((Double.isNaN(x) || Double.isNaN(v)) && live) {
+            invalidState.w(() -> "Invalid kalman state: x = " + x + " v = " + v);
         }
 
         // Estimated state
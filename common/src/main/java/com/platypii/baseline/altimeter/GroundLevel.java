@@ -1,13 +1,14 @@
 package com.platypii.baseline.altimeter;
 
-import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
-import android.util.Log;
 import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.platform.Log;
+import com.platypii.baseline.platform.Platform;
+import com.platypii.baseline.platform.Preferences;
 import com.platypii.baseline.util.Convert;
-import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.Reporter;
 
 /**
  * Manages ground level.
@@ -18,10 +19,15 @@ import com.platypii.baseline.util.Numbers;
 public class GroundLevel {
     private static final String TAG = "GroundLevel";
 
+    private static final Reporter invalidGroundLevel = new Reporter(TAG, "altimeter.ground_level");
+
     // Save ground level for 12 hours (in milliseconds)
     private static final long GROUND_LEVEL_TTL = 12 * 60 * 60 * 1000;
 
-    private SharedPreferences prefs;
+    private Preferences prefs;
+
+    // Batch analysis does not report to the global diagnostics
+    private final boolean live;
 
     // Barometer ground level
     private boolean baroInitialized = false;
@@ -34,13 +40,17 @@ public class GroundLevel {
     private double ground_altitude_msl = Double.NaN;
     private double altitude_msl = Double.NaN;
 
+    GroundLevel(boolean live) {
+        this.live = live;
+    }
+
     /**
      * Load ground level from preferences
      */
-    void start(@NonNull SharedPreferences prefs) {
+    void start(@NonNull Preferences prefs) {
         // Load ground level from preferences
         final long groundLevelTime = prefs.getLong("altimeter.groundlevel.time", -1L);
-        if(groundLevelTime != -1 && System.currentTimeMillis() - groundLevelTime < GROUND_LEVEL_TTL) {
+        if(groundLevelTime != -1 && Platform.clock.currentTimeMillis() - groundLevelTime < GROUND_LEVEL_TTL) {
             ground_pressure_altitude = prefs.getFloat("altimeter.groundlevel.pressure_altitude", Float.NaN);
             ground_altitude_msl = prefs.getFloat("altimeter.groundlevel.altitude_msl", Float.NaN);
             if(Numbers.isReal(ground_pressure_altitude)) {
@@ -127,15 +137,13 @@ public class GroundLevel {
             baroInitialized = true;
             if(prefs != null) {
                 // Save to preferences
-                final SharedPreferences.Editor edit = prefs.edit();
-                edit.putFloat("altimeter.groundlevel.pressure_altitude", (float) ground_pressure_altitude);
-                edit.putLong("altimeter.groundlevel.time", System.currentTimeMillis());
-                edit.apply();
+                prefs.putFloat("altimeter.groundlevel.pressure_altitude", (float) ground_pressure_altitude);
+                prefs.putLong("altimeter.groundlevel.time", Platform.clock.currentTimeMillis());
             } else {
                 Log.e(TAG, "Preferences should not be null");
             }
-        } else {
-            Exceptions.report(new IllegalArgumentException("Ground pressure altitude must be real: " + ground_pressure_altitude));
+        } else if(live) {
+            invalidGroundLevel.report(() -> new IllegalArgumentException("Ground pressure altitude must be real: " + ground_pressure_altitude));
         }
     }
 
@@ -148,15 +156,13 @@ public class GroundLevel {
             gpsInitialized = true;
             if(prefs != null) {
                 // Save to preferences
-                final SharedPreferences.Editor edit = prefs.edit();
-                edit.putFloat("altimeter.groundlevel.altitude_msl", (float) ground_altitude_msl);
-                edit.putLong("altimeter.groundlevel.time", System.currentTimeMillis());
-                edit.apply();
+                prefs.putFloat("altimeter.groundlevel.altitude_msl", (float) ground_altitude_msl);
+                prefs.putLong("altimeter.groundlevel.time", Platform.clock.currentTimeMillis());
             } else {
                 Log.e(TAG, "Preferences should not be null");
             }
-        } else {
-            Exceptions.report(new IllegalArgumentException("Ground altitude msl must be real: " + ground_altitude_msl));
+        } else if(live) {
+            invalidGroundLevel.report(() -> new IllegalArgumentException("Ground altitude msl must be real: " + ground_altitude_msl));
         }
     }
 
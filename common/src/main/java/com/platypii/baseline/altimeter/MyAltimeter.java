@@ -1,16 +1,15 @@
 package com.platypii.baseline.altimeter;
 
 import com.platypii.baseline.BaseService;
-import com.platypii.baseline.location.LocationProvider;
+import com.platypii.baseline.diagnostics.ServiceCost;
+import com.platypii.baseline.location.LocationService;
 import com.platypii.baseline.location.MyLocationListener;
-import com.platypii.baseline.location.TimeOffset;
 import com.platypii.baseline.measurements.MAltitude;
 import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.platform.AndroidPreferences;
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.AsyncTask;
-import android.preference.PreferenceManager;
 import android.support.annotation.NonNull;
 import android.util.Log;
 import org.greenrobot.eventbus.EventBus;
@@ -21,41 +20,22 @@ import org.greenrobot.eventbus.ThreadMode;
  * The main Altimeter class.
  * This class integrates sensor readings from barometer and GPS to model the altitude of the phone.
  * Altitude is measured both AGL and AMSL. Ground level is set to zero on initialization.
+ * Runs AltimeterFusion on the Android sensors, and publishes altitude on the EventBus.
  *
  * TODO: Correct barometer drift with GPS
  */
-public class MyAltimeter implements BaseService, MyLocationListener {
+public class MyAltimeter extends AltimeterFusion implements BaseService, MyLocationListener {
     private static final String TAG = "MyAltimeter";
 
-    private final LocationProvider location;
+    private final LocationService location;
     private boolean started = false;
 
     // Barometric altimeter
     public final BaroAltimeter baro = new BaroAltimeter();
 
-    // GPS altitude kalman filter
-    private final Filter gpsFilter = new FilterKalman();
-    private MLocation lastLoc;
+    private final ServiceCost serviceCost = ServiceCost.get("MyAltimeter");
 
-    // official altitude AMSL = pressure_altitude - altitude_offset
-    // altitude_offset uses GPS to get absolute altitude right
-    private double altitude_offset = 0;
-
-    // Official altitude data
-    public double altitude = Double.NaN; // Meters AMSL
-    public double climb = Double.NaN; // Rate of climb m/s
-    // public static double verticalAcceleration = Double.NaN;
-
-    // Ground level
-    public final GroundLevel groundLevel = new GroundLevel();
-
-    // Sample counts
-    public long baro_sample_count = 0;
-    public long gps_sample_count = 0;
-
-    private long lastFixMillis; // milliseconds
-
-    public MyAltimeter(LocationProvider location) {
+    public MyAltimeter(LocationService location) {
         this.location = location;
     }
 
@@ -74,8 +54,7 @@ public class MyAltimeter implements BaseService, MyLocationListener {
                 baro.start(context);
 
                 // Load ground level from preferences
-                final SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
-                groundLevel.start(prefs);
+                loadGroundLevel(new AndroidPreferences(context));
 
                 // Start GPS updates
                 if (location != null) {
@@ -89,14 +68,15 @@ public class MyAltimeter implements BaseService, MyLocationListener {
         });
     }
 
-    public double altitudeAGL() {
-        return groundLevel.altitudeAGL();
-    }
-
     /** Location Listener */
     @Override
     public void onLocationChanged(@NonNull MLocation loc) {
-        updateGPS(loc);
+        serviceCost.begin();
+        try {
+            updateGPS(loc);
+        } finally {
+            serviceCost.end();
+        }
     }
 
     /**
@@ -104,87 +84,20 @@ public class MyAltimeter implements BaseService, MyLocationListener {
      */
     @Subscribe(threadMode = ThreadMode.ASYNC)
     public void onPressureEvent(@NonNull MPressure pressure) {
-        lastFixMillis = pressure.millis - TimeOffset.phoneOffsetMillis; // Convert to GPS time
-
-        // Compute GPS corrected altitude AMSL
-        altitude = baro.pressure_altitude_filtered - altitude_offset;
-        climb = pressure.climb;
-
-        // Update ground level
-        groundLevel.onPressureEvent(pressure);
-        baro_sample_count++;
-
-        updateAltitude();
-    }
-
-    /**
-     * Process new GPS reading
-     */
-    private void updateGPS(@NonNull MLocation loc) {
-        // Log.d(TAG, "GPS Update Time: " + System.currentTimeMillis() + " " + System.nanoTime() + " " + loc.millis);
-        if (!Double.isNaN(loc.altitude_gps)) {
-            if (baro_sample_count > 0) {
-                // GPS correction for altitude AMSL
-                if (gps_sample_count == 0) {
-                    // First altitude reading. Calibrate ground level.
-                    altitude_offset = baro.pressure_altitude_filtered - loc.altitude_gps;
-                } else {
-                    // Average the first N samples, then use moving average with lag 20
-                    final double altitude_error = altitude - loc.altitude_gps;
-                    final long correction_factor = Math.min(gps_sample_count, 20);
-                    final double altitude_correction = altitude_error / correction_factor;
-                    altitude_offset += altitude_correction;
-                }
-            }
-
-            // Update gps kalman filter
-            if (lastLoc != null) {
-                final long deltaTime = loc.millis - lastLoc.millis; // time since last gps altitude
-                gpsFilter.update(loc.altitude_gps, deltaTime * 0.001);
-            } else {
-                gpsFilter.init(loc.altitude_gps, 0);
-            }
-            lastLoc = loc;
-
-            // Use gps for altitude instead of barometer
-            if (baro_sample_count == 0) {
-                // No barometer use gps
-                lastFixMillis = loc.millis;
-                // Update the official altitude
-                altitude = loc.altitude_gps;
-                // Use kalman filter to compute climb rate
-                // We don't use kalman for altitude, since gps probably already smoothing
-                climb = gpsFilter.v;
-                // Only update official altitude if we are relying solely on GPS for altitude
-                updateAltitude();
-            }
-
-            // Update ground level
-            groundLevel.onLocationEvent(loc);
-            gps_sample_count++;
+        serviceCost.begin();
+        try {
+            updateBaro(pressure);
+        } finally {
+            serviceCost.end();
         }
     }
 
-    /**
-     * Saves an official altitude measurement
-     */
-    private void updateAltitude() {
-        // Log.d(TAG, "Altimeter Update Time: " + System.currentTimeMillis() + " " + System.nanoTime() + " " + lastFixMillis + " " + lastFixNano);
-        if (Double.isNaN(altitude)) {
-            Log.e(TAG, "Altitude should not be NaN: altitude = " + altitude);
-        }
-        // Create the measurement
-        final MAltitude myAltitude = new MAltitude(lastFixMillis, altitude, climb);
+    @Override
+    protected void onAltitude(@NonNull MAltitude myAltitude) {
+        location.predictor.onAltitude(System.currentTimeMillis(), myAltitude.altitude, myAltitude.climb);
         EventBus.getDefault().post(myAltitude);
     }
 
-    /**
-     * GPS climb rate
-     */
-    public double gpsClimb() {
-        return gpsFilter.v;
-    }
-
     @Override
     public void stop() {
         baro.stop();
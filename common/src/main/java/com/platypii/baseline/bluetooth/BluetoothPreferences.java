@@ -9,17 +9,23 @@ public class BluetoothPreferences {
     private static final String PREF_BT_ENABLED = "bluetooth_enabled";
     private static final String PREF_BT_DEVICE_ID = "bluetooth_id";
     private static final String PREF_BT_DEVICE_NAME = "bluetooth_name";
+    // Receiver configuration is per device, these are suffixed by device id
+    private static final String PREF_BT_RECEIVER = "bluetooth_receiver_";
+    private static final String PREF_BT_RATE = "bluetooth_rate_";
 
     // Android shared preferences for bluetooth
     public boolean preferenceEnabled = false;
     public String preferenceDeviceId = null;
     public String preferenceDeviceName = null;
+    public int preferenceReceiver = ReceiverConfig.AUTO;
+    public int preferenceRate = 1; // Hz
 
     public void load(Context context) {
         final SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
         preferenceEnabled = prefs.getBoolean(PREF_BT_ENABLED, preferenceEnabled);
         preferenceDeviceId = prefs.getString(PREF_BT_DEVICE_ID, preferenceDeviceId);
         preferenceDeviceName = prefs.getString(PREF_BT_DEVICE_NAME, preferenceDeviceName);
+        loadReceiver(prefs);
     }
 
     public void save(Context context, boolean enabled, String deviceId, String deviceName) {
@@ -32,6 +38,32 @@ public class BluetoothPreferences {
         edit.putString(PREF_BT_DEVICE_ID, preferenceDeviceId);
         edit.putString(PREF_BT_DEVICE_NAME, preferenceDeviceName);
         edit.apply();
+        loadReceiver(prefs);
+    }
+
+    /**
+     * Save receiver configuration for the selected device
+     */
+    public void saveReceiver(Context context, int receiver, int rate) {
+        preferenceReceiver = receiver;
+        preferenceRate = rate;
+        if(preferenceDeviceId != null) {
+            final SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+            final SharedPreferences.Editor edit = prefs.edit();
+            edit.putInt(PREF_BT_RECEIVER + preferenceDeviceId, preferenceReceiver);
+            edit.putInt(PREF_BT_RATE + preferenceDeviceId, preferenceRate);
+            edit.apply();
+        }
+    }
+
+    private void loadReceiver(SharedPreferences prefs) {
+        if(preferenceDeviceId != null) {
+            preferenceReceiver = prefs.getInt(PREF_BT_RECEIVER + preferenceDeviceId, ReceiverConfig.AUTO);
+            preferenceRate = prefs.getInt(PREF_BT_RATE + preferenceDeviceId, 1);
+        } else {
+            preferenceReceiver = ReceiverConfig.AUTO;
+            preferenceRate = 1;
+        }
     }
 
 }
@@ -1,5 +1,6 @@
 package com.platypii.baseline.bluetooth;
 
+import com.platypii.baseline.diagnostics.ServiceCost;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothSocket;
@@ -7,26 +8,32 @@ import android.location.GpsStatus;
 import android.os.ParcelUuid;
 import android.support.annotation.NonNull;
 import android.util.Log;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.UUID;
 
 /**
- * Thread that reads from bluetooth input stream, and turns into NMEA sentences
+ * Thread that reads from bluetooth input stream, and turns into NMEA sentences and UBX frames
  */
-class BluetoothRunnable implements Runnable {
+class BluetoothRunnable implements Runnable, StreamFramer.Listener {
     private static final String TAG = "BluetoothRunnable";
 
     private static final UUID DEFAULT_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
 
-    private static final int reconnectDelay = 1000; // 1 second
+    private final ReconnectBackoff backoff = new ReconnectBackoff();
 
     private final BluetoothService bluetooth;
     private final BluetoothAdapter bluetoothAdapter;
     private BluetoothSocket bluetoothSocket;
 
+    // Receiver type from preferences, and as detected on this connection
+    private volatile int receiver = ReceiverConfig.AUTO;
+    private volatile int detected = ReceiverConfig.AUTO;
+    private volatile boolean configured = false;
+
+    private final ServiceCost serviceCost = ServiceCost.get("BluetoothService");
+
     BluetoothRunnable(BluetoothService bluetooth, @NonNull BluetoothAdapter bluetoothAdapter) {
         this.bluetooth = bluetooth;
         this.bluetoothAdapter = bluetoothAdapter;
@@ -45,18 +52,17 @@ class BluetoothRunnable implements Runnable {
                 bluetooth.setState(BluetoothService.BT_CONNECTED);
 
                 // Start processing NMEA sentences
-                processSentences();
+                if(processSentences()) {
+                    backoff.reset();
+                }
             }
             // Are we restarting or stopping?
             if(bluetooth.getState() != BluetoothService.BT_STOPPING) {
                 bluetooth.setState(BluetoothService.BT_DISCONNECTED);
                 // Sleep before reconnect
-                try {
-                    Thread.sleep(reconnectDelay);
-                } catch (InterruptedException ie) {
-                    Log.e(TAG, "Bluetooth thread interrupted");
-                }
-                Log.w(TAG, "Reconnecting to bluetooth device");
+                final long delay = backoff.next();
+                sleep(delay);
+                Log.w(TAG, "Reconnecting to bluetooth device after " + delay + "ms");
             } else {
                 Log.i(TAG, "Bluetooth thread about to stop");
             }
@@ -66,6 +72,20 @@ class BluetoothRunnable implements Runnable {
         bluetooth.setState(BluetoothService.BT_STOPPED);
     }
 
+    /**
+     * Sleep before reconnecting, waking early if bluetooth is stopping
+     */
+    private void sleep(long delay) {
+        final long end = System.currentTimeMillis() + delay;
+        try {
+            while(bluetooth.getState() != BluetoothService.BT_STOPPING && System.currentTimeMillis() < end) {
+                Thread.sleep(Math.max(1, Math.min(100, end - System.currentTimeMillis())));
+            }
+        } catch (InterruptedException ie) {
+            Log.e(TAG, "Bluetooth thread interrupted");
+        }
+    }
+
     /**
      * Connect to gps receiver.
      * Precondition: bluetooth enabled and preferenceDeviceId != null
@@ -101,19 +121,25 @@ class BluetoothRunnable implements Runnable {
     }
 
     /**
-     * Pipe bluetooth socket into nmea listeners
+     * Pipe bluetooth socket into nmea and ubx listeners
+     * @return true if any data was received
      */
-    private void processSentences() {
+    private boolean processSentences() {
+        boolean received = false;
+        detected = ReceiverConfig.AUTO;
+        reconfigure();
         try {
             final InputStream is = bluetoothSocket.getInputStream();
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-            String line;
-            while(bluetooth.getState() == BluetoothService.BT_CONNECTED && (line = reader.readLine()) != null) {
-                final String nmea = line.trim();
-                // Log.v(TAG, "Got line: " + nmea);
-                // Update listeners
-                for(GpsStatus.NmeaListener listener : bluetooth.listeners) {
-                    listener.onNmeaReceived(System.currentTimeMillis(), nmea);
+            final StreamFramer framer = new StreamFramer(this);
+            final byte[] buffer = new byte[1024];
+            int length;
+            while(bluetooth.getState() == BluetoothService.BT_CONNECTED && (length = is.read(buffer)) >= 0) {
+                received = true;
+                serviceCost.begin();
+                try {
+                    framer.feed(buffer, length);
+                } finally {
+                    serviceCost.end();
                 }
             }
         } catch (IOException e) {
@@ -123,6 +149,63 @@ class BluetoothRunnable implements Runnable {
         } finally {
             Log.d(TAG, "Bluetooth thread shutting down");
         }
+        return received;
+    }
+
+    @Override
+    public void onNmea(@NonNull String nmea) {
+        // Log.v(TAG, "Got line: " + nmea);
+        if(!configured && receiver == ReceiverConfig.AUTO) {
+            detected = ReceiverConfig.detect(nmea);
+            if(detected != ReceiverConfig.AUTO) {
+                configure(detected);
+            }
+        }
+        // Update listeners
+        for(GpsStatus.NmeaListener listener : bluetooth.listeners) {
+            listener.onNmeaReceived(System.currentTimeMillis(), nmea);
+        }
+    }
+
+    @Override
+    public void onUbx(int msgClass, int msgId, @NonNull byte[] frame, int offset, int length) {
+        if(!configured && receiver == ReceiverConfig.AUTO) {
+            detected = ReceiverConfig.UBLOX;
+            configure(detected);
+        }
+        for(UbxListener listener : bluetooth.ubxListeners) {
+            listener.onUbxReceived(msgClass, msgId, frame, offset, length);
+        }
+    }
+
+    /**
+     * Apply the receiver preferences. Auto detect waits for the receiver to identify itself.
+     */
+    void reconfigure() {
+        receiver = bluetooth.preferences.preferenceReceiver;
+        configured = receiver == ReceiverConfig.NONE;
+        final int type = receiver == ReceiverConfig.AUTO ? detected : receiver;
+        if(type != ReceiverConfig.AUTO && type != ReceiverConfig.NONE) {
+            configure(type);
+        }
+    }
+
+    /**
+     * Send rate and sentence commands to the receiver
+     */
+    private synchronized void configure(int type) {
+        configured = true;
+        final int rate = bluetooth.preferences.preferenceRate;
+        Log.i(TAG, "Configuring receiver type " + type + " at " + rate + " Hz");
+        try {
+            final OutputStream os = bluetoothSocket.getOutputStream();
+            for(byte[] command : ReceiverConfig.commands(type, rate)) {
+                os.write(command);
+            }
+            os.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to configure receiver", e);
+        }
     }
 
     void stop() {
@@ -2,6 +2,7 @@ package com.platypii.baseline.bluetooth;
 
 import com.platypii.baseline.BaseService;
 import com.platypii.baseline.common.R;
+import com.platypii.baseline.diagnostics.FlightRecorder;
 import com.platypii.baseline.events.BluetoothEvent;
 import com.platypii.baseline.util.Exceptions;
 import android.app.Activity;
@@ -52,6 +53,7 @@ public class BluetoothService implements BaseService {
     public boolean charging = false;
 
     final List<GpsStatus.NmeaListener> listeners = new ArrayList<>();
+    final List<UbxListener> ubxListeners = new ArrayList<>();
 
     @Override
     public void start(@NonNull Context context) {
@@ -80,7 +82,7 @@ public class BluetoothService implements BaseService {
         AsyncTask.execute(() -> {
             bluetoothAdapter = getAdapter(activity);
             bluetoothRunnable = new BluetoothRunnable(BluetoothService.this, bluetoothAdapter);
-            bluetoothThread = new Thread(bluetoothRunnable);
+            bluetoothThread = new Thread(bluetoothRunnable, "BluetoothService");
             bluetoothThread.start();
         });
     }
@@ -128,6 +130,7 @@ public class BluetoothService implements BaseService {
         }
         Log.d(TAG, "Bluetooth state: " + BT_STATES[bluetoothState] + " -> " + BT_STATES[state]);
         bluetoothState = state;
+        FlightRecorder.record(FlightRecorder.BLUETOOTH, state);
         EventBus.getDefault().post(new BluetoothEvent(bluetoothState));
     }
 
@@ -212,6 +215,16 @@ public class BluetoothService implements BaseService {
         }
     }
 
+    /**
+     * Send receiver configuration again, after the preferences change
+     */
+    public void reconfigure() {
+        final BluetoothRunnable runnable = bluetoothRunnable;
+        if(runnable != null && bluetoothState == BT_CONNECTED) {
+            AsyncTask.execute(runnable::reconfigure);
+        }
+    }
+
     public void addNmeaListener(GpsStatus.NmeaListener nmeaListener) {
         listeners.add(nmeaListener);
     }
@@ -219,4 +232,11 @@ public class BluetoothService implements BaseService {
         listeners.remove(nmeaListener);
     }
 
+    public void addUbxListener(UbxListener ubxListener) {
+        ubxListeners.add(ubxListener);
+    }
+    public void removeUbxListener(UbxListener ubxListener) {
+        ubxListeners.remove(ubxListener);
+    }
+
 }
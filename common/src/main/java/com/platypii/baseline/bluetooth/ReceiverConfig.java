@@ -0,0 +1,82 @@
+package com.platypii.baseline.bluetooth;
+
+import android.support.annotation.NonNull;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Vendor commands to set the fix rate of a bluetooth receiver, and trim unneeded sentences.
+ * Most receivers default to 1 Hz with every sentence enabled, which wastes bandwidth at higher rates.
+ */
+public class ReceiverConfig {
+
+    // Receiver types
+    public static final int AUTO = 0; // detect from the startup banner
+    public static final int NONE = 1; // leave the receiver alone
+    public static final int MTK = 2; // MediaTek, such as XGPS-150 and XGPS-160
+    public static final int UBLOX = 3; // u-blox, such as FlySight
+    public static final int TYPES = 4;
+
+    // Fix rates in Hz
+    public static final int[] RATES = {1, 5, 10};
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * Guess the receiver type from a startup sentence, or return AUTO if unknown
+     */
+    static int detect(@NonNull String nmea) {
+        if (nmea.startsWith("$PMTK010") || nmea.startsWith("$PMTK011")) {
+            // $PMTK011,MTKGPS*08
+            return MTK;
+        } else if (nmea.startsWith("TXT", 3) && nmea.contains("u-blox")) {
+            // $GPTXT,01,01,02,u-blox ag - www.u-blox.com*50
+            return UBLOX;
+        } else {
+            return AUTO;
+        }
+    }
+
+    /**
+     * Commands to send after connecting, in order
+     * @param type receiver type, such as MTK
+     * @param rate fix rate in Hz
+     */
+    @NonNull
+    public static List<byte[]> commands(int type, int rate) {
+        final List<byte[]> commands = new ArrayList<>();
+        final int period = 1000 / rate; // milliseconds
+        if (type == MTK) {
+            commands.add(pmtk("PMTK220," + period));
+            commands.add(pmtk("PMTK300," + period + ",0,0,0,0"));
+            // Once per fix: RMC, GGA, GSA. Once per second: GSV. Off: GLL, VTG and the rest.
+            commands.add(pmtk("PMTK314,0,1,0,1,1," + rate + ",0,0,0,0,0,0,0,0,0,0,0,0,0"));
+        } else if (type == UBLOX) {
+            commands.add(Ubx.cfgRate(period));
+            commands.add(Ubx.cfgMsg(Ubx.NAV, Ubx.NAV_PVT, 1));
+            // Position comes from NAV-PVT, satellites from NMEA once per second
+            commands.add(Ubx.cfgMsg(Ubx.NMEA, Ubx.NMEA_GGA, 0));
+            commands.add(Ubx.cfgMsg(Ubx.NMEA, Ubx.NMEA_GLL, 0));
+            commands.add(Ubx.cfgMsg(Ubx.NMEA, Ubx.NMEA_RMC, 0));
+            commands.add(Ubx.cfgMsg(Ubx.NMEA, Ubx.NMEA_VTG, 0));
+            commands.add(Ubx.cfgMsg(Ubx.NMEA, Ubx.NMEA_GSA, rate));
+            commands.add(Ubx.cfgMsg(Ubx.NMEA, Ubx.NMEA_GSV, rate));
+        }
+        return commands;
+    }
+
+    /**
+     * Wrap a MediaTek command with checksum and line break
+     */
+    @NonNull
+    static byte[] pmtk(@NonNull String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format(Locale.US, "$%s*%02X\r\n", body, checksum).getBytes(ASCII);
+    }
+
+}
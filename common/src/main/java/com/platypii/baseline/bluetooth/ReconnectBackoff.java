@@ -0,0 +1,31 @@
+package com.platypii.baseline.bluetooth;
+
+/**
+ * Delay before reconnecting to a bluetooth receiver.
+ * The first attempt after a drop is immediate, since dropouts are usually brief.
+ * After that the delay doubles, so an absent receiver doesn't keep the radio busy.
+ */
+class ReconnectBackoff {
+
+    private static final long MIN_DELAY = 250; // milliseconds
+    private static final long MAX_DELAY = 8000; // milliseconds
+
+    private int attempts = 0;
+
+    /**
+     * Returns the delay before the next attempt, in milliseconds
+     */
+    long next() {
+        final long delay = attempts == 0 ? 0 : Math.min(MIN_DELAY << Math.min(attempts - 1, 16), MAX_DELAY);
+        attempts++;
+        return delay;
+    }
+
+    /**
+     * Called when a connection delivered data, so the next drop re-dials immediately
+     */
+    void reset() {
+        attempts = 0;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.platypii.baseline.bluetooth;
+
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Metrics;
+import android.support.annotation.NonNull;
+
+/**
+ * Splits a receiver byte stream into NMEA sentences and UBX frames.
+ * Receivers may send either or both, so the protocol is detected per message
+ * from the first byte: '$' starts NMEA, 0xB5 0x62 starts UBX.
+ * UBX frames are checksummed, and handed to the listener straight from the frame buffer.
+ */
+class StreamFramer {
+
+    interface Listener {
+        void onNmea(@NonNull String nmea);
+        void onUbx(int msgClass, int msgId, @NonNull byte[] frame, int offset, int length);
+    }
+
+    private static final int MAX_NMEA = 256;
+    private static final int MAX_UBX = 1024;
+
+    // Parser states
+    private static final int IDLE = 0;
+    private static final int NMEA = 1;
+    private static final int UBX_SYNC = 2;
+    private static final int UBX_HEADER = 3;
+    private static final int UBX_BODY = 4;
+    private int state = IDLE;
+
+    private final char[] line = new char[MAX_NMEA];
+    private int lineLength = 0;
+
+    // UBX frame from class byte to checksum
+    private final byte[] frame = new byte[MAX_UBX + 6];
+    private int frameLength = 0;
+    private int payloadLength = 0;
+
+    private final Listener listener;
+
+    // Metrics
+    private static final Counter ubxFrames = Metrics.counter("ubx.frames");
+    private static final Counter ubxErrors = Metrics.counter("ubx.checksum_errors");
+
+    StreamFramer(@NonNull Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Process bytes read from the stream
+     */
+    void feed(@NonNull byte[] buf, int length) {
+        for (int i = 0; i < length; i++) {
+            feed(buf[i] & 0xff);
+        }
+    }
+
+    private void feed(int b) {
+        switch (state) {
+            case IDLE:
+                start(b);
+                break;
+            case NMEA:
+                if (b == '\n' || b == '\r') {
+                    if (lineLength > 0) {
+                        listener.onNmea(new String(line, 0, lineLength).trim());
+                    }
+                    state = IDLE;
+                } else if (b == '$' && lineLength > 0) {
+                    // Missing line break, let the nmea parser split it
+                    appendLine(b);
+                } else if (b == Ubx.SYNC1 || lineLength >= MAX_NMEA) {
+                    // Binary data mid-sentence, drop the sentence
+                    state = IDLE;
+                    start(b);
+                } else {
+                    appendLine(b);
+                }
+                break;
+            case UBX_SYNC:
+                if (b == Ubx.SYNC2) {
+                    frameLength = 0;
+                    state = UBX_HEADER;
+                } else {
+                    state = IDLE;
+                    start(b);
+                }
+                break;
+            case UBX_HEADER:
+                frame[frameLength++] = (byte) b;
+                if (frameLength == 4) {
+                    payloadLength = (frame[2] & 0xff) | ((frame[3] & 0xff) << 8);
+                    state = payloadLength <= MAX_UBX ? UBX_BODY : IDLE;
+                }
+                break;
+            case UBX_BODY:
+                frame[frameLength++] = (byte) b;
+                if (frameLength == payloadLength + 6) {
+                    final int checksum = Ubx.checksum(frame, 0, payloadLength + 4);
+                    if ((checksum & 0xff) == (frame[payloadLength + 4] & 0xff) && (checksum >> 8) == (frame[payloadLength + 5] & 0xff)) {
+                        ubxFrames.inc();
+                        listener.onUbx(frame[0] & 0xff, frame[1] & 0xff, frame, 4, payloadLength);
+                    } else {
+                        ubxErrors.inc();
+                    }
+                    state = IDLE;
+                }
+                break;
+        }
+    }
+
+    private void start(int b) {
+        if (b == '$') {
+            lineLength = 0;
+            appendLine(b);
+            state = NMEA;
+        } else if (b == Ubx.SYNC1) {
+            state = UBX_SYNC;
+        }
+    }
+
+    private void appendLine(int b) {
+        if (lineLength < MAX_NMEA) {
+            line[lineLength++] = (char) b;
+        }
+    }
+
+}
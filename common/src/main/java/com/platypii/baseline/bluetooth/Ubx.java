@@ -0,0 +1,84 @@
+package com.platypii.baseline.bluetooth;
+
+import android.support.annotation.NonNull;
+
+/**
+ * u-blox UBX binary protocol constants and configuration messages
+ */
+public class Ubx {
+
+    static final int SYNC1 = 0xb5;
+    static final int SYNC2 = 0x62;
+
+    // Message classes and ids
+    public static final int NAV = 0x01;
+    public static final int NAV_PVT = 0x07;
+    static final int CFG = 0x06;
+    static final int CFG_MSG = 0x01;
+    static final int CFG_RATE = 0x08;
+    static final int NMEA = 0xf0; // NMEA standard messages, for CFG-MSG
+
+    // NMEA message ids, for CFG-MSG
+    static final int NMEA_GGA = 0x00;
+    static final int NMEA_GLL = 0x01;
+    static final int NMEA_GSA = 0x02;
+    static final int NMEA_GSV = 0x03;
+    static final int NMEA_RMC = 0x04;
+    static final int NMEA_VTG = 0x05;
+
+    /**
+     * UBX-CFG-RATE: measurement period, one navigation solution per measurement, GPS time
+     * @param periodMillis time between fixes, such as 100 for 10 Hz
+     */
+    @NonNull
+    public static byte[] cfgRate(int periodMillis) {
+        return frame(CFG, CFG_RATE, new byte[] {
+                (byte) periodMillis, (byte) (periodMillis >> 8),
+                1, 0, // navRate
+                1, 0 // timeRef = GPS
+        });
+    }
+
+    /**
+     * UBX-CFG-MSG: output rate of a message on the current port
+     * @param rate send once every rate solutions, or 0 to disable
+     */
+    @NonNull
+    public static byte[] cfgMsg(int msgClass, int msgId, int rate) {
+        return frame(CFG, CFG_MSG, new byte[] {(byte) msgClass, (byte) msgId, (byte) rate});
+    }
+
+    /**
+     * Wrap a payload in sync chars, header, and checksum
+     */
+    @NonNull
+    static byte[] frame(int msgClass, int msgId, @NonNull byte[] payload) {
+        final byte[] frame = new byte[payload.length + 8];
+        frame[0] = (byte) SYNC1;
+        frame[1] = (byte) SYNC2;
+        frame[2] = (byte) msgClass;
+        frame[3] = (byte) msgId;
+        frame[4] = (byte) payload.length;
+        frame[5] = (byte) (payload.length >> 8);
+        System.arraycopy(payload, 0, frame, 6, payload.length);
+        final int checksum = checksum(frame, 2, payload.length + 4);
+        frame[frame.length - 2] = (byte) checksum;
+        frame[frame.length - 1] = (byte) (checksum >> 8);
+        return frame;
+    }
+
+    /**
+     * 8-bit Fletcher checksum over class, id, length and payload
+     * @return ck_a in the low byte, ck_b in the high byte
+     */
+    static int checksum(@NonNull byte[] buf, int offset, int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = offset; i < offset + length; i++) {
+            a = (a + (buf[i] & 0xff)) & 0xff;
+            b = (b + a) & 0xff;
+        }
+        return a | (b << 8);
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.platypii.baseline.bluetooth;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Receives validated UBX frames from a bluetooth receiver
+ */
+public interface UbxListener {
+
+    /**
+     * Called on the bluetooth thread. The buffer is reused, so decode before returning.
+     * @param frame buffer holding the payload
+     * @param offset index of the first payload byte
+     * @param length payload length in bytes
+     */
+    void onUbxReceived(int msgClass, int msgId, @NonNull byte[] frame, int offset, int length);
+
+}
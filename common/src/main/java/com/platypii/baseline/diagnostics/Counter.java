@@ -0,0 +1,36 @@
+package com.platypii.baseline.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monotonic counter, striped by thread to avoid contention on hot paths.
+ * Stripes are padded apart so that two threads never write the same cache line.
+ */
+public class Counter {
+
+    private static final int STRIPES = 8; // power of 2
+    private static final int PAD = 8; // longs per 64 byte cache line
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+
+    public void inc() {
+        add(1);
+    }
+
+    public void add(long n) {
+        final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        cells.addAndGet(stripe * PAD, n);
+    }
+
+    /**
+     * Sum over all stripes. Not an atomic snapshot, but never goes backwards.
+     */
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += cells.get(i * PAD);
+        }
+        return sum;
+    }
+
+}
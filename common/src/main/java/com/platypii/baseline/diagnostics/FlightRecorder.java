@@ -0,0 +1,66 @@
+package com.platypii.baseline.diagnostics;
+
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Black box of recent internal events, such as state transitions and dropped samples.
+ * Complements the track file, which only has measurements.
+ *
+ * Each event is packed into two longs of a fixed-size ring: the monotonic time,
+ * and the event type and value. Recording is lock-free and allocation-free.
+ * The ring is never cleared, so a dump always has the most recent events.
+ */
+public class FlightRecorder {
+
+    // Event types
+    public static final int FLIGHT_MODE = 0; // value = flight mode
+    public static final int AUTO_STOP = 1; // value = auto stop state
+    public static final int LOCATION_PROVIDER = 2; // value = provider serving fixes
+    public static final int BLUETOOTH = 3; // value = bluetooth state
+    public static final int FILTER_RESET = 4; // value = 0
+    public static final int DROPPED = 5; // value = LatencyTrace source
+    public static final int CRASH = 6; // value = 0
+    private static final String[] eventNames = {"flight_mode", "auto_stop", "location_provider", "bluetooth", "filter_reset", "dropped", "crash"};
+
+    // Ring of recent events (must be a power of 2)
+    private static final int RING_SIZE = 2048;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final long[] ring = new long[RING_SIZE * 2];
+    private static final AtomicInteger ringIndex = new AtomicInteger();
+
+    /**
+     * Record an event
+     * @param type event type, such as FLIGHT_MODE
+     * @param value meaning depends on event type
+     */
+    public static void record(int type, int value) {
+        final int i = (ringIndex.getAndIncrement() & RING_MASK) << 1;
+        ring[i] = System.nanoTime();
+        ring[i + 1] = ((long) type << 32) | (value & 0xffffffffL);
+    }
+
+    /**
+     * Write the contents of the ring as csv, oldest event first.
+     * Times are converted to wall clock millis.
+     * The ring is not locked, so events recorded while writing may be torn.
+     */
+    public static void write(@NonNull Writer writer) throws IOException {
+        final long offsetNanos = System.currentTimeMillis() * 1000000L - System.nanoTime();
+        writer.write("millis,event,value\n");
+        final int end = ringIndex.get();
+        final int start = Math.max(0, end - RING_SIZE);
+        for (int n = start; n < end; n++) {
+            final int i = (n & RING_MASK) << 1;
+            final int type = (int) (ring[i + 1] >>> 32);
+            final int value = (int) ring[i + 1];
+            if (0 <= type && type < eventNames.length) {
+                writer.write(String.format(Locale.US, "%d,%s,%d\n", (ring[i] + offsetNanos) / 1000000L, eventNames[type], value));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.platypii.baseline.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Point in time value, such as a queue depth
+ */
+public class Gauge {
+
+    private final AtomicLong value = new AtomicLong();
+
+    public void set(long n) {
+        value.set(n);
+    }
+
+    public void inc() {
+        value.incrementAndGet();
+    }
+
+    public void dec() {
+        value.decrementAndGet();
+    }
+
+    public long get() {
+        return value.get();
+    }
+
+}
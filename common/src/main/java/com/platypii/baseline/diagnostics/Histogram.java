@@ -0,0 +1,84 @@
+package com.platypii.baseline.diagnostics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket histogram of non-negative long values.
+ * Bucket i holds values in [2^(i-1), 2^i), so the resolution is within a factor of two.
+ * Lock-free and allocation-free, so it can be updated from sensor and parsing threads.
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Add a sample to the histogram. Negative values are counted as zero.
+     */
+    public void add(long value) {
+        if (value < 0) value = 0;
+        buckets.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long prev = max.get();
+        while (value > prev && !max.compareAndSet(prev, value)) {
+            prev = max.get();
+        }
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        final long n = count.get();
+        return n == 0 ? Double.NaN : (double) sum.get() / n;
+    }
+
+    /**
+     * Returns an upper bound for the given quantile, accurate to the bucket size.
+     * @param q quantile between 0 and 1
+     */
+    public long percentile(double q) {
+        final long n = count.get();
+        if (n == 0) return 0;
+        final long target = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= target && seen > 0) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    /** Bucket index for a value: number of significant bits */
+    static int bucket(long value) {
+        return Math.min(64 - Long.numberOfLeadingZeros(value), BUCKETS - 1);
+    }
+
+    /** Largest value that falls in bucket i */
+    static long upperBound(int i) {
+        return i >= 63 ? Long.MAX_VALUE : (1L << i) - 1;
+    }
+
+}
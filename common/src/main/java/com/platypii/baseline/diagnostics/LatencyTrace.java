@@ -0,0 +1,151 @@
+package com.platypii.baseline.diagnostics;
+
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Traces how long it takes for a sample to travel through the pipeline,
+ * from sentence or sensor arrival to the user hearing or seeing it.
+ *
+ * Each source (gps or baro) has an origin, set when a new sample arrives.
+ * Later stages record the time elapsed since the origin, using the monotonic clock.
+ * Each stage is recorded at most once per origin, so a plot redrawing at 30fps
+ * only counts the first frame that could have shown the new data.
+ *
+ * Events go into a fixed-size ring, and are summarised as a histogram per stage.
+ */
+public class LatencyTrace {
+
+    // Sources
+    public static final int GPS = 0;
+    public static final int BARO = 1;
+    private static final int SOURCES = 2;
+    private static final String[] sourceNames = {"gps", "baro"};
+
+    // Pipeline stages
+    public static final int ARRIVAL = 0;
+    public static final int FIX = 1;
+    public static final int ALTITUDE = 2;
+    public static final int DISPATCH = 3;
+    public static final int AUDIBLE = 4;
+    public static final int SPEECH = 5;
+    public static final int FRAME = 6;
+    private static final int STAGES = 7;
+    private static final String[] stageNames = {"arrival", "fix", "altitude", "dispatch", "audible", "speech", "frame"};
+
+    // Ring of recent events (must be a power of 2)
+    private static final int RING_SIZE = 1024;
+    private static final int RING_MASK = RING_SIZE - 1;
+    private static final long[] ringNano = new long[RING_SIZE];
+    private static final long[] ringLatency = new long[RING_SIZE];
+    private static final byte[] ringStage = new byte[RING_SIZE];
+    private static final byte[] ringSource = new byte[RING_SIZE];
+    private static final AtomicInteger ringIndex = new AtomicInteger();
+
+    // Most recent arrival time for each source
+    private static final AtomicLongArray origin = new AtomicLongArray(SOURCES);
+    // Origin that each stage last recorded, to avoid counting a sample twice
+    private static final AtomicLongArray lastOrigin = new AtomicLongArray(SOURCES * STAGES);
+
+    // Latency histograms, in nanoseconds
+    private static final Histogram[] histograms = new Histogram[STAGES];
+    static {
+        for (int i = 0; i < STAGES; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Called when a new sample arrives from a source
+     * @param source GPS or BARO
+     * @param ageNanos how old the sample already was when it reached us, if known
+     */
+    public static void arrival(int source, long ageNanos) {
+        final long now = System.nanoTime();
+        origin.set(source, now);
+        record(now, ARRIVAL, source, ageNanos);
+    }
+
+    /**
+     * Called when the most recent sample from a source reaches a pipeline stage
+     */
+    public static void mark(int stage, int source) {
+        final long start = origin.get(source);
+        if (start == 0) return;
+        final int key = stage * SOURCES + source;
+        if (lastOrigin.getAndSet(key, start) == start) return;
+        final long now = System.nanoTime();
+        record(now, stage, source, now - start);
+    }
+
+    private static void record(long nano, int stage, int source, long latency) {
+        histograms[stage].add(latency);
+        final int i = ringIndex.getAndIncrement() & RING_MASK;
+        ringNano[i] = nano;
+        ringLatency[i] = latency;
+        ringStage[i] = (byte) stage;
+        ringSource[i] = (byte) source;
+    }
+
+    /**
+     * Clear origins, histograms and ring, such as when starting a new track
+     */
+    public static void reset() {
+        for (int i = 0; i < SOURCES; i++) {
+            origin.set(i, 0);
+        }
+        for (int i = 0; i < SOURCES * STAGES; i++) {
+            lastOrigin.set(i, 0);
+        }
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+        ringIndex.set(0);
+        for (int i = 0; i < RING_SIZE; i++) {
+            ringNano[i] = 0;
+        }
+    }
+
+    /**
+     * Returns a human readable summary of latency per stage
+     */
+    @NonNull
+    public static String summary() {
+        final StringBuilder sb = new StringBuilder();
+        for (int stage = 0; stage < STAGES; stage++) {
+            final Histogram histogram = histograms[stage];
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US, "%-8s n=%d p50=%.1fms p90=%.1fms max=%.1fms",
+                    stageNames[stage], histogram.count(),
+                    histogram.percentile(0.5) * 1e-6,
+                    histogram.percentile(0.9) * 1e-6,
+                    histogram.max() * 1e-6));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the summary and the contents of the ring as csv, oldest event first.
+     * The ring is not locked, so events recorded while writing may be torn.
+     */
+    public static void write(@NonNull Writer writer) throws IOException {
+        for (String line : summary().split("\n")) {
+            writer.write("# " + line + "\n");
+        }
+        writer.write("nano,source,stage,latency_ms\n");
+        final int end = ringIndex.get();
+        final int start = Math.max(0, end - RING_SIZE);
+        for (int n = start; n < end; n++) {
+            final int i = n & RING_MASK;
+            if (ringNano[i] != 0) {
+                writer.write(String.format(Locale.US, "%d,%s,%s,%.3f\n",
+                        ringNano[i], sourceNames[ringSource[i]], stageNames[ringStage[i]], ringLatency[i] * 1e-6));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.platypii.baseline.diagnostics;
+
+import android.support.annotation.NonNull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of named counters, gauges, and histograms.
+ * Look up metrics once and keep a reference, since lookup is a hash map get.
+ * Updating a metric is lock-free.
+ */
+public class Metrics {
+
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    @NonNull
+    public static Counter counter(@NonNull String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter();
+            final Counter existing = counters.putIfAbsent(name, counter);
+            if (existing != null) counter = existing;
+        }
+        return counter;
+    }
+
+    @NonNull
+    public static Gauge gauge(@NonNull String name) {
+        Gauge gauge = gauges.get(name);
+        if (gauge == null) {
+            gauge = new Gauge();
+            final Gauge existing = gauges.putIfAbsent(name, gauge);
+            if (existing != null) gauge = existing;
+        }
+        return gauge;
+    }
+
+    @NonNull
+    public static Histogram histogram(@NonNull String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            final Histogram existing = histograms.putIfAbsent(name, histogram);
+            if (existing != null) histogram = existing;
+        }
+        return histogram;
+    }
+
+    /**
+     * Capture the current value of every metric
+     */
+    @NonNull
+    public static MetricsSnapshot snapshot() {
+        final MetricsSnapshot snapshot = new MetricsSnapshot(System.nanoTime());
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            snapshot.counters.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            snapshot.gauges.put(entry.getKey(), entry.getValue().get());
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            final Histogram histogram = entry.getValue();
+            snapshot.histograms.put(entry.getKey(), new long[] {
+                    histogram.count(), histogram.percentile(0.5), histogram.percentile(0.9), histogram.max()
+            });
+        }
+        return snapshot;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.platypii.baseline.diagnostics;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Values of all metrics at a point in time.
+ * Rates are computed by comparing against an earlier snapshot.
+ */
+public class MetricsSnapshot {
+
+    private final long nano;
+    final Map<String, Long> counters = new TreeMap<>();
+    final Map<String, Long> gauges = new TreeMap<>();
+    // count, p50, p90, max
+    final Map<String, long[]> histograms = new TreeMap<>();
+
+    MetricsSnapshot(long nano) {
+        this.nano = nano;
+    }
+
+    /** Time of the snapshot, from System.nanoTime() */
+    public long nano() {
+        return nano;
+    }
+
+    /**
+     * Render as text, one metric per line
+     * @param previous earlier snapshot used to compute counter rates, or null for no rates
+     */
+    @NonNull
+    public String format(@Nullable MetricsSnapshot previous) {
+        final StringBuilder sb = new StringBuilder();
+        final double seconds = previous == null ? 0 : (nano - previous.nano) * 1e-9;
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            sb.append(String.format(Locale.US, "%-20s %d", entry.getKey(), entry.getValue()));
+            if (seconds > 0) {
+                final Long prev = previous.counters.get(entry.getKey());
+                final long delta = entry.getValue() - (prev == null ? 0 : prev);
+                sb.append(String.format(Locale.US, " (%.1f/s)", delta / seconds));
+            }
+            sb.append('\n');
+        }
+        for (Map.Entry<String, Long> entry : gauges.entrySet()) {
+            sb.append(String.format(Locale.US, "%-20s %d\n", entry.getKey(), entry.getValue()));
+        }
+        for (Map.Entry<String, long[]> entry : histograms.entrySet()) {
+            final long[] h = entry.getValue();
+            sb.append(String.format(Locale.US, "%-20s n=%d p50=%d p90=%d max=%d\n", entry.getKey(), h[0], h[1], h[2], h[3]));
+        }
+        return sb.toString();
+    }
+
+}
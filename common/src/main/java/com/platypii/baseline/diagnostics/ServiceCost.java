@@ -0,0 +1,165 @@
+package com.platypii.baseline.diagnostics;
+
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts thread cpu time and wakeups to the service doing the work.
+ *
+ * Wrap each callback with begin() and end(). Accounting is exclusive: when one service
+ * calls into another on the same thread (such as sensors notifying the logger),
+ * the time spent in the inner call is charged to the inner service only.
+ */
+public class ServiceCost {
+
+    /**
+     * Source of cpu time for the current thread.
+     * AndroidPlatform installs Debug.threadCpuTimeNanos, the JVM can plug in a ThreadMXBean.
+     */
+    public interface CpuClock {
+        long threadCpuNanos();
+    }
+    public static CpuClock clock = () -> 0; // Installed by the platform
+
+    // Registry of services, in order of creation
+    private static final List<ServiceCost> services = new ArrayList<>();
+    private static long resetNano = System.nanoTime();
+
+    // Stack of services currently running on each thread
+    private static final int MAX_DEPTH = 8;
+    private static class Stack {
+        final ServiceCost[] costs = new ServiceCost[MAX_DEPTH];
+        int depth = 0;
+        long mark;
+    }
+    private static final ThreadLocal<Stack> stacks = new ThreadLocal<Stack>() {
+        @Override
+        protected Stack initialValue() {
+            return new Stack();
+        }
+    };
+
+    @NonNull
+    public final String name;
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+
+    private ServiceCost(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Find or create the accounting for a service
+     */
+    @NonNull
+    public static ServiceCost get(@NonNull String name) {
+        synchronized (services) {
+            for (ServiceCost cost : services) {
+                if (cost.name.equals(name)) {
+                    return cost;
+                }
+            }
+            final ServiceCost cost = new ServiceCost(name);
+            services.add(cost);
+            return cost;
+        }
+    }
+
+    /**
+     * Start charging the current thread to this service
+     */
+    public void begin() {
+        final Stack stack = stacks.get();
+        final long now = clock.threadCpuNanos();
+        if (0 < stack.depth && stack.depth <= MAX_DEPTH) {
+            // Pause the outer service
+            stack.costs[stack.depth - 1].charge(now - stack.mark);
+        }
+        if (stack.depth < MAX_DEPTH) {
+            stack.costs[stack.depth] = this;
+        }
+        stack.depth++;
+        stack.mark = now;
+        events.incrementAndGet();
+    }
+
+    /**
+     * Stop charging the current thread to this service, and resume the outer service
+     */
+    public void end() {
+        final Stack stack = stacks.get();
+        final long now = clock.threadCpuNanos();
+        if (stack.depth > 0) {
+            stack.depth--;
+            if (stack.depth < MAX_DEPTH) {
+                stack.costs[stack.depth].charge(now - stack.mark);
+                stack.costs[stack.depth] = null;
+            }
+        }
+        stack.mark = now;
+    }
+
+    /**
+     * Returns a runnable that charges the given work to this service
+     */
+    @NonNull
+    public Runnable wrap(@NonNull final Runnable runnable) {
+        return () -> {
+            begin();
+            try {
+                runnable.run();
+            } finally {
+                end();
+            }
+        };
+    }
+
+    private void charge(long nanos) {
+        if (nanos > 0) {
+            cpuNanos.addAndGet(nanos);
+        }
+    }
+
+    public long cpuNanos() {
+        return cpuNanos.get();
+    }
+
+    public long events() {
+        return events.get();
+    }
+
+    /**
+     * Clear all counts, such as at the start of a track
+     */
+    public static void reset() {
+        synchronized (services) {
+            for (ServiceCost cost : services) {
+                cost.cpuNanos.set(0);
+                cost.events.set(0);
+            }
+            resetNano = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns a table of cpu time and wakeups per service since the last reset
+     */
+    @NonNull
+    public static String summary() {
+        final StringBuilder sb = new StringBuilder();
+        synchronized (services) {
+            final double seconds = (System.nanoTime() - resetNano) * 1e-9;
+            sb.append(String.format(Locale.US, "%-16s %9s %6s %8s %7s", "service", "cpu_ms", "cpu%", "events", "ev/s"));
+            for (ServiceCost cost : services) {
+                final double cpuMillis = cost.cpuNanos() * 1e-6;
+                sb.append(String.format(Locale.US, "\n%-16s %9.1f %6.2f %8d %7.1f",
+                        cost.name, cpuMillis, cpuMillis * 0.1 / seconds, cost.events(), cost.events() / seconds));
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.platypii.baseline.jarvis;
+
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.platform.Log;
+import android.support.annotation.NonNull;
+
+/**
+ * Detects exit and then landing from a stream of locations, for auto-stop.
+ * Platform independent, so it can be run over recorded tracks.
+ */
+public class LandingDetector {
+    private static final String TAG = "LandingDetector";
+
+    // Jump detection state
+    public static final int STATE_STOPPED = 0;
+    public static final int STATE_STARTED = 1;
+    public static final int STATE_EXITED = 2;
+    private int state = STATE_STOPPED;
+
+    private static final double minHeight = 60;
+
+    private double prExited = 0;
+    private double prLanded = 0;
+
+    private double altMin = Double.NaN;
+    private double altMax = Double.NaN;
+
+    // Live detectors record state changes in the flight recorder, batch analysis does not
+    private final boolean live;
+
+    public LandingDetector() {
+        this(true);
+    }
+
+    /**
+     * @param live false for batch analysis of recorded tracks
+     */
+    public LandingDetector(boolean live) {
+        this.live = live;
+    }
+
+    /**
+     * Process a location update
+     * @return true when landing is detected, after which the detector is stopped
+     */
+    public boolean update(@NonNull MLocation loc) {
+        final double alt = loc.altitude_gps;
+        // Update altitude range
+        if(!Double.isNaN(alt)) {
+            if(!(altMin < alt)) altMin = alt;
+            if(!(alt < altMax)) altMax = alt;
+        }
+        // Update state
+        if(state == STATE_STARTED) {
+            // Look for flight / freefall
+            if(loc.climb < -15 && altMax - alt > minHeight) {
+                prExited += (1 - prExited) * 0.6;
+            } else if(FlightMode.getMode(loc) == FlightMode.MODE_CANOPY && altMax - alt > minHeight) {
+                prExited += (1 - prExited) * 0.2;
+            } else {
+                prExited -= prExited * 0.6;
+            }
+            if(prExited > 0.85) {
+                Log.i(TAG, "Exit detected");
+                setState(STATE_EXITED);
+            }
+        } else if(state == STATE_EXITED) {
+            // Look for landing
+            final double altNormalized = (alt - altMin) / (altMax - altMin);
+            if(FlightMode.getMode(loc) == FlightMode.MODE_GROUND && altMax - altMin > minHeight && altNormalized < 0.1) {
+                prLanded += (1 - prLanded) * 0.2;
+            }
+            if(prLanded > 0.99) {
+                setState(STATE_STOPPED);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start looking for a jump
+     * @return false if already started
+     */
+    public boolean start() {
+        if(state == STATE_STOPPED) {
+            // Reset state
+            setState(STATE_STARTED);
+            prExited = 0;
+            prLanded = 0;
+            // TODO: Should we reset altitude range per recording or per app session?
+            altMin = Double.NaN;
+            altMax = Double.NaN;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Stop looking for a jump
+     * @return false if already stopped
+     */
+    public boolean stop() {
+        if(state != STATE_STOPPED) {
+            setState(STATE_STOPPED);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    public int state() {
+        return state;
+    }
+
+    private void setState(int newState) {
+        state = newState;
+        if(live) {
+            FlightRecorder.record(FlightRecorder.AUTO_STOP, newState);
+        }
+    }
+
+}
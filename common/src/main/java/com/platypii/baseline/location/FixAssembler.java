@@ -0,0 +1,168 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Metrics;
+import android.support.annotation.NonNull;
+
+/**
+ * Collects the NMEA sentences of one receiver epoch into a single fix.
+ *
+ * Sentences with a UTC time field (RMC, GGA, GNS) open a new epoch when the time changes.
+ * Sentences without one (GSA) belong to the current epoch.
+ * Only RMC has a date, so the date rolls over at midnight even if GGA or GNS arrive first.
+ * The fix is emitted exactly once per epoch: as soon as every sentence type the receiver
+ * usually sends has arrived, or else when the next epoch starts or the epoch times out.
+ * The record is preallocated and reused, so assembling a fix does not allocate.
+ * Only touched by the nmea thread.
+ */
+class FixAssembler {
+
+    // Sentence types that make up an epoch
+    static final int RMC = 1;
+    static final int GGA = 2;
+    static final int GNS = 4;
+    static final int GSA = 8;
+
+    // Emit a fix with RMC if the rest of the epoch hasn't arrived by then
+    private static final long TIMEOUT = 250; // milliseconds
+    // Times further back than this are a midnight rollover, not a stale sentence
+    private static final long DAY = 24 * 3600000;
+    private static final long HALF_DAY = DAY / 2;
+    // After a gap this long, accept any time as the next epoch
+    private static final long RESYNC = 10000; // milliseconds
+
+    // Fix record for the current epoch
+    long date = 0; // milliseconds since epoch of midnight UTC, from RMC
+    long time = -1; // milliseconds since midnight UTC
+    double latitude = Double.NaN;
+    double longitude = Double.NaN;
+    double altitude_gps = Double.NaN;
+    double vN = Double.NaN;
+    double vE = Double.NaN;
+    // Satellite data changes slowly and may not be sent every epoch, so it carries over
+    float pdop = Float.NaN;
+    float hdop = Float.NaN;
+    float vdop = Float.NaN;
+    int satellitesUsed = -1;
+    int satellitesInView = -1;
+
+    // Epoch state
+    private int mask = 0; // sentences received this epoch
+    private boolean emitted = false;
+    private long opened; // arrival time of the first sentence, in milliseconds
+    private int lastMask = 0;
+    private int expected = 0; // sentences seen in each of the last two epochs
+
+    private final Runnable listener;
+
+    // Metrics
+    private static final Counter epochs = Metrics.counter("nmea.epochs");
+    private static final Counter incomplete = Metrics.counter("nmea.epochs_incomplete");
+    private static final Counter duplicate = Metrics.counter("nmea.epochs_duplicate");
+
+    /**
+     * @param listener called when a fix is ready, reads the record fields
+     */
+    FixAssembler(@NonNull Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Called with the UTC time of a sentence, before parsing the rest of it
+     * @param timeOfDay milliseconds since midnight UTC
+     * @param sentence sentence type, such as RMC
+     * @param now arrival time in milliseconds
+     * @return false if the sentence is a duplicate or stale and should be ignored
+     */
+    boolean time(long timeOfDay, int sentence, long now) {
+        if (timeOfDay == time) {
+            if ((mask & sentence) != 0) {
+                duplicate.inc();
+                return false;
+            }
+            return true;
+        }
+        final long delta = timeOfDay - time;
+        final boolean recent = time >= 0 && now - opened < RESYNC;
+        if (recent && (-HALF_DAY < delta && delta < 0 || delta > HALF_DAY)) {
+            // Stale, including from before midnight
+            duplicate.inc();
+            return false;
+        }
+        close();
+        if (recent && delta <= -HALF_DAY && date > 0) {
+            // Midnight rollover
+            date += DAY;
+        }
+        open(timeOfDay, now);
+        return true;
+    }
+
+    /**
+     * Called instead of time() for a sentence with an empty time field
+     * @param now arrival time in milliseconds
+     * @return false unless there is a recent epoch still waiting for sentences
+     */
+    boolean untimed(long now) {
+        return time >= 0 && !emitted && now - opened <= TIMEOUT;
+    }
+
+    /**
+     * Called once a sentence has been parsed into the record
+     * @param sentence sentence type, such as RMC
+     */
+    void add(int sentence) {
+        mask |= sentence;
+        if (!emitted && (mask & RMC) != 0 && expected != 0 && (mask & expected) == expected) {
+            emit();
+        }
+    }
+
+    /**
+     * Emit the current epoch if it has timed out waiting for sentences
+     * @param now arrival time in milliseconds
+     */
+    void poll(long now) {
+        if (!emitted && (mask & RMC) != 0 && now - opened > TIMEOUT) {
+            incomplete.inc();
+            emit();
+        }
+    }
+
+    /**
+     * Finish the current epoch, emitting it late if it was never complete
+     */
+    private void close() {
+        if (mask != 0) {
+            epochs.inc();
+            if (!emitted) {
+                if ((mask & RMC) == 0 || (mask & expected) != expected) {
+                    incomplete.inc();
+                }
+                if ((mask & RMC) != 0) {
+                    emit();
+                }
+            }
+            expected = mask & lastMask;
+            lastMask = mask;
+        }
+    }
+
+    private void open(long timeOfDay, long now) {
+        time = timeOfDay;
+        mask = 0;
+        emitted = false;
+        opened = now;
+        latitude = Double.NaN;
+        longitude = Double.NaN;
+        altitude_gps = Double.NaN;
+        vN = Double.NaN;
+        vE = Double.NaN;
+    }
+
+    private void emit() {
+        emitted = true;
+        listener.run();
+    }
+
+}
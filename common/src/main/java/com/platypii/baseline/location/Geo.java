@@ -1,7 +1,6 @@
 package com.platypii.baseline.location;
 
 import android.support.annotation.NonNull;
-import com.google.android.gms.maps.model.LatLng;
 
 /**
  * Geographic helpers
@@ -47,9 +46,10 @@ public class Geo {
 
     /**
      * Moves the location along a bearing (degrees) by a given distance (meters)
+     * @return latitude and longitude of the new location
      */
     @NonNull
-    public static LatLng moveDirection(double latitude, double longitude, double bearing, double distance) {
+    public static double[] moveDirection(double latitude, double longitude, double bearing, double distance) {
         final double d = distance / R;
 
         final double lat = radians(latitude);
@@ -69,7 +69,7 @@ public class Geo {
         final double lat3 = degrees(lat2);
         final double lon3 = mod360(degrees(lon2));
 
-        return new LatLng(lat3, lon3);
+        return new double[] {lat3, lon3};
     }
 
     // Helpers
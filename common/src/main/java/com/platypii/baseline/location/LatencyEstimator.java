@@ -0,0 +1,83 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Gauge;
+import com.platypii.baseline.diagnostics.Histogram;
+import com.platypii.baseline.diagnostics.Metrics;
+
+/**
+ * Estimates how old fixes are when they arrive, from the gps time of the fix and the
+ * phone time it arrived.
+ *
+ * TimeOffset is set from the arrival of each fix, so it includes the latency and can't
+ * measure it. Instead the phone clock is assumed to be network synced, which is usually
+ * within a few tens of milliseconds, and arrival - gps time is smoothed.
+ * Ages outside of the plausible range mean the phone clock is wrong, or a time jump.
+ * Those are ignored, and if no plausible age has been seen for a while the estimate
+ * falls back to zero, which means no compensation.
+ */
+public class LatencyEstimator {
+
+    // Plausible fix age, larger means the phone clock is wrong
+    static final long MAX_LATENCY = 1000; // milliseconds
+    // Give up on the estimate after this many implausible fixes in a row
+    private static final int MAX_IMPLAUSIBLE = 10;
+    // Smoothing factor for the moving average
+    private static final double ALPHA = 0.1;
+
+    private double latency = 0;
+    private boolean hasLatency = false;
+    private int implausible = 0;
+
+    // Metrics
+    private static final Histogram fixAge = Metrics.histogram("location.fix_age");
+    private static final Gauge latencyGauge = Metrics.gauge("location.latency");
+    private static final Counter clockImplausible = Metrics.counter("location.clock_implausible");
+
+    /**
+     * Called with each fix as it arrives
+     * @param gpsMillis gps time of the fix
+     * @param arrival phone time the fix arrived, in milliseconds
+     */
+    public synchronized void onFix(long gpsMillis, long arrival) {
+        final long age = arrival - gpsMillis;
+        if (0 <= age && age <= MAX_LATENCY) {
+            fixAge.add(age);
+            implausible = 0;
+            if (hasLatency) {
+                latency += (age - latency) * ALPHA;
+            } else {
+                latency = age;
+                hasLatency = true;
+            }
+        } else {
+            clockImplausible.inc();
+            if (++implausible >= MAX_IMPLAUSIBLE) {
+                latency = 0;
+                hasLatency = false;
+            }
+        }
+        latencyGauge.set(Math.round(latency));
+    }
+
+    /**
+     * Smoothed age of fixes when they arrive, in milliseconds
+     */
+    public synchronized long latency() {
+        return Math.round(latency);
+    }
+
+    /**
+     * Phone time at which the fix was measured, given when it arrived
+     */
+    public long fixTime(long arrival) {
+        return arrival - latency();
+    }
+
+    public synchronized void reset() {
+        latency = 0;
+        hasLatency = false;
+        implausible = 0;
+    }
+
+}
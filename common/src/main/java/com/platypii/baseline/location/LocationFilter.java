@@ -0,0 +1,254 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.Numbers;
+import android.support.annotation.NonNull;
+
+/**
+ * Constant velocity Kalman filter for GPS position and velocity, in local east-north coordinates.
+ *
+ * East and north are filtered independently, each with state [position, velocity].
+ * Fixes are gated on the normalized innovation squared: fixes far from the prediction are
+ * flagged as suspect, and fixes very far from it are rejected. Several rejections in a row
+ * mean the filter has lost track, so it restarts from the next fix.
+ * State is kept in primitive fields, so updating does not allocate.
+ */
+public class LocationFilter {
+
+    // Update results
+    public static final int ACCEPTED = 0;
+    public static final int SUSPECT = 1;
+    public static final int REJECTED = 2;
+
+    private static final double R = 6371000; // meters
+    private static final double REORIGIN = 10000; // meters from origin before moving it
+
+    // Process noise, white acceleration variance
+    private static final double accelerationVariance = 25; // (m/s^2)^2
+    // Measurement variance when the receiver doesn't say
+    private static final double defaultPositionVariance = 25; // m^2
+    private static final double velocityVariance = 0.25; // (m/s)^2
+
+    // Chi-squared gates on normalized innovation, for 2 or 4 degrees of freedom
+    private static final double suspectGate2 = 9.21; // 99%
+    private static final double suspectGate4 = 13.28;
+    private static final double rejectGate2 = 18.42; // 99.99%
+    private static final double rejectGate4 = 23.51;
+    private static final int MAX_REJECTS = 3;
+
+    // Restart if fixes are further apart than this
+    private static final long MAX_DT = 10000; // milliseconds
+
+    // Local tangent plane origin
+    private double lat0 = Double.NaN;
+    private double lon0 = Double.NaN;
+    private double metersPerDegreeLon;
+    private static final double metersPerDegreeLat = R * Math.PI / 180;
+
+    // State per axis: east and north position, velocity, and covariance
+    private final Axis east = new Axis();
+    private final Axis north = new Axis();
+
+    private long lastMillis = 0;
+    private int rejects = 0;
+
+    // Smoothed output
+    public double latitude = Double.NaN;
+    public double longitude = Double.NaN;
+    public double vN = Double.NaN;
+    public double vE = Double.NaN;
+    // Normalized innovation squared of the last fix, for diagnostics
+    public double innovation = 0;
+
+    /**
+     * Update the filter with a fix
+     * @return ACCEPTED, SUSPECT, or REJECTED
+     */
+    public int update(@NonNull MLocation loc) {
+        if (!Numbers.isReal(loc.latitude) || !Numbers.isReal(loc.longitude)) {
+            return REJECTED;
+        }
+        final long dtMillis = loc.millis - lastMillis;
+        if (lastMillis == 0 || dtMillis <= 0 || dtMillis > MAX_DT || rejects >= MAX_REJECTS) {
+            init(loc);
+            return ACCEPTED;
+        }
+        final double dt = dtMillis * 0.001;
+
+        // Keep coordinates small, so the flat earth approximation holds
+        if (Math.abs(east.p) > REORIGIN || Math.abs(north.p) > REORIGIN) {
+            setOrigin(latitude, longitude);
+        }
+
+        // Predict
+        east.predict(dt);
+        north.predict(dt);
+
+        // Measurement
+        final double e = (loc.longitude - lon0) * metersPerDegreeLon;
+        final double n = (loc.latitude - lat0) * metersPerDegreeLat;
+        final double rp = positionVariance(loc);
+        final boolean hasVelocity = Numbers.isReal(loc.vE) && Numbers.isReal(loc.vN);
+
+        // Gate on normalized innovation squared
+        innovation = east.innovation(e, loc.vE, rp, hasVelocity) + north.innovation(n, loc.vN, rp, hasVelocity);
+        final double rejectGate = hasVelocity ? rejectGate4 : rejectGate2;
+        final double suspectGate = hasVelocity ? suspectGate4 : suspectGate2;
+        if (innovation > rejectGate) {
+            // Keep the prediction, so the next fix is compared against where we should be
+            rejects++;
+            lastMillis = loc.millis;
+            publish();
+            return REJECTED;
+        }
+        rejects = 0;
+        lastMillis = loc.millis;
+        east.correct(e, loc.vE, rp, hasVelocity);
+        north.correct(n, loc.vN, rp, hasVelocity);
+        publish();
+        return innovation > suspectGate ? SUSPECT : ACCEPTED;
+    }
+
+    /**
+     * Build a smoothed fix, with filtered position and velocity and everything else from the raw fix
+     */
+    @NonNull
+    public MLocation smoothed(@NonNull MLocation loc) {
+        return new MLocation(
+                loc.millis, latitude, longitude, loc.altitude_gps, loc.climb, vN, vE,
+                loc.hAcc, loc.pdop, loc.hdop, loc.vdop, loc.satellitesUsed, loc.satellitesInView
+        );
+    }
+
+    public void reset() {
+        lastMillis = 0;
+        rejects = 0;
+    }
+
+    private void init(@NonNull MLocation loc) {
+        setOrigin(loc.latitude, loc.longitude);
+        final double rp = positionVariance(loc);
+        final boolean hasVelocity = Numbers.isReal(loc.vE) && Numbers.isReal(loc.vN);
+        east.init(0, hasVelocity ? loc.vE : 0, rp, hasVelocity);
+        north.init(0, hasVelocity ? loc.vN : 0, rp, hasVelocity);
+        lastMillis = loc.millis;
+        rejects = 0;
+        innovation = 0;
+        publish();
+    }
+
+    private void setOrigin(double lat, double lon) {
+        // Shift state to the new origin
+        if (!Double.isNaN(lat0)) {
+            east.p -= (lon - lon0) * metersPerDegreeLon;
+            north.p -= (lat - lat0) * metersPerDegreeLat;
+        }
+        lat0 = lat;
+        lon0 = lon;
+        metersPerDegreeLon = metersPerDegreeLat * Math.cos(Math.toRadians(lat));
+    }
+
+    private void publish() {
+        latitude = lat0 + north.p / metersPerDegreeLat;
+        longitude = lon0 + east.p / metersPerDegreeLon;
+        vN = north.v;
+        vE = east.v;
+    }
+
+    private static double positionVariance(@NonNull MLocation loc) {
+        if (Numbers.isReal(loc.hAcc) && loc.hAcc > 0) {
+            return loc.hAcc * loc.hAcc;
+        } else if (Numbers.isReal(loc.hdop) && loc.hdop > 0) {
+            // Assume 4m user range error
+            final double sigma = Math.max(2, loc.hdop * 4);
+            return sigma * sigma;
+        } else {
+            return defaultPositionVariance;
+        }
+    }
+
+    /**
+     * Position and velocity along one axis
+     */
+    private static class Axis {
+        double p;
+        double v;
+        // Covariance, symmetric
+        double p11;
+        double p12;
+        double p22;
+
+        void init(double p, double v, double rp, boolean hasVelocity) {
+            this.p = p;
+            this.v = v;
+            p11 = rp;
+            p12 = 0;
+            p22 = hasVelocity ? velocityVariance : 100;
+        }
+
+        void predict(double dt) {
+            p += v * dt;
+            final double dt2 = dt * dt;
+            p11 += 2 * p12 * dt + p22 * dt2 + 0.25 * dt2 * dt2 * accelerationVariance;
+            p12 += p22 * dt + 0.5 * dt2 * dt * accelerationVariance;
+            p22 += dt2 * accelerationVariance;
+        }
+
+        /**
+         * Normalized innovation squared, y' S^-1 y
+         */
+        double innovation(double zp, double zv, double rp, boolean hasVelocity) {
+            final double yp = zp - p;
+            if (hasVelocity) {
+                final double yv = zv - v;
+                final double s11 = p11 + rp;
+                final double s12 = p12;
+                final double s22 = p22 + velocityVariance;
+                final double det = s11 * s22 - s12 * s12;
+                return (yp * yp * s22 - 2 * yp * yv * s12 + yv * yv * s11) / det;
+            } else {
+                return yp * yp / (p11 + rp);
+            }
+        }
+
+        void correct(double zp, double zv, double rp, boolean hasVelocity) {
+            final double yp = zp - p;
+            if (hasVelocity) {
+                final double yv = zv - v;
+                final double s11 = p11 + rp;
+                final double s12 = p12;
+                final double s22 = p22 + velocityVariance;
+                final double det = s11 * s22 - s12 * s12;
+                // S inverse
+                final double i11 = s22 / det;
+                final double i12 = -s12 / det;
+                final double i22 = s11 / det;
+                // K = P S^-1
+                final double k11 = p11 * i11 + p12 * i12;
+                final double k12 = p11 * i12 + p12 * i22;
+                final double k21 = p12 * i11 + p22 * i12;
+                final double k22 = p12 * i12 + p22 * i22;
+                p += k11 * yp + k12 * yv;
+                v += k21 * yp + k22 * yv;
+                // P = (I - K) P
+                final double n11 = (1 - k11) * p11 - k12 * p12;
+                final double n12 = (1 - k11) * p12 - k12 * p22;
+                final double n22 = -k21 * p12 + (1 - k22) * p22;
+                p11 = n11;
+                p12 = n12;
+                p22 = n22;
+            } else {
+                final double s = p11 + rp;
+                final double k1 = p11 / s;
+                final double k2 = p12 / s;
+                p += k1 * yp;
+                v += k2 * yp;
+                // P = (I - K H) P
+                p22 -= k2 * p12;
+                p12 *= 1 - k1;
+                p11 *= 1 - k1;
+            }
+        }
+    }
+
+}
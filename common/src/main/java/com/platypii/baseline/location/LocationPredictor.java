@@ -0,0 +1,184 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.util.Numbers;
+import android.support.annotation.NonNull;
+
+/**
+ * Dead reckoning between GPS fixes, for smooth display rate updates.
+ *
+ * Horizontal position is propagated from the last fix using its velocity, plus world frame
+ * acceleration from the phone sensors when available. Altitude and climb come from the
+ * barometer, which already updates faster than GPS. When a new fix lands, the difference
+ * between prediction and fix is blended out over a short time instead of jumping.
+ * Callers own a State, so predicting does not allocate.
+ */
+public class LocationPredictor {
+
+    // Predicted state, filled in by predict()
+    public static class State {
+        public boolean valid = false;
+        public double latitude = Double.NaN;
+        public double longitude = Double.NaN;
+        public double altitude = Double.NaN; // meters MSL
+        public double vN = Double.NaN; // meters per second
+        public double vE = Double.NaN;
+        public double climb = Double.NaN;
+
+        public double groundSpeed() {
+            return Math.sqrt(vN * vN + vE * vE);
+        }
+
+        public double bearing() {
+            return Math.toDegrees(Math.atan2(vE, vN));
+        }
+    }
+
+    private static final double metersPerDegreeLat = 6371000 * Math.PI / 180;
+
+    // Don't extrapolate further than this past the last fix
+    private static final long MAX_PREDICT = 2000; // milliseconds
+    // Time constant for blending out the error when a fix lands
+    private static final double BLEND = 300; // milliseconds
+    // Larger corrections are a jump, not prediction error
+    private static final double MAX_BLEND = 100; // meters
+    // Acceleration low pass time constant, and limit
+    private static final double ACCEL_TAU = 200; // milliseconds
+    private static final double MAX_ACCEL = 15; // m/s^2
+
+    // Last fix
+    private boolean hasFix = false;
+    private long fixArrival; // phone millis
+    private double fixLat;
+    private double fixLon;
+    private double metersPerDegreeLon;
+    private double fixVN;
+    private double fixVE;
+
+    // Correction being blended out, relative to the last fix
+    private double offsetE;
+    private double offsetN;
+    private double offsetVE;
+    private double offsetVN;
+
+    // Smoothed horizontal acceleration, world frame
+    private double accelE = 0;
+    private double accelN = 0;
+    private long accelMillis = 0;
+
+    // Barometer
+    private double baroAltitude = Double.NaN;
+    private double baroClimb = Double.NaN;
+    private long baroArrival;
+
+    /**
+     * Called with each fused fix
+     * @param arrival phone time the fix arrived, in milliseconds
+     */
+    public synchronized void onFix(@NonNull MLocation loc, long arrival) {
+        if (!Numbers.isReal(loc.latitude) || !Numbers.isReal(loc.longitude)) return;
+        final double vN = Numbers.isReal(loc.vN) ? loc.vN : 0;
+        final double vE = Numbers.isReal(loc.vE) ? loc.vE : 0;
+        final double newMetersPerDegreeLon = metersPerDegreeLat * Math.cos(Math.toRadians(loc.latitude));
+        if (hasFix) {
+            // Where we were showing, relative to the new fix
+            final double dt = horizon(arrival);
+            final double decay = decay(arrival);
+            final double e = fixVE * dt + 0.5 * accelE * dt * dt + offsetE * decay;
+            final double n = fixVN * dt + 0.5 * accelN * dt * dt + offsetN * decay;
+            final double predictedVE = fixVE + accelE * dt + offsetVE * decay;
+            final double predictedVN = fixVN + accelN * dt + offsetVN * decay;
+            offsetE = (fixLon - loc.longitude) * newMetersPerDegreeLon + e;
+            offsetN = (fixLat - loc.latitude) * metersPerDegreeLat + n;
+            offsetVE = predictedVE - vE;
+            offsetVN = predictedVN - vN;
+            if (Math.abs(offsetE) > MAX_BLEND || Math.abs(offsetN) > MAX_BLEND) {
+                clearOffset();
+            }
+        } else {
+            clearOffset();
+        }
+        hasFix = true;
+        fixArrival = arrival;
+        fixLat = loc.latitude;
+        fixLon = loc.longitude;
+        metersPerDegreeLon = newMetersPerDegreeLon;
+        fixVN = vN;
+        fixVE = vE;
+    }
+
+    /**
+     * Called with world frame horizontal acceleration from the phone sensors
+     * @param millis phone time in milliseconds
+     */
+    public synchronized void onAcceleration(long millis, double aE, double aN) {
+        if (!Numbers.isReal(aE) || !Numbers.isReal(aN)) return;
+        aE = Math.max(-MAX_ACCEL, Math.min(aE, MAX_ACCEL));
+        aN = Math.max(-MAX_ACCEL, Math.min(aN, MAX_ACCEL));
+        final long dt = millis - accelMillis;
+        final double alpha = accelMillis == 0 || dt > 10 * ACCEL_TAU ? 1 : Math.min(1, Math.max(0, dt) / ACCEL_TAU);
+        accelE += (aE - accelE) * alpha;
+        accelN += (aN - accelN) * alpha;
+        accelMillis = millis;
+    }
+
+    /**
+     * Called with each barometric altitude
+     * @param arrival phone time in milliseconds
+     */
+    public synchronized void onAltitude(long arrival, double altitude, double climb) {
+        baroArrival = arrival;
+        baroAltitude = altitude;
+        baroClimb = climb;
+    }
+
+    /**
+     * Predict the state at a given time
+     * @param now phone time in milliseconds
+     */
+    public synchronized void predict(long now, @NonNull State state) {
+        state.valid = hasFix;
+        if (hasFix) {
+            final double dt = horizon(now);
+            final double decay = decay(now);
+            final double e = fixVE * dt + 0.5 * accelE * dt * dt + offsetE * decay;
+            final double n = fixVN * dt + 0.5 * accelN * dt * dt + offsetN * decay;
+            state.latitude = fixLat + n / metersPerDegreeLat;
+            state.longitude = fixLon + e / metersPerDegreeLon;
+            state.vE = fixVE + accelE * dt + offsetVE * decay;
+            state.vN = fixVN + accelN * dt + offsetVN * decay;
+        }
+        if (Numbers.isReal(baroClimb)) {
+            final double dt = Math.max(0, Math.min(now - baroArrival, MAX_PREDICT)) * 0.001;
+            state.altitude = baroAltitude + baroClimb * dt;
+        } else {
+            state.altitude = baroAltitude;
+        }
+        state.climb = baroClimb;
+    }
+
+    public synchronized void reset() {
+        hasFix = false;
+        clearOffset();
+        accelE = accelN = 0;
+        accelMillis = 0;
+        baroAltitude = baroClimb = Double.NaN;
+    }
+
+    /**
+     * Seconds since the last fix, limited to the prediction horizon
+     */
+    private double horizon(long now) {
+        return Math.max(0, Math.min(now - fixArrival, MAX_PREDICT)) * 0.001;
+    }
+
+    private double decay(long now) {
+        return Math.exp(-Math.max(0, now - fixArrival) / BLEND);
+    }
+
+    private void clearOffset() {
+        offsetE = offsetN = 0;
+        offsetVE = offsetVN = 0;
+    }
+
+}
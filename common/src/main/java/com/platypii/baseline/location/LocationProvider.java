@@ -1,12 +1,14 @@
 package com.platypii.baseline.location;
 
 import com.platypii.baseline.BaseService;
+import com.platypii.baseline.diagnostics.ServiceCost;
 import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.platform.Log;
+import com.platypii.baseline.platform.Platform;
 import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.Reporter;
 import android.content.Context;
-import android.os.AsyncTask;
 import android.support.annotation.NonNull;
-import android.util.Log;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -17,6 +19,15 @@ public abstract class LocationProvider implements BaseService {
     // Listeners
     private final List<MyLocationListener> listeners = new CopyOnWriteArrayList<>();
 
+    // All location providers are charged to the location service
+    final ServiceCost serviceCost = ServiceCost.get("LocationService");
+
+    // Error reporting, rate limited and shared by all providers
+    private static final String TAG = "LocationProvider";
+    private static final Reporter negativeDuration = new Reporter(TAG, "location.negative_duration");
+    private static final Reporter clockAdjust = new Reporter(TAG, "location.clock_adjust");
+    private static final Reporter refreshNaN = new Reporter(TAG, "location.refresh_nan");
+
     // GPS status
     // TODO: Include time from last sample until now if > refreshTime
     public float refreshRate = 0; // Moving average of refresh rate in Hz
@@ -42,9 +53,9 @@ public abstract class LocationProvider implements BaseService {
      */
     public long lastFixDuration() {
         if (lastLoc != null && lastLoc.millis > 0) {
-            final long duration = System.currentTimeMillis() - (lastLoc.millis + TimeOffset.phoneOffsetMillis);
+            final long duration = Platform.clock.currentTimeMillis() - (lastLoc.millis + TimeOffset.phoneOffsetMillis);
             if (duration < 0) {
-                Log.w(providerName(), "Time since last fix should never be negative");
+                negativeDuration.w(() -> "Time since last fix should never be negative");
             }
             return duration;
         } else {
@@ -84,12 +95,12 @@ public abstract class LocationProvider implements BaseService {
         lastLoc = loc;
 
         // Update gps time offset
-        final long clockOffset = System.currentTimeMillis() - lastLoc.millis;
+        final long clockOffset = Platform.clock.currentTimeMillis() - lastLoc.millis;
         if (Math.abs(TimeOffset.phoneOffsetMillis - clockOffset) > 1000) {
             if (clockOffset < 0) {
-                Log.w(providerName(), "Adjusting clock: phone behind gps by " + (-clockOffset) + "ms");
+                clockAdjust.w(() -> providerName() + " adjusting clock: phone behind gps by " + (-clockOffset) + "ms");
             } else {
-                Log.w(providerName(), "Adjusting clock: phone ahead of gps by " + clockOffset + "ms");
+                clockAdjust.w(() -> providerName() + " adjusting clock: phone ahead of gps by " + clockOffset + "ms");
             }
         }
         TimeOffset.phoneOffsetMillis = clockOffset;
@@ -106,14 +117,14 @@ public abstract class LocationProvider implements BaseService {
                     refreshRate += (newRefreshRate - refreshRate) * 0.5f; // Moving average
                 }
                 if (Double.isNaN(refreshRate)) {
-                    Log.e(providerName(), "Refresh rate is NaN, deltaTime = " + deltaTime + " refreshTime = " + newRefreshRate);
+                    refreshNaN.e(() -> providerName() + " refresh rate is NaN, deltaTime = " + deltaTime + " refreshTime = " + newRefreshRate);
                     refreshRate = 0;
                 }
             }
         }
 
-        // Notify listeners (using AsyncTask so the manager never blocks!)
-        AsyncTask.execute(() -> {
+        // Notify listeners (on a background thread so the manager never blocks!)
+        Platform.scheduler.execute(() -> {
             for (MyLocationListener listener : listeners) {
                 listener.onLocationChanged(lastLoc);
             }
@@ -1,9 +1,11 @@
 package com.platypii.baseline.location;
 
 import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.diagnostics.LatencyTrace;
 import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.Reporter;
 import android.content.Context;
 import android.location.GpsSatellite;
 import android.location.GpsStatus;
@@ -11,6 +13,7 @@ import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
+import android.os.HandlerThread;
 import android.support.annotation.NonNull;
 import android.util.Log;
 
@@ -19,10 +22,13 @@ import android.util.Log;
 class LocationProviderAndroid extends LocationProvider implements LocationListener, GpsStatus.Listener {
     private static final String TAG = "LocationProviderAndroid";
 
+    private static final Reporter satelliteError = new Reporter(TAG, "location.satellite_status");
+
     private final MyAltimeter alti;
 
     // Android Location manager
     private LocationManager manager;
+    private HandlerThread locationThread;
 
     // Satellite data comes from GpsStatusListener
     private int satellitesInView = -1;
@@ -48,8 +54,10 @@ class LocationProviderAndroid extends LocationProvider implements LocationListen
         if (manager != null) {
             try {
                 if (manager.getProvider(LocationManager.GPS_PROVIDER) != null) {
-                    // TODO: Specify looper thread?
-                    manager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 0, 0, this);
+                    // Receive location updates on a named thread, for cpu accounting
+                    locationThread = new HandlerThread("LocationService");
+                    locationThread.start();
+                    manager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 0, 0, this, locationThread.getLooper());
                     manager.addGpsStatusListener(this);
                 } else {
                     Log.e(TAG, "Failed to get android location provider");
@@ -67,8 +75,19 @@ class LocationProviderAndroid extends LocationProvider implements LocationListen
     /** Android location listener */
     @Override
     public void onLocationChanged(@NonNull Location loc) {
+        serviceCost.begin();
+        try {
+            handleLocation(loc);
+        } finally {
+            serviceCost.end();
+        }
+    }
+
+    private void handleLocation(@NonNull Location loc) {
         // TODO: minsdk26: loc.getVerticalAccuracyMeters();
         // TODO: minsdk26: loc.getSpeedAccuracyMetersPerSecond()
+        // Android does not give us sentence arrival time, so arrival and fix are the same
+        LatencyTrace.arrival(LatencyTrace.GPS, 0);
         if (Numbers.isReal(loc.getLatitude()) && Numbers.isReal(loc.getLongitude())) {
             final float hAcc;
             if (loc.hasAccuracy())
@@ -111,6 +130,7 @@ class LocationProviderAndroid extends LocationProvider implements LocationListen
             pdop = hdop = vdop = Float.NaN;
 
             // Update official location
+            LatencyTrace.mark(LatencyTrace.FIX, LatencyTrace.GPS);
             updateLocation(new MLocation(
                     lastFixMillis, latitude, longitude, altitude_gps, alti.climb, vN, vE,
                     hAcc, pdop, hdop, vdop, satellitesUsed, satellitesInView));
@@ -155,7 +175,7 @@ class LocationProviderAndroid extends LocationProvider implements LocationListen
                         satellitesInView = count;
                         satellitesUsed = used;
                     } catch(SecurityException e) {
-                        Exceptions.report(e);
+                        satelliteError.report(() -> e);
                     }
                 }
         }
@@ -173,5 +193,9 @@ class LocationProviderAndroid extends LocationProvider implements LocationListen
             }
             manager = null;
         }
+        if (locationThread != null) {
+            locationThread.quit();
+            locationThread = null;
+        }
     }
 }
@@ -2,15 +2,27 @@ package com.platypii.baseline.location;
 
 import com.platypii.baseline.altimeter.MyAltimeter;
 import com.platypii.baseline.bluetooth.BluetoothService;
+import com.platypii.baseline.bluetooth.Ubx;
+import com.platypii.baseline.bluetooth.UbxListener;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.Numbers;
 
 import android.content.Context;
 import android.support.annotation.NonNull;
 
-class LocationProviderBluetooth extends LocationProviderNMEA {
+class LocationProviderBluetooth extends LocationProviderNMEA implements UbxListener {
 
+    // Prefer NAV-PVT over NMEA position sentences while it keeps arriving
+    private static final long UBX_TIMEOUT = 2000; // milliseconds
+
+    private final MyAltimeter alti;
     private final BluetoothService bluetooth;
 
+    // Most recent UBX solution, decoded in place
+    private final NavPvt pvt = new NavPvt();
+    private long lastPvt = 0; // arrival time in milliseconds
+
     @NonNull
     @Override
     protected String providerName() {
@@ -19,6 +31,7 @@ class LocationProviderBluetooth extends LocationProviderNMEA {
 
     LocationProviderBluetooth(MyAltimeter alti, BluetoothService bluetooth) {
         super(alti);
+        this.alti = alti;
         this.bluetooth = bluetooth;
     }
 
@@ -31,22 +44,57 @@ class LocationProviderBluetooth extends LocationProviderNMEA {
             bluetooth.powerLevel = NMEA.parsePowerLevel(split);
             bluetooth.charging = Numbers.parseInt(split[5], 0) == 1;
         }
+        if(timestamp - lastPvt < UBX_TIMEOUT && isPositionSentence(split[0])) {
+            // Receiver is sending NAV-PVT, don't emit the same fix twice
+            return;
+        }
         super.handleNmea(timestamp, nmea);
     }
 
+    private static boolean isPositionSentence(@NonNull String command) {
+        return command.endsWith("RMC") || command.endsWith("GGA") || command.endsWith("GNS");
+    }
+
+    /**
+     * Binary navigation solution from a u-blox receiver
+     */
+    @Override
+    public void onUbxReceived(int msgClass, int msgId, @NonNull byte[] frame, int offset, int length) {
+        if(msgClass == Ubx.NAV && msgId == Ubx.NAV_PVT && length >= NavPvt.LENGTH) {
+            serviceCost.begin();
+            try {
+                lastPvt = System.currentTimeMillis();
+                LatencyTrace.arrival(LatencyTrace.GPS, 0);
+                pvt.decode(frame, offset);
+                if(pvt.valid) {
+                    LatencyTrace.mark(LatencyTrace.FIX, LatencyTrace.GPS);
+                    final int inView = satellites.inView();
+                    updateLocation(new MLocation(
+                            pvt.millis, pvt.latitude, pvt.longitude, pvt.altitude_gps, alti.climb, pvt.vN, pvt.vE,
+                            pvt.hAcc, pvt.pdop, Float.NaN, Float.NaN, pvt.numSV, inView > 0 ? inView : -1
+                    ));
+                }
+            } finally {
+                serviceCost.end();
+            }
+        }
+    }
+
     /**
      * Start location updates
      * @param context The Application context
      */
     @Override
     public void start(@NonNull Context context) throws SecurityException {
-        // Start NMEA updates
+        // Start NMEA and UBX updates
         bluetooth.addNmeaListener(this);
+        bluetooth.addUbxListener(this);
     }
 
     @Override
     public void stop() {
         super.stop();
         bluetooth.removeNmeaListener(this);
+        bluetooth.removeUbxListener(this);
     }
 }
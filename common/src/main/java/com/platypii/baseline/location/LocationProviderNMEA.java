@@ -1,15 +1,21 @@
 package com.platypii.baseline.location;
 
 import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.diagnostics.Metrics;
 import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.Convert;
-import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.Reporter;
 import android.content.Context;
 import android.location.GpsStatus;
 import android.location.LocationManager;
 import android.support.annotation.NonNull;
 import android.util.Log;
+import java.util.HashMap;
+import java.util.Map;
 
 class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaListener {
     protected final String TAG = "LocationProviderNMEA";
@@ -19,26 +25,29 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
 
     boolean nmeaReceived = false;
 
-    // Most recent data
-    private long lastFixMillis = -1;
-    private double latitude = Double.NaN;
-    private double longitude = Double.NaN;
-    private double altitude_gps = Double.NaN;
-    private double vN = Double.NaN;
-    private double vE = Double.NaN;
-    // private double groundSpeed = Double.NaN;
-    // private double bearing = Double.NaN;
-    private float pdop = Float.NaN;
-    private float hdop = Float.NaN;
-    private float vdop = Float.NaN;
-    private long dateTime; // The number of milliseconds until the start of this day, midnight GMT
-
-    // Satellite data
-    private int satellitesInView = -1;
-    private int satellitesUsed = -1;
+    // Most recent data, assembled one epoch at a time
+    private final FixAssembler fix = new FixAssembler(this::updateLocation);
+    final SatelliteTable satellites = new SatelliteTable();
 
     // Android Location manager
-    private static LocationManager manager;
+    private LocationManager manager;
+
+    // Raw sentence capture, null unless capturing
+    volatile NmeaCapture capture;
+
+    // Error reporting, rate limited
+    private static final Reporter splitError = new Reporter(NMEA_TAG, "nmea.missing_linebreak");
+    private static final Reporter checksumError = new Reporter(NMEA_TAG, "nmea.checksum");
+    private static final Reporter handlingError = new Reporter(NMEA_TAG, "nmea.exception");
+    private static final Reporter unitsError = new Reporter(NMEA_TAG, "nmea.units");
+    private static final Reporter zeroLocation = new Reporter(NMEA_TAG, "nmea.location_zero");
+    private static final Reporter invalidLocation = new Reporter(NMEA_TAG, "nmea.location_invalid");
+    private static final Reporter unlikelyLocation = new Reporter(NMEA_TAG, "nmea.location_unlikely");
+    private static final Reporter invalidTimestamp = new Reporter(NMEA_TAG, "nmea.timestamp");
+    private static final Reporter unknownCommand = new Reporter(NMEA_TAG, "nmea.unknown_command");
+
+    // Metrics
+    private final Map<String, Counter> sentenceCounters = new HashMap<>(); // Only touched by the nmea thread
 
     @Override
     protected String providerName() {
@@ -71,10 +80,14 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
         }
     }
 
+    /**
+     * Called by the fix assembler once per epoch
+     */
     private void updateLocation() {
+        LatencyTrace.mark(LatencyTrace.FIX, LatencyTrace.GPS);
         updateLocation(new MLocation(
-                lastFixMillis, latitude, longitude, altitude_gps, alti.climb, vN, vE,
-                Float.NaN, pdop, hdop, vdop, satellitesUsed, satellitesInView
+                fix.date + fix.time, fix.latitude, fix.longitude, fix.altitude_gps, alti.climb, fix.vN, fix.vE,
+                Float.NaN, fix.pdop, fix.hdop, fix.vdop, fix.satellitesUsed, fix.satellitesInView
         ));
     }
 
@@ -82,13 +95,28 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
      * This is the main NMEA parsing function.
      * NMEA strings are trimmed, validated, and then parsed into NMEA commands.
      * Location and velocity data is set as NMEA commands arrive.
-     * Location is officially updated when we receive the RMC "recommended minimum data" command.
+     * Location is officially updated once per epoch, by the fix assembler.
      * @param timestamp milliseconds
      * @param nmea the NMEA string
      */
     @Override
     public void onNmeaReceived(long timestamp, String nmea) {
+        serviceCost.begin();
+        try {
+            final NmeaCapture capture = this.capture;
+            if (capture != null) {
+                capture.write(timestamp, nmea);
+            }
+            receiveNmea(timestamp, nmea);
+        } finally {
+            serviceCost.end();
+        }
+    }
+
+    private void receiveNmea(long timestamp, String nmea) {
         // Log.v(NMEA_TAG, "[" + timestamp + "] " + nmea.trim()); // Trim because logcat fails on trailing \0
+        final long age = System.currentTimeMillis() - timestamp;
+        LatencyTrace.arrival(LatencyTrace.GPS, age > 0 ? age * 1000000L : 0);
 
         nmea = NMEA.cleanNmea(nmea);
         if (nmea.length() < 8) {
@@ -97,12 +125,13 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
 
         // Check for missing line breaks
         if (nmea.indexOf('$', 1) > 0) {
-            Log.w(TAG, "Splitting multiple NMEA sentences: " + nmea);
+            final String unsplit = nmea;
+            splitError.w(() -> "Splitting multiple NMEA sentences: " + unsplit);
             final String[] split = nmea.split("\\$");
             // Recurse on split sentences
             for (String str : split) {
                 if (!str.isEmpty()) {
-                    onNmeaReceived(timestamp, "$" + str);
+                    receiveNmea(timestamp, "$" + str);
                 }
             }
         }
@@ -118,33 +147,53 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
 
             handleNmea(timestamp, nmea);
         } catch (NMEAChecksumException e) {
-            Log.e(TAG, e.getMessage());
+            checksumError.e(e::getMessage);
+            FlightRecorder.record(FlightRecorder.DROPPED, LatencyTrace.GPS);
         } catch (Exception e) {
-            Exceptions.report(new NMEAException("Exception while handling NMEA: " + nmea, e));
+            final String sentence = nmea;
+            handlingError.report(() -> new NMEAException("Exception while handling NMEA: " + sentence, e));
+        }
+    }
+
+    /**
+     * Find the epoch of a sentence from its time field
+     * @return false if the sentence should be skipped, because its time is malformed or stale
+     */
+    private boolean epochTime(@NonNull String time, int sentence, long timestamp) {
+        if (time.isEmpty()) {
+            // Without a time, it can only belong to the epoch that is still open
+            return fix.untimed(timestamp);
         }
+        final long timeOfDay = NMEA.parseTime(time);
+        return timeOfDay >= 0 && fix.time(timeOfDay, sentence, timestamp);
     }
 
     protected void handleNmea(long timestamp, @NonNull String nmea) throws NMEAException {
         // Parse NMEA command
         final String split[] = NMEA.splitNmea(nmea);
         final String command = split[0].substring(3);
+        sentenceCounter(command).inc();
+        fix.poll(timestamp);
         switch (command) {
             case "GGA":
                 if (split.length < 11) {
                     throw new NMEAException("Invalid GGA command");
                 }
+                if (!epochTime(split[1], FixAssembler.GGA, timestamp)) {
+                    break;
+                }
 
                 // Fix data
                 // latitude = NMEA.parseDegreesMinutes(split[2], split[3]);
                 // longitude = NMEA.parseDegreesMinutes(split[4], split[5]);
                 // gpsFix = Numbers.parseInt(split[6], -1); // 0 = Invalid, 1 = Valid SPS, 2 = Valid DGPS, 3 = Valid PPS
-                satellitesUsed = Numbers.parseInt(split[7], -1);
-                hdop = Numbers.parseFloat(split[8]);
+                fix.satellitesUsed = Numbers.parseInt(split[7], -1);
+                fix.hdop = Numbers.parseFloat(split[8]);
                 if (!split[9].isEmpty()) {
                     if (!split[10].equals("M")) {
-                        Exceptions.report(new NMEAException("Expected meters, was " + split[10] + " in nmea: " + nmea));
+                        unitsError.report(() -> new NMEAException("Expected meters, was " + split[10] + " in nmea: " + nmea));
                     }
-                    altitude_gps = Numbers.parseDouble(split[9]);
+                    fix.altitude_gps = Numbers.parseDouble(split[9]);
                 }
                 // double geoidSeparation = parseDouble(split[11]]); // Geoid separation according to WGS-84 ellipsoid
                 // assert split[12].equals("M")// Separation Units
@@ -160,32 +209,45 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
                 //   lastFixMillis = timestamp; // Alt: System.currentTimeMillis();
                 // else
                 //   lastFixMillis = dateTime + parseTime(split[1]);
-
+                fix.add(FixAssembler.GGA);
                 break;
             case "RMC":
                 // Recommended minimum data for gps
                 // This is the NMEA command that we use as the "keyframe" of the NMEA stream.
-                // When we receive a valid RMC command, we issue an updateLocation() to listeners.
+                // An epoch is only emitted if it has a valid RMC command.
 
                 if (split.length < 10) {
                     throw new NMEAException("Invalid RMC command");
                 }
 
+                // split[9]: Date: 230394 = 23 March 1994
+                // split[1]: Time: 123456 = 12:34:56 UTC
+                final long date = NMEA.parseDate(split[9]);
+                if (date < 0 && !split[9].isEmpty()) {
+                    // Malformed date
+                    break;
+                }
+                if (!epochTime(split[1], FixAssembler.RMC, timestamp)) {
+                    break;
+                }
+                if (date >= 0) {
+                    fix.date = date;
+                }
+
                 // boolean status = split[2].equals("A"); // A = active, V = void
-                latitude = NMEA.parseDegreesMinutes(split[3], split[4]);
-                longitude = NMEA.parseDegreesMinutes(split[5], split[6]);
+                final double latitude = NMEA.parseDegreesMinutes(split[3], split[4]);
+                final double longitude = NMEA.parseDegreesMinutes(split[5], split[6]);
                 final double groundSpeedRMC = Convert.kts2mps(Numbers.parseDouble(split[7])); // Speed over ground
                 final double bearingRMC = Numbers.parseDouble(split[8]); // Course over ground
                 // split[10], split[11]: 003.1,W magnetic variation
-                // split[9]: Date: 230394 = 23 March 1994
-                // split[1]: Time: 123456 = 12:34:56 UTC
-                dateTime = NMEA.parseDate(split[9]);
-                lastFixMillis = dateTime + NMEA.parseTime(split[1]);
+                final long lastFixMillis = fix.date + fix.time;
                 // Log.w("Time", "["+timestamp+"] lastFixMillis = " + lastFixMillis + ", currentTime = " + System.currentTimeMillis());
 
                 // Computed parameters
-                vN = groundSpeedRMC * Math.cos(Math.toRadians(bearingRMC));
-                vE = groundSpeedRMC * Math.sin(Math.toRadians(bearingRMC));
+                fix.latitude = latitude;
+                fix.longitude = longitude;
+                fix.vN = groundSpeedRMC * Math.cos(Math.toRadians(bearingRMC));
+                fix.vE = groundSpeedRMC * Math.sin(Math.toRadians(bearingRMC));
 
                 // Log.i(NMEA_TAG, "["+time+"] " + Convert.latlong(latitude, longitude) + ", groundSpeed = " + Convert.speed(groundSpeed) + ", bearing = " + Convert.bearing2(bearing));
 
@@ -194,49 +256,56 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
                 if (locationError != LocationCheck.INVALID_NAN) {
                     if (locationError == LocationCheck.INVALID_ZERO) {
                         // So common we don't even need to report it
-                        Log.e(NMEA_TAG, LocationCheck.message[locationError] + ": " + latitude + "," + longitude);
+                        zeroLocation.e(() -> LocationCheck.message[locationError] + ": " + latitude + "," + longitude);
                     } else if (locationError == LocationCheck.INVALID_RANGE) {
-                        Exceptions.report(new NMEAException(LocationCheck.message[locationError] + ": " + latitude + "," + longitude));
+                        invalidLocation.report(() -> new NMEAException(LocationCheck.message[locationError] + ": " + latitude + "," + longitude));
                     } else {
                         // Warnings
                         if (locationError == LocationCheck.UNLIKELY_LAT || locationError == LocationCheck.UNLIKELY_LON) {
                             // Unlikely location, but still update
-                            Exceptions.report(new NMEAException(LocationCheck.message[locationError] + ": " + latitude + "," + longitude));
+                            unlikelyLocation.report(() -> new NMEAException(LocationCheck.message[locationError] + ": " + latitude + "," + longitude));
                         }
                         if (lastFixMillis <= 0) {
-                            Log.w(NMEA_TAG, "Invalid timestamp " + lastFixMillis + ", nmea: " + nmea);
+                            invalidTimestamp.w(() -> "Invalid timestamp " + lastFixMillis + ", nmea: " + nmea);
                         }
-                        // Update the official location!
-                        updateLocation();
+                        // Update the official location, once the rest of the epoch arrives
+                        fix.add(FixAssembler.RMC);
                     }
                 }
                 break;
             case "GNS":
                 // Fixes data for single or combined (GPS, GLONASS, etc) satellite navigation systems
-                lastFixMillis = dateTime + NMEA.parseTime(split[1]);
+                if (!epochTime(split[1], FixAssembler.GNS, timestamp)) {
+                    break;
+                }
                 // latitude = NMEA.parseDegreesMinutes(split[2], split[3]);
                 // longitude = NMEA.parseDegreesMinutes(split[4], split[5]);
                 // modeIndicator = split[6]
                 if (!split[7].isEmpty()) {
-                    satellitesUsed = Integer.parseInt(split[7]);
+                    fix.satellitesUsed = Integer.parseInt(split[7]);
                 }
                 // hdop = Numbers.parseFloat(split[8]);
                 if (!split[9].isEmpty()) {
-                    altitude_gps = Numbers.parseDouble(split[9]);
+                    fix.altitude_gps = Numbers.parseDouble(split[9]);
                     // double geoidSeparation = parseDouble(split[10]]);
                 }
+                fix.add(FixAssembler.GNS);
                 break;
             case "GSA":
                 // Overall satellite data (DOP and active satellites)
                 // boolean autoDim = split[1].equals("A"); // A = Auto 2D/3D, M = Forced 2D/3D
                 // gpsFix = split[2].isEmpty() ? 0 : Integer.parseInt(split[2]); // 0 = null, 1 = No fix, 2 = 2D, 3 = 3D
-                pdop = Numbers.parseFloat(split[15]);
-                hdop = Numbers.parseFloat(split[16]);
-                vdop = Numbers.parseFloat(split[17]);
+                fix.pdop = Numbers.parseFloat(split[15]);
+                fix.hdop = Numbers.parseFloat(split[16]);
+                fix.vdop = Numbers.parseFloat(split[17]);
+                satellites.updateGSA(split);
+                fix.add(FixAssembler.GSA);
                 break;
             case "GSV":
                 // Detailed satellite data (satellites in view)
-                satellitesInView = Numbers.parseInt(split[3], -1);
+                satellites.updateGSV(split);
+                final int inView = satellites.inView();
+                fix.satellitesInView = inView > 0 ? inView : Numbers.parseInt(split[3], -1);
                 break;
             case "PWR":
                 // Dual proprietary sentence for power, handled in LocationProviderBluetooth
@@ -336,8 +405,21 @@ class LocationProviderNMEA extends LocationProvider implements GpsStatus.NmeaLis
                 // timestamp, day, month, year, local zone, local zone minutes
                 break;
             default:
-                Exceptions.report(new NMEAException("Unknown NMEA command " + command + ": " + nmea));
+                unknownCommand.report(() -> new NMEAException("Unknown NMEA command " + command + ": " + nmea));
+        }
+    }
+
+    /**
+     * Counter for sentences of a given type, such as nmea.GGA
+     */
+    @NonNull
+    private Counter sentenceCounter(@NonNull String command) {
+        Counter counter = sentenceCounters.get(command);
+        if (counter == null) {
+            counter = Metrics.counter("nmea." + command);
+            sentenceCounters.put(command, counter);
         }
+        return counter;
     }
 
     @Override
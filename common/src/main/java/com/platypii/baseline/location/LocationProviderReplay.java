@@ -0,0 +1,132 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.altimeter.MyAltimeter;
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Feeds a raw NMEA capture back through the NMEA parser, as if it came from the receiver.
+ *
+ * Replays with the original timing, N times faster, or as fast as possible (speed 0).
+ * Sentences get arrival timestamps relative to when the replay started, spaced as in
+ * the capture regardless of speed, so the parser sees the same epochs as it did live.
+ * At maximum speed on the JVM this is the parser throughput benchmark.
+ */
+public class LocationProviderReplay extends LocationProviderNMEA implements Runnable {
+    private static final String TAG = "LocationProviderReplay";
+
+    public static final double MAX_SPEED = 0;
+
+    private final File file;
+    private final double speed;
+
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // Results of the last replay
+    public long sentences = 0;
+    public long elapsedNanos = 0;
+
+    /**
+     * @param speed 1 for real time, N for N times faster, or MAX_SPEED
+     */
+    public LocationProviderReplay(MyAltimeter alti, @NonNull File file, double speed) {
+        super(alti);
+        this.file = file;
+        this.speed = speed;
+    }
+
+    @Override
+    protected String providerName() {
+        return TAG;
+    }
+
+    /**
+     * Start replaying on a background thread
+     */
+    @Override
+    public void start(@NonNull Context context) {
+        if (thread != null) {
+            Log.e(TAG, "Replay already started");
+            return;
+        }
+        thread = new Thread(this, "NmeaReplay");
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            replay();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to replay nmea capture " + file, e);
+        }
+    }
+
+    /**
+     * Replay the whole capture on the calling thread
+     * @return the number of sentences replayed
+     */
+    public long replay() throws IOException {
+        running = true;
+        sentences = 0;
+        final NmeaCapture.Reader reader = new NmeaCapture.Reader(file);
+        final long startNanos = System.nanoTime();
+        final long startMillis = System.currentTimeMillis();
+        long first = 0;
+        try {
+            while (running && reader.next()) {
+                if (sentences == 0) {
+                    first = reader.timestamp;
+                }
+                final long offset = reader.timestamp - first;
+                if (speed > 0) {
+                    final long wait = (long) (offset / speed) - (System.nanoTime() - startNanos) / 1000000L;
+                    if (wait > 0) {
+                        Thread.sleep(wait);
+                    }
+                }
+                onNmeaReceived(startMillis + offset, reader.sentence);
+                sentences++;
+            }
+        } catch (InterruptedException e) {
+            Log.i(TAG, "Replay interrupted");
+        } finally {
+            reader.close();
+            running = false;
+        }
+        elapsedNanos = System.nanoTime() - startNanos;
+        Log.i(TAG, summary());
+        return sentences;
+    }
+
+    /**
+     * Throughput of the last replay, such as "12000 sentences in 0.20 s, 60000 sentences/s, 2.1 MB/s"
+     */
+    @NonNull
+    public String summary() {
+        final double seconds = elapsedNanos * 1e-9;
+        return String.format(Locale.US, "%s: %d sentences in %.2f s, %.0f sentences/s, %.1f MB/s compressed",
+                file.getName(), sentences, seconds, sentences / seconds, file.length() / seconds / 1e6);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Log.e(TAG, "Interrupted while waiting for replay to stop", e);
+            }
+            thread = null;
+        }
+        super.stop();
+    }
+
+}
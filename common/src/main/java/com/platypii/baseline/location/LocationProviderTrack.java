@@ -0,0 +1,175 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.tracks.TrackReader;
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Replays a recorded track file through the live pipeline, for load testing on a bench.
+ *
+ * GPS rows are published as fixes, shifted so the first row happens now.
+ * Pressure and sensor rows go to a sensor listener, which feeds the altimeter and
+ * sensor manager. Rows are paced by their recorded time, optionally sped up, or as
+ * fast as possible (speed 0). Sensor rows only have a sensor timestamp, so they are
+ * placed in time using the gps time of the altimeter rows, which have both.
+ */
+public class LocationProviderTrack extends LocationProvider implements Runnable {
+    private static final String TAG = "LocationProviderTrack";
+
+    public static final double MAX_SPEED = 0;
+
+    /**
+     * Receives the rows of the track that are not gps
+     */
+    public interface SensorListener {
+        void onPressure(long nano, float pressure);
+        /** @param type TrackReader.ACC, GRV or ROT */
+        void onSensor(int type, long nano, float x, float y, float z);
+        void onReplayFinished();
+    }
+
+    private final MyAltimeter alti;
+    private final File file;
+    private final double speed;
+    private final SensorListener sensorListener;
+
+    private Thread thread;
+    private volatile boolean running = false;
+
+    // Results of the last replay
+    public long rows = 0;
+    public long elapsedNanos = 0;
+
+    /**
+     * @param speed 1 for real time, N for N times faster, or MAX_SPEED
+     */
+    public LocationProviderTrack(MyAltimeter alti, @NonNull File file, double speed, @NonNull SensorListener sensorListener) {
+        this.alti = alti;
+        this.file = file;
+        this.speed = speed;
+        this.sensorListener = sensorListener;
+    }
+
+    @NonNull
+    @Override
+    protected String providerName() {
+        return TAG;
+    }
+
+    /**
+     * Start replaying on a background thread
+     */
+    @Override
+    public void start(@NonNull Context context) {
+        if (thread != null) {
+            Log.e(TAG, "Replay already started");
+            return;
+        }
+        thread = new Thread(this, "TrackReplay");
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            replay();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to replay track " + file, e);
+        }
+        sensorListener.onReplayFinished();
+    }
+
+    /**
+     * Replay the whole track on the calling thread
+     * @return the number of rows replayed
+     */
+    public long replay() throws IOException {
+        running = true;
+        rows = 0;
+        final TrackReader reader = new TrackReader(file);
+        final long startNanos = System.nanoTime();
+        final long startMillis = System.currentTimeMillis();
+        long first = -1; // track time of the first timed row
+        long time = -1; // track time of the current row, never goes backwards
+        long nanoOffset = Long.MIN_VALUE; // gps millis minus sensor millis, from altimeter rows
+        try {
+            while (running && reader.next()) {
+                // Track time of this row
+                if (reader.type == TrackReader.ALT && reader.millis > 0) {
+                    nanoOffset = reader.millis - reader.nano / 1000000L;
+                }
+                if (reader.millis > 0) {
+                    time = Math.max(time, reader.millis);
+                } else if (nanoOffset != Long.MIN_VALUE) {
+                    time = Math.max(time, reader.nano / 1000000L + nanoOffset);
+                }
+                if (first < 0 && time > 0) {
+                    first = time;
+                }
+                // Wait until the row is due
+                if (speed > 0 && first > 0) {
+                    final long wait = (long) ((time - first) / speed) - (System.nanoTime() - startNanos) / 1000000L;
+                    if (wait > 0) {
+                        Thread.sleep(wait);
+                    }
+                }
+                switch (reader.type) {
+                    case TrackReader.GPS:
+                        updateLocation(new MLocation(
+                                startMillis + reader.millis - first, reader.latitude, reader.longitude, reader.altitude, alti.climb,
+                                reader.vN, reader.vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, reader.numSV, -1
+                        ));
+                        break;
+                    case TrackReader.ALT:
+                        sensorListener.onPressure(reader.nano, reader.pressure);
+                        break;
+                    case TrackReader.ACC:
+                    case TrackReader.GRV:
+                    case TrackReader.ROT:
+                        sensorListener.onSensor(reader.type, reader.nano, reader.x, reader.y, reader.z);
+                        break;
+                }
+                rows++;
+            }
+        } catch (InterruptedException e) {
+            Log.i(TAG, "Replay interrupted");
+        } finally {
+            reader.close();
+            running = false;
+        }
+        elapsedNanos = System.nanoTime() - startNanos;
+        Log.i(TAG, summary());
+        return rows;
+    }
+
+    /**
+     * Throughput of the last replay, such as "track.csv.gz: 52000 rows in 1.20 s, 43333 rows/s"
+     */
+    @NonNull
+    public String summary() {
+        final double seconds = elapsedNanos * 1e-9;
+        return String.format(Locale.US, "%s: %d rows in %.2f s, %.0f rows/s", file.getName(), rows, seconds, rows / seconds);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Log.e(TAG, "Interrupted while waiting for replay to stop", e);
+            }
+            thread = null;
+        }
+        super.stop();
+    }
+
+}
@@ -2,24 +2,43 @@ package com.platypii.baseline.location;
 
 import com.platypii.baseline.altimeter.MyAltimeter;
 import com.platypii.baseline.bluetooth.BluetoothService;
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.diagnostics.LatencyTrace;
 import com.platypii.baseline.measurements.MLocation;
-import com.platypii.baseline.util.Exceptions;
+import com.platypii.baseline.platform.Platform;
+import com.platypii.baseline.util.Reporter;
 import android.content.Context;
 import android.support.annotation.NonNull;
 import android.util.Log;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Meta location provider that uses bluetooth, nmea, or android location source
+ * Meta location provider that runs bluetooth, nmea, and android location sources,
+ * and serves fixes from the best one.
+ * Listeners get smoothed fixes, with outliers removed. Raw listeners get every fix as received.
  */
 public class LocationService extends LocationProvider {
     private static final String TAG = "LocationService";
 
-    // What data source to pull from
-    // TODO: Separate android / nmea
-    private static final int LOCATION_NONE = 0;
-    private static final int LOCATION_ANDROID = 1;
-    private static final int LOCATION_BLUETOOTH = 2;
-    private int locationMode = LOCATION_NONE;
+    private static final Reporter androidFallback = new Reporter(TAG, "location.android_fallback");
+    private static final Reporter outlier = new Reporter(TAG, "location.outlier");
+
+    // All providers run, the arbiter picks which one serves fixes
+    private final ProviderArbiter arbiter = new ProviderArbiter();
+    private boolean started = false;
+    private boolean bluetoothStarted = false;
+
+    // Outlier rejection and smoothing
+    private final LocationFilter filter = new LocationFilter();
+    private final List<MyLocationListener> rawListeners = new CopyOnWriteArrayList<>();
+    public MLocation lastRawLoc; // last fix before filtering
+
+    // Dead reckoning between fixes, for display rate updates
+    public final LocationPredictor predictor = new LocationPredictor();
+    // Fix age on arrival, so predictions start from when the fix was measured
+    public final LatencyEstimator latency = new LatencyEstimator();
 
     private final BluetoothService bluetooth;
 
@@ -30,6 +49,9 @@ public class LocationService extends LocationProvider {
     private final LocationProviderAndroid locationProviderAndroid;
     private final LocationProviderBluetooth locationProviderBluetooth;
 
+    // Replays a recorded track instead of live providers, null unless replaying
+    private LocationProviderTrack replay;
+
     public LocationService(BluetoothService bluetooth) {
         this.bluetooth = bluetooth;
         locationProviderNMEA = new LocationProviderNMEA(alti);
@@ -40,39 +62,129 @@ public class LocationService extends LocationProvider {
     private final MyLocationListener nmeaListener = new MyLocationListener() {
         @Override
         public void onLocationChanged(@NonNull MLocation loc) {
-            if (!bluetooth.preferences.preferenceEnabled) {
-                updateLocation(loc);
-            }
+            offer(ProviderArbiter.NMEA, loc);
         }
     };
     private final MyLocationListener androidListener = new MyLocationListener() {
-        private int overrideCount = 0;
         @Override
         public void onLocationChanged(@NonNull MLocation loc) {
-            // Only use android location if we aren't getting NMEA
+            // Android location is the last resort, when no NMEA source is fresh
             // TODO: Remove the android location listener if every phone provides NMEA
-            if (!bluetooth.preferences.preferenceEnabled && !locationProviderNMEA.nmeaReceived) {
-                // Log on powers of 2
-                overrideCount++;
-                if (overrideCount > 1 && isPower2(overrideCount)) {
-                    Exceptions.report(new IllegalStateException("No NMEA data, falling back to android loc #"+overrideCount+": " + loc));
-                }
-                updateLocation(loc);
+            if (offer(ProviderArbiter.ANDROID, loc) && !locationProviderNMEA.nmeaReceived) {
+                androidFallback.report(() -> new IllegalStateException("No NMEA data, falling back to android loc #" + androidFallback.count() + ": " + loc));
             }
         }
-        private boolean isPower2(int n) {
-            return (n & (n - 1)) == 0;
-        }
     };
     private final MyLocationListener bluetoothListener = new MyLocationListener() {
         @Override
         public void onLocationChanged(@NonNull MLocation loc) {
-            if (bluetooth.preferences.preferenceEnabled) {
-                updateLocation(loc);
-            }
+            offer(ProviderArbiter.BLUETOOTH, loc);
+        }
+    };
+    private final MyLocationListener replayListener = new MyLocationListener() {
+        @Override
+        public void onLocationChanged(@NonNull MLocation loc) {
+            updateLocation(loc);
         }
     };
 
+    /**
+     * Pass a fix from one provider through the arbiter
+     * @return true if the fix was used
+     */
+    private boolean offer(int source, @NonNull MLocation loc) {
+        if (arbiter.offer(source, System.currentTimeMillis(), loc.hdop, loc.satellitesUsed)) {
+            updateLocation(loc);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Fan out the chosen fix to raw listeners, and the smoothed fix to listeners of the location service
+     */
+    @Override
+    void updateLocation(MLocation loc) {
+        LatencyTrace.mark(LatencyTrace.DISPATCH, LatencyTrace.GPS);
+        final long arrival = System.currentTimeMillis();
+        latency.onFix(loc.millis, arrival);
+        final int result = filter.update(loc);
+        loc.suspect = result != LocationFilter.ACCEPTED;
+
+        // Raw fixes are published even if rejected, so they are still logged
+        lastRawLoc = loc;
+        Platform.scheduler.execute(() -> {
+            for (MyLocationListener listener : rawListeners) {
+                listener.onLocationChanged(loc);
+            }
+        });
+
+        if (result == LocationFilter.REJECTED) {
+            outlier.w(() -> "Rejected outlier fix " + loc + " innovation " + filter.innovation);
+            FlightRecorder.record(FlightRecorder.DROPPED, LatencyTrace.GPS);
+        } else {
+            final MLocation smoothed = filter.smoothed(loc);
+            smoothed.suspect = loc.suspect;
+            predictor.onFix(smoothed, latency.fixTime(arrival));
+            super.updateLocation(smoothed);
+        }
+    }
+
+    /**
+     * Predict the current state, projected from the last fix to now.
+     * Compensates for fix latency, and moves between fixes.
+     */
+    public void predictNow(@NonNull LocationPredictor.State state) {
+        predictor.predict(System.currentTimeMillis(), state);
+    }
+
+    /**
+     * Add a listener for every fix, before outlier rejection and smoothing
+     */
+    public void addRawListener(MyLocationListener listener) {
+        rawListeners.add(listener);
+    }
+
+    public void removeRawListener(MyLocationListener listener) {
+        rawListeners.remove(listener);
+    }
+
+    /**
+     * Start capturing raw nmea sentences from the phone and bluetooth receivers
+     */
+    public void startCapture(@NonNull File phoneFile, @NonNull File bluetoothFile) {
+        locationProviderNMEA.capture = NmeaCapture.open(phoneFile);
+        if (bluetoothStarted) {
+            locationProviderBluetooth.capture = NmeaCapture.open(bluetoothFile);
+        }
+    }
+
+    public void stopCapture() {
+        stopCapture(locationProviderNMEA);
+        stopCapture(locationProviderBluetooth);
+    }
+
+    private static void stopCapture(@NonNull LocationProviderNMEA provider) {
+        final NmeaCapture capture = provider.capture;
+        if (capture != null) {
+            provider.capture = null;
+            capture.close();
+        }
+    }
+
+    /**
+     * Returns the satellite table of the active provider
+     */
+    @NonNull
+    public SatelliteTable satellites() {
+        if (arbiter.active() == ProviderArbiter.BLUETOOTH) {
+            return locationProviderBluetooth.satellites;
+        } else {
+            return locationProviderNMEA.satellites;
+        }
+    }
+
     @NonNull
     @Override
     protected String providerName() {
@@ -81,21 +193,32 @@ public class LocationService extends LocationProvider {
 
     @Override
     public void start(@NonNull Context context) {
+        Log.i(TAG, "Starting location service");
+        started = true;
+        locationProviderNMEA.start(context);
+        locationProviderNMEA.addListener(nmeaListener);
+        locationProviderAndroid.start(context);
+        locationProviderAndroid.addListener(androidListener);
         if (bluetooth.preferences.preferenceEnabled) {
-            Log.i(TAG, "Starting location service in bluetooth mode");
-            locationMode = LOCATION_BLUETOOTH;
+            Log.i(TAG, "Starting bluetooth location provider");
+            bluetoothStarted = true;
             locationProviderBluetooth.start(context);
             locationProviderBluetooth.addListener(bluetoothListener);
-        } else {
-            Log.i(TAG, "Starting location service in android mode");
-            locationMode = LOCATION_ANDROID;
-            locationProviderNMEA.start(context);
-            locationProviderNMEA.addListener(nmeaListener);
-            locationProviderAndroid.start(context);
-            locationProviderAndroid.addListener(androidListener);
         }
     }
 
+    /**
+     * Stop live providers, and replay a recorded track through the location pipeline instead
+     * @param speed 1 for real time, N for N times faster, or LocationProviderTrack.MAX_SPEED
+     */
+    public void startReplay(@NonNull Context context, @NonNull File file, double speed, @NonNull LocationProviderTrack.SensorListener sensorListener) {
+        Log.i(TAG, "Starting track replay " + file);
+        stop();
+        replay = new LocationProviderTrack(alti, file, speed, sensorListener);
+        replay.addListener(replayListener);
+        replay.start(context);
+    }
+
     /**
      * Stops and then starts location services, such as when switch bluetooth on or off.
      */
@@ -107,18 +230,30 @@ public class LocationService extends LocationProvider {
 
     @Override
     public void stop() {
-        if (locationMode == LOCATION_ANDROID) {
-            Log.i(TAG, "Stopping android location service");
+        if (started) {
+            Log.i(TAG, "Stopping location service");
             locationProviderNMEA.removeListener(nmeaListener);
             locationProviderNMEA.stop();
             locationProviderAndroid.removeListener(androidListener);
             locationProviderAndroid.stop();
-        } else if (locationMode == LOCATION_BLUETOOTH) {
-            Log.i(TAG, "Stopping bluetooth location service");
+            started = false;
+        }
+        if (bluetoothStarted) {
+            Log.i(TAG, "Stopping bluetooth location provider");
             locationProviderBluetooth.removeListener(bluetoothListener);
             locationProviderBluetooth.stop();
+            bluetoothStarted = false;
+        }
+        if (replay != null) {
+            Log.i(TAG, "Stopping track replay");
+            replay.removeListener(replayListener);
+            replay.stop();
+            replay = null;
         }
-        locationMode = LOCATION_NONE;
+        arbiter.reset();
+        filter.reset();
+        predictor.reset();
+        latency.reset();
         super.stop();
     }
 
@@ -1,12 +1,9 @@
 package com.platypii.baseline.location;
 
 import com.platypii.baseline.util.Exceptions;
+import com.platypii.baseline.util.Reporter;
 import android.support.annotation.NonNull;
-import android.util.Log;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 import java.util.Locale;
-import java.util.TimeZone;
 
 /**
  * NMEA decoding functions
@@ -14,7 +11,14 @@ import java.util.TimeZone;
 class NMEA {
     private static final String TAG = "NMEA";
 
-    private static final Calendar cal = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+    private static final Reporter latLonError = new Reporter(TAG, "nmea.latlon_format");
+    private static final Reporter dateError = new Reporter(TAG, "nmea.date_format");
+    private static final Reporter timeError = new Reporter(TAG, "nmea.time_format");
+
+    private static final long DAY = 86400000; // milliseconds
+
+    // Last date parsed, packed as DDMMYY in the high int and epoch day in the low int
+    private static volatile long dateCache = -1;
 
     /**
      * Parse DDDMM.MMMM,N into decimal degrees
@@ -28,8 +32,7 @@ class NMEA {
         } else {
             final int index = dm.indexOf('.') - 2;
             if (index < 0) {
-                Log.e(TAG, "Lat/lon parse error missing decimal: " + dm + " " + nsew);
-                Exceptions.report(new NMEAException("NMEA lat/lon parse error missing decimal: " + dm + " " + nsew));
+                latLonError.report(() -> new NMEAException("NMEA lat/lon parse error missing decimal: " + dm + " " + nsew));
                 return Double.NaN;
             } else {
                 try {
@@ -42,8 +45,7 @@ class NMEA {
                     else
                         return degrees;
                 } catch(Exception e) {
-                    Log.e(TAG, "Lat/lon parse error: " + dm + " " + nsew);
-                    Exceptions.report(new NMEAException("NMEA lat/lon parse error: " + dm + " " + nsew));
+                    latLonError.report(() -> new NMEAException("NMEA lat/lon parse error: " + dm + " " + nsew));
                     return Double.NaN;
                 }
             }
@@ -51,46 +53,109 @@ class NMEA {
     }
 
     /**
-     * Parse DDMMYY into milliseconds since epoch
+     * Parse DDMMYY into milliseconds since epoch.
+     * Pure arithmetic, so it is thread safe and does not allocate.
+     * @return -1 if the date is missing or malformed
      */
     static long parseDate(String date) {
         if(date == null || date.isEmpty()) {
-            return 0;
+            return -1;
         } else {
-            if(date.length() != 6) {
-                Log.e(TAG, "Date format error " + date);
+            final int day = digits2(date, 0);
+            final int month = digits2(date, 2);
+            final int yy = digits2(date, 4);
+            if(date.length() != 6 || day < 1 || month < 1 || month > 12 || yy < 0) {
+                dateError.e(() -> "Date format error " + date);
+                return -1;
+            }
+            // Dates rarely change, so remember the last one
+            final int key = (day * 100 + month) * 100 + yy;
+            final long cached = dateCache;
+            if((int) (cached >>> 32) == key) {
+                return (cached & 0xffffffffL) * DAY;
             }
-            final int day = Integer.parseInt(date.substring(0, 2));
-            final int month = Integer.parseInt(date.substring(2, 4)) - 1; // january is 0 not 1
-            int year = 1900 + Integer.parseInt(date.substring(4, 6));
+            int year = 1900 + yy;
             if(year < 1970) year += 100;
-            cal.set(Calendar.MILLISECOND, 0);
-            cal.set(year, month, day, 0, 0, 0);
-            return cal.getTime().getTime();
+            if(day > daysInMonth(year, month)) {
+                dateError.e(() -> "Date format error " + date);
+                return -1;
+            }
+            final long epochDay = epochDay(year, month, day);
+            dateCache = ((long) key << 32) | epochDay;
+            return epochDay * DAY;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if(month == 2) {
+            return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+        } else if(month == 4 || month == 6 || month == 9 || month == 11) {
+            return 30;
+        } else {
+            return 31;
         }
     }
 
     /**
-     * Parse HHMMSS.SS UTC time into milliseconds since midnight
+     * Days since 1970-01-01 for a date in the proleptic gregorian calendar
+     * @param month 1 to 12
+     */
+    static long epochDay(int year, int month, int day) {
+        // Count years from March, so that the leap day is at the end of the year
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = y / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Parse HHMMSS.SS UTC time into milliseconds since midnight.
+     * Parsed directly from chars, so it does not allocate.
+     * @return -1 if the time is missing or malformed
      */
     static long parseTime(String time) {
         if(time == null || time.isEmpty()) {
-            return 0;
+            return -1;
         } else {
-            try {
-                if(time.indexOf('.') != 6) {
-                    Log.e(TAG, "Time format error " + time);
+            final int length = time.length();
+            final int hour = digits2(time, 0);
+            final int min = digits2(time, 2);
+            final int sec = digits2(time, 4);
+            if(hour < 0 || hour > 23 || min < 0 || min > 59 || sec < 0 || sec > 60 || (length > 6 && time.charAt(6) != '.')) {
+                timeError.e(() -> "Time format error " + time);
+                return -1;
+            }
+            // Fractional seconds, truncated to milliseconds
+            int ms = 0;
+            int scale = 100;
+            for(int i = 7; i < length && scale > 0; i++) {
+                final int digit = time.charAt(i) - '0';
+                if(digit < 0 || digit > 9) {
+                    timeError.e(() -> "Time format error " + time);
+                    return -1;
                 }
-                final long hour = Integer.parseInt(time.substring(0, 2));
-                final long min = Integer.parseInt(time.substring(2, 4));
-                // double sec = Double.parseDouble(utc.substring(4));
-                final long sec = Integer.parseInt(time.substring(4, 6));
-                final long ms = time.length() <= 6? 0 : (long) (1000 * Double.parseDouble(time.substring(6)));
-                return hour * 3600000 + min * 60000 + sec * 1000 + ms;
-            } catch(Exception e) {
-                return 0;
+                ms += digit * scale;
+                scale /= 10;
             }
+            return hour * 3600000L + min * 60000L + sec * 1000L + ms;
+        }
+    }
+
+    /**
+     * Parse two decimal digits at index, or return -1
+     */
+    private static int digits2(@NonNull String str, int index) {
+        if(str.length() < index + 2) {
+            return -1;
+        }
+        final int tens = str.charAt(index) - '0';
+        final int ones = str.charAt(index + 1) - '0';
+        if(tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            return -1;
         }
+        return tens * 10 + ones;
     }
 
     /** Returns true if the checksum is valid */
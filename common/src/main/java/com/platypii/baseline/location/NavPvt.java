@@ -0,0 +1,80 @@
+package com.platypii.baseline.location;
+
+import android.support.annotation.NonNull;
+
+/**
+ * UBX-NAV-PVT navigation solution, decoded in place from the frame buffer.
+ * The record is preallocated and reused, so decoding does not allocate.
+ * Only touched by the bluetooth thread.
+ */
+class NavPvt {
+
+    static final int LENGTH = 92; // payload bytes
+
+    private static final long DAY = 24 * 3600000;
+
+    long millis; // milliseconds since epoch, UTC
+    int iTOW; // GPS time of week, milliseconds
+    int fixType; // 0 = none, 2 = 2D, 3 = 3D
+    boolean valid; // fix ok, and date and time resolved
+    int numSV; // satellites used in fix
+    double latitude;
+    double longitude;
+    double altitude_gps; // meters MSL
+    double vN; // meters per second
+    double vE;
+    double vD;
+    float hAcc; // meters
+    float vAcc;
+    float sAcc; // meters per second
+    float pdop;
+
+    /**
+     * Decode a NAV-PVT payload
+     * @param buf frame buffer
+     * @param off index of the first payload byte
+     */
+    void decode(@NonNull byte[] buf, int off) {
+        iTOW = i4(buf, off);
+        final int year = u2(buf, off + 4);
+        final int month = buf[off + 6];
+        final int day = buf[off + 7];
+        final int hour = buf[off + 8];
+        final int minute = buf[off + 9];
+        final int second = buf[off + 10];
+        final int validFlags = buf[off + 11];
+        final int nano = i4(buf, off + 16); // may be negative, rounding the second down
+        fixType = buf[off + 20] & 0xff;
+        final int flags = buf[off + 21];
+        numSV = buf[off + 23] & 0xff;
+        longitude = i4(buf, off + 24) * 1e-7;
+        latitude = i4(buf, off + 28) * 1e-7;
+        altitude_gps = i4(buf, off + 36) * 0.001;
+        hAcc = i4(buf, off + 40) * 0.001f;
+        vAcc = i4(buf, off + 44) * 0.001f;
+        vN = i4(buf, off + 48) * 0.001;
+        vE = i4(buf, off + 52) * 0.001;
+        vD = i4(buf, off + 56) * 0.001;
+        sAcc = i4(buf, off + 68) * 0.001f;
+        pdop = u2(buf, off + 76) * 0.01f;
+        // Date and time valid, and gnssFixOK
+        valid = (validFlags & 3) == 3 && (flags & 1) != 0 && fixType >= 2;
+        if (1 <= month && month <= 12 && 1 <= day && day <= 31) {
+            millis = NMEA.epochDay(year, month, day) * DAY
+                    + ((hour * 60 + minute) * 60 + second) * 1000L
+                    + (nano < 0 ? (nano - 999999) / 1000000 : nano / 1000000);
+        } else {
+            millis = 0;
+            valid = false;
+        }
+    }
+
+    private static int u2(@NonNull byte[] buf, int i) {
+        return (buf[i] & 0xff) | (buf[i + 1] & 0xff) << 8;
+    }
+
+    private static int i4(@NonNull byte[] buf, int i) {
+        return (buf[i] & 0xff) | (buf[i + 1] & 0xff) << 8 | (buf[i + 2] & 0xff) << 16 | buf[i + 3] << 24;
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.platform.Log;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Raw capture of every NMEA sentence as received, for reproducing receiver specific
+ * parsing bugs and benchmarking the parser.
+ *
+ * Gzipped text, one sentence per line, prefixed by the arrival time in milliseconds
+ * since the previous sentence: "12,$GPRMC,...". The first line is relative to zero,
+ * so it holds the absolute arrival time. Sentences are stored exactly as received,
+ * except that trailing line breaks are removed.
+ */
+public class NmeaCapture {
+    private static final String TAG = "NmeaCapture";
+
+    // Capture raw nmea while logging, set from preferences
+    public static boolean preferenceEnabled = false;
+
+    private final Writer writer;
+    private long lastTimestamp = 0;
+    private boolean failed = false;
+
+    // Metrics
+    private static final Counter sentences = Metrics.counter("capture.sentences");
+
+    public NmeaCapture(@NonNull File file) throws IOException {
+        this(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file)), "UTF-8"));
+        Log.i(TAG, "Capturing nmea to " + file);
+    }
+
+    NmeaCapture(@NonNull Writer writer) {
+        this.writer = new BufferedWriter(writer);
+    }
+
+    /**
+     * Write one sentence, called from the nmea thread
+     * @param timestamp arrival time in milliseconds
+     */
+    public synchronized void write(long timestamp, @NonNull String nmea) {
+        if (failed) return;
+        // Strip trailing line breaks, and the \0 that some phones append
+        int end = nmea.length();
+        while (end > 0 && (nmea.charAt(end - 1) == '\n' || nmea.charAt(end - 1) == '\r' || nmea.charAt(end - 1) == '\0')) {
+            end--;
+        }
+        try {
+            writer.write(Long.toString(timestamp - lastTimestamp));
+            writer.write(',');
+            writer.write(nmea, 0, end);
+            writer.write('\n');
+            lastTimestamp = timestamp;
+            sentences.inc();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write nmea capture", e);
+            failed = true;
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to close nmea capture", e);
+        }
+    }
+
+    /**
+     * Reads a capture back, one sentence at a time
+     */
+    public static class Reader {
+        private final BufferedReader reader;
+
+        // Current sentence
+        public long timestamp = 0;
+        public String sentence;
+
+        public Reader(@NonNull File file) throws IOException {
+            this(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), "UTF-8"));
+        }
+
+        Reader(@NonNull java.io.Reader reader) {
+            this.reader = new BufferedReader(reader, 65536);
+        }
+
+        /**
+         * Advance to the next sentence
+         * @return false at the end of the capture
+         */
+        public boolean next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int comma = line.indexOf(',');
+                if (comma > 0) {
+                    final long delta = parseLong(line, comma);
+                    if (delta != Long.MIN_VALUE) {
+                        timestamp += delta;
+                        sentence = line.substring(comma + 1);
+                        return true;
+                    }
+                }
+                Log.w(TAG, "Skipping invalid capture line: " + line);
+            }
+            sentence = null;
+            return false;
+        }
+
+        public void close() throws IOException {
+            reader.close();
+        }
+
+        /**
+         * Parse the delta prefix, which is negative if the clock went backwards.
+         * Returns Long.MIN_VALUE if invalid.
+         */
+        private static long parseLong(@NonNull String line, int end) {
+            final int start = line.charAt(0) == '-' ? 1 : 0;
+            if (start == end) return Long.MIN_VALUE;
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                final int digit = line.charAt(i) - '0';
+                if (digit < 0 || digit > 9) return Long.MIN_VALUE;
+                value = value * 10 + digit;
+            }
+            return start == 1 ? -value : value;
+        }
+    }
+
+    @Nullable
+    static NmeaCapture open(@NonNull File file) {
+        try {
+            return new NmeaCapture(file);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to start nmea capture " + file, e);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.platform.Log;
+
+/**
+ * Chooses which location provider serves fixes, while the others run in warm standby.
+ *
+ * Sources are scored on priority, hdop and satellites used. A source goes stale when it
+ * misses its usual fix interval, and then the first fix from any fresh standby takes over,
+ * so a dropout costs at most one epoch. Switching back to a better source waits until it
+ * has been fresh for a while, so a flaky receiver doesn't cause flapping.
+ */
+class ProviderArbiter {
+    private static final String TAG = "ProviderArbiter";
+
+    // Sources, also used as flight recorder values
+    static final int NONE = 0;
+    static final int NMEA = 1;
+    static final int ANDROID = 2;
+    static final int BLUETOOTH = 3;
+    private static final int SOURCES = 4;
+    private static final String[] names = {"none", "nmea", "android", "bluetooth"};
+
+    // Prefer a dedicated receiver, then raw phone nmea, then android location
+    private static final int[] priority = {0, 20, 10, 30};
+
+    // A source is stale after 1.5 fix intervals, within these bounds
+    private static final long MIN_STALE = 300; // milliseconds
+    private static final long MAX_STALE = 2500; // milliseconds
+    // A better source must be fresh this long, and score this much higher, to switch back
+    private static final long HOLD = 3000; // milliseconds
+    private static final float MARGIN = 2;
+
+    // Per source state
+    private final long[] lastFix = new long[SOURCES]; // arrival time in milliseconds
+    private final long[] interval = new long[SOURCES]; // smoothed fix interval in milliseconds
+    private final long[] freshSince = new long[SOURCES];
+    private final float[] hdop = new float[SOURCES];
+    private final int[] satellites = new int[SOURCES];
+
+    private int active = NONE;
+
+    // Metrics
+    private static final Counter switches = Metrics.counter("location.switches");
+
+    /**
+     * Called for every fix from every source
+     * @param source source of the fix, such as BLUETOOTH
+     * @param now arrival time in milliseconds
+     * @return true if the fix should be used
+     */
+    synchronized boolean offer(int source, long now, float fixHdop, int fixSatellites) {
+        // Update source statistics
+        if (isFresh(source, now)) {
+            final long dt = now - lastFix[source];
+            interval[source] = interval[source] == 0 ? dt : (interval[source] * 3 + dt) / 4;
+        } else {
+            freshSince[source] = now;
+        }
+        lastFix[source] = now;
+        hdop[source] = fixHdop;
+        satellites[source] = fixSatellites;
+
+        if (source == active) {
+            return true;
+        } else if (active == NONE || !isFresh(active, now)) {
+            // Primary went stale, take over immediately
+            switchTo(source);
+            return true;
+        } else if (now - freshSince[source] >= HOLD && score(source) > score(active) + MARGIN) {
+            // Better source has been stable for a while
+            switchTo(source);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    synchronized int active() {
+        return active;
+    }
+
+    /**
+     * Forget all sources, such as when restarting location services
+     */
+    synchronized void reset() {
+        for (int i = 0; i < SOURCES; i++) {
+            lastFix[i] = 0;
+            interval[i] = 0;
+        }
+        if (active != NONE) {
+            switchTo(NONE);
+        }
+    }
+
+    private boolean isFresh(int source, long now) {
+        if (lastFix[source] == 0) return false;
+        final long staleAfter = interval[source] == 0 ? MAX_STALE : Math.max(MIN_STALE, Math.min(interval[source] * 3 / 2, MAX_STALE));
+        return now - lastFix[source] <= staleAfter;
+    }
+
+    private float score(int source) {
+        // Missing hdop counts as mediocre
+        final float h = Float.isNaN(hdop[source]) ? 5 : Math.min(hdop[source], 10);
+        final int sats = Math.max(0, Math.min(satellites[source], 12));
+        return priority[source] - h + sats * 0.25f;
+    }
+
+    private void switchTo(int source) {
+        Log.i(TAG, "Location provider " + names[active] + " -> " + names[source]);
+        active = source;
+        if (source != NONE) {
+            switches.inc();
+        }
+        FlightRecorder.record(FlightRecorder.LOCATION_PROVIDER, source);
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.platypii.baseline.location;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Satellites in view per constellation, from GSV and GSA sentences.
+ *
+ * Stored as primitive arrays indexed by constellation * MAX_SATELLITES + i,
+ * so updating at the receiver rate does not allocate.
+ * GSV groups span several sentences, so each constellation is assembled into
+ * a building buffer and published when the last sentence of the group arrives.
+ * The nmea thread writes, and views read with copyTo() into their own table.
+ */
+public class SatelliteTable {
+
+    // Constellations
+    public static final int GPS = 0;
+    public static final int GLONASS = 1;
+    public static final int GALILEO = 2;
+    public static final int BEIDOU = 3;
+    public static final int CONSTELLATIONS = 4;
+
+    public static final int MAX_SATELLITES = 32; // per constellation
+    private static final int MAX_USED = 12; // PRNs per GSA sentence
+
+    // Published satellites
+    public final int[] count = new int[CONSTELLATIONS];
+    public final short[] prn = new short[CONSTELLATIONS * MAX_SATELLITES];
+    public final byte[] elevation = new byte[CONSTELLATIONS * MAX_SATELLITES]; // degrees
+    public final short[] azimuth = new short[CONSTELLATIONS * MAX_SATELLITES]; // degrees
+    public final byte[] snr = new byte[CONSTELLATIONS * MAX_SATELLITES]; // dB-Hz, or -1 if not tracking
+    public final boolean[] used = new boolean[CONSTELLATIONS * MAX_SATELLITES];
+
+    // GSV group being assembled, nmea thread only
+    private final int[] building = new int[CONSTELLATIONS];
+    private final short[] buildPrn = new short[CONSTELLATIONS * MAX_SATELLITES];
+    private final byte[] buildElevation = new byte[CONSTELLATIONS * MAX_SATELLITES];
+    private final short[] buildAzimuth = new short[CONSTELLATIONS * MAX_SATELLITES];
+    private final byte[] buildSnr = new byte[CONSTELLATIONS * MAX_SATELLITES];
+
+    // PRNs used in fix, from the latest GSA per constellation
+    private final int[] usedCount = new int[CONSTELLATIONS];
+    private final short[] usedPrn = new short[CONSTELLATIONS * MAX_USED];
+
+    // Incremented whenever the table changes
+    private volatile int version = 0;
+
+    /**
+     * Constellation from the NMEA talker id, such as GP or GL, or -1 if unknown
+     */
+    static int constellation(@NonNull String sentence) {
+        if (sentence.length() < 3) return -1;
+        final char a = sentence.charAt(1);
+        final char b = sentence.charAt(2);
+        if (a == 'G' && b == 'P') return GPS;
+        if (a == 'G' && b == 'L') return GLONASS;
+        if (a == 'G' && b == 'A') return GALILEO;
+        if ((a == 'G' && b == 'B') || (a == 'B' && b == 'D')) return BEIDOU;
+        return -1;
+    }
+
+    /**
+     * Constellation from the NMEA satellite id range, for talkers that mix constellations such as GN
+     */
+    static int prnConstellation(int prn) {
+        if (65 <= prn && prn <= 96) return GLONASS;
+        if (301 <= prn && prn <= 336) return GALILEO;
+        if ((201 <= prn && prn <= 263) || (401 <= prn && prn <= 463)) return BEIDOU;
+        // GPS, SBAS and QZSS
+        return GPS;
+    }
+
+    /**
+     * Parse a GSV sentence: $GPGSV,numMsgs,msgNum,inView,{prn,elevation,azimuth,snr}*
+     * A GNGSV group may mix constellations, so each satellite is sorted by its id.
+     * @param split the sentence split on commas, without checksum
+     */
+    void updateGSV(@NonNull String[] split) {
+        if (split.length < 4) return;
+        final int talker = constellation(split[0]);
+        final int numMsgs = parseInt(split[1], 0);
+        final int msgNum = parseInt(split[2], 0);
+        if (msgNum == 1) {
+            for (int c = 0; c < CONSTELLATIONS; c++) {
+                if (talker < 0 || c == talker) {
+                    building[c] = 0;
+                }
+            }
+        }
+        // Each satellite is 4 fields. NMEA 4.10 appends a signal id, which we ignore.
+        for (int i = 4; i + 3 < split.length; i += 4) {
+            final int id = parseInt(split[i], 0);
+            final int c = talker >= 0 ? talker : prnConstellation(id);
+            if (id > 0 && building[c] < MAX_SATELLITES) {
+                final int j = c * MAX_SATELLITES + building[c]++;
+                buildPrn[j] = (short) id;
+                buildElevation[j] = (byte) parseInt(split[i + 1], 0);
+                buildAzimuth[j] = (short) parseInt(split[i + 2], 0);
+                buildSnr[j] = (byte) parseInt(split[i + 3], -1);
+            }
+        }
+        if (msgNum == numMsgs) {
+            for (int c = 0; c < CONSTELLATIONS; c++) {
+                if (talker < 0 || c == talker) {
+                    publish(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse a GSA sentence for the PRNs used in fix
+     * @param split the sentence split on commas, without checksum
+     */
+    void updateGSA(@NonNull String[] split) {
+        if (split.length < 15) return;
+        int c = constellation(split[0]);
+        if (c < 0) {
+            // GNGSA: NMEA 4.10 has a system id, otherwise guess from the PRN range
+            final int systemId = split.length > 18 ? parseInt(split[18], 0) : 0;
+            if (1 <= systemId && systemId <= 4) {
+                c = systemId - 1;
+            } else {
+                c = prnConstellation(parseInt(split[3], 0));
+            }
+        }
+        synchronized (this) {
+            int n = 0;
+            for (int i = 3; i < 15; i++) {
+                final int id = parseInt(split[i], 0);
+                if (id > 0) {
+                    usedPrn[c * MAX_USED + n++] = (short) id;
+                }
+            }
+            usedCount[c] = n;
+            markUsed(c);
+        }
+        version++;
+    }
+
+    private void publish(int c) {
+        synchronized (this) {
+            final int start = c * MAX_SATELLITES;
+            final int n = building[c];
+            System.arraycopy(buildPrn, start, prn, start, n);
+            System.arraycopy(buildElevation, start, elevation, start, n);
+            System.arraycopy(buildAzimuth, start, azimuth, start, n);
+            System.arraycopy(buildSnr, start, snr, start, n);
+            count[c] = n;
+            markUsed(c);
+        }
+        version++;
+    }
+
+    private void markUsed(int c) {
+        final int start = c * MAX_SATELLITES;
+        for (int i = start; i < start + count[c]; i++) {
+            used[i] = false;
+            for (int k = c * MAX_USED; k < c * MAX_USED + usedCount[c]; k++) {
+                if (usedPrn[k] == prn[i]) {
+                    used[i] = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Total satellites in view across all constellations
+     */
+    public int inView() {
+        int total = 0;
+        for (int n : count) {
+            total += n;
+        }
+        return total;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Copy the published satellites into another table, such as one owned by a view
+     */
+    public synchronized void copyTo(@NonNull SatelliteTable dest) {
+        System.arraycopy(count, 0, dest.count, 0, CONSTELLATIONS);
+        System.arraycopy(prn, 0, dest.prn, 0, prn.length);
+        System.arraycopy(elevation, 0, dest.elevation, 0, elevation.length);
+        System.arraycopy(azimuth, 0, dest.azimuth, 0, azimuth.length);
+        System.arraycopy(snr, 0, dest.snr, 0, snr.length);
+        System.arraycopy(used, 0, dest.used, 0, used.length);
+        dest.version = version;
+    }
+
+    /**
+     * Parse a non-negative integer without allocating, or return defaultValue
+     */
+    private static int parseInt(@NonNull String str, int defaultValue) {
+        if (str.isEmpty()) return defaultValue;
+        int value = 0;
+        for (int i = 0; i < str.length(); i++) {
+            final int digit = str.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return defaultValue;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+}
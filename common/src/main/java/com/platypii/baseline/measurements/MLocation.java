@@ -3,16 +3,16 @@ package com.platypii.baseline.measurements;
 import com.platypii.baseline.location.Geo;
 import com.platypii.baseline.location.LocationCheck;
 import com.platypii.baseline.location.NMEAException;
-import com.platypii.baseline.util.Exceptions;
 import com.platypii.baseline.util.Numbers;
+import com.platypii.baseline.util.Reporter;
 import android.support.annotation.NonNull;
-import android.util.Log;
-import com.google.android.gms.maps.model.LatLng;
 import java.util.Locale;
 
 public class MLocation extends Measurement {
     private static final String TAG = "MLocation";
 
+    private static final Reporter locationReporter = new Reporter(TAG, "location.invalid");
+
     // GPS
     public final double latitude; // Latitude
     public final double longitude; // Longitude
@@ -30,6 +30,8 @@ public class MLocation extends Measurement {
 
     public final double climb;  // Rate of climb (m/s)
 
+    public boolean suspect = false; // Far from the location filter prediction
+
     public MLocation(long millis, double latitude, double longitude, double altitude_gps,
                      double climb, // Usually taken from altimeter
                      double vN, double vE,
@@ -39,9 +41,7 @@ public class MLocation extends Measurement {
         // Sanity checks
         final int locationError = LocationCheck.validate(latitude, longitude);
         if(locationError != LocationCheck.VALID) {
-            final String locationErrorMessage = LocationCheck.message[locationError] + ": " + latitude + "," + longitude;
-            Log.e(TAG, locationErrorMessage);
-            Exceptions.report(new NMEAException(locationErrorMessage));
+            locationReporter.report(() -> new NMEAException(LocationCheck.message[locationError] + ": " + latitude + "," + longitude));
         }
 
         // Store location data
@@ -100,31 +100,12 @@ public class MLocation extends Measurement {
         return Math.toDegrees(Math.atan2(vE, vN));
     }
 
-    @NonNull
-    public LatLng latLng() {
-        return new LatLng(latitude, longitude);
-    }
-
     public double bearingTo(@NonNull MLocation dest) {
         return Geo.bearing(latitude, longitude, dest.latitude, dest.longitude);
     }
-    public double bearingTo(@NonNull LatLng dest) {
-        return Geo.bearing(latitude, longitude, dest.latitude, dest.longitude);
-    }
 
     public double distanceTo(@NonNull MLocation dest) {
         return Geo.distance(latitude, longitude, dest.latitude, dest.longitude);
     }
-    public double distanceTo(@NonNull LatLng dest) {
-        return Geo.distance(latitude, longitude, dest.latitude, dest.longitude);
-    }
-
-    /**
-     * Moves the location along a bearing (degrees) by a given distance (meters)
-     */
-    @NonNull
-    public LatLng moveDirection(double bearing, double distance) {
-        return Geo.moveDirection(latitude, longitude, bearing, distance);
-    }
 
 }
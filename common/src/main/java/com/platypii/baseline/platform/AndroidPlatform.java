@@ -0,0 +1,54 @@
+package com.platypii.baseline.platform;
+
+import com.platypii.baseline.diagnostics.ServiceCost;
+import android.os.AsyncTask;
+import android.os.Debug;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.crashlytics.android.Crashlytics;
+
+/**
+ * Android adapters for the platform services: logcat, crashlytics, and AsyncTask threads
+ */
+public class AndroidPlatform implements Platform.Logger {
+    private static final String TAG = "AndroidPlatform";
+
+    /**
+     * Install the Android adapters. Call once, before starting services.
+     */
+    public static void install() {
+        Platform.logger = new AndroidPlatform();
+        Platform.clock = System::currentTimeMillis;
+        Platform.scheduler = AsyncTask::execute;
+        ServiceCost.clock = Debug::threadCpuTimeNanos;
+    }
+
+    @Override
+    public void log(int level, @NonNull String tag, @NonNull String msg, @Nullable Throwable tr) {
+        if (tr != null) {
+            android.util.Log.println(level, tag, msg + '\n' + android.util.Log.getStackTraceString(tr));
+        } else {
+            android.util.Log.println(level, tag, msg);
+        }
+    }
+
+    @Override
+    public void report(@NonNull Throwable e) {
+        try {
+            android.util.Log.e("Exceptions", "Crash report exception", e);
+            Crashlytics.logException(e);
+        } catch (Exception e2) {
+            android.util.Log.e(TAG, "Exception while reporting exception", e2);
+        }
+    }
+
+    @Override
+    public void breadcrumb(@NonNull String msg) {
+        try {
+            Crashlytics.log(msg);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Exception while logging", e);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.platypii.baseline.platform;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.support.annotation.NonNull;
+
+/**
+ * Preferences backed by the default SharedPreferences
+ */
+public class AndroidPreferences implements Preferences {
+
+    private final SharedPreferences prefs;
+
+    public AndroidPreferences(@NonNull Context context) {
+        this.prefs = PreferenceManager.getDefaultSharedPreferences(context);
+    }
+
+    @Override
+    public long getLong(@NonNull String key, long defValue) {
+        return prefs.getLong(key, defValue);
+    }
+
+    @Override
+    public float getFloat(@NonNull String key, float defValue) {
+        return prefs.getFloat(key, defValue);
+    }
+
+    @Override
+    public void putLong(@NonNull String key, long value) {
+        prefs.edit().putLong(key, value).apply();
+    }
+
+    @Override
+    public void putFloat(@NonNull String key, float value) {
+        prefs.edit().putFloat(key, value).apply();
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.platypii.baseline.platform;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Logging for the core, with the same calls as android.util.Log.
+ * Goes to logcat on Android, and to Platform.logger everywhere else.
+ */
+public class Log {
+
+    public static void d(@NonNull String tag, @NonNull String msg) {
+        Platform.logger.log(Platform.DEBUG, tag, msg, null);
+    }
+
+    public static void i(@NonNull String tag, @NonNull String msg) {
+        Platform.logger.log(Platform.INFO, tag, msg, null);
+    }
+
+    public static void w(@NonNull String tag, @NonNull String msg) {
+        Platform.logger.log(Platform.WARN, tag, msg, null);
+    }
+
+    public static void w(@NonNull String tag, @NonNull String msg, Throwable tr) {
+        Platform.logger.log(Platform.WARN, tag, msg, tr);
+    }
+
+    public static void e(@NonNull String tag, @NonNull String msg) {
+        Platform.logger.log(Platform.ERROR, tag, msg, null);
+    }
+
+    public static void e(@NonNull String tag, @NonNull String msg, Throwable tr) {
+        Platform.logger.log(Platform.ERROR, tag, msg, tr);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.platypii.baseline.platform;
+
+import android.support.annotation.NonNull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Preferences held in memory, for tests and batch tools
+ */
+public class MemoryPreferences implements Preferences {
+
+    private final Map<String, Object> values = new HashMap<>();
+
+    @Override
+    public synchronized long getLong(@NonNull String key, long defValue) {
+        final Object value = values.get(key);
+        return value instanceof Long ? (Long) value : defValue;
+    }
+
+    @Override
+    public synchronized float getFloat(@NonNull String key, float defValue) {
+        final Object value = values.get(key);
+        return value instanceof Float ? (Float) value : defValue;
+    }
+
+    @Override
+    public synchronized void putLong(@NonNull String key, long value) {
+        values.put(key, value);
+    }
+
+    @Override
+    public synchronized void putFloat(@NonNull String key, float value) {
+        values.put(key, value);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.platypii.baseline.platform;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Services the core needs from whatever it is running on: logging, clocks and scheduling.
+ *
+ * Defaults are plain JVM, so the core (parsers, filters, fusion, detectors, measurements)
+ * runs in tests, replays and batch tools at full speed with no Android stubs.
+ * The app installs Android adapters at startup, see AndroidPlatform.
+ */
+public class Platform {
+
+    public interface Logger {
+        void log(int level, @NonNull String tag, @NonNull String msg, @Nullable Throwable tr);
+        /** Send an exception to crash reporting */
+        void report(@NonNull Throwable e);
+        /** Leave a breadcrumb for the next crash report */
+        void breadcrumb(@NonNull String msg);
+    }
+
+    public interface Clock {
+        /** Wall clock time, milliseconds since epoch */
+        long currentTimeMillis();
+    }
+
+    public interface Scheduler {
+        /** Run a task off the caller's thread, if the platform has background threads */
+        void execute(@NonNull Runnable task);
+    }
+
+    // Log levels, as in android.util.Log
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    public static Logger logger = new JvmLogger();
+    public static Clock clock = System::currentTimeMillis;
+    /** Runs tasks inline on the JVM, so replays and batch runs are deterministic */
+    public static Scheduler scheduler = Runnable::run;
+
+    /**
+     * Logs warnings and errors to stderr, drops debug and info
+     */
+    static class JvmLogger implements Logger {
+        private static final String[] levels = {"", "", "V", "D", "I", "W", "E", "A"};
+
+        @Override
+        public void log(int level, @NonNull String tag, @NonNull String msg, @Nullable Throwable tr) {
+            if (level >= WARN) {
+                System.err.println(levels[level] + "/" + tag + ": " + msg);
+                if (tr != null) {
+                    tr.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public void report(@NonNull Throwable e) {
+            log(ERROR, "Exceptions", "Crash report exception", e);
+        }
+
+        @Override
+        public void breadcrumb(@NonNull String msg) {}
+    }
+
+}
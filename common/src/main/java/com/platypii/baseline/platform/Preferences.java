@@ -0,0 +1,19 @@
+package com.platypii.baseline.platform;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Persistent key-value settings, such as SharedPreferences on Android.
+ * Puts are saved asynchronously where the platform allows.
+ */
+public interface Preferences {
+
+    long getLong(@NonNull String key, long defValue);
+
+    float getFloat(@NonNull String key, float defValue);
+
+    void putLong(@NonNull String key, long value);
+
+    void putFloat(@NonNull String key, float value);
+
+}
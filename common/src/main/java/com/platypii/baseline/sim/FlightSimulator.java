@@ -0,0 +1,288 @@
+package com.platypii.baseline.sim;
+
+import android.support.annotation.NonNull;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Parametric flight simulator, for stress and scaling tests of the sensor pipeline.
+ *
+ * Models a jump from the ground: climb to altitude, exit, freefall or wingsuit glide,
+ * deployment, canopy flight back to the dropzone, and landing. Velocities relax towards
+ * the target of each phase, and the air mass moves with the wind.
+ * Emits NMEA sentences (RMC, GGA, GSA), pressure samples and accelerometer events at
+ * independent rates, with gaussian noise. Seeded, so runs are repeatable.
+ */
+public class FlightSimulator {
+
+    // Flight phases
+    public static final int GROUND = 0;
+    public static final int CLIMB = 1;
+    public static final int FREEFALL = 2;
+    public static final int CANOPY = 3;
+    public static final int LANDED = 4;
+
+    /**
+     * Receives simulated sensor data, in time order
+     */
+    public interface Listener {
+        /** @param millis gps time of the sentence */
+        void onNmea(long millis, @NonNull String nmea);
+        /** @param nano sensor time, nanoseconds since the start of the simulation */
+        void onPressure(long nano, float pressure);
+        /** Specific force in the world frame: east, north, up, in m/s^2 */
+        void onAccel(long nano, float x, float y, float z);
+    }
+
+    // Dropzone
+    public double latitude = 47.239;
+    public double longitude = -123.143;
+    public double groundAltitude = 100; // meters MSL
+    public long startMillis = 1527854400000L; // 2018-06-01 12:00 UTC
+
+    // Jump
+    public double exitAltitude = 4000; // meters AGL
+    public double deployAltitude = 1000; // meters AGL
+    public boolean wingsuit = false;
+    public double climbRate = 8; // m/s
+    public double planeSpeed = 40; // m/s airspeed
+    public double heading = 90; // degrees, direction flown in freefall
+    public double groundTime = 30; // seconds on the ground before and after
+
+    // Wind, the direction it blows towards
+    public double windN = 0; // m/s
+    public double windE = -5; // m/s
+
+    // Rates in Hz
+    public double gpsRate = 5;
+    public double baroRate = 25;
+    public double accelRate = 100;
+
+    // Noise standard deviations
+    public double gpsNoise = 2; // meters
+    public double speedNoise = 0.2; // m/s
+    public double baroNoise = 0.5; // meters of altitude
+    public double accelNoise = 0.2; // m/s^2
+    public long seed = 0;
+
+    // State, in meters from the dropzone
+    public int phase = GROUND;
+    public double north = 0;
+    public double east = 0;
+    public double altitude = 0; // meters AGL
+    public double vN = 0;
+    public double vE = 0;
+    public double climb = 0;
+    private double aN = 0;
+    private double aE = 0;
+    private double aU = 0;
+    private double phaseTime = 0; // seconds since the phase started
+
+    // Physical constants and ISA standard atmosphere, as in BaroFilter
+    private static final double G = 9.80665;
+    private static final double PRESSURE0 = 1013.25; // hPa
+    private static final double EXP = 0.190263237;
+    private static final double SCALE = 44330.76923;
+    private static final double metersPerDegree = 6371000 * Math.PI / 180;
+    private static final double KNOTS = 1.94384449;
+
+    // Velocity time constants, seconds
+    private static final double TAU_FREEFALL = 4;
+    private static final double TAU_DEPLOY = 1.5;
+    private static final double TAU_CANOPY = 2;
+
+    private static final double ORBIT_RADIUS = 500; // meters
+
+    // Simulation step
+    private static final double DT = 0.001; // seconds
+
+    /**
+     * Run the whole flight, calling the listener with sensor data as it happens
+     * @return simulated duration in milliseconds
+     */
+    public long run(@NonNull Listener listener) {
+        final Random random = new Random(seed);
+        final long gpsPeriod = period(gpsRate);
+        final long baroPeriod = period(baroRate);
+        final long accelPeriod = period(accelRate);
+        long nextGps = 0;
+        long nextBaro = 0;
+        long nextAccel = 0;
+        long nano = 0;
+        while (phase != LANDED || phaseTime < groundTime) {
+            step();
+            nano += (long) (DT * 1e9);
+            if (nano >= nextAccel) {
+                listener.onAccel(nano,
+                        (float) (aE + accelNoise * random.nextGaussian()),
+                        (float) (aN + accelNoise * random.nextGaussian()),
+                        (float) (aU + G + accelNoise * random.nextGaussian()));
+                nextAccel += accelPeriod;
+            }
+            if (nano >= nextBaro) {
+                final double alt = groundAltitude + altitude + baroNoise * random.nextGaussian();
+                listener.onPressure(nano, (float) altitudeToPressure(alt));
+                nextBaro += baroPeriod;
+            }
+            if (nano >= nextGps) {
+                emitGps(listener, startMillis + nano / 1000000L, random);
+                nextGps += gpsPeriod;
+            }
+        }
+        return nano / 1000000L;
+    }
+
+    /**
+     * Advance the flight model by one step
+     */
+    private void step() {
+        phaseTime += DT;
+        // Target air velocity for this phase
+        double airspeed = 0;
+        double targetClimb = 0;
+        double tau = TAU_FREEFALL;
+        double direction = heading;
+        boolean moving = true;
+        switch (phase) {
+            case GROUND:
+                moving = false;
+                if (phaseTime >= groundTime) {
+                    setPhase(CLIMB);
+                }
+                break;
+            case CLIMB:
+                airspeed = planeSpeed;
+                targetClimb = climbRate;
+                // Plane orbits the dropzone, turning inwards when it drifts out
+                final double bearing = Math.toDegrees(Math.atan2(-east, -north));
+                direction = Math.hypot(north, east) < ORBIT_RADIUS ? bearing - 90 : bearing - 45;
+                tau = 5;
+                if (altitude >= exitAltitude) {
+                    setPhase(FREEFALL);
+                }
+                break;
+            case FREEFALL:
+                airspeed = wingsuit ? 45 : 5;
+                targetClimb = wingsuit ? -20 : -55;
+                if (altitude <= deployAltitude) {
+                    setPhase(CANOPY);
+                }
+                break;
+            case CANOPY:
+                airspeed = 10;
+                targetClimb = -5;
+                tau = phaseTime < 3 ? TAU_DEPLOY : TAU_CANOPY;
+                // Steer back towards the dropzone
+                direction = Math.toDegrees(Math.atan2(-east, -north));
+                if (altitude <= 0) {
+                    setPhase(LANDED);
+                }
+                break;
+            case LANDED:
+                moving = false;
+                altitude = 0;
+                break;
+        }
+        final double prevN = vN;
+        final double prevE = vE;
+        final double prevClimb = climb;
+        if (moving) {
+            final double targetN = airspeed * Math.cos(Math.toRadians(direction)) + windN;
+            final double targetE = airspeed * Math.sin(Math.toRadians(direction)) + windE;
+            final double alpha = DT / tau;
+            vN += (targetN - vN) * alpha;
+            vE += (targetE - vE) * alpha;
+            climb += (targetClimb - climb) * alpha;
+        } else {
+            vN = vE = climb = 0;
+        }
+        aN = (vN - prevN) / DT;
+        aE = (vE - prevE) / DT;
+        aU = (climb - prevClimb) / DT;
+        north += vN * DT;
+        east += vE * DT;
+        altitude = Math.max(0, altitude + climb * DT);
+    }
+
+    private void setPhase(int newPhase) {
+        phase = newPhase;
+        phaseTime = 0;
+    }
+
+    private void emitGps(@NonNull Listener listener, long millis, @NonNull Random random) {
+        final double lat = latitude + (north + gpsNoise * random.nextGaussian()) / metersPerDegree;
+        final double lon = longitude + (east + gpsNoise * random.nextGaussian()) / (metersPerDegree * Math.cos(Math.toRadians(latitude)));
+        final double alt = groundAltitude + altitude + 1.5 * gpsNoise * random.nextGaussian();
+        final double speedN = vN + speedNoise * random.nextGaussian();
+        final double speedE = vE + speedNoise * random.nextGaussian();
+        final double groundSpeed = Math.sqrt(speedN * speedN + speedE * speedE);
+        double course = Math.toDegrees(Math.atan2(speedE, speedN));
+        if (course < 0) course += 360;
+
+        final long timeOfDay = millis % 86400000L;
+        final String time = String.format(Locale.US, "%02d%02d%02d.%02d",
+                timeOfDay / 3600000, timeOfDay / 60000 % 60, timeOfDay / 1000 % 60, timeOfDay % 1000 / 10);
+        final long days = millis / 86400000L;
+        final String date = date(days);
+        listener.onNmea(millis, sentence(String.format(Locale.US, "GPRMC,%s,A,%s,%s,%.2f,%.1f,%s,,",
+                time, latitude(lat), longitude(lon), groundSpeed * KNOTS, course, date)));
+        listener.onNmea(millis, sentence(String.format(Locale.US, "GPGGA,%s,%s,%s,1,10,0.9,%.1f,M,-17.0,M,,",
+                time, latitude(lat), longitude(lon), alt)));
+        listener.onNmea(millis, sentence("GPGSA,A,3,02,05,06,09,12,17,19,24,25,29,,,1.6,0.9,1.3"));
+    }
+
+    /**
+     * Inverse of the barometric formula used by the altimeter
+     */
+    static double altitudeToPressure(double altitude) {
+        return PRESSURE0 * Math.pow(1 - altitude / SCALE, 1 / EXP);
+    }
+
+    private static long period(double rate) {
+        return (long) (1e9 / rate);
+    }
+
+    @NonNull
+    private static String latitude(double lat) {
+        final double abs = Math.abs(lat);
+        final int degrees = (int) abs;
+        return String.format(Locale.US, "%02d%07.4f,%s", degrees, (abs - degrees) * 60, lat >= 0 ? "N" : "S");
+    }
+
+    @NonNull
+    private static String longitude(double lon) {
+        final double abs = Math.abs(lon);
+        final int degrees = (int) abs;
+        return String.format(Locale.US, "%03d%07.4f,%s", degrees, (abs - degrees) * 60, lon >= 0 ? "E" : "W");
+    }
+
+    /**
+     * DDMMYY from days since epoch, the inverse of NMEA.epochDay
+     */
+    @NonNull
+    private static String date(long days) {
+        final long z = days + 719468;
+        final long era = z / 146097;
+        final long dayOfEra = z - era * 146097;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final long mp = (5 * dayOfYear + 2) / 153;
+        final long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        final long month = mp < 10 ? mp + 3 : mp - 9;
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return String.format(Locale.US, "%02d%02d%02d", day, month, year % 100);
+    }
+
+    /**
+     * Wrap a sentence body with $ and checksum
+     */
+    @NonNull
+    static String sentence(@NonNull String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format(Locale.US, "$%s*%02X", body, checksum);
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exports the gps fixes of a track as plain CSV, one row per fix
+ */
+public class CsvExporter extends TrackExporter {
+
+    public CsvExporter(@NonNull Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void begin(@NonNull String name) throws IOException {
+        out.write("time,lat,lon,alt,velN,velE,climb\n");
+    }
+
+    @Override
+    public void point(@NonNull MLocation loc) throws IOException {
+        appendIsoTime(loc.millis);
+        sb.append(',');
+        appendFixed(loc.latitude, 7);
+        sb.append(',');
+        appendFixed(loc.longitude, 7);
+        sb.append(',');
+        appendFixed(loc.altitude_gps, 1);
+        sb.append(',');
+        appendFixed(loc.vN, 2);
+        sb.append(',');
+        appendFixed(loc.vE, 2);
+        sb.append(',');
+        appendFixed(loc.climb, 2);
+        sb.append('\n');
+        flushBuffer();
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.flush();
+    }
+
+    @NonNull
+    @Override
+    public String extension() {
+        return "csv";
+    }
+
+}
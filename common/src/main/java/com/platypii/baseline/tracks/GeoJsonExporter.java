@@ -0,0 +1,73 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exports a track as a GeoJSON LineString feature.
+ * Properties come after the geometry, so the start and end times are known without buffering.
+ */
+public class GeoJsonExporter extends TrackExporter {
+
+    private String name;
+    private long start = -1;
+    private long end = -1;
+    private boolean first = true;
+
+    public GeoJsonExporter(@NonNull Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void begin(@NonNull String name) throws IOException {
+        this.name = name;
+        out.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[\n");
+    }
+
+    @Override
+    public void point(@NonNull MLocation loc) throws IOException {
+        if (start < 0) start = loc.millis;
+        end = loc.millis;
+        if (!first) sb.append(",\n");
+        first = false;
+        sb.append('[');
+        appendFixed(loc.longitude, 7);
+        sb.append(',');
+        appendFixed(loc.latitude, 7);
+        if (!Double.isNaN(loc.altitude_gps)) {
+            sb.append(',');
+            appendFixed(loc.altitude_gps, 1);
+        }
+        sb.append(']');
+        flushBuffer();
+    }
+
+    @Override
+    public void end() throws IOException {
+        sb.append("\n]},\"properties\":{\"name\":\"").append(escapeJson(name)).append('"');
+        if (start >= 0) {
+            sb.append(",\"start\":\"");
+            appendIsoTime(start);
+            sb.append("\",\"end\":\"");
+            appendIsoTime(end);
+            sb.append('"');
+        }
+        sb.append("}}\n");
+        flushBuffer();
+        out.flush();
+    }
+
+    @NonNull
+    @Override
+    public String extension() {
+        return "geojson";
+    }
+
+    @NonNull
+    private static String escapeJson(@NonNull String str) {
+        return str.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exports a track as a GPX 1.1 track segment
+ */
+public class GpxExporter extends TrackExporter {
+
+    public GpxExporter(@NonNull Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void begin(@NonNull String name) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<gpx version=\"1.1\" creator=\"BASEline\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n" +
+                "<trk>\n" +
+                "<name>" + escapeXml(name) + "</name>\n" +
+                "<trkseg>\n");
+    }
+
+    @Override
+    public void point(@NonNull MLocation loc) throws IOException {
+        sb.append("<trkpt lat=\"");
+        appendFixed(loc.latitude, 7);
+        sb.append("\" lon=\"");
+        appendFixed(loc.longitude, 7);
+        sb.append("\">");
+        if (!Double.isNaN(loc.altitude_gps)) {
+            sb.append("<ele>");
+            appendFixed(loc.altitude_gps, 1);
+            sb.append("</ele>");
+        }
+        sb.append("<time>");
+        appendIsoTime(loc.millis);
+        sb.append("</time></trkpt>\n");
+        flushBuffer();
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.write("</trkseg>\n</trk>\n</gpx>\n");
+        out.flush();
+    }
+
+    @NonNull
+    @Override
+    public String extension() {
+        return "gpx";
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exports a track as KML, with a timestamped gx:Track.
+ * Each when is written next to its coord, so points stream without buffering.
+ */
+public class KmlExporter extends TrackExporter {
+
+    public KmlExporter(@NonNull Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void begin(@NonNull String name) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<kml xmlns=\"http://www.opengis.net/kml/2.2\" xmlns:gx=\"http://www.google.com/kml/ext/2.2\">\n" +
+                "<Document>\n" +
+                "<name>" + escapeXml(name) + "</name>\n" +
+                "<Style id=\"flight\"><LineStyle><color>ffff5500</color><width>5</width></LineStyle></Style>\n" +
+                "<Placemark>\n" +
+                "<name>" + escapeXml(name) + "</name>\n" +
+                "<styleUrl>#flight</styleUrl>\n" +
+                "<gx:Track>\n" +
+                "<altitudeMode>absolute</altitudeMode>\n");
+    }
+
+    @Override
+    public void point(@NonNull MLocation loc) throws IOException {
+        sb.append("<when>");
+        appendIsoTime(loc.millis);
+        sb.append("</when><gx:coord>");
+        appendFixed(loc.longitude, 7);
+        sb.append(' ');
+        appendFixed(loc.latitude, 7);
+        if (!Double.isNaN(loc.altitude_gps)) {
+            sb.append(' ');
+            appendFixed(loc.altitude_gps, 1);
+        }
+        sb.append("</gx:coord>\n");
+        flushBuffer();
+    }
+
+    @Override
+    public void end() throws IOException {
+        out.write("</gx:Track>\n</Placemark>\n</Document>\n</kml>\n");
+        out.flush();
+    }
+
+    @NonNull
+    @Override
+    public String extension() {
+        return "kml";
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.altimeter.AltimeterFusion;
+import com.platypii.baseline.altimeter.BaroFilter;
+import com.platypii.baseline.diagnostics.ServiceCost;
+import com.platypii.baseline.jarvis.FlightMode;
+import com.platypii.baseline.jarvis.LandingDetector;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.platform.MemoryPreferences;
+import com.platypii.baseline.util.Stat;
+import android.support.annotation.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs one track file through the same altimeter and jump detection as the phone,
+ * streaming rows so memory does not grow with the track.
+ * Not thread safe: use one analyzer per track.
+ */
+public class TrackAnalyzer {
+
+    private static final ServiceCost serviceCost = ServiceCost.get("TrackAnalyzer");
+
+    // Gps gaps longer than this count against data quality
+    private static final long GAP_MILLIS = 1000;
+
+    // Canopy mode must hold this long after exit to count as deployment
+    private static final long DEPLOY_MILLIS = 3000;
+
+    // Track files are logged in gps time, so the analyzer needs no clock offset of its own.
+    // Analysis runs alongside the live services, so it stays out of their diagnostics.
+    private final BaroFilter baro = new BaroFilter(0);
+    private final AltimeterFusion alti = new AltimeterFusion(0);
+    private final LandingDetector landing = new LandingDetector(false);
+    private final Stat glide = new Stat();
+
+    private TrackSummary summary;
+    private long start = -1;
+    private long lastFix = -1;
+    private long canopyStart = -1;
+    private long freefallEnd = -1;
+    private double freefallEndAltitude = Double.NaN;
+
+    /**
+     * Analyze a track, and write its gps fixes to each exporter
+     */
+    @NonNull
+    public static TrackSummary analyze(@NonNull File file, @NonNull String name, @NonNull List<TrackExporter> exporters) throws IOException {
+        serviceCost.begin();
+        try {
+            return new TrackAnalyzer().run(file, name, exporters);
+        } finally {
+            serviceCost.end();
+        }
+    }
+
+    @NonNull
+    private TrackSummary run(@NonNull File file, @NonNull String name, @NonNull List<TrackExporter> exporters) throws IOException {
+        summary = new TrackSummary(name, file.length());
+        alti.loadGroundLevel(new MemoryPreferences());
+        landing.start();
+        for (TrackExporter exporter : exporters) {
+            exporter.begin(name);
+        }
+        final TrackReader reader = new TrackReader(file);
+        try {
+            while (reader.next()) {
+                if (reader.type == TrackReader.ALT) {
+                    final MPressure pressure = baro.update(reader.millis, reader.nano, reader.pressure);
+                    if (pressure != null) {
+                        alti.updateBaro(pressure);
+                        summary.baroSamples++;
+                    }
+                } else if (reader.type == TrackReader.GPS) {
+                    final MLocation raw = reader.location();
+                    alti.updateGPS(raw);
+                    // Climb from the altimeter, as the phone does
+                    final MLocation loc = new MLocation(raw.millis, raw.latitude, raw.longitude, raw.altitude_gps, alti.climb,
+                            raw.vN, raw.vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, raw.satellitesUsed, -1);
+                    onLocation(loc);
+                    for (TrackExporter exporter : exporters) {
+                        exporter.point(loc);
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        for (TrackExporter exporter : exporters) {
+            exporter.end();
+        }
+        summary.rows = reader.rows;
+        summary.badRows = reader.badRows;
+        if (glide.mean() > 0) {
+            summary.glideMean = glide.mean();
+        }
+        return summary;
+    }
+
+    private void onLocation(@NonNull MLocation loc) {
+        // Data quality
+        if (start < 0) {
+            start = loc.millis;
+        }
+        if (lastFix >= 0) {
+            final long gap = loc.millis - lastFix;
+            if (gap > GAP_MILLIS) {
+                summary.gaps++;
+            }
+            summary.maxGap = Math.max(summary.maxGap, gap * 0.001);
+        }
+        lastFix = loc.millis;
+        summary.gpsFixes++;
+        summary.duration = seconds(loc.millis);
+
+        final double altitude = alti.altitudeAGL();
+        final double groundSpeed = loc.groundSpeed();
+        summary.maxAltitude = max(summary.maxAltitude, altitude);
+        summary.maxGroundSpeed = max(summary.maxGroundSpeed, groundSpeed);
+        summary.maxFallRate = max(summary.maxFallRate, -loc.climb);
+
+        // Exit and landing
+        if (landing.state() != LandingDetector.STATE_STOPPED) {
+            final int before = landing.state();
+            if (landing.update(loc)) {
+                summary.landingTime = seconds(loc.millis);
+            } else if (before != LandingDetector.STATE_EXITED && landing.state() == LandingDetector.STATE_EXITED) {
+                summary.exitTime = seconds(loc.millis);
+                summary.exitAltitude = altitude;
+            }
+        }
+
+        // Deployment is the last freefall fix before sustained canopy flight
+        if (!Double.isNaN(summary.exitTime) && Double.isNaN(summary.deployTime)) {
+            final int mode = FlightMode.getMode(loc);
+            if (mode == FlightMode.MODE_CANOPY) {
+                if (canopyStart < 0) {
+                    canopyStart = loc.millis;
+                } else if (loc.millis - canopyStart >= DEPLOY_MILLIS && freefallEnd >= 0) {
+                    summary.deployTime = seconds(freefallEnd);
+                    summary.deployAltitude = freefallEndAltitude;
+                }
+            } else {
+                canopyStart = -1;
+                if (mode == FlightMode.MODE_FREEFALL || mode == FlightMode.MODE_WINGSUIT) {
+                    freefallEnd = loc.millis;
+                    freefallEndAltitude = altitude;
+                    // Glide in freefall
+                    final double ratio = groundSpeed / -loc.climb;
+                    glide.addSample(ratio);
+                    summary.glideMax = max(summary.glideMax, ratio);
+                }
+            }
+        }
+    }
+
+    private double seconds(long millis) {
+        return (millis - start) * 0.001;
+    }
+
+    /**
+     * Max that ignores NaN
+     */
+    private static double max(double a, double b) {
+        if (Double.isNaN(a)) return b;
+        if (Double.isNaN(b)) return a;
+        return Math.max(a, b);
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.platform.Log;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reprocesses many tracks in parallel, such as after the altimeter or flight mode logic changes.
+ *
+ * The track list is split in halves on a fork-join pool, and per-track summaries are merged
+ * back up as TrackStats. Each summary is saved next to its track with the analysis version,
+ * so a cancelled batch resumes where it stopped, and tracks already at this version are skipped.
+ * Before each track the batch waits while the listener is busy, such as while recording.
+ */
+public class TrackBatch {
+    private static final String TAG = "TrackBatch";
+
+    // Bump when analysis changes, so that every track gets reprocessed
+    public static final int VERSION = 1;
+
+    // Poll interval while paused
+    private static final long BUSY_WAIT_MILLIS = 1000;
+
+    public interface Listener {
+        void onProgress(int done, int total);
+        /** @return true to pause before starting the next track */
+        boolean isBusy();
+    }
+
+    private final List<File> files;
+    private final Listener listener;
+    private volatile boolean cancelled = false;
+    private final AtomicInteger done = new AtomicInteger();
+
+    // Statistics
+    public final AtomicLong processed = new AtomicLong();
+    public final AtomicLong skipped = new AtomicLong();
+
+    public TrackBatch(@NonNull List<File> files, @NonNull Listener listener) {
+        this.files = files;
+        this.listener = listener;
+    }
+
+    /**
+     * Process every track on a fork-join pool, and wait for the merged result
+     */
+    @NonNull
+    @RequiresApi(21)
+    public TrackStats runParallel(int parallelism) {
+        return runParallel(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory);
+    }
+
+    /**
+     * Process every track on a fork-join pool with the given workers, such as at a lower priority
+     */
+    @NonNull
+    @RequiresApi(21)
+    public TrackStats runParallel(int parallelism, @NonNull ForkJoinPool.ForkJoinWorkerThreadFactory factory) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism, factory, null, false);
+        try {
+            return pool.invoke(new Split(0, files.size()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Process every track on the calling thread, where fork-join is not available
+     */
+    @NonNull
+    public TrackStats run() {
+        final TrackStats stats = new TrackStats();
+        for (int i = 0; i < files.size(); i++) {
+            stats.merge(process(i));
+        }
+        return stats;
+    }
+
+    /**
+     * Stop before the next track. Tracks already done keep their saved summaries.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @RequiresApi(21)
+    private class Split extends RecursiveTask<TrackStats> {
+        private final int start;
+        private final int end;
+
+        Split(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected TrackStats compute() {
+            if (end - start <= 1) {
+                return start < end ? process(start) : new TrackStats();
+            }
+            final int mid = (start + end) >>> 1;
+            final Split left = new Split(start, mid);
+            left.fork();
+            final TrackStats stats = new Split(mid, end).compute();
+            stats.merge(left.join());
+            return stats;
+        }
+    }
+
+    /**
+     * Summarize one track, from its saved summary if it is current
+     */
+    @NonNull
+    private TrackStats process(int index) {
+        final TrackStats stats = new TrackStats();
+        if (!waitWhileBusy()) return stats;
+        final File file = files.get(index);
+        final File sidecar = sidecar(file);
+        TrackSummary summary = load(sidecar);
+        if (summary != null) {
+            skipped.incrementAndGet();
+        } else {
+            try {
+                summary = TrackAnalyzer.analyze(file, file.getName(), Collections.<TrackExporter>emptyList());
+                save(sidecar, summary);
+                processed.incrementAndGet();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to reprocess track " + file, e);
+                stats.failed++;
+            }
+        }
+        if (summary != null) {
+            stats.add(summary);
+        }
+        listener.onProgress(done.incrementAndGet(), files.size());
+        return stats;
+    }
+
+    /**
+     * @return false if cancelled
+     */
+    private boolean waitWhileBusy() {
+        try {
+            while (!cancelled && listener.isBusy()) {
+                Thread.sleep(BUSY_WAIT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+        }
+        return !cancelled;
+    }
+
+    /**
+     * Summary file next to a track: track_2018-01-01_12-00-00.summary
+     */
+    @NonNull
+    public static File sidecar(@NonNull File track) {
+        final String base = track.getName().replaceAll("\\.csv(\\.gz)?$", "");
+        return new File(track.getParentFile(), base + ".summary");
+    }
+
+    /**
+     * Load a saved summary
+     * @return null if missing, unreadable, or from another analysis version
+     */
+    @Nullable
+    static TrackSummary load(@NonNull File sidecar) {
+        if (!sidecar.exists()) return null;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(sidecar), "UTF-8"));
+            if (!Integer.toString(VERSION).equals(reader.readLine())) return null;
+            final String row = reader.readLine();
+            return row != null ? TrackSummary.fromRow(row) : null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read track summary " + sidecar, e);
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to close track summary " + sidecar, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Save a summary, written to a temp file and renamed so a cancelled write is never read back
+     */
+    static void save(@NonNull File sidecar, @NonNull TrackSummary summary) throws IOException {
+        final File temp = new File(sidecar.getPath() + ".tmp");
+        final Writer out = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+        try {
+            out.write(VERSION + "\n" + summary.toRow() + "\n");
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(sidecar)) {
+            temp.delete();
+            throw new IOException("Failed to save track summary " + sidecar);
+        }
+    }
+
+}
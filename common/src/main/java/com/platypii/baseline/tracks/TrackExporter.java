@@ -0,0 +1,131 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Writes a track to a geo format one point at a time, in constant memory.
+ * Call begin(), then point() for each gps fix, then end(). The writer is not closed.
+ */
+public abstract class TrackExporter {
+
+    protected final Writer out;
+
+    // Reused for formatting
+    protected final StringBuilder sb = new StringBuilder(256);
+    private final SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+    private long isoSecond = Long.MIN_VALUE;
+    private String isoPrefix;
+
+    protected TrackExporter(@NonNull Writer out) {
+        this.out = out;
+        isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    public abstract void begin(@NonNull String name) throws IOException;
+
+    public abstract void point(@NonNull MLocation loc) throws IOException;
+
+    public abstract void end() throws IOException;
+
+    /**
+     * File extension for this format, such as "kml"
+     */
+    @NonNull
+    public abstract String extension();
+
+    /**
+     * Stream the gps rows of a track through this exporter
+     * @return the number of points read
+     */
+    public long export(@NonNull TrackReader reader, @NonNull String name) throws IOException {
+        long count = 0;
+        begin(name);
+        while (reader.next()) {
+            if (reader.type == TrackReader.GPS) {
+                point(reader.location());
+                count++;
+            }
+        }
+        end();
+        return count;
+    }
+
+    /**
+     * Create an exporter by extension: kml, gpx, geojson, or csv
+     */
+    @NonNull
+    public static TrackExporter create(@NonNull String format, @NonNull Writer out) {
+        switch (format) {
+            case "kml":
+                return new KmlExporter(out);
+            case "gpx":
+                return new GpxExporter(out);
+            case "geojson":
+                return new GeoJsonExporter(out);
+            case "csv":
+                return new CsvExporter(out);
+            default:
+                throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+    }
+
+    /**
+     * Append a number with fixed decimal places, faster than String.format.
+     * Appends nothing for NaN or infinity, so missing values stay missing.
+     */
+    protected void appendFixed(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) sb.append('-');
+        sb.append(scaled / scale);
+        if (decimals > 0) {
+            sb.append('.');
+            final long frac = scaled % scale;
+            for (long s = scale / 10; s > frac && s > 1; s /= 10) {
+                sb.append('0');
+            }
+            sb.append(frac);
+        }
+    }
+
+    /**
+     * Append an ISO 8601 UTC timestamp with milliseconds
+     */
+    protected void appendIsoTime(long millis) {
+        final long second = millis >= 0 ? millis / 1000L : (millis - 999L) / 1000L;
+        if (second != isoSecond) {
+            isoSecond = second;
+            isoPrefix = isoFormat.format(new Date(second * 1000L));
+        }
+        final long ms = millis - second * 1000L;
+        sb.append(isoPrefix).append('.');
+        if (ms < 100) sb.append('0');
+        if (ms < 10) sb.append('0');
+        sb.append(ms).append('Z');
+    }
+
+    /**
+     * Write the reused buffer and clear it
+     */
+    protected void flushBuffer() throws IOException {
+        out.append(sb);
+        sb.setLength(0);
+    }
+
+    @NonNull
+    protected static String escapeXml(@NonNull String str) {
+        return str.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.util.Reporter;
+import android.support.annotation.NonNull;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams rows from a track file in the Measurement.header schema, one row at a time.
+ *
+ * Columns are found by name from the header line, so older tracks with fewer columns
+ * still read. Each row is parsed into the public fields, which are overwritten by the
+ * next call to next(). Fields missing from a row are NaN, or -1 for integers.
+ */
+public class TrackReader {
+    private static final String TAG = "TrackReader";
+
+    // Row types, from the sensor column
+    public static final int OTHER = 0;
+    public static final int GPS = 1;
+    public static final int ALT = 2;
+    public static final int ACC = 3;
+    public static final int GRV = 4;
+    public static final int ROT = 5;
+
+    private static final Reporter badRow = new Reporter(TAG, "tracks.bad_row");
+
+    private final BufferedReader reader;
+
+    // Column indexes, or -1 if missing
+    private int colMillis = -1;
+    private int colNano = -1;
+    private int colSensor = -1;
+    private int colPressure = -1;
+    private int colLat = -1;
+    private int colLon = -1;
+    private int colAlt = -1;
+    private int colVN = -1;
+    private int colVE = -1;
+    private int colNumSV = -1;
+    private int colX = -1;
+    private int colY = -1;
+    private int colZ = -1;
+    private int colRotX = -1;
+    private int colRotY = -1;
+    private int colRotZ = -1;
+    private int colAcc = -1;
+
+    // Reused for splitting rows
+    private String[] fields = new String[17];
+    private int fieldCount = 0;
+
+    // Current row
+    public int type;
+    public long millis; // gps time, or -1 if missing
+    public long nano; // sensor time, or -1 if missing
+    public float pressure;
+    public double latitude;
+    public double longitude;
+    public double altitude;
+    public double vN;
+    public double vE;
+    public int numSV;
+    public float x; // gravity or rotation vector, or magnitude for acc
+    public float y;
+    public float z;
+
+    // Statistics
+    public long rows = 0;
+    public long badRows = 0;
+
+    public TrackReader(@NonNull File file) throws IOException {
+        this(open(file));
+    }
+
+    public TrackReader(@NonNull Reader reader) throws IOException {
+        this.reader = new BufferedReader(reader, 65536);
+        final String header = this.reader.readLine();
+        readHeader(header != null ? header : Measurement.header);
+    }
+
+    @NonNull
+    private static Reader open(@NonNull File file) throws IOException {
+        InputStream input = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            input = new GZIPInputStream(input, 65536);
+        }
+        return new InputStreamReader(input, "UTF-8");
+    }
+
+    private void readHeader(@NonNull String header) {
+        split(header);
+        for (int i = 0; i < fieldCount; i++) {
+            switch (fields[i]) {
+                case "millis": colMillis = i; break;
+                case "nano": colNano = i; break;
+                case "sensor": colSensor = i; break;
+                case "pressure": colPressure = i; break;
+                case "lat": colLat = i; break;
+                case "lon": colLon = i; break;
+                case "hMSL": colAlt = i; break;
+                case "velN": colVN = i; break;
+                case "velE": colVE = i; break;
+                case "numSV": colNumSV = i; break;
+                case "gX": colX = i; break;
+                case "gY": colY = i; break;
+                case "gZ": colZ = i; break;
+                case "rotX": colRotX = i; break;
+                case "rotY": colRotY = i; break;
+                case "rotZ": colRotZ = i; break;
+                case "acc": colAcc = i; break;
+            }
+        }
+    }
+
+    /**
+     * Advance to the next row
+     * @return false at the end of the file
+     */
+    public boolean next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            rows++;
+            split(line);
+            try {
+                if (parseRow()) {
+                    return true;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to bad row
+            }
+            badRows++;
+            final String bad = line;
+            badRow.w(() -> "Skipping invalid track row: " + bad);
+        }
+        return false;
+    }
+
+    private boolean parseRow() {
+        millis = parseLong(colMillis);
+        nano = parseLong(colNano);
+        final String sensor = field(colSensor);
+        switch (sensor) {
+            case "gps":
+                type = GPS;
+                latitude = parseDouble(colLat);
+                longitude = parseDouble(colLon);
+                altitude = parseDouble(colAlt);
+                vN = parseDouble(colVN);
+                vE = parseDouble(colVE);
+                final String sv = field(colNumSV);
+                numSV = sv.isEmpty() ? -1 : Integer.parseInt(sv);
+                return millis > 0;
+            case "alt":
+                type = ALT;
+                pressure = (float) parseDouble(colPressure);
+                return nano >= 0;
+            case "acc":
+                type = ACC;
+                x = (float) parseDouble(colAcc);
+                y = z = Float.NaN;
+                return nano >= 0;
+            case "grv":
+                type = GRV;
+                x = (float) parseDouble(colX);
+                y = (float) parseDouble(colY);
+                z = (float) parseDouble(colZ);
+                return nano >= 0;
+            case "rot":
+                type = ROT;
+                x = (float) parseDouble(colRotX);
+                y = (float) parseDouble(colRotY);
+                z = (float) parseDouble(colRotZ);
+                return nano >= 0;
+            default:
+                type = OTHER;
+                return true;
+        }
+    }
+
+    /**
+     * Location from the current gps row
+     */
+    @NonNull
+    public MLocation location() {
+        return new MLocation(millis, latitude, longitude, altitude, Double.NaN, vN, vE,
+                Float.NaN, Float.NaN, Float.NaN, Float.NaN, numSV, -1);
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Split on commas into the reused fields array, without regex
+     */
+    private void split(@NonNull String line) {
+        fieldCount = 0;
+        int start = 0;
+        while (true) {
+            final int comma = line.indexOf(',', start);
+            if (fieldCount == fields.length) {
+                final String[] bigger = new String[fields.length * 2];
+                System.arraycopy(fields, 0, bigger, 0, fields.length);
+                fields = bigger;
+            }
+            if (comma < 0) {
+                fields[fieldCount++] = line.substring(start);
+                return;
+            }
+            fields[fieldCount++] = line.substring(start, comma);
+            start = comma + 1;
+        }
+    }
+
+    @NonNull
+    private String field(int col) {
+        return 0 <= col && col < fieldCount ? fields[col] : "";
+    }
+
+    private long parseLong(int col) {
+        final String str = field(col);
+        return str.isEmpty() ? -1 : Long.parseLong(str);
+    }
+
+    private double parseDouble(int col) {
+        final String str = field(col);
+        return str.isEmpty() ? Double.NaN : Double.parseDouble(str);
+    }
+
+}
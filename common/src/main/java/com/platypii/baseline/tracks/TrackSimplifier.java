@@ -0,0 +1,117 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import android.support.annotation.NonNull;
+import java.io.IOException;
+
+/**
+ * Drops points that lie within a tolerance of a straight line, before passing them to another exporter.
+ *
+ * Streaming Reumann-Witkam: the line runs from the last kept point through the next point
+ * beyond tolerance, and points are dropped until one leaves the strip around it.
+ * Distances are in 3D meters, so changes in climb rate are kept, or 2D when altitude is missing.
+ * Constant memory.
+ */
+public class TrackSimplifier extends TrackExporter {
+
+    private static final double metersPerDegree = 6371000 * Math.PI / 180;
+
+    private final TrackExporter next;
+    private final double tolerance;
+
+    private MLocation anchor; // last point kept
+    private MLocation direction; // first point beyond tolerance of the anchor
+    private MLocation last; // last point seen
+
+    // Statistics
+    public long points = 0;
+    public long kept = 0;
+
+    /**
+     * @param tolerance maximum distance of a dropped point from the path, in meters
+     */
+    public TrackSimplifier(@NonNull TrackExporter next, double tolerance) {
+        super(next.out);
+        this.next = next;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public void begin(@NonNull String name) throws IOException {
+        next.begin(name);
+    }
+
+    @Override
+    public void point(@NonNull MLocation loc) throws IOException {
+        points++;
+        if (anchor == null) {
+            keep(loc);
+        } else if (direction == null) {
+            if (distance(anchor, loc) > tolerance) {
+                direction = loc;
+            }
+        } else if (distanceToRay(loc) > tolerance) {
+            // Previous point is the last one on this line
+            keep(last);
+            if (distance(anchor, loc) > tolerance) {
+                direction = loc;
+            }
+        }
+        last = loc;
+    }
+
+    @Override
+    public void end() throws IOException {
+        if (last != null && last != anchor) {
+            keep(last);
+        }
+        next.end();
+    }
+
+    @NonNull
+    @Override
+    public String extension() {
+        return next.extension();
+    }
+
+    private void keep(@NonNull MLocation loc) throws IOException {
+        next.point(loc);
+        anchor = loc;
+        direction = null;
+        kept++;
+    }
+
+    /**
+     * Distance from the ray starting at anchor through direction
+     */
+    private double distanceToRay(@NonNull MLocation loc) {
+        final double cos = Math.cos(Math.toRadians(anchor.latitude));
+        final double dx = (direction.longitude - anchor.longitude) * metersPerDegree * cos;
+        final double dy = (direction.latitude - anchor.latitude) * metersPerDegree;
+        final double dz = dz(anchor, direction);
+        final double px = (loc.longitude - anchor.longitude) * metersPerDegree * cos;
+        final double py = (loc.latitude - anchor.latitude) * metersPerDegree;
+        final double pz = dz(anchor, loc);
+        final double t = Math.max(0, (px * dx + py * dy + pz * dz) / (dx * dx + dy * dy + dz * dz));
+        final double ex = px - t * dx;
+        final double ey = py - t * dy;
+        final double ez = pz - t * dz;
+        return Math.sqrt(ex * ex + ey * ey + ez * ez);
+    }
+
+    private static double distance(@NonNull MLocation a, @NonNull MLocation b) {
+        final double dx = (b.longitude - a.longitude) * metersPerDegree * Math.cos(Math.toRadians(a.latitude));
+        final double dy = (b.latitude - a.latitude) * metersPerDegree;
+        final double dz = dz(a, b);
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Change in altitude, or zero if either altitude is missing
+     */
+    private static double dz(@NonNull MLocation a, @NonNull MLocation b) {
+        final double dz = b.altitude_gps - a.altitude_gps;
+        return Double.isNaN(dz) ? 0 : dz;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.util.Stat;
+import android.support.annotation.NonNull;
+import java.util.Locale;
+
+/**
+ * Totals over many track summaries.
+ * Mergeable, so workers can each build a partial result and combine them in any order.
+ */
+public class TrackStats {
+
+    public long tracks = 0;
+    public long failed = 0;
+    public long bytes = 0;
+    public long jumps = 0; // tracks with an exit
+    public long gaps = 0;
+    public double freefallTime = 0; // seconds
+    public double canopyTime = 0; // seconds
+    public double maxGroundSpeed = Double.NaN;
+    public double maxFallRate = Double.NaN;
+    public final Stat exitAltitude = new Stat();
+    public final Stat deployAltitude = new Stat();
+    public final Stat glide = new Stat();
+    public final Stat gpsHz = new Stat();
+
+    public void add(@NonNull TrackSummary summary) {
+        tracks++;
+        bytes += summary.bytes;
+        gaps += summary.gaps;
+        if (!Double.isNaN(summary.exitTime)) jumps++;
+        if (summary.freefallTime() > 0) freefallTime += summary.freefallTime();
+        if (summary.canopyTime() > 0) canopyTime += summary.canopyTime();
+        maxGroundSpeed = max(maxGroundSpeed, summary.maxGroundSpeed);
+        maxFallRate = max(maxFallRate, summary.maxFallRate);
+        addSample(exitAltitude, summary.exitAltitude);
+        addSample(deployAltitude, summary.deployAltitude);
+        addSample(glide, summary.glideMean);
+        addSample(gpsHz, summary.gpsHz());
+    }
+
+    public void merge(@NonNull TrackStats other) {
+        tracks += other.tracks;
+        failed += other.failed;
+        bytes += other.bytes;
+        jumps += other.jumps;
+        gaps += other.gaps;
+        freefallTime += other.freefallTime;
+        canopyTime += other.canopyTime;
+        maxGroundSpeed = max(maxGroundSpeed, other.maxGroundSpeed);
+        maxFallRate = max(maxFallRate, other.maxFallRate);
+        exitAltitude.merge(other.exitAltitude);
+        deployAltitude.merge(other.deployAltitude);
+        glide.merge(other.glide);
+        gpsHz.merge(other.gpsHz);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d tracks (%d failed), %.1f MB, %d jumps, freefall %.0f s, canopy %.0f s, " +
+                        "max speed %.1f m/s, max fall rate %.1f m/s, exit %.0f m, deploy %.0f m, glide %.2f, gps %.1f Hz, %d gaps",
+                tracks, failed, bytes * 1e-6, jumps, freefallTime, canopyTime, maxGroundSpeed, maxFallRate,
+                exitAltitude.mean(), deployAltitude.mean(), glide.mean(), gpsHz.mean(), gaps);
+    }
+
+    private static void addSample(@NonNull Stat stat, double value) {
+        if (!Double.isNaN(value)) stat.addSample(value);
+    }
+
+    private static double max(double a, double b) {
+        if (Double.isNaN(a)) return b;
+        if (Double.isNaN(b)) return a;
+        return Math.max(a, b);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.platypii.baseline.tracks;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * Summary of one track: jump events, speeds, glide, and data quality.
+ * Times are seconds since the first gps fix, altitudes are meters AGL.
+ * Values that could not be found are NaN.
+ */
+public class TrackSummary {
+
+    public static final String header = "file,bytes,rows,bad_rows,gps_fixes,gps_hz,gaps,max_gap,baro_samples,duration," +
+            "exit_time,exit_alt,deploy_time,deploy_alt,landing_time,max_alt,max_ground_speed,max_fall_rate," +
+            "glide_mean,glide_max,freefall_time,canopy_time";
+
+    @NonNull
+    public final String file;
+    public final long bytes;
+
+    // Data quality
+    public long rows = 0;
+    public long badRows = 0;
+    public long gpsFixes = 0;
+    public long gaps = 0; // gps gaps longer than GAP_MILLIS
+    public double maxGap = 0; // seconds
+    public long baroSamples = 0;
+    public double duration = Double.NaN;
+
+    // Jump events
+    public double exitTime = Double.NaN;
+    public double exitAltitude = Double.NaN;
+    public double deployTime = Double.NaN;
+    public double deployAltitude = Double.NaN;
+    public double landingTime = Double.NaN;
+
+    // Extremes
+    public double maxAltitude = Double.NaN;
+    public double maxGroundSpeed = Double.NaN; // m/s
+    public double maxFallRate = Double.NaN; // m/s, positive down
+
+    // Glide ratio between exit and deploy
+    public double glideMean = Double.NaN;
+    public double glideMax = Double.NaN;
+
+    public TrackSummary(@NonNull String file, long bytes) {
+        this.file = file;
+        this.bytes = bytes;
+    }
+
+    public double gpsHz() {
+        return duration > 0 ? gpsFixes / duration : Double.NaN;
+    }
+
+    public double freefallTime() {
+        return deployTime - exitTime;
+    }
+
+    public double canopyTime() {
+        return landingTime - deployTime;
+    }
+
+    /**
+     * Parse a row written by toRow
+     * @return null if the row does not match the header
+     */
+    @Nullable
+    public static TrackSummary fromRow(@NonNull String row) {
+        final String[] cols = row.split(",", -1);
+        if (cols.length != header.split(",").length) return null;
+        try {
+            final TrackSummary summary = new TrackSummary(cols[0], Long.parseLong(cols[1]));
+            summary.rows = Long.parseLong(cols[2]);
+            summary.badRows = Long.parseLong(cols[3]);
+            summary.gpsFixes = Long.parseLong(cols[4]);
+            summary.gaps = Long.parseLong(cols[6]);
+            summary.maxGap = Double.parseDouble(cols[7]);
+            summary.baroSamples = Long.parseLong(cols[8]);
+            summary.duration = Double.parseDouble(cols[9]);
+            summary.exitTime = Double.parseDouble(cols[10]);
+            summary.exitAltitude = Double.parseDouble(cols[11]);
+            summary.deployTime = Double.parseDouble(cols[12]);
+            summary.deployAltitude = Double.parseDouble(cols[13]);
+            summary.landingTime = Double.parseDouble(cols[14]);
+            summary.maxAltitude = Double.parseDouble(cols[15]);
+            summary.maxGroundSpeed = Double.parseDouble(cols[16]);
+            summary.maxFallRate = Double.parseDouble(cols[17]);
+            summary.glideMean = Double.parseDouble(cols[18]);
+            summary.glideMax = Double.parseDouble(cols[19]);
+            return summary;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One csv row, matching header
+     */
+    @NonNull
+    public String toRow() {
+        return String.format(Locale.US, "%s,%d,%d,%d,%d,%.2f,%d,%.1f,%d,%.1f,%.1f,%.0f,%.1f,%.0f,%.1f,%.0f,%.1f,%.1f,%.2f,%.2f,%.1f,%.1f",
+                file, bytes, rows, badRows, gpsFixes, gpsHz(), gaps, maxGap, baroSamples, duration,
+                exitTime, exitAltitude, deployTime, deployAltitude, landingTime, maxAltitude, maxGroundSpeed, maxFallRate,
+                glideMean, glideMax, freefallTime(), canopyTime());
+    }
+
+}
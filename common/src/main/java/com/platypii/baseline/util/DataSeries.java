@@ -1,7 +1,7 @@
 package com.platypii.baseline.util;
 
+import com.platypii.baseline.platform.Log;
 import android.support.annotation.NonNull;
-import android.util.Log;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Locale;
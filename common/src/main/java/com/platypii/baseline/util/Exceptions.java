@@ -1,26 +1,15 @@
 package com.platypii.baseline.util;
 
-import android.util.Log;
-import com.crashlytics.android.Crashlytics;
+import com.platypii.baseline.platform.Platform;
 
 public class Exceptions {
-    private static final String TAG = "Exceptions";
 
     public static void report(Throwable e) {
-        try {
-            Log.e(TAG, "Crash report exception", e);
-            Crashlytics.logException(e);
-        } catch(Exception e2) {
-            Log.e(TAG, "Exception while reporting exception", e2);
-        }
+        Platform.logger.report(e);
     }
 
     public static void log(String msg) {
-        try {
-            Crashlytics.log(msg);
-        } catch(Exception e) {
-            Log.e(TAG, "Exception while logging", e);
-        }
+        Platform.logger.breadcrumb(msg);
     }
 
 }
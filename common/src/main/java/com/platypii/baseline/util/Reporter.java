@@ -0,0 +1,122 @@
+package com.platypii.baseline.util;
+
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.platform.Log;
+import android.support.annotation.NonNull;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limited error reporting for hot paths.
+ *
+ * Declare one reporter per call site, as a static field. Each site builds one type of exception,
+ * so a reporter is keyed on exception class plus call site.
+ * The first few occurrences are logged and reported, after that only a periodic summary.
+ * Messages and exceptions are built lazily, so suppressed calls cost a counter increment.
+ */
+public class Reporter {
+
+    // Number of occurrences to emit in full before rate limiting
+    private static final int FIRST = 5;
+    // Minimum time between summaries of suppressed occurrences
+    private static final long SUMMARY_INTERVAL = 60000; // milliseconds
+
+    /** Lazily built log message */
+    public interface Message {
+        @NonNull
+        String get();
+    }
+
+    /** Lazily built exception */
+    public interface Error {
+        @NonNull
+        Throwable get();
+    }
+
+    private final String tag;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong lastSummary = new AtomicLong();
+    private final Counter counter;
+
+    /**
+     * @param tag log tag of the calling class
+     * @param key short identifier of the call site, such as "nmea.unknown_command"
+     */
+    public Reporter(@NonNull String tag, @NonNull String key) {
+        this.tag = tag;
+        this.counter = Metrics.counter("errors." + key);
+    }
+
+    /**
+     * Log an error message
+     */
+    public void e(@NonNull Message message) {
+        final long n = hit();
+        if (n > 0) {
+            Log.e(tag, prefix(n) + message.get());
+        }
+    }
+
+    /**
+     * Log a warning message
+     */
+    public void w(@NonNull Message message) {
+        final long n = hit();
+        if (n > 0) {
+            Log.w(tag, prefix(n) + message.get());
+        }
+    }
+
+    /**
+     * Report an exception to crashlytics
+     */
+    public void report(@NonNull Error error) {
+        final long n = hit();
+        if (n > 0) {
+            if (n > FIRST) {
+                Exceptions.log(tag + ": " + prefix(n));
+            }
+            Exceptions.report(error.get());
+        }
+    }
+
+    /**
+     * Total occurrences at this site
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Count an occurrence, and decide whether to emit it.
+     * @return occurrence number to emit, or 0 if suppressed
+     */
+    private long hit() {
+        counter.inc();
+        final long n = count.incrementAndGet();
+        final long now = System.currentTimeMillis();
+        if (n <= FIRST) {
+            if (n == FIRST) {
+                lastSummary.set(now);
+            }
+            return n;
+        }
+        final long last = lastSummary.get();
+        if (now - last >= SUMMARY_INTERVAL && lastSummary.compareAndSet(last, now)) {
+            return n;
+        }
+        return 0;
+    }
+
+    @NonNull
+    private static String prefix(long n) {
+        if (n < FIRST) {
+            return "";
+        } else if (n == FIRST) {
+            return "[suppressing further] ";
+        } else {
+            return "[" + n + " occurrences] ";
+        }
+    }
+
+}
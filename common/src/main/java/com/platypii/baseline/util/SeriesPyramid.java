@@ -0,0 +1,164 @@
+package com.platypii.baseline.util;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * Time series for charts that stays cheap to draw at any length.
+ *
+ * Samples are appended in increasing x. Level k keeps the min and max sample of each bucket
+ * of 2^k samples, updated incrementally on append in O(log n). Rendering picks the level
+ * with one or two buckets per pixel, and visits first, min, max, last of each bucket in order,
+ * so a line through them looks the same as the full series in O(pixels) points.
+ * NaN y values are kept in place but never drawn.
+ */
+public class SeriesPyramid {
+
+    /**
+     * Receives the points to draw, in increasing x
+     */
+    public interface Visitor {
+        void point(double x, double y);
+    }
+
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int n = 0;
+
+    // Index of the min and max sample of each bucket, for levels 1..levels
+    private int[][] minIndex = new int[0][];
+    private int[][] maxIndex = new int[0][];
+    private int levels = 0;
+
+    // Bounds of the whole series
+    public final Bounds bounds = new Bounds();
+
+    public void addPoint(double x, double y) {
+        if (n == xs.length) {
+            xs = Arrays.copyOf(xs, n * 2);
+            ys = Arrays.copyOf(ys, n * 2);
+        }
+        final int i = n++;
+        xs[i] = x;
+        ys[i] = y;
+        if (!Double.isNaN(x) && !Double.isNaN(y)) {
+            bounds.expandBounds(x, y);
+        }
+        // Add a level when the top bucket fills up
+        if (i > 0 && i == 1 << levels) {
+            addLevel();
+        }
+        for (int k = 1; k <= levels; k++) {
+            final int bucket = i >> k;
+            final int[] mins = ensureBucket(minIndex, k, bucket);
+            final int[] maxs = ensureBucket(maxIndex, k, bucket);
+            if ((i & ((1 << k) - 1)) == 0) {
+                // First sample of a new bucket
+                mins[bucket] = maxs[bucket] = i;
+            } else if (!Double.isNaN(y)) {
+                if (Double.isNaN(ys[mins[bucket]]) || y < ys[mins[bucket]]) mins[bucket] = i;
+                if (Double.isNaN(ys[maxs[bucket]]) || y > ys[maxs[bucket]]) maxs[bucket] = i;
+            }
+        }
+    }
+
+    /**
+     * New top level, whose first bucket covers everything so far
+     */
+    private void addLevel() {
+        levels++;
+        minIndex = Arrays.copyOf(minIndex, levels);
+        maxIndex = Arrays.copyOf(maxIndex, levels);
+        final int[] mins = new int[4];
+        final int[] maxs = new int[4];
+        if (levels == 1) {
+            // Samples 0 and 1
+            mins[0] = maxs[0] = 0;
+        } else {
+            mins[0] = minIndex[levels - 2][0];
+            maxs[0] = maxIndex[levels - 2][0];
+        }
+        minIndex[levels - 1] = mins;
+        maxIndex[levels - 1] = maxs;
+    }
+
+    @NonNull
+    private int[] ensureBucket(@NonNull int[][] index, int k, int bucket) {
+        int[] level = index[k - 1];
+        if (bucket >= level.length) {
+            level = index[k - 1] = Arrays.copyOf(level, Math.max(bucket + 1, level.length * 2));
+        }
+        return level;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public void reset() {
+        n = 0;
+        levels = 0;
+        minIndex = new int[0][];
+        maxIndex = new int[0][];
+        bounds.reset();
+    }
+
+    /**
+     * Visit the points needed to draw the series between xMin and xMax, about pixels wide.
+     * Includes one point beyond each end, so the line runs off the edge of the plot.
+     * @return the number of points visited, at most about 8 per pixel
+     */
+    public int render(double xMin, double xMax, int pixels, @NonNull Visitor visitor) {
+        if (n == 0) return 0;
+        final int lo = Double.isNaN(xMin) ? 0 : Math.max(0, search(xMin) - 1);
+        final int hi = Double.isNaN(xMax) ? n - 1 : Math.min(n - 1, search(xMax));
+        if (hi < lo) return 0;
+        // Level with between one and two buckets per pixel
+        final int count = hi - lo + 1;
+        int k = 0;
+        while (k < levels && (count >> (k + 1)) >= Math.max(pixels, 1)) k++;
+        int visited = 0;
+        if (k == 0) {
+            for (int i = lo; i <= hi; i++) {
+                visited += visit(i, visitor);
+            }
+        } else {
+            final int[] mins = minIndex[k - 1];
+            final int[] maxs = maxIndex[k - 1];
+            int last = -1;
+            for (int bucket = lo >> k; bucket <= hi >> k; bucket++) {
+                final int first = bucket << k;
+                final int end = Math.min(((bucket + 1) << k) - 1, n - 1);
+                final int a = Math.min(mins[bucket], maxs[bucket]);
+                final int b = Math.max(mins[bucket], maxs[bucket]);
+                // Visit in index order, once each
+                if (first > last) visited += visit(last = first, visitor);
+                if (a > last) visited += visit(last = a, visitor);
+                if (b > last) visited += visit(last = b, visitor);
+                if (end > last) visited += visit(last = end, visitor);
+            }
+        }
+        return visited;
+    }
+
+    private int visit(int i, @NonNull Visitor visitor) {
+        if (Double.isNaN(xs[i]) || Double.isNaN(ys[i])) return 0;
+        visitor.point(xs[i], ys[i]);
+        return 1;
+    }
+
+    /**
+     * First index with x at or above the value, or n if none
+     */
+    private int search(double x) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (xs[mid] < x) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+}
@@ -0,0 +1,306 @@
+package com.platypii.baseline.util;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Path simplification over primitive coordinate arrays.
+ *
+ * Ramer-Douglas-Peucker keeps shape to within a distance, Visvalingam-Whyatt drops the
+ * points that add the least area, and Largest-Triangle-Three-Buckets picks a fixed number
+ * of points from a time series while keeping its peaks. All run iteratively, and allocate
+ * at most a few arrays the size of the input. Selected points are written to an index
+ * array in increasing order, and the first and last points are always kept.
+ */
+public class Simplify {
+
+    private static final double metersPerDegree = 6371000 * Math.PI / 180;
+
+    /**
+     * Project latitude and longitude to local meters east (x) and north (y) of the first point.
+     * Equirectangular, which is accurate to well under a meter over a jump.
+     */
+    public static void toMeters(@NonNull double[] lat, @NonNull double[] lon, int n, @NonNull double[] x, @NonNull double[] y) {
+        if (n == 0) return;
+        final double lat0 = lat[0];
+        final double lon0 = lon[0];
+        final double cos = Math.cos(Math.toRadians(lat0));
+        for (int i = 0; i < n; i++) {
+            x[i] = (lon[i] - lon0) * metersPerDegree * cos;
+            y[i] = (lat[i] - lat0) * metersPerDegree;
+        }
+    }
+
+    /**
+     * Ramer-Douglas-Peucker, with an explicit stack instead of recursion
+     * @param tolerance maximum distance of a dropped point from the simplified path
+     * @param out indices of kept points, at least n long
+     * @return number of kept points
+     */
+    public static int rdp(@NonNull double[] x, @NonNull double[] y, int n, double tolerance, @NonNull int[] out) {
+        if (n <= 2) return all(n, out);
+        final boolean[] keep = new boolean[n];
+        keep[0] = keep[n - 1] = true;
+        final int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            final int end = stack[--top];
+            final int start = stack[--top];
+            int farthest = -1;
+            double max = tolerance;
+            for (int i = start + 1; i < end; i++) {
+                final double d = segmentDistance(x, y, start, end, i);
+                if (d > max) {
+                    max = d;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+        return collect(keep, n, out);
+    }
+
+    /**
+     * Ramer-Douglas-Peucker importance of each point: the largest tolerance at which rdp keeps it.
+     * rdp(tolerance) keeps exactly the points with importance greater than tolerance.
+     */
+    public static void rdpImportance(@NonNull double[] x, @NonNull double[] y, int n, @NonNull double[] importance) {
+        if (n == 0) return;
+        importance[0] = importance[n - 1] = Double.POSITIVE_INFINITY;
+        if (n <= 2) return;
+        // Stack of (start, end) ranges, with the importance of the split that made them
+        final int[] stack = new int[2 * n];
+        final double[] caps = new double[n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        caps[0] = Double.POSITIVE_INFINITY;
+        while (top > 0) {
+            final double cap = caps[(top >> 1) - 1];
+            final int end = stack[--top];
+            final int start = stack[--top];
+            if (end - start < 2) continue;
+            int farthest = start + 1;
+            double max = -1;
+            for (int i = start + 1; i < end; i++) {
+                final double d = segmentDistance(x, y, start, end, i);
+                if (d > max) {
+                    max = d;
+                    farthest = i;
+                }
+            }
+            // A point is never more important than the split above it
+            final double value = Math.min(max, cap);
+            importance[farthest] = value;
+            caps[top >> 1] = value;
+            stack[top++] = start;
+            stack[top++] = farthest;
+            caps[top >> 1] = value;
+            stack[top++] = farthest;
+            stack[top++] = end;
+        }
+    }
+
+    /**
+     * Visvalingam-Whyatt effective area of each point: the area of the triangle it forms with its
+     * neighbours when it is removed, never less than that of points removed before it.
+     * Dropping points with importance below a threshold is the Visvalingam-Whyatt simplification.
+     */
+    public static void visvalingamImportance(@NonNull double[] x, @NonNull double[] y, int n, @NonNull double[] importance) {
+        if (n == 0) return;
+        importance[0] = importance[n - 1] = Double.POSITIVE_INFINITY;
+        if (n <= 2) return;
+        final int[] prev = new int[n];
+        final int[] next = new int[n];
+        final int[] heap = new int[n];
+        final int[] position = new int[n];
+        int size = 0;
+        for (int i = 1; i < n - 1; i++) {
+            prev[i] = i - 1;
+            next[i] = i + 1;
+            importance[i] = area(x, y, i - 1, i, i + 1);
+            heap[size] = i;
+            position[i] = size;
+            size++;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(heap, position, importance, size, i);
+        }
+        double last = 0;
+        while (size > 0) {
+            // Remove the point with the smallest area
+            final int i = heap[0];
+            size--;
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(heap, position, importance, size, 0);
+            last = importance[i] = Math.max(importance[i], last);
+            // Unlink, and update the neighbours
+            final int p = prev[i];
+            final int q = next[i];
+            next[p] = q;
+            prev[q] = p;
+            if (p > 0) {
+                importance[p] = area(x, y, prev[p], p, q);
+                update(heap, position, importance, size, position[p]);
+            }
+            if (q < n - 1) {
+                importance[q] = area(x, y, p, q, next[q]);
+                update(heap, position, importance, size, position[q]);
+            }
+        }
+    }
+
+    /**
+     * Visvalingam-Whyatt, dropping points that add less than minArea
+     * @return number of kept points
+     */
+    public static int visvalingam(@NonNull double[] x, @NonNull double[] y, int n, double minArea, @NonNull int[] out) {
+        final double[] importance = new double[n];
+        visvalingamImportance(x, y, n, importance);
+        return threshold(importance, n, minArea, out);
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets downsampling of a time series
+     * @param x increasing, such as time
+     * @param threshold number of points wanted: the first point for 1, the end points for 2
+     * @return number of kept points, min(n, threshold)
+     */
+    public static int lttb(@NonNull double[] x, @NonNull double[] y, int n, int threshold, @NonNull int[] out) {
+        if (threshold >= n) return all(n, out);
+        if (threshold <= 0) return 0;
+        out[0] = 0;
+        if (threshold == 1) return 1;
+        if (threshold == 2) {
+            out[1] = n - 1;
+            return 2;
+        }
+        final double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        int count = 1;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket
+            final int nextStart = (int) ((bucket + 1) * every) + 1;
+            final int nextEnd = Math.min((int) ((bucket + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            final int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+            // Point in this bucket with the largest triangle
+            final int start = (int) (bucket * every) + 1;
+            final int end = (int) ((bucket + 1) * every) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                final double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            out[count++] = chosen;
+            a = chosen;
+        }
+        out[count++] = n - 1;
+        return count;
+    }
+
+    /**
+     * Select points with importance above a threshold
+     * @return number of kept points
+     */
+    public static int threshold(@NonNull double[] importance, int n, double threshold, @NonNull int[] out) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (importance[i] > threshold) {
+                out[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Distance from point i to the segment from a to b
+     */
+    private static double segmentDistance(double[] x, double[] y, int a, int b, int i) {
+        final double dx = x[b] - x[a];
+        final double dy = y[b] - y[a];
+        final double px = x[i] - x[a];
+        final double py = y[i] - y[a];
+        final double length2 = dx * dx + dy * dy;
+        double t = length2 > 0 ? (px * dx + py * dy) / length2 : 0;
+        if (t < 0) t = 0;
+        else if (t > 1) t = 1;
+        final double ex = px - t * dx;
+        final double ey = py - t * dy;
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    private static double area(double[] x, double[] y, int a, int b, int c) {
+        return 0.5 * Math.abs((x[b] - x[a]) * (y[c] - y[a]) - (x[c] - x[a]) * (y[b] - y[a]));
+    }
+
+    private static int all(int n, int[] out) {
+        for (int i = 0; i < n; i++) out[i] = i;
+        return n;
+    }
+
+    private static int collect(boolean[] keep, int n, int[] out) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) out[count++] = i;
+        }
+        return count;
+    }
+
+    // Binary min-heap of point indices, keyed by importance, with positions for updates
+
+    private static void update(int[] heap, int[] position, double[] key, int size, int index) {
+        if (index >= size) return;
+        final int item = heap[index];
+        siftUp(heap, position, key, index);
+        siftDown(heap, position, key, size, position[item]);
+    }
+
+    private static void siftUp(int[] heap, int[] position, double[] key, int index) {
+        final int item = heap[index];
+        while (index > 0) {
+            final int parent = (index - 1) >> 1;
+            if (key[heap[parent]] <= key[item]) break;
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = item;
+        position[item] = index;
+    }
+
+    private static void siftDown(int[] heap, int[] position, double[] key, int size, int index) {
+        final int item = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) child++;
+            if (key[item] <= key[heap[child]]) break;
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = item;
+        position[item] = index;
+    }
+
+}
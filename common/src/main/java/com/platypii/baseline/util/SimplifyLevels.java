@@ -0,0 +1,143 @@
+package com.platypii.baseline.util;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * Precomputed simplifications of one path at power-of-two point counts.
+ * Pick the detail for a zoom level or chart width in O(1), without touching the full path.
+ * Total size is at most twice the input.
+ */
+public class SimplifyLevels {
+
+    // levels[k] has at most 2^k points, the last level has them all
+    private final int[][] levels;
+
+    // Importance in decreasing order, for tolerance lookups, or null for lttb
+    private final double[] sortedImportance;
+
+    private SimplifyLevels(@NonNull int[][] levels, double[] sortedImportance) {
+        this.levels = levels;
+        this.sortedImportance = sortedImportance;
+    }
+
+    /**
+     * Levels that keep shape, by Ramer-Douglas-Peucker distance in the units of x and y
+     */
+    @NonNull
+    public static SimplifyLevels rdp(@NonNull double[] x, @NonNull double[] y, int n) {
+        final double[] importance = new double[n];
+        Simplify.rdpImportance(x, y, n, importance);
+        return fromImportance(importance, n);
+    }
+
+    /**
+     * Levels by Visvalingam-Whyatt effective area
+     */
+    @NonNull
+    public static SimplifyLevels visvalingam(@NonNull double[] x, @NonNull double[] y, int n) {
+        final double[] importance = new double[n];
+        Simplify.visvalingamImportance(x, y, n, importance);
+        return fromImportance(importance, n);
+    }
+
+    /**
+     * Levels for a time series, by Largest-Triangle-Three-Buckets
+     */
+    @NonNull
+    public static SimplifyLevels lttb(@NonNull double[] x, @NonNull double[] y, int n) {
+        final int count = levelCount(n);
+        final int[][] levels = new int[count][];
+        final int[] out = new int[n];
+        for (int k = 0; k < count; k++) {
+            final int m = Simplify.lttb(x, y, n, Math.min(1 << k, n), out);
+            levels[k] = Arrays.copyOf(out, m);
+        }
+        return new SimplifyLevels(levels, null);
+    }
+
+    @NonNull
+    private static SimplifyLevels fromImportance(@NonNull double[] importance, int n) {
+        final double[] sorted = Arrays.copyOf(importance, n);
+        Arrays.sort(sorted);
+        // Reverse to decreasing
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            final double tmp = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = tmp;
+        }
+        final int count = levelCount(n);
+        final int[][] levels = new int[count][];
+        for (int k = 0; k < count; k++) {
+            final int m = Math.min(1 << k, n);
+            if (m == 0) {
+                levels[k] = new int[0];
+                continue;
+            }
+            final double cutoff = sorted[m - 1];
+            // Points above the cutoff, then ties in path order until the level is full
+            int above = 0;
+            for (int i = 0; i < m; i++) {
+                if (sorted[i] > cutoff) above++;
+            }
+            int ties = m - above;
+            final int[] level = new int[m];
+            int j = 0;
+            for (int i = 0; i < n && j < m; i++) {
+                if (importance[i] > cutoff) {
+                    level[j++] = i;
+                } else if (importance[i] == cutoff && ties > 0) {
+                    level[j++] = i;
+                    ties--;
+                }
+            }
+            levels[k] = level;
+        }
+        return new SimplifyLevels(levels, sorted);
+    }
+
+    /**
+     * Number of levels: up to the first power of two that holds every point
+     */
+    private static int levelCount(int n) {
+        if (n <= 1) return 1;
+        return 33 - Integer.numberOfLeadingZeros(n - 1);
+    }
+
+    /**
+     * Simplified path with at most maxPoints points, as indices into the original arrays.
+     * At least the two end points are returned.
+     */
+    @NonNull
+    public int[] forPoints(int maxPoints) {
+        if (maxPoints < 2) maxPoints = 2;
+        final int k = Math.min(31 - Integer.numberOfLeadingZeros(maxPoints), levels.length - 1);
+        return levels[k];
+    }
+
+    /**
+     * Smallest level with every point of importance above the tolerance.
+     * For rdp this keeps the path within tolerance, such as meters per pixel on a map.
+     */
+    @NonNull
+    public int[] forTolerance(double tolerance) {
+        if (sortedImportance == null) {
+            throw new IllegalStateException("Tolerance needs rdp or visvalingam levels");
+        }
+        // Binary search for the number of points above tolerance
+        int lo = 0;
+        int hi = sortedImportance.length;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (sortedImportance[mid] > tolerance) lo = mid + 1;
+            else hi = mid;
+        }
+        final int k = Math.min(lo <= 1 ? 1 : 32 - Integer.numberOfLeadingZeros(lo - 1), levels.length - 1);
+        return levels[k];
+    }
+
+    public int levels() {
+        return levels.length;
+    }
+
+}
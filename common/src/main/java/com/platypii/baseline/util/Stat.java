@@ -21,6 +21,23 @@ public class Stat {
         M2 = M2 + delta * (x - mean);
     }
 
+    /**
+     * Combine the samples of another stat into this one, as if they were added here.
+     * Lets partial results from parallel workers be merged (Chan et al).
+     */
+    public void merge(Stat other) {
+        if (other.n == 0) return;
+        final long total = n + other.n;
+        final double delta = other.mean - mean;
+        mean = mean + delta * other.n / total;
+        M2 = M2 + other.M2 + delta * delta * n * other.n / total;
+        n = total;
+    }
+
+    public long count() {
+        return n;
+    }
+
     public double mean() {
         if (n > 0) {
             return mean;
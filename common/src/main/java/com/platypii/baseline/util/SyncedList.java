@@ -17,6 +17,8 @@ public class SyncedList<T> implements Iterable<T> {
     private final LinkedList<T> values = new LinkedList<>();
     private int maxSize = 0;
     private int size = 0;
+    private long appended = 0; // guarded by toCopy
+    private long copied = 0; // appended count as of the last copy
 
     /**
      * Adds a new value to the end of the list
@@ -26,6 +28,7 @@ public class SyncedList<T> implements Iterable<T> {
         if(maxSize > 0) {
             synchronized (toCopy) {
                 toCopy.addLast(value);
+                appended++;
                 // Trim toCopy
                 while (maxSize < toCopy.size()) {
                     toCopy.removeFirst();
@@ -42,6 +45,26 @@ public class SyncedList<T> implements Iterable<T> {
         return values.iterator();
     }
 
+    /**
+     * Values appended after the given count, oldest first, so that consumers only touch new data.
+     * The caller should block on the SyncedList object while iterating.
+     * @param since a previous value of count(), or 0 for every value still in the list
+     */
+    @NonNull
+    public Iterator<T> since(long since) {
+        copy();
+        final long fresh = copied - since;
+        final int skip = fresh <= 0 ? values.size() : (int) Math.max(0, values.size() - fresh);
+        return values.listIterator(skip);
+    }
+
+    /**
+     * Total number of values ever appended, up to the end of the last iterator
+     */
+    public long count() {
+        return copied;
+    }
+
     /**
      * Move from the toCopy list to the values list
      */
@@ -50,6 +73,7 @@ public class SyncedList<T> implements Iterable<T> {
             synchronized (toCopy) {
                 values.addAll(toCopy);
                 toCopy.clear();
+                copied = appended;
             }
             // Trim values
             while (maxSize < values.size()) {
@@ -3,6 +3,7 @@ package com.platypii.baseline.views.charts;
 import com.platypii.baseline.util.Bounds;
 import com.platypii.baseline.util.DataSeries;
 import com.platypii.baseline.util.IntBounds;
+import com.platypii.baseline.util.SeriesPyramid;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Path;
@@ -26,6 +27,12 @@ class Plot {
     // Plot bounds get updated once at the beginning of drawPlot
     final Bounds bounds = new Bounds();
 
+    // Affine transform from plot-space to screen-space, computed with the bounds
+    double scaleX;
+    double offsetX;
+    double scaleY;
+    double offsetY;
+
     // Avoid creating new objects unnecessarily
     private final Path path = new Path();
 
@@ -45,6 +52,18 @@ class Plot {
         }
     }
 
+    /**
+     * Set the plot bounds for this frame, after setCanvas
+     */
+    void setBounds(@NonNull Bounds newBounds) {
+        bounds.set(newBounds);
+        final IntBounds padding = options.padding;
+        scaleX = (width - padding.right - padding.left) / (bounds.x.max - bounds.x.min); // pixels per meter
+        offsetX = padding.left - bounds.x.min * scaleX;
+        scaleY = -(height - padding.bottom - padding.top) / (bounds.y.max - bounds.y.min);
+        offsetY = height - padding.bottom - bounds.y.min * scaleY;
+    }
+
     /**
      * Draws a point (input given in plot-space)
      * @param radius the width of the path
@@ -89,6 +108,56 @@ class Plot {
         }
     }
 
+    /**
+     * Draws a long series, with O(pixels) segments however many points it has
+     * @param series the data series to draw
+     * @param radius the width of the path
+     */
+    void drawLine(@NonNull SeriesPyramid series, float radius, @NonNull Paint paint) {
+        if(series.size() > 0) {
+            paint.setStyle(Paint.Style.STROKE);
+            paint.setStrokeWidth(2 * radius * options.density);
+            // Expand by the whole series, so that auto bounds can see past the current view
+            dataBounds.expandBounds(series.bounds.x.min, series.bounds.y.min);
+            dataBounds.expandBounds(series.bounds.x.max, series.bounds.y.max);
+            path.rewind();
+            pathBuilder.empty = true;
+            final int pixels = width - options.padding.left - options.padding.right;
+            series.render(bounds.x.min, bounds.x.max, pixels, pathBuilder);
+            canvas.drawPath(path, paint);
+        }
+    }
+
+    /**
+     * Draws a scrolling series, appending only the samples added since the last frame
+     * @param series the data series to draw
+     * @param radius the width of the path
+     */
+    void drawLine(@NonNull ScrollingPath series, float radius, @NonNull Paint paint) {
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(2 * radius * options.density);
+        series.draw(this, paint);
+    }
+
+    /**
+     * Appends visited points to the path, in screen space
+     */
+    private class PathBuilder implements SeriesPyramid.Visitor {
+        boolean empty = true;
+        @Override
+        public void point(double x, double y) {
+            final float sx = getX(x);
+            final float sy = getY(y);
+            if(empty) {
+                path.moveTo(sx, sy);
+                empty = false;
+            } else {
+                path.lineTo(sx, sy);
+            }
+        }
+    }
+    private final PathBuilder pathBuilder = new PathBuilder();
+
 //    /**
 //     * Draws a series of points (input given in screen-space)
 //     * @param series the data series to draw
@@ -163,18 +232,14 @@ class Plot {
      * Returns the screen-space x coordinate
      */
     float getX(double x) {
-        final IntBounds padding = options.padding;
-        final double ppm_x = (width - padding.right - padding.left) / (bounds.x.max - bounds.x.min); // pixels per meter
-        return (float) (padding.left + (x - bounds.x.min) * ppm_x);
+        return (float) (offsetX + x * scaleX);
     }
 
     /**
      * Returns the screen-space y coordinate
      */
     float getY(double y) {
-        final IntBounds padding = options.padding;
-        final double ppm_y = (height - padding.bottom - padding.top) / (bounds.y.max - bounds.y.min); // pixels per meter
-        return (float) (height - padding.bottom - (y - bounds.y.min) * ppm_y);
+        return (float) (offsetY + y * scaleY);
     }
 
 }
@@ -0,0 +1,112 @@
+package com.platypii.baseline.views.charts;
+
+import com.platypii.baseline.diagnostics.Counter;
+import com.platypii.baseline.diagnostics.Histogram;
+import com.platypii.baseline.diagnostics.Metrics;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.RequiresApi;
+import android.view.Choreographer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Render loop shared by every plot on screen.
+ *
+ * Runs on one background thread, with frames aligned to vsync by Choreographer.
+ * Plots are only drawn after they have been invalidated, and no frame is requested
+ * while nothing is dirty, so static plots cost no cpu at all.
+ * Before jelly bean there is no Choreographer, so frames are timed by the handler instead.
+ */
+class PlotRenderer {
+
+    private static PlotRenderer instance;
+
+    // Draw at most 30fps, the same as the old per-plot loop
+    private static final long minFrameNanos = 33000000L;
+
+    private final List<PlotView> plots = new CopyOnWriteArrayList<>();
+    private final Handler handler;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private long lastFrameNanos = 0;
+
+    // Only set on jelly bean and up
+    private VsyncCallback vsyncCallback;
+
+    // Metrics
+    private static final Counter frames = Metrics.counter("plot.frames");
+    // Time from vsync until the frame started drawing, in microseconds
+    private static final Histogram vsyncLag = Metrics.histogram("plot.vsync_lag_us");
+
+    private PlotRenderer() {
+        final HandlerThread thread = new HandlerThread("PlotRenderer", Process.THREAD_PRIORITY_DISPLAY);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            vsyncCallback = new VsyncCallback();
+        }
+    }
+
+    @NonNull
+    static synchronized PlotRenderer get() {
+        if (instance == null) {
+            instance = new PlotRenderer();
+        }
+        return instance;
+    }
+
+    void add(@NonNull PlotView plot) {
+        plots.add(plot);
+    }
+
+    void remove(@NonNull PlotView plot) {
+        plots.remove(plot);
+    }
+
+    /**
+     * Request a frame, called by plots when they are invalidated. Safe from any thread.
+     */
+    void requestFrame() {
+        if (scheduled.compareAndSet(false, true)) {
+            handler.post(this::scheduleFrame);
+        }
+    }
+
+    private void scheduleFrame() {
+        if (vsyncCallback != null) {
+            Choreographer.getInstance().postFrameCallback(vsyncCallback);
+        } else {
+            final long wait = (lastFrameNanos + minFrameNanos - System.nanoTime() + 999999) / 1000000L;
+            handler.postDelayed(() -> frame(System.nanoTime()), Math.max(0, wait));
+        }
+    }
+
+    private void frame(long frameTimeNanos) {
+        if (frameTimeNanos - lastFrameNanos < minFrameNanos) {
+            // Too soon, wait for the next vsync
+            scheduleFrame();
+            return;
+        }
+        lastFrameNanos = frameTimeNanos;
+        vsyncLag.add((System.nanoTime() - frameTimeNanos) / 1000);
+        frames.inc();
+        // Clear before drawing, so that plots invalidated during this frame get another one
+        scheduled.set(false);
+        for (PlotView plot : plots) {
+            plot.render();
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class VsyncCallback implements Choreographer.FrameCallback {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frame(frameTimeNanos);
+        }
+    }
+
+}
@@ -1,5 +1,8 @@
 package com.platypii.baseline.views.charts;
 
+import com.platypii.baseline.diagnostics.Histogram;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.diagnostics.Metrics;
 import com.platypii.baseline.util.Bounds;
 import com.platypii.baseline.util.Exceptions;
 import android.content.Context;
@@ -28,8 +31,8 @@ public abstract class PlotView extends SurfaceView implements SurfaceHolder.Call
     // Object to store the plot state and drawing primitives
     final Plot plot = new Plot(options);
 
-    // The drawing thread will sleep for refreshRateMillis
-    private static final long refreshRateMillis = 33; // Approx 30fps
+    // Time to render a frame, in microseconds
+    private static final Histogram frameTimes = Metrics.histogram("plot.frame_us");
 
     // Avoid creating new objects unnecessarily
     final Paint paint = new Paint();
@@ -39,7 +42,6 @@ public abstract class PlotView extends SurfaceView implements SurfaceHolder.Call
         super(context, attrs);
         final SurfaceHolder holder = getHolder();
         holder.addCallback(this);
-        // drawingThread = new DrawingThread(holder);
         paint.setAntiAlias(true);
         paint.setDither(true);
         text.setAntiAlias(true);
@@ -48,70 +50,83 @@ public abstract class PlotView extends SurfaceView implements SurfaceHolder.Call
     }
 
     // SurfaceView stuff:
-    // Secondary drawing thread
-    private DrawingThread drawingThread;
-    private class DrawingThread extends Thread {
-        private final SurfaceHolder _surfaceHolder;
-        private boolean running = false;
-        DrawingThread(final SurfaceHolder surfaceHolder) {
-            _surfaceHolder = surfaceHolder;
-        }
-        @Override
-        public void run() {
-            while (running) {
-                Canvas canvas = null;
-                try {
-                    canvas = _surfaceHolder.lockCanvas();
-                    if (canvas != null) {
-                        plot.setCanvas(canvas);
-                        synchronized (_surfaceHolder) {
-                            drawPlot(plot);
-                        }
-                    }
-                } catch(Exception e) {
-                    // Sometimes surface can be destroyed during slow drawing
-                    if (running) {
-                        Exceptions.report(e);
-                    }
-                } finally {
-                    // do this in a finally so that if an exception is thrown, we don't leave the Surface in an inconsistent state
-                    if (canvas != null) {
-                        try {
-                            _surfaceHolder.unlockCanvasAndPost(canvas);
-                        } catch(Exception e) {
-                            // _surfaceHolder.getSurface().isValid()?
-                            Exceptions.report(new Exception("Crash while unlocking canvas: " + canvas, e));
+    // Frames are drawn by the shared renderer thread, only after the plot is invalidated
+    private final PlotRenderer renderer = PlotRenderer.get();
+    private volatile boolean dirty = false;
+    private boolean surfaceReady = false; // guarded by holder
+
+    /**
+     * Mark the plot as needing a redraw, on the next frame. Safe to call from any thread.
+     * Data sources should call this when new data arrives, and plots that animate
+     * should call it from drawData to keep drawing.
+     */
+    public void invalidatePlot() {
+        dirty = true;
+        renderer.requestFrame();
+    }
+
+    /**
+     * Draw a frame if the plot is dirty, called on the renderer thread
+     */
+    void render() {
+        if (!dirty) return;
+        dirty = false;
+        final SurfaceHolder holder = getHolder();
+        synchronized (holder) {
+            if (!surfaceReady) return;
+            final long frameStart = System.nanoTime();
+            Canvas canvas = null;
+            try {
+                canvas = holder.lockCanvas();
+                if (canvas != null) {
+                    plot.setCanvas(canvas);
+                    drawPlot(plot);
+                }
+            } catch(Exception e) {
+                Exceptions.report(e);
+            } finally {
+                // do this in a finally so that if an exception is thrown, we don't leave the Surface in an inconsistent state
+                if (canvas != null) {
+                    try {
+                        holder.unlockCanvasAndPost(canvas);
+                        final int source = latencySource();
+                        if (source >= 0) {
+                            LatencyTrace.mark(LatencyTrace.FRAME, source);
                         }
+                        frameTimes.add((System.nanoTime() - frameStart) / 1000);
+                    } catch(Exception e) {
+                        Exceptions.report(new Exception("Crash while unlocking canvas: " + canvas, e));
                     }
                 }
-                // Frame limiting
-                try {
-                    Thread.sleep(refreshRateMillis);
-                } catch (InterruptedException ignored) {}
             }
         }
     }
+
+    /**
+     * Pipeline source that invalidates this plot, for latency tracing, or -1 for none
+     */
+    int latencySource() {
+        return -1;
+    }
+
     @Override
-    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {}
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        invalidatePlot();
+    }
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
-        drawingThread = new DrawingThread(holder);
-        drawingThread.running = true;
-        drawingThread.start();
+        synchronized (holder) {
+            surfaceReady = true;
+        }
+        renderer.add(this);
+        invalidatePlot();
     }
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
-        // we have to tell thread to shut down & wait for it to finish, or else
-        // it might touch the Surface after we return and explode
-        boolean retry = true;
-        drawingThread.running = false;
-        while (retry) {
-            try {
-                drawingThread.join();
-                retry = false;
-            } catch (InterruptedException e) {
-                // we will try it again and again...
-            }
+        renderer.remove(this);
+        // Waits for a frame in progress, so that we never touch the Surface after we return
+        synchronized (holder) {
+            surfaceReady = false;
         }
     }
 
@@ -120,7 +135,7 @@ public abstract class PlotView extends SurfaceView implements SurfaceHolder.Call
      */
     private void drawPlot(@NonNull Plot plot) {
         // Get plot-space bounds from previous frame's dataBounds
-        plot.bounds.set(getBounds(plot.dataBounds));
+        plot.setBounds(getBounds(plot.dataBounds));
         // Reset data bounds
         plot.dataBounds.reset();
 
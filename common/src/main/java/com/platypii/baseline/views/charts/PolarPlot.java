@@ -1,13 +1,16 @@
 package com.platypii.baseline.views.charts;
 
 import com.platypii.baseline.altimeter.MyAltimeter;
-import com.platypii.baseline.location.LocationProvider;
+import com.platypii.baseline.diagnostics.LatencyTrace;
+import com.platypii.baseline.location.LocationPredictor;
+import com.platypii.baseline.location.LocationService;
 import com.platypii.baseline.location.MyLocationListener;
 import com.platypii.baseline.location.TimeOffset;
 import com.platypii.baseline.measurements.MLocation;
 import com.platypii.baseline.util.AdjustBounds;
 import com.platypii.baseline.util.Bounds;
 import com.platypii.baseline.util.Convert;
+import com.platypii.baseline.util.Numbers;
 import com.platypii.baseline.util.SyncedList;
 import android.content.Context;
 import android.graphics.BlurMaskFilter;
@@ -21,9 +24,12 @@ public class PolarPlot extends PlotView implements MyLocationListener {
     private static final long window = 15000; // The size of the view window, in milliseconds
     private final SyncedList<MLocation> history = new SyncedList<>();
 
-    private LocationProvider locationService = null;
+    private LocationService locationService = null;
     private MyAltimeter altimeter = null;
 
+    // Predicted state between fixes, only touched by the drawing thread
+    private final LocationPredictor.State predicted = new LocationPredictor.State();
+
     final Bounds inner = new Bounds();
     final Bounds outer = new Bounds();
 
@@ -49,6 +55,11 @@ public class PolarPlot extends PlotView implements MyLocationListener {
         history.setMaxSize(300);
     }
 
+    @Override
+    int latencySource() {
+        return LatencyTrace.GPS;
+    }
+
     @Override
     public void drawData(@NonNull Plot plot) {
         if(locationService != null) {
@@ -58,9 +69,10 @@ public class PolarPlot extends PlotView implements MyLocationListener {
                 // Draw background ellipses
                 drawEllipses(plot);
 
-                // Draw horizontal, vertical speed
-                final double vx = locationService.groundSpeed();
-                final double vy = altimeter.climb;
+                // Draw horizontal, vertical speed, predicted to the current frame
+                locationService.predictNow(predicted);
+                final double vx = predicted.valid ? predicted.groundSpeed() : locationService.groundSpeed();
+                final double vy = Numbers.isReal(predicted.climb) ? predicted.climb : altimeter.climb;
                 drawSpeedLines(plot, vx, vy);
 
                 // Draw history
@@ -71,6 +83,9 @@ public class PolarPlot extends PlotView implements MyLocationListener {
 
                 // Draw current location
                 drawLocation(plot, loc.millis, vx, vy);
+
+                // Keep animating the prediction and fade until the fix is stale
+                invalidatePlot();
             } else {
                 // Draw "no gps signal"
                 text.setTextAlign(Paint.Align.CENTER);
@@ -246,11 +261,12 @@ public class PolarPlot extends PlotView implements MyLocationListener {
 //            return Convert.speed(y_abs, 0, true);
 //    }
 
-    public void start(@NonNull LocationProvider locationService, @NonNull MyAltimeter altimeter) {
+    public void start(@NonNull LocationService locationService, @NonNull MyAltimeter altimeter) {
         this.locationService = locationService;
         this.altimeter = altimeter;
         // Start listening for location updates
         locationService.addListener(this);
+        invalidatePlot();
     }
     public void stop() {
         // Stop listening for location updates
@@ -260,6 +276,7 @@ public class PolarPlot extends PlotView implements MyLocationListener {
     @Override
     public void onLocationChanged(@NonNull MLocation loc) {
         history.append(loc);
+        invalidatePlot();
     }
 
 }
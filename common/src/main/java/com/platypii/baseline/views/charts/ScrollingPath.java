@@ -0,0 +1,146 @@
+package com.platypii.baseline.views.charts;
+
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+
+/**
+ * Line plot of a series that scrolls, with new samples added on the right.
+ * The x coordinate of each sample is its index, counting from the first sample added.
+ *
+ * The path is cached in chunks, built in screen-space relative to the first sample of the chunk.
+ * Each frame only appends segments for new samples, and chunks are shifted into place with a
+ * translate, so drawing costs are proportional to new samples rather than the window size.
+ * Chunks that scroll off the left are recycled. When the scale changes, the chunks are rebuilt
+ * from the last window of samples.
+ */
+class ScrollingPath {
+
+    private static final int CHUNK = 32; // segments per cached path
+
+    // Ring buffer of the last window of samples
+    private final float[] values;
+    private final int window;
+    private long count = 0;
+
+    // Cached chunks, oldest first
+    private final ArrayList<Chunk> chunks = new ArrayList<>();
+    private final ArrayList<Chunk> pool = new ArrayList<>();
+    private long built = 0; // samples that have been added to chunks
+
+    // Scale the chunks were built with
+    private double scaleX = Double.NaN;
+    private double scaleY = Double.NaN;
+    private double offsetY = Double.NaN;
+
+    private static class Chunk {
+        final Path path = new Path();
+        long first; // index of the first sample
+        int segments;
+        float min;
+        float max;
+    }
+
+    /**
+     * @param window the number of samples shown
+     */
+    ScrollingPath(int window) {
+        this.window = window;
+        this.values = new float[window];
+    }
+
+    void add(float value) {
+        if (!Float.isNaN(value)) {
+            values[(int) (count % window)] = value;
+            count++;
+        }
+    }
+
+    /**
+     * Number of samples added, so the newest sample has x = count - 1
+     */
+    long count() {
+        return count;
+    }
+
+    void reset() {
+        count = 0;
+        built = 0;
+        clear();
+    }
+
+    /**
+     * Draw the last window of samples, and expand the plot data bounds by its range
+     */
+    void draw(@NonNull Plot plot, @NonNull Paint paint) {
+        final long start = Math.max(0, count - window);
+        if (plot.scaleX != scaleX || plot.scaleY != scaleY || plot.offsetY != offsetY || built < start) {
+            // Scale changed, or too many samples to catch up on
+            clear();
+            scaleX = plot.scaleX;
+            scaleY = plot.scaleY;
+            offsetY = plot.offsetY;
+            built = start;
+        }
+        // Recycle chunks that have scrolled off
+        while (!chunks.isEmpty() && chunks.get(0).first + chunks.get(0).segments < start) {
+            recycle(chunks.remove(0));
+        }
+        // Append new samples
+        for (; built < count; built++) {
+            append(built, start);
+        }
+        for (Chunk chunk : chunks) {
+            plot.dataBounds.expandBounds(start, chunk.min);
+            plot.dataBounds.expandBounds(count - 1, chunk.max);
+            plot.canvas.save();
+            plot.canvas.translate((float) (plot.offsetX + chunk.first * scaleX), 0);
+            plot.canvas.drawPath(chunk.path, paint);
+            plot.canvas.restore();
+        }
+    }
+
+    private void append(long i, long start) {
+        Chunk chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.segments == CHUNK) {
+            // Start a new chunk, joined to the end of the last one
+            chunk = startChunk(chunk != null && i > start ? i - 1 : i);
+            if (chunk.first == i) return;
+        }
+        final float value = value(i);
+        chunk.path.lineTo((float) ((i - chunk.first) * scaleX), (float) (offsetY + value * scaleY));
+        chunk.segments++;
+        if (value < chunk.min) chunk.min = value;
+        if (value > chunk.max) chunk.max = value;
+    }
+
+    @NonNull
+    private Chunk startChunk(long first) {
+        final Chunk chunk = pool.isEmpty() ? new Chunk() : pool.remove(pool.size() - 1);
+        final float value = value(first);
+        chunk.first = first;
+        chunk.path.moveTo(0, (float) (offsetY + value * scaleY));
+        chunk.min = chunk.max = value;
+        chunks.add(chunk);
+        return chunk;
+    }
+
+    private float value(long i) {
+        return values[(int) (i % window)];
+    }
+
+    private void clear() {
+        for (Chunk chunk : chunks) {
+            recycle(chunk);
+        }
+        chunks.clear();
+    }
+
+    private void recycle(@NonNull Chunk chunk) {
+        chunk.path.rewind();
+        chunk.segments = 0;
+        pool.add(chunk);
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.platypii.baseline.views.charts;
+
+import com.platypii.baseline.location.SatelliteTable;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Sky plot of satellite positions, and signal strength bars.
+ * Used to spot antenna shadowing, so it redraws at the receiver rate without allocating.
+ */
+public class SkyView extends View {
+
+    // Colors per constellation: GPS, GLONASS, Galileo, BeiDou
+    private static final int[] colors = {0xff5b9bd5, 0xffe06666, 0xff6aa84f, 0xffe6b422};
+    private static final float MAX_SNR = 50; // dB-Hz
+
+    // PRN labels, to avoid creating strings while drawing. Covers the BeiDou range up to 463.
+    private static final String[] labels = new String[512];
+    static {
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = Integer.toString(i);
+        }
+    }
+
+    @Nullable
+    private SatelliteTable source;
+    private final SatelliteTable table = new SatelliteTable();
+    private int lastVersion = -1;
+
+    // Avoid creating new objects unnecessarily
+    private final Paint paint = new Paint();
+    private final float density;
+
+    public SkyView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        density = getResources().getDisplayMetrics().density;
+        paint.setAntiAlias(true);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTextSize(9 * density);
+    }
+
+    /**
+     * Set the satellite table to draw from
+     */
+    public void setSource(@Nullable SatelliteTable source) {
+        if (this.source != source) {
+            this.source = source;
+            lastVersion = -1;
+            invalidate();
+        }
+    }
+
+    /**
+     * Redraw if the satellite table has changed since the last frame
+     */
+    public void update() {
+        if (source != null && source.version() != lastVersion) {
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        if (source != null) {
+            source.copyTo(table);
+            lastVersion = table.version();
+        }
+        final float height = getHeight();
+        final float skySize = Math.min(getWidth() / 2f, height);
+        drawSky(canvas, skySize / 2, height / 2, skySize / 2 - 10 * density);
+        drawSignal(canvas, skySize + 8 * density, getWidth() - 4 * density, height);
+    }
+
+    private void drawSky(@NonNull Canvas canvas, float cx, float cy, float radius) {
+        // Elevation rings at 0, 30, 60 degrees
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(density);
+        paint.setColor(0xff666666);
+        canvas.drawCircle(cx, cy, radius, paint);
+        canvas.drawCircle(cx, cy, radius * 2 / 3, paint);
+        canvas.drawCircle(cx, cy, radius / 3, paint);
+        canvas.drawLine(cx, cy - radius, cx, cy + radius, paint);
+        canvas.drawLine(cx - radius, cy, cx + radius, cy, paint);
+        paint.setStyle(Paint.Style.FILL);
+        canvas.drawText("N", cx, cy - radius - 2 * density, paint);
+
+        // Satellites
+        final float dot = 5 * density;
+        for (int c = 0; c < SatelliteTable.CONSTELLATIONS; c++) {
+            paint.setColor(colors[c]);
+            final int start = c * SatelliteTable.MAX_SATELLITES;
+            for (int i = start; i < start + table.count[c]; i++) {
+                final float r = radius * (90 - table.elevation[i]) / 90f;
+                final double az = Math.toRadians(table.azimuth[i]);
+                final float x = cx + r * (float) Math.sin(az);
+                final float y = cy - r * (float) Math.cos(az);
+                paint.setStyle(table.used[i] ? Paint.Style.FILL : Paint.Style.STROKE);
+                canvas.drawCircle(x, y, dot, paint);
+                paint.setStyle(Paint.Style.FILL);
+                canvas.drawText(label(table.prn[i]), x, y - dot - 2 * density, paint);
+            }
+        }
+    }
+
+    private void drawSignal(@NonNull Canvas canvas, float left, float right, float height) {
+        final int total = table.inView();
+        if (total == 0 || right <= left) return;
+        final float labelHeight = 12 * density;
+        final float barHeight = height - labelHeight;
+        final float barWidth = (right - left) / total;
+        int n = 0;
+        for (int c = 0; c < SatelliteTable.CONSTELLATIONS; c++) {
+            final int start = c * SatelliteTable.MAX_SATELLITES;
+            for (int i = start; i < start + table.count[c]; i++) {
+                final float x = left + n * barWidth;
+                final float snr = Math.max(0, Math.min(table.snr[i], MAX_SNR));
+                paint.setColor(table.used[i] ? colors[c] : colors[c] & 0x66ffffff);
+                paint.setStyle(Paint.Style.FILL);
+                canvas.drawRect(x + density, barHeight * (1 - snr / MAX_SNR), x + barWidth - density, barHeight, paint);
+                paint.setColor(0xffaaaaaa);
+                canvas.drawText(label(table.prn[i]), x + barWidth / 2, height - 2 * density, paint);
+                n++;
+            }
+        }
+    }
+
+    /**
+     * Satellite id label, only allocating for ids beyond the cached range
+     */
+    @NonNull
+    private static String label(int prn) {
+        return 0 <= prn && prn < labels.length ? labels[prn] : Integer.toString(prn);
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.platypii.baseline.altimeter;
+
+import com.platypii.baseline.measurements.MAltitude;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.platform.MemoryPreferences;
+import com.platypii.baseline.sim.FlightSimulator;
+import android.support.annotation.NonNull;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run the altimeter off-device on a simulated flight, with no android services
+ */
+public class AltimeterFusionTest {
+
+    @Test
+    public void simulatedFlight() {
+        final FlightSimulator sim = new FlightSimulator();
+        final BaroFilter baro = new BaroFilter();
+        final MemoryPreferences prefs = new MemoryPreferences();
+        final double[] maxError = {0};
+        final int[] altitudes = {0};
+        final AltimeterFusion fusion = new AltimeterFusion() {
+            @Override
+            protected void onAltitude(@NonNull MAltitude myAltitude) {
+                altitudes[0]++;
+            }
+        };
+        fusion.loadGroundLevel(prefs);
+        sim.run(new FlightSimulator.Listener() {
+            @Override
+            public void onNmea(long millis, @NonNull String nmea) {
+                if (nmea.startsWith("$GPGGA")) {
+                    fusion.updateGPS(new MLocation(millis, sim.latitude, sim.longitude, sim.groundAltitude + sim.altitude, sim.climb,
+                            sim.vN, sim.vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 10, -1));
+                    // Skip the first minute of climb while gps corrects the baro offset
+                    if (sim.phase != FlightSimulator.GROUND && fusion.gps_sample_count > 60) {
+                        maxError[0] = Math.max(maxError[0], Math.abs(fusion.altitudeAGL() - sim.altitude));
+                    }
+                }
+            }
+            @Override
+            public void onPressure(long nano, float pressure) {
+                final MPressure measurement = baro.update(sim.startMillis + nano / 1000000L, nano, pressure);
+                if (measurement != null) {
+                    fusion.updateBaro(measurement);
+                }
+            }
+            @Override
+            public void onAccel(long nano, float x, float y, float z) {}
+        });
+        assertTrue(fusion.baro_sample_count > 0);
+        assertEquals(fusion.baro_sample_count, altitudes[0]);
+        // Pressure altitude tracks the flight. The kalman filter lags through exit and deployment.
+        assertTrue("Max error " + maxError[0], maxError[0] < 80);
+        assertEquals(0, fusion.altitudeAGL(), 2);
+        assertEquals(sim.groundAltitude, fusion.altitude, 5);
+        // Ground level was saved
+        assertTrue(prefs.getLong("altimeter.groundlevel.time", -1) > 0);
+    }
+
+}
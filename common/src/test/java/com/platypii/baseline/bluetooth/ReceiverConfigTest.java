@@ -0,0 +1,53 @@
+package com.platypii.baseline.bluetooth;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ensure that receiver commands are well formed
+ */
+public class ReceiverConfigTest {
+
+    @Test
+    public void pmtk() {
+        assertEquals("$PMTK220,100*2F\r\n", ascii(ReceiverConfig.pmtk("PMTK220,100")));
+        assertEquals("$PMTK220,1000*1F\r\n", ascii(ReceiverConfig.pmtk("PMTK220,1000")));
+        assertEquals("$PMTK314,0,1,0,1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0*28\r\n", ascii(ReceiverConfig.pmtk("PMTK314,0,1,0,1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0")));
+    }
+
+    @Test
+    public void mtkCommands() {
+        final List<byte[]> commands = ReceiverConfig.commands(ReceiverConfig.MTK, 10);
+        assertEquals(3, commands.size());
+        assertEquals("$PMTK220,100*2F\r\n", ascii(commands.get(0)));
+    }
+
+    @Test
+    public void ubloxCommands() {
+        final List<byte[]> commands = ReceiverConfig.commands(ReceiverConfig.UBLOX, 10);
+        assertArrayEquals(Ubx.cfgRate(100), commands.get(0));
+        assertArrayEquals(Ubx.cfgMsg(Ubx.NAV, Ubx.NAV_PVT, 1), commands.get(1));
+    }
+
+    @Test
+    public void noCommands() {
+        assertEquals(0, ReceiverConfig.commands(ReceiverConfig.NONE, 10).size());
+        assertEquals(0, ReceiverConfig.commands(ReceiverConfig.AUTO, 10).size());
+    }
+
+    @Test
+    public void detect() {
+        assertEquals(ReceiverConfig.MTK, ReceiverConfig.detect("$PMTK011,MTKGPS*08"));
+        assertEquals(ReceiverConfig.UBLOX, ReceiverConfig.detect("$GPTXT,01,01,02,u-blox ag - www.u-blox.com*50"));
+        assertEquals(ReceiverConfig.AUTO, ReceiverConfig.detect("$GPGGA,123456.00,,,,,0,00,99.99,,,,,,*60"));
+    }
+
+    private static String ascii(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.platypii.baseline.bluetooth;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ensure that reconnects re-dial fast, then back off
+ */
+public class ReconnectBackoffTest {
+
+    @Test
+    public void backoff() {
+        final ReconnectBackoff backoff = new ReconnectBackoff();
+        assertEquals(0, backoff.next());
+        assertEquals(250, backoff.next());
+        assertEquals(500, backoff.next());
+        assertEquals(1000, backoff.next());
+        for (int i = 0; i < 100; i++) {
+            backoff.next();
+        }
+        assertEquals(8000, backoff.next());
+        backoff.reset();
+        assertEquals(0, backoff.next());
+    }
+
+}
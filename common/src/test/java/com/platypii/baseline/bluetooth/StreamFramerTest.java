@@ -0,0 +1,104 @@
+package com.platypii.baseline.bluetooth;
+
+import android.support.annotation.NonNull;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ensure that mixed NMEA and UBX streams are split into messages
+ */
+public class StreamFramerTest implements StreamFramer.Listener {
+
+    private final List<String> nmea = new ArrayList<>();
+    private final List<byte[]> ubx = new ArrayList<>();
+    private final StreamFramer framer = new StreamFramer(this);
+
+    @Override
+    public void onNmea(@NonNull String sentence) {
+        nmea.add(sentence);
+    }
+
+    @Override
+    public void onUbx(int msgClass, int msgId, @NonNull byte[] frame, int offset, int length) {
+        final byte[] msg = new byte[length + 2];
+        msg[0] = (byte) msgClass;
+        msg[1] = (byte) msgId;
+        System.arraycopy(frame, offset, msg, 2, length);
+        ubx.add(msg);
+    }
+
+    @Test
+    public void checksum() {
+        // Known UBX-CFG-RATE 5 Hz frame
+        final byte[] expected = {(byte) 0xb5, 0x62, 0x06, 0x08, 0x06, 0x00, (byte) 0xc8, 0x00, 0x01, 0x00, 0x01, 0x00, (byte) 0xde, 0x6a};
+        assertArrayEquals(expected, Ubx.cfgRate(200));
+    }
+
+    @Test
+    public void mixedStream() {
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        write(stream, "$GPGGA,123456.00,,,,,0,00,99.99,,,,,,*60\r\n");
+        write(stream, Ubx.cfgMsg(Ubx.NAV, Ubx.NAV_PVT, 1));
+        write(stream, "$GPRMC,123456.00,V,,,,,,,230394,,,N*7E\r\n");
+        write(stream, Ubx.cfgRate(100));
+        feedInChunks(stream.toByteArray(), 7);
+
+        assertEquals(2, nmea.size());
+        assertEquals("$GPGGA,123456.00,,,,,0,00,99.99,,,,,,*60", nmea.get(0));
+        assertEquals("$GPRMC,123456.00,V,,,,,,,230394,,,N*7E", nmea.get(1));
+        assertEquals(2, ubx.size());
+        assertArrayEquals(new byte[] {0x06, 0x01, 0x01, 0x07, 0x01}, ubx.get(0));
+        assertArrayEquals(new byte[] {0x06, 0x08, 100, 0, 1, 0, 1, 0}, ubx.get(1));
+    }
+
+    @Test
+    public void badChecksum() {
+        final byte[] frame = Ubx.cfgRate(200);
+        frame[frame.length - 1] ^= 1;
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        write(stream, frame);
+        write(stream, "$GPZDA,115729.61,18,06,2016,,*62\r\n");
+        feedInChunks(stream.toByteArray(), 1024);
+
+        assertEquals(0, ubx.size());
+        assertEquals(1, nmea.size());
+    }
+
+    @Test
+    public void binaryInsideSentence() {
+        // Receiver switches to binary mid-sentence, the partial sentence is dropped
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        write(stream, "$GPGGA,1234");
+        write(stream, Ubx.cfgRate(200));
+        write(stream, "\r\n$GPZDA,115729.61,18,06,2016,,*62\n");
+        feedInChunks(stream.toByteArray(), 3);
+
+        assertEquals(1, ubx.size());
+        assertEquals(1, nmea.size());
+        assertEquals("$GPZDA,115729.61,18,06,2016,,*62", nmea.get(0));
+    }
+
+    private void feedInChunks(@NonNull byte[] bytes, int chunk) {
+        final byte[] buffer = new byte[chunk];
+        for (int i = 0; i < bytes.length; i += chunk) {
+            final int length = Math.min(chunk, bytes.length - i);
+            System.arraycopy(bytes, i, buffer, 0, length);
+            framer.feed(buffer, length);
+        }
+    }
+
+    private static void write(@NonNull ByteArrayOutputStream stream, @NonNull String str) {
+        write(stream, str.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void write(@NonNull ByteArrayOutputStream stream, @NonNull byte[] bytes) {
+        stream.write(bytes, 0, bytes.length);
+    }
+
+}
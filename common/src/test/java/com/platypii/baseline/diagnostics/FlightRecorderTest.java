@@ -0,0 +1,31 @@
+package com.platypii.baseline.diagnostics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that the flight recorder keeps the most recent events
+ */
+public class FlightRecorderTest {
+
+    @Test
+    public void recentEvents() throws IOException {
+        for (int i = 0; i < 5000; i++) {
+            FlightRecorder.record(FlightRecorder.DROPPED, i);
+        }
+        FlightRecorder.record(FlightRecorder.BLUETOOTH, -1);
+        final StringWriter writer = new StringWriter();
+        FlightRecorder.write(writer);
+        final String[] lines = writer.toString().split("\n");
+        // Header plus a full ring
+        assertEquals(2049, lines.length);
+        assertEquals("millis,event,value", lines[0]);
+        assertTrue(lines[1].endsWith(",dropped,2953"));
+        assertTrue(lines[2048].endsWith(",bluetooth,-1"));
+    }
+
+}
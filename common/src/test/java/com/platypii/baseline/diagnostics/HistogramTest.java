@@ -0,0 +1,50 @@
+package com.platypii.baseline.diagnostics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that we are bucketing correctly
+ */
+public class HistogramTest {
+
+    @Test
+    public void buckets() {
+        assertEquals(0, Histogram.bucket(0));
+        assertEquals(1, Histogram.bucket(1));
+        assertEquals(2, Histogram.bucket(2));
+        assertEquals(2, Histogram.bucket(3));
+        assertEquals(3, Histogram.bucket(4));
+        assertEquals(63, Histogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.add(i);
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(100, histogram.max());
+        assertEquals(50.5, histogram.mean(), 0.01);
+        // Percentiles are accurate to within a factor of two
+        final long p50 = histogram.percentile(0.5);
+        assertTrue(50 <= p50 && p50 < 100);
+        assertEquals(100, histogram.percentile(1.0));
+    }
+
+    @Test
+    public void empty() {
+        Histogram histogram = new Histogram();
+        histogram.add(-5);
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals(Double.NaN, histogram.mean(), 0.01);
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.platypii.baseline.diagnostics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that each stage counts a sample once, and that reset forgets old samples
+ */
+public class LatencyTraceTest {
+
+    @Test
+    public void markOncePerOrigin() {
+        LatencyTrace.reset();
+        LatencyTrace.arrival(LatencyTrace.BARO, 0);
+        LatencyTrace.mark(LatencyTrace.ALTITUDE, LatencyTrace.BARO);
+        LatencyTrace.mark(LatencyTrace.ALTITUDE, LatencyTrace.BARO);
+        assertTrue(LatencyTrace.summary().contains("altitude n=1 "));
+        // Other sources have not arrived
+        LatencyTrace.mark(LatencyTrace.FIX, LatencyTrace.GPS);
+        assertTrue(LatencyTrace.summary().contains("fix      n=0 "));
+    }
+
+    @Test
+    public void reset() {
+        LatencyTrace.reset();
+        LatencyTrace.arrival(LatencyTrace.GPS, 0);
+        LatencyTrace.reset();
+        // Sample from before the reset is not counted
+        LatencyTrace.mark(LatencyTrace.FIX, LatencyTrace.GPS);
+        assertTrue(LatencyTrace.summary().contains("fix      n=0 "));
+        LatencyTrace.arrival(LatencyTrace.GPS, 0);
+        LatencyTrace.mark(LatencyTrace.FIX, LatencyTrace.GPS);
+        assertTrue(LatencyTrace.summary().contains("fix      n=1 "));
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.platypii.baseline.diagnostics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that we are counting correctly
+ */
+public class MetricsTest {
+
+    @Test
+    public void counterThreads() throws InterruptedException {
+        final Counter counter = new Counter();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    counter.inc();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, counter.get());
+    }
+
+    @Test
+    public void registry() {
+        assertTrue(Metrics.counter("test.count") == Metrics.counter("test.count"));
+        assertTrue(Metrics.gauge("test.gauge") == Metrics.gauge("test.gauge"));
+        assertTrue(Metrics.histogram("test.hist") == Metrics.histogram("test.hist"));
+    }
+
+    @Test
+    public void snapshot() {
+        final Counter counter = Metrics.counter("test.snapshot");
+        final MetricsSnapshot before = Metrics.snapshot();
+        counter.add(5);
+        Metrics.gauge("test.depth").set(3);
+        final String text = Metrics.snapshot().format(before);
+
+        assertTrue(text.contains("test.snapshot"));
+        assertTrue(text.contains("/s)"));
+        assertTrue(text.contains("test.depth           3"));
+    }
+
+}
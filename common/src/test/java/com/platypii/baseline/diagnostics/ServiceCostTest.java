@@ -0,0 +1,38 @@
+package com.platypii.baseline.diagnostics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ensure that we are charging the right service
+ */
+public class ServiceCostTest {
+
+    private long fakeCpu = 0;
+
+    @Test
+    public void exclusive() {
+        final ServiceCost.CpuClock original = ServiceCost.clock;
+        ServiceCost.clock = () -> fakeCpu;
+        try {
+            final ServiceCost outer = ServiceCost.get("test.outer");
+            final ServiceCost inner = ServiceCost.get("test.inner");
+            outer.begin();
+            fakeCpu += 10;
+            inner.begin();
+            fakeCpu += 100;
+            inner.end();
+            fakeCpu += 5;
+            outer.end();
+
+            assertEquals(15, outer.cpuNanos());
+            assertEquals(100, inner.cpuNanos());
+            assertEquals(1, outer.events());
+            assertEquals(1, inner.events());
+        } finally {
+            ServiceCost.clock = original;
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.platypii.baseline.jarvis;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.sim.FlightSimulator;
+import android.support.annotation.NonNull;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Ensure that auto-stop detects landing after a simulated jump, and not before
+ */
+public class LandingDetectorTest {
+
+    @Test
+    public void skydive() {
+        assertLanding(new FlightSimulator());
+    }
+
+    @Test
+    public void wingsuit() {
+        final FlightSimulator sim = new FlightSimulator();
+        sim.wingsuit = true;
+        assertLanding(sim);
+    }
+
+    @Test
+    public void startStop() {
+        final LandingDetector detector = new LandingDetector();
+        assertFalse(detector.stop());
+        assertEquals(true, detector.start());
+        assertFalse(detector.start());
+        assertEquals(LandingDetector.STATE_STARTED, detector.state());
+        assertEquals(true, detector.stop());
+    }
+
+    private static void assertLanding(@NonNull FlightSimulator sim) {
+        final LandingDetector detector = new LandingDetector();
+        detector.start();
+        final int[] landedPhase = {-1};
+        final boolean[] exited = {false};
+        sim.run(new FlightSimulator.Listener() {
+            @Override
+            public void onNmea(long millis, @NonNull String nmea) {
+                if (nmea.startsWith("$GPRMC")) {
+                    final MLocation loc = new MLocation(millis, sim.latitude, sim.longitude, sim.groundAltitude + sim.altitude, sim.climb,
+                            sim.vN, sim.vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 10, -1);
+                    if (detector.update(loc)) {
+                        landedPhase[0] = sim.phase;
+                    }
+                    if (detector.state() == LandingDetector.STATE_EXITED) {
+                        exited[0] = true;
+                    }
+                }
+            }
+            @Override
+            public void onPressure(long nano, float pressure) {}
+            @Override
+            public void onAccel(long nano, float x, float y, float z) {}
+        });
+        assertEquals(true, exited[0]);
+        assertEquals(FlightSimulator.LANDED, landedPhase[0]);
+        assertEquals(LandingDetector.STATE_STOPPED, detector.state());
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.platypii.baseline.location;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that sentences are assembled into one consistent fix per epoch
+ */
+public class FixAssemblerTest {
+
+    private final List<double[]> fixes = new ArrayList<>();
+    private final FixAssembler fix = new FixAssembler(this::onFix);
+
+    private void onFix() {
+        fixes.add(new double[] {fix.time, fix.latitude, fix.altitude_gps});
+    }
+
+    @Test
+    public void rmcBeforeGga() {
+        // Receiver sends RMC then GGA, each epoch has its own altitude
+        for (int i = 0; i < 5; i++) {
+            rmc(i * 100, i);
+            gga(i * 100, 1000 + i);
+        }
+        // Epochs are emitted with the altitude from the same epoch
+        for (double[] f : fixes) {
+            assertEquals(f[1] + 1000, f[2], 0.001);
+        }
+        // Once learned, the last epoch is emitted as soon as GGA arrives, without waiting for the next one
+        assertEquals(5, fixes.size());
+    }
+
+    @Test
+    public void emitOnce() {
+        for (int i = 0; i < 5; i++) {
+            gga(i * 100, 1000 + i);
+            rmc(i * 100, i);
+        }
+        final int count = fixes.size();
+        // Duplicate RMC in the same epoch is ignored
+        assertFalse(fix.time(400, FixAssembler.RMC, 400));
+        // Stale time is ignored
+        assertFalse(fix.time(300, FixAssembler.GGA, 400));
+        assertEquals(count, fixes.size());
+    }
+
+    @Test
+    public void midnightRollover() {
+        rmc(86399900, 1);
+        gga(86399900, 1001);
+        rmc(0, 2);
+        gga(0, 1002);
+        rmc(100, 3);
+        assertEquals(2, fixes.size());
+        assertEquals(0, fixes.get(1)[0], 0.001);
+        assertEquals(1002, fixes.get(1)[2], 0.001);
+    }
+
+    @Test
+    public void midnightDate() {
+        fix.date = 86400000;
+        rmc(86399900, 1);
+        // GGA of the next day arrives before RMC
+        gga(0, 1002);
+        assertEquals(86400000 * 2, fix.date);
+        // Stale sentence from before midnight does not roll the date back
+        gga(86399900, 1001);
+        assertEquals(86400000 * 2, fix.date);
+    }
+
+    @Test
+    public void timeout() {
+        gga(0, 1000);
+        rmc(0, 0);
+        // Nothing else arrives for a while
+        fix.poll(1000);
+        assertEquals(1, fixes.size());
+        // Epoch is not emitted again when it closes
+        rmc(100, 1);
+        assertEquals(1, fixes.size());
+    }
+
+    @Test
+    public void untimed() {
+        // Before the first epoch
+        assertFalse(fix.untimed(0));
+        gga(0, 1000);
+        // Open epoch is waiting for RMC
+        assertTrue(fix.untimed(100));
+        // Stale epoch
+        assertFalse(fix.untimed(1000));
+        rmc(1000, 1);
+        gga(1000, 1001);
+        rmc(1100, 2);
+        gga(1100, 1002);
+        // Emitted epoch
+        assertFalse(fix.untimed(1150));
+    }
+
+    private void rmc(long time, double lat) {
+        if (fix.time(time, FixAssembler.RMC, time)) {
+            fix.latitude = lat;
+            fix.add(FixAssembler.RMC);
+        }
+    }
+
+    private void gga(long time, double alt) {
+        if (fix.time(time, FixAssembler.GGA, time)) {
+            fix.altitude_gps = alt;
+            fix.add(FixAssembler.GGA);
+        }
+    }
+
+}
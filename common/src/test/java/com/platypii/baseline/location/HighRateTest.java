@@ -0,0 +1,110 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.measurements.MAltitude;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.tracks.TrackReader;
+import android.support.annotation.NonNull;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that a sustained 10 Hz receiver stream goes through the nmea parser, altimeter and
+ * track log with one fix per epoch
+ */
+public class HighRateTest {
+
+    private static final long DAY = 24 * 3600000;
+
+    // Altimeter, fed by the location provider as the location service does
+    private final List<MAltitude> altitudes = new ArrayList<>();
+    private final MyAltimeter alti = new MyAltimeter(null) {
+        @Override
+        protected void onAltitude(@NonNull MAltitude myAltitude) {
+            altitudes.add(myAltitude);
+        }
+    };
+
+    // Track log, written as the track logger does for raw fixes
+    private final StringBuilder log = new StringBuilder(Measurement.header + "\n");
+
+    @Test
+    public void tenHertzAcrossMidnight() throws IOException {
+        final LocationProviderNMEA provider = new LocationProviderNMEA(alti);
+        provider.addListener(new MyLocationListener() {
+            @Override
+            public void onLocationChanged(@NonNull MLocation loc) {
+                alti.onLocationChanged(loc);
+                if (!Double.isNaN(loc.latitude) && !Double.isNaN(loc.longitude)) {
+                    log.append(loc.toRow()).append('\n');
+                }
+            }
+        });
+
+        // Ten minutes at 10 Hz, starting five minutes before midnight on 31 Dec 2017, climbing at 10 m/s
+        final long start = NMEA.epochDay(2017, 12, 31) * DAY + DAY - 300000;
+        final int epochs = 6000;
+        long arrival = 1000000;
+        for (int i = 0; i < epochs; i++) {
+            final long millis = start + i * 100;
+            // Receiver sends RMC, GGA, GSA each epoch, with some jitter in arrival
+            arrival += 100 + (i % 3) - 1;
+            for (String sentence : epoch(millis, i)) {
+                provider.onNmeaReceived(arrival, sentence);
+            }
+        }
+        provider.onNmeaReceived(arrival + 100, epoch(start + epochs * 100, epochs)[0]);
+
+        // Altimeter saw every epoch
+        assertEquals(epochs, alti.gps_sample_count);
+        assertEquals(epochs, altitudes.size());
+        assertEquals(1000 + epochs - 1, alti.altitude, 1);
+        assertEquals(10, alti.climb, 0.5);
+
+        // Each logged fix has the time and altitude of its own epoch
+        final TrackReader reader = new TrackReader(new StringReader(log.toString()));
+        int rows = 0;
+        while (reader.next()) {
+            assertEquals(TrackReader.GPS, reader.type);
+            assertEquals(start + rows * 100, reader.millis);
+            assertEquals(1000 + rows, reader.altitude, 0.001);
+            assertEquals(47.6062, reader.latitude, 0.0001);
+            rows++;
+        }
+        assertEquals(epochs, rows);
+        assertTrue(provider.refreshRate > 9 && provider.refreshRate < 11);
+    }
+
+    @NonNull
+    private static String[] epoch(long millis, int i) {
+        final long timeOfDay = millis % DAY;
+        final long day = millis / DAY;
+        final String time = String.format(Locale.US, "%02d%02d%02d.%02d",
+                timeOfDay / 3600000, timeOfDay / 60000 % 60, timeOfDay / 1000 % 60, timeOfDay % 1000 / 10);
+        // 2017-12-31 is day 17531, 2018-01-01 is day 17532
+        final String date = day == 17531 ? "311217" : "010118";
+        return new String[] {
+                sentence("GPRMC," + time + ",A,4736.372,N,12219.924,W,020.0,084.4," + date + ",003.1,W"),
+                sentence("GPGGA," + time + ",4736.372,N,12219.924,W,1,08,0.9," + (1000 + i) + ".0,M,46.9,M,,"),
+                sentence("GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1")
+        };
+    }
+
+    @NonNull
+    private static String sentence(@NonNull String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format(Locale.US, "$%s*%02X", body, checksum);
+    }
+
+}
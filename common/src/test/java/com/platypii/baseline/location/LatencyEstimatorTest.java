@@ -0,0 +1,69 @@
+package com.platypii.baseline.location;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ensure that fix latency is measured, and compensated when projecting to now
+ */
+public class LatencyEstimatorTest {
+
+    private static final long T0 = 1500000000000L;
+    private static final double metersPerDegree = 6371000 * Math.PI / 180;
+
+    private final LatencyEstimator estimator = new LatencyEstimator();
+
+    @Test
+    public void measuresLatency() {
+        final Random random = new Random(2018);
+        for (int i = 0; i < 100; i++) {
+            final long gpsMillis = T0 + i * 200;
+            estimator.onFix(gpsMillis, gpsMillis + 300 + random.nextInt(40) - 20);
+        }
+        assertEquals(300, estimator.latency(), 15);
+        assertEquals(T0 - 300, estimator.fixTime(T0), 15);
+    }
+
+    @Test
+    public void ignoresWrongClock() {
+        for (int i = 0; i < 20; i++) {
+            estimator.onFix(T0 + i * 1000, T0 + i * 1000 + 250);
+        }
+        // One fix while the phone clock jumps is ignored
+        estimator.onFix(T0 + 20000, T0 + 20000 - 5000);
+        assertEquals(250, estimator.latency());
+        // Phone clock is wrong for good, stop compensating
+        for (int i = 21; i < 40; i++) {
+            estimator.onFix(T0 + i * 1000, T0 + i * 1000 + 60000);
+        }
+        assertEquals(0, estimator.latency());
+    }
+
+    @Test
+    public void compensatesWingsuit() {
+        // Wingsuit flying north at 60 m/s, fixes arrive 400 ms late
+        final LocationPredictor compensated = new LocationPredictor();
+        final LocationPredictor uncompensated = new LocationPredictor();
+        final LocationPredictor.State state = new LocationPredictor.State();
+        for (int i = 0; i < 50; i++) {
+            final long gpsMillis = i * 200;
+            final long arrival = T0 + gpsMillis + 400;
+            estimator.onFix(T0 + gpsMillis, arrival);
+            compensated.onFix(LocationFilterTest.fix(gpsMillis, 60 * gpsMillis * 0.001, 0, 60, 0), estimator.fixTime(arrival));
+            uncompensated.onFix(LocationFilterTest.fix(gpsMillis, 60 * gpsMillis * 0.001, 0, 60, 0), arrival);
+        }
+        // Position now, when the last fix arrives
+        final double trueNorth = 60 * (49 * 200 + 400) * 0.001;
+        compensated.predict(T0 + 49 * 200 + 400, state);
+        assertEquals(trueNorth, north(state), 0.5);
+        uncompensated.predict(T0 + 49 * 200 + 400, state);
+        assertEquals(trueNorth - 24, north(state), 0.5);
+    }
+
+    private static double north(LocationPredictor.State state) {
+        return (state.latitude - 47.6) * metersPerDegree;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.platform.Log;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Offline harness to replay a recorded track through the location filter.
+ * Skipped unless a track is given: ./gradlew test -Dtrack=track.csv
+ */
+public class LocationFilterReplayTest {
+    private static final String TAG = "LocationFilterReplay";
+
+    @Test
+    public void replay() throws IOException {
+        final String track = System.getProperty("track");
+        assumeTrue(track != null);
+
+        final LocationFilter filter = new LocationFilter();
+        final int[] results = new int[3];
+        double correction = 0;
+        double maxCorrection = 0;
+        final BufferedReader reader = new BufferedReader(new FileReader(track));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,...
+                final String[] split = line.split(",", -1);
+                if (split.length < 10 || !split[2].equals("gps")) continue;
+                final MLocation loc = new MLocation(
+                        Long.parseLong(split[0]), parse(split[4]), parse(split[5]), parse(split[6]), Double.NaN,
+                        parse(split[7]), parse(split[8]), Float.NaN, Float.NaN, Float.NaN, Float.NaN,
+                        split[9].isEmpty() ? -1 : Integer.parseInt(split[9]), -1
+                );
+                final int result = filter.update(loc);
+                results[result]++;
+                if (result != LocationFilter.REJECTED) {
+                    final double d = Geo.distance(loc.latitude, loc.longitude, filter.latitude, filter.longitude);
+                    correction += d;
+                    maxCorrection = Math.max(maxCorrection, d);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        final int kept = results[LocationFilter.ACCEPTED] + results[LocationFilter.SUSPECT];
+        Log.i(TAG, String.format(Locale.US,
+                "%s: accepted %d, suspect %d, rejected %d, mean correction %.2fm, max correction %.2fm",
+                track, results[LocationFilter.ACCEPTED], results[LocationFilter.SUSPECT], results[LocationFilter.REJECTED],
+                kept > 0 ? correction / kept : 0, maxCorrection));
+        // A real track should be mostly accepted
+        assertTrue(kept > results[LocationFilter.REJECTED]);
+    }
+
+    private static double parse(String str) {
+        return str.isEmpty() ? Double.NaN : Double.parseDouble(str);
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that the location filter smooths noise and rejects outliers
+ */
+public class LocationFilterTest {
+
+    private static final long T0 = 1500000000000L;
+    private static final double LAT = 47.6;
+    private static final double LON = -122.3;
+    private static final double metersPerDegree = 6371000 * Math.PI / 180;
+
+    private final LocationFilter filter = new LocationFilter();
+
+    @Test
+    public void smoothsNoise() {
+        // Flying north at 50 m/s with 3 m position noise
+        final Random random = new Random(2018);
+        double rawError = 0;
+        double smoothError = 0;
+        for (int i = 0; i < 300; i++) {
+            final double north = 50 * i * 0.2;
+            final MLocation loc = fix(i * 200, north + 3 * random.nextGaussian(), 3 * random.nextGaussian(), 50, 0);
+            assertTrue(filter.update(loc) != LocationFilter.REJECTED);
+            if (i >= 50) {
+                rawError += Math.abs((loc.latitude - LAT) * metersPerDegree - north);
+                smoothError += Math.abs((filter.latitude - LAT) * metersPerDegree - north);
+            }
+        }
+        assertTrue(smoothError < rawError * 0.8);
+        assertEquals(50, filter.vN, 0.5);
+        assertEquals(0, filter.vE, 0.5);
+    }
+
+    @Test
+    public void rejectsJump() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(LocationFilter.ACCEPTED, filter.update(fix(i * 1000, i * 10, 0, 10, 0)));
+        }
+        // One fix jumps 500 m east
+        assertEquals(LocationFilter.REJECTED, filter.update(fix(20000, 200, 500, 10, 0)));
+        // Filter keeps predicting along the track
+        assertEquals(200, (filter.latitude - LAT) * metersPerDegree, 1);
+        assertEquals(LocationFilter.ACCEPTED, filter.update(fix(21000, 210, 0, 10, 0)));
+    }
+
+    @Test
+    public void flagsSuspect() {
+        for (int i = 0; i < 20; i++) {
+            filter.update(fix(i * 1000, i * 10, 0, 10, 0));
+        }
+        // Moderate jump is kept but flagged
+        assertEquals(LocationFilter.SUSPECT, filter.update(fix(20000, 200, 14, 10, 0)));
+    }
+
+    @Test
+    public void recoversFromRealJump() {
+        for (int i = 0; i < 10; i++) {
+            filter.update(fix(i * 1000, 0, 0, 0, 0));
+        }
+        // Receiver really moved, consecutive rejects restart the filter
+        int rejected = 0;
+        for (int i = 10; i < 20; i++) {
+            if (filter.update(fix(i * 1000, 2000, 0, 0, 0)) == LocationFilter.REJECTED) {
+                rejected++;
+            }
+        }
+        assertTrue(rejected <= 3);
+        assertEquals(2000, (filter.latitude - LAT) * metersPerDegree, 1);
+    }
+
+    @Test
+    public void rejectsNaN() {
+        assertEquals(LocationFilter.REJECTED, filter.update(new MLocation(T0, Double.NaN, Double.NaN, 0, 0, 0, 0, Float.NaN, Float.NaN, Float.NaN, Float.NaN, -1, -1)));
+    }
+
+    /**
+     * Fix at a position in meters north and east of the test origin
+     */
+    static MLocation fix(long millis, double north, double east, double vN, double vE) {
+        final double lat = LAT + north / metersPerDegree;
+        final double lon = LON + east / (metersPerDegree * Math.cos(Math.toRadians(LAT)));
+        return new MLocation(T0 + millis, lat, lon, 1000, 0, vN, vE, 3, 1.5f, 0.9f, 1.2f, 10, 14);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.measurements.MLocation;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that dead reckoning tracks motion between fixes, and lands fixes smoothly
+ */
+public class LocationPredictorTest {
+
+    private static final long T0 = 1500000000000L;
+    private static final double LAT = 47.6;
+    private static final double LON = -122.3;
+    private static final double metersPerDegree = 6371000 * Math.PI / 180;
+    private static final double metersPerDegreeLon = metersPerDegree * Math.cos(Math.toRadians(LAT));
+
+    // Canopy turning a 150 m radius circle at 10 m/s
+    private static final double RADIUS = 150;
+    private static final double SPEED = 10;
+
+    private final LocationPredictor predictor = new LocationPredictor();
+    private final LocationPredictor.State state = new LocationPredictor.State();
+
+    @Test
+    public void invalidBeforeFix() {
+        predictor.predict(T0, state);
+        assertFalse(state.valid);
+    }
+
+    @Test
+    public void straightLine() {
+        predictor.onFix(LocationFilterTest.fix(0, 0, 0, 10, 0), T0);
+        predictor.predict(T0 + 500, state);
+        assertTrue(state.valid);
+        assertEquals(5, north(state), 0.01);
+        assertEquals(0, east(state), 0.01);
+        assertEquals(10, state.groundSpeed(), 0.01);
+        // Prediction horizon is limited
+        predictor.predict(T0 + 60000, state);
+        assertEquals(20, north(state), 0.01);
+    }
+
+    @Test
+    public void beatsHoldingLastFix() {
+        final double holdError = canopyError(false, false);
+        final double predictError = canopyError(true, false);
+        final double accelError = canopyError(true, true);
+        // RMS display error at 60 Hz with 1 Hz fixes, in meters
+        assertEquals(5.7, holdError, 0.5);
+        assertTrue(predictError < holdError * 0.2);
+        assertTrue(predictError < 0.5);
+        assertTrue(accelError < predictError);
+        assertTrue(accelError < 0.05);
+    }
+
+    @Test
+    public void blendsCorrection() {
+        predictor.onFix(LocationFilterTest.fix(0, 0, 0, 10, 0), T0);
+        predictor.predict(T0 + 999, state);
+        final double before = north(state);
+        // Next fix lands 5 m behind the prediction
+        predictor.onFix(LocationFilterTest.fix(1000, 5, 0, 10, 0), T0 + 1000);
+        predictor.predict(T0 + 1000, state);
+        assertEquals(before, north(state), 0.1);
+        // Error is blended out over the next second
+        predictor.predict(T0 + 2000, state);
+        assertEquals(15, north(state), 0.3);
+    }
+
+    @Test
+    public void jumpsOnLargeCorrection() {
+        predictor.onFix(LocationFilterTest.fix(0, 0, 0, 0, 0), T0);
+        predictor.onFix(LocationFilterTest.fix(1000, 1000, 0, 0, 0), T0 + 1000);
+        predictor.predict(T0 + 1000, state);
+        assertEquals(1000, north(state), 0.01);
+    }
+
+    @Test
+    public void altitudeFromBarometer() {
+        predictor.onAltitude(T0, 1000, -5);
+        predictor.predict(T0 + 1000, state);
+        assertEquals(995, state.altitude, 0.01);
+        assertEquals(-5, state.climb, 0.01);
+    }
+
+    /**
+     * RMS distance between displayed and true position, sampled at 60 Hz
+     */
+    private double canopyError(boolean predict, boolean accel) {
+        final LocationPredictor predictor = new LocationPredictor();
+        final LocationPredictor.State state = new LocationPredictor.State();
+        final double omega = SPEED / RADIUS;
+        double displayN = 0;
+        double displayE = 0;
+        double sumSquares = 0;
+        int count = 0;
+        for (long t = 0; t < 120000; t += 1000 / 60) {
+            final double theta = omega * t * 0.001;
+            final double trueN = RADIUS * Math.sin(theta);
+            final double trueE = RADIUS * (1 - Math.cos(theta));
+            if (accel) {
+                // Centripetal acceleration towards the center of the circle
+                final double a = SPEED * omega;
+                predictor.onAcceleration(T0 + t, a * Math.cos(theta), -a * Math.sin(theta));
+            }
+            if (t % 1000 < 1000 / 60) {
+                final MLocation loc = LocationFilterTest.fix(t, trueN, trueE, SPEED * Math.cos(theta), SPEED * Math.sin(theta));
+                predictor.onFix(loc, T0 + t);
+                displayN = trueN;
+                displayE = trueE;
+            }
+            if (predict) {
+                predictor.predict(T0 + t, state);
+                displayN = north(state);
+                displayE = east(state);
+            }
+            if (t >= 2000) {
+                final double dN = displayN - trueN;
+                final double dE = displayE - trueE;
+                sumSquares += dN * dN + dE * dE;
+                count++;
+            }
+        }
+        return Math.sqrt(sumSquares / count);
+    }
+
+    private static double north(LocationPredictor.State state) {
+        return (state.latitude - LAT) * metersPerDegree;
+    }
+
+    private static double east(LocationPredictor.State state) {
+        return (state.longitude - LON) * metersPerDegreeLon;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.measurements.MLocation;
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ensure that malformed sentences are not assembled into fixes
+ */
+public class LocationProviderNMEATest {
+
+    private static final long DATE = NMEA.epochDay(2017, 3, 23) * 24 * 3600000L;
+
+    private final List<MLocation> fixes = new ArrayList<>();
+
+    @NonNull
+    private LocationProviderNMEA provider() {
+        final LocationProviderNMEA provider = new LocationProviderNMEA(new MyAltimeter(null));
+        provider.addListener(new MyLocationListener() {
+            @Override
+            public void onLocationChanged(@NonNull MLocation loc) {
+                fixes.add(loc);
+            }
+        });
+        return provider;
+    }
+
+    @Test
+    public void skipMalformedTime() {
+        final LocationProviderNMEA provider = provider();
+        provider.onNmeaReceived(1000, rmc("120000.00", "230317"));
+        provider.onNmeaReceived(1000, gga("120000.00", 1000));
+        // Would be added to the open epoch if it parsed as midnight
+        provider.onNmeaReceived(1050, gga("12:00:00", 5000));
+        provider.onNmeaReceived(1100, rmc("120000.10", "230317"));
+        provider.onNmeaReceived(1100, gga("120000.10", 1001));
+        provider.onNmeaReceived(1200, rmc("120000.20", "230317"));
+
+        assertEquals(2, fixes.size());
+        assertEquals(DATE + 43200000, fixes.get(0).millis);
+        assertEquals(1000, fixes.get(0).altitude_gps, 0.001);
+        assertEquals(DATE + 43200100, fixes.get(1).millis);
+        assertEquals(1001, fixes.get(1).altitude_gps, 0.001);
+    }
+
+    @Test
+    public void skipMalformedDate() {
+        final LocationProviderNMEA provider = provider();
+        provider.onNmeaReceived(1000, rmc("120000.00", "230317"));
+        provider.onNmeaReceived(1000, gga("120000.00", 1000));
+        provider.onNmeaReceived(1100, rmc("120000.10", "2303"));
+        provider.onNmeaReceived(1200, rmc("120000.20", "230317"));
+        provider.onNmeaReceived(1200, gga("120000.20", 1002));
+        provider.onNmeaReceived(1300, rmc("120000.30", "230317"));
+
+        assertEquals(2, fixes.size());
+        assertEquals(DATE + 43200000, fixes.get(0).millis);
+        assertEquals(DATE + 43200200, fixes.get(1).millis);
+    }
+
+    @Test
+    public void untimedGga() {
+        final LocationProviderNMEA provider = provider();
+        // GGA without a time joins the open epoch
+        provider.onNmeaReceived(1000, rmc("120000.00", "230317"));
+        provider.onNmeaReceived(1050, gga("", 1000));
+        provider.onNmeaReceived(1100, rmc("120000.10", "230317"));
+        provider.onNmeaReceived(1100, gga("120000.10", 1001));
+        // Receiver stalls, then sends a GGA without a time
+        provider.onNmeaReceived(5000, gga("", 5000));
+        provider.onNmeaReceived(5100, rmc("120004.10", "230317"));
+        provider.onNmeaReceived(5100, gga("120004.10", 1041));
+        provider.onNmeaReceived(5200, rmc("120004.20", "230317"));
+
+        assertEquals(3, fixes.size());
+        assertEquals(1000, fixes.get(0).altitude_gps, 0.001);
+        assertEquals(1001, fixes.get(1).altitude_gps, 0.001);
+        assertEquals(1041, fixes.get(2).altitude_gps, 0.001);
+    }
+
+    @NonNull
+    private static String rmc(@NonNull String time, @NonNull String date) {
+        return sentence("GPRMC," + time + ",A,4736.372,N,12219.924,W,020.0,084.4," + date + ",003.1,W");
+    }
+
+    @NonNull
+    private static String gga(@NonNull String time, int altitude) {
+        return sentence("GPGGA," + time + ",4736.372,N,12219.924,W,1,08,0.9," + altitude + ".0,M,46.9,M,,");
+    }
+
+    @NonNull
+    private static String sentence(@NonNull String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format(Locale.US, "$%s*%02X", body, checksum);
+    }
+
+}
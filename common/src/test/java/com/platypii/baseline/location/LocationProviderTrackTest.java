@@ -0,0 +1,58 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.tracks.TrackReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Ensure that a track replays gps, pressure, and sensor rows in order
+ */
+public class LocationProviderTrackTest {
+
+    private final StringBuilder events = new StringBuilder();
+
+    private final LocationProviderTrack.SensorListener listener = new LocationProviderTrack.SensorListener() {
+        @Override
+        public void onPressure(long nano, float pressure) {
+            events.append("alt,");
+        }
+        @Override
+        public void onSensor(int type, long nano, float x, float y, float z) {
+            events.append(type == TrackReader.ACC ? "acc," : "sensor,");
+        }
+        @Override
+        public void onReplayFinished() {}
+    };
+
+    @Test
+    public void replayMaxSpeed() throws IOException {
+        final File file = File.createTempFile("track", ".csv");
+        try {
+            final FileWriter writer = new FileWriter(file);
+            writer.write("millis,nano,sensor,pressure,lat,lon,hMSL,velN,velE,numSV,gX,gY,gZ,rotX,rotY,rotZ,acc\n");
+            writer.write("1500000000000,2000000000,alt,1013.250000\n");
+            writer.write("1500000000100,,gps,,47.600000,-122.300000,1000.000000,10.0,-5.0,9\n");
+            writer.write(",2000200000,acc,,,,,,,,,,,,,,9.810000\n");
+            writer.write(",2000300000,rot,,,,,,,,,,,0.100000,0.200000,0.300000\n");
+            writer.close();
+
+            final long start = System.currentTimeMillis();
+            final LocationProviderTrack replay = new LocationProviderTrack(new MyAltimeter(null), file, LocationProviderTrack.MAX_SPEED, listener);
+            assertEquals(4, replay.replay());
+            assertEquals("alt,acc,sensor,", events.toString());
+            // Fixes are shifted to replay time
+            assertNotNull(replay.lastLoc);
+            assertEquals(47.6, replay.lastLoc.latitude, 0.000001);
+            assertEquals(100, replay.lastLoc.millis - start, 1000);
+        } finally {
+            file.delete();
+        }
+    }
+
+}
@@ -1,8 +1,12 @@
 package com.platypii.baseline.location;
 
 import android.support.annotation.NonNull;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -33,6 +37,43 @@ public class NMEATest {
         assertTrue(validate("$PGLOR,1,SAT,G29,025,1F,G02,023,1F,R20,013,37,G12,011,0,G31,021,1F,G05,015,1F,G21,011,0,G20,011,0,G26,015,3F,G23,011,0*5"));
     }
 
+    @Test
+    public void parseDate() {
+        final Calendar cal = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+        cal.clear();
+        for (String date : new String[] {"010170", "230394", "290200", "280201", "010301", "311299", "191026", "311269"}) {
+            final int day = Integer.parseInt(date.substring(0, 2));
+            final int month = Integer.parseInt(date.substring(2, 4)) - 1;
+            int year = 1900 + Integer.parseInt(date.substring(4, 6));
+            if (year < 1970) year += 100;
+            cal.set(year, month, day, 0, 0, 0);
+            assertEquals(date, cal.getTimeInMillis(), NMEA.parseDate(date));
+            // Cached
+            assertEquals(date, cal.getTimeInMillis(), NMEA.parseDate(date));
+        }
+        assertEquals(-1, NMEA.parseDate(""));
+        assertEquals(-1, NMEA.parseDate("0A0170"));
+        assertEquals(-1, NMEA.parseDate("3103"));
+        assertEquals(-1, NMEA.parseDate("320118"));
+        assertEquals(-1, NMEA.parseDate("310418"));
+        assertEquals(-1, NMEA.parseDate("290218"));
+    }
+
+    @Test
+    public void parseTime() {
+        assertEquals(45296000, NMEA.parseTime("123456"));
+        assertEquals(45296500, NMEA.parseTime("123456.5"));
+        assertEquals(45296250, NMEA.parseTime("123456.25"));
+        assertEquals(45296123, NMEA.parseTime("123456.1234"));
+        assertEquals(86399990, NMEA.parseTime("235959.99"));
+        assertEquals(0, NMEA.parseTime("000000.00"));
+        assertEquals(-1, NMEA.parseTime(""));
+        assertEquals(-1, NMEA.parseTime("12:34"));
+        assertEquals(-1, NMEA.parseTime("1234567"));
+        assertEquals(-1, NMEA.parseTime("123456.5x"));
+        assertEquals(-1, NMEA.parseTime("250000"));
+    }
+
     private static boolean validate(@NonNull String nmea) {
         try {
             NMEA.validate(nmea);
@@ -0,0 +1,74 @@
+package com.platypii.baseline.location;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that UBX-NAV-PVT payloads are decoded correctly
+ */
+public class NavPvtTest {
+
+    @Test
+    public void decode() {
+        final NavPvt pvt = new NavPvt();
+        // Decode from an offset, as the framer does
+        pvt.decode(payload(4, 3, 0x01), 4);
+
+        assertTrue(pvt.valid);
+        assertEquals(3, pvt.fixType);
+        assertEquals(14, pvt.numSV);
+        // 2018-07-04 12:34:56.789 UTC
+        assertEquals(1530707696789L, pvt.millis);
+        assertEquals(47.6062095, pvt.latitude, 1e-9);
+        assertEquals(-122.3320708, pvt.longitude, 1e-9);
+        assertEquals(1234.567, pvt.altitude_gps, 1e-9);
+        assertEquals(2.5, pvt.hAcc, 1e-6);
+        assertEquals(4.0, pvt.vAcc, 1e-6);
+        assertEquals(-12.345, pvt.vN, 1e-9);
+        assertEquals(6.789, pvt.vE, 1e-9);
+        assertEquals(50.0, pvt.vD, 1e-9);
+        assertEquals(0.3, pvt.sAcc, 1e-6);
+        assertEquals(1.52, pvt.pdop, 1e-6);
+    }
+
+    @Test
+    public void noFix() {
+        final NavPvt pvt = new NavPvt();
+        pvt.decode(payload(0, 0, 0x00), 0);
+        assertFalse(pvt.valid);
+        pvt.decode(payload(0, 3, 0x00), 0);
+        assertFalse(pvt.valid);
+    }
+
+    private static byte[] payload(int start, int fixType, int flags) {
+        final ByteBuffer buf = ByteBuffer.allocate(start + NavPvt.LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putShort(start + 4, (short) 2018);
+        buf.put(start + 6, (byte) 7);
+        buf.put(start + 7, (byte) 4);
+        buf.put(start + 8, (byte) 12);
+        buf.put(start + 9, (byte) 34);
+        buf.put(start + 10, (byte) 56);
+        buf.put(start + 11, (byte) 0x07); // validDate, validTime, fullyResolved
+        buf.putInt(start + 16, 789000000); // nano
+        buf.put(start + 20, (byte) fixType);
+        buf.put(start + 21, (byte) flags);
+        buf.put(start + 23, (byte) 14);
+        buf.putInt(start + 24, -1223320708);
+        buf.putInt(start + 28, 476062095);
+        buf.putInt(start + 36, 1234567);
+        buf.putInt(start + 40, 2500);
+        buf.putInt(start + 44, 4000);
+        buf.putInt(start + 48, -12345);
+        buf.putInt(start + 52, 6789);
+        buf.putInt(start + 56, 50000);
+        buf.putInt(start + 68, 300);
+        buf.putShort(start + 76, (short) 152);
+        return buf.array();
+    }
+
+}
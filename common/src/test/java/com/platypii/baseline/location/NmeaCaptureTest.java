@@ -0,0 +1,115 @@
+package com.platypii.baseline.location;
+
+import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.platform.Log;
+import android.support.annotation.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Locale;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Ensure that raw nmea captures round trip, and replay through the parser.
+ * Replay a corpus of real captures as a parser benchmark: ./gradlew test -Dnmea=captures/
+ */
+public class NmeaCaptureTest {
+
+    private static final String TAG = "NmeaCaptureTest";
+
+    private static final long DAY = 24 * 3600000;
+
+    @Test
+    public void roundTrip() throws IOException {
+        final StringWriter out = new StringWriter();
+        final NmeaCapture capture = new NmeaCapture(out);
+        capture.write(1500000000000L, "$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39\r\n");
+        capture.write(1500000000012L, "$GPRMC,225446,A,4916.45,N,12311.12,W,000.5,054.7,191194,020.3,E*68\0");
+        // Clock went backwards
+        capture.write(1500000000002L, "$GPVTG,054.7,T,034.4,M,005.5,N,010.2,K*48");
+        capture.close();
+        assertTrue(out.toString().startsWith("1500000000000,$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39\n12,$GPRMC,"));
+
+        final NmeaCapture.Reader reader = new NmeaCapture.Reader(new StringReader(out.toString() + "garbage\n"));
+        assertTrue(reader.next());
+        assertEquals(1500000000000L, reader.timestamp);
+        assertEquals("$GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1*39", reader.sentence);
+        assertTrue(reader.next());
+        assertEquals(1500000000012L, reader.timestamp);
+        assertEquals("$GPRMC,225446,A,4916.45,N,12311.12,W,000.5,054.7,191194,020.3,E*68", reader.sentence);
+        assertTrue(reader.next());
+        assertEquals(1500000000002L, reader.timestamp);
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void replayMaxSpeed() throws IOException {
+        final File file = File.createTempFile("capture", ".nmea.txt.gz");
+        try {
+            // One hour at 5 Hz
+            final NmeaCapture capture = new NmeaCapture(file);
+            final long start = NMEA.epochDay(2018, 6, 1) * DAY + 43200000;
+            for (int i = 0; i < 18000; i++) {
+                final long millis = start + i * 200;
+                for (String sentence : epoch(millis, i)) {
+                    capture.write(millis + 50, sentence);
+                }
+            }
+            capture.close();
+
+            final LocationProviderReplay replay = new LocationProviderReplay(new MyAltimeter(null), file, LocationProviderReplay.MAX_SPEED);
+            assertEquals(54000, replay.replay());
+            // An hour of sentences should parse in well under a minute
+            assertTrue(replay.elapsedNanos < 60e9);
+            assertNotNull(replay.lastLoc);
+            assertEquals(start + 17999 * 200, replay.lastLoc.millis);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void replayCorpus() throws IOException {
+        final String corpus = System.getProperty("nmea");
+        assumeTrue(corpus != null);
+        final File[] files = new File(corpus).listFiles((dir, name) -> name.endsWith(".txt.gz"));
+        assertNotNull("Not a directory: " + corpus, files);
+        long sentences = 0;
+        long nanos = 0;
+        for (File file : files) {
+            final LocationProviderReplay replay = new LocationProviderReplay(new MyAltimeter(null), file, LocationProviderReplay.MAX_SPEED);
+            sentences += replay.replay();
+            nanos += replay.elapsedNanos;
+        }
+        Log.i(TAG, String.format(Locale.US, "Corpus: %d files, %d sentences, %.0f sentences/s", files.length, sentences, sentences / (nanos * 1e-9)));
+    }
+
+    @NonNull
+    private static String[] epoch(long millis, int i) {
+        final long timeOfDay = millis % DAY;
+        final String time = String.format(Locale.US, "%02d%02d%02d.%02d",
+                timeOfDay / 3600000, timeOfDay / 60000 % 60, timeOfDay / 1000 % 60, timeOfDay % 1000 / 10);
+        return new String[] {
+                sentence("GPRMC," + time + ",A,4736.372,N,12219.924,W,020.0,084.4,010618,003.1,W"),
+                sentence("GPGGA," + time + ",4736.372,N,12219.924,W,1,08,0.9," + (1000 + i % 100) + ".0,M,46.9,M,,"),
+                sentence("GPGSA,A,3,04,05,,09,12,,,24,,,,,2.5,1.3,2.1")
+        };
+    }
+
+    @NonNull
+    private static String sentence(@NonNull String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format(Locale.US, "$%s*%02X", body, checksum);
+    }
+
+}
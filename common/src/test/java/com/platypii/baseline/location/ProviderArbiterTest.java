@@ -0,0 +1,77 @@
+package com.platypii.baseline.location;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that the arbiter fails over quickly, and switches back with hysteresis
+ */
+public class ProviderArbiterTest {
+
+    private static final long T0 = 1500000000000L;
+
+    private final ProviderArbiter arbiter = new ProviderArbiter();
+
+    @Test
+    public void firstSourceWins() {
+        assertTrue(arbiter.offer(ProviderArbiter.NMEA, T0, 1.0f, 8));
+        assertEquals(ProviderArbiter.NMEA, arbiter.active());
+        // Fresh primary keeps serving
+        assertFalse(arbiter.offer(ProviderArbiter.ANDROID, T0 + 100, Float.NaN, -1));
+        assertTrue(arbiter.offer(ProviderArbiter.NMEA, T0 + 1000, 1.0f, 8));
+    }
+
+    @Test
+    public void failoverWithinOneEpoch() {
+        // Bluetooth at 10 Hz is primary, phone at 1 Hz is standby
+        for (long t = 0; t < 5000; t += 50) {
+            if (t % 100 == 0) {
+                assertTrue(arbiter.offer(ProviderArbiter.BLUETOOTH, T0 + t, 0.8f, 12));
+            }
+            if (t % 1000 == 50) {
+                assertFalse(arbiter.offer(ProviderArbiter.NMEA, T0 + t, 1.2f, 9));
+            }
+        }
+        // Bluetooth drops out after T0 + 4900, the phone fix right after is within the stale window
+        assertFalse(arbiter.offer(ProviderArbiter.NMEA, T0 + 5050, 1.2f, 9));
+        // Next phone fix takes over
+        assertTrue(arbiter.offer(ProviderArbiter.NMEA, T0 + 6050, 1.2f, 9));
+        assertEquals(ProviderArbiter.NMEA, arbiter.active());
+    }
+
+    @Test
+    public void switchBackWithHysteresis() {
+        arbiter.offer(ProviderArbiter.NMEA, T0, 1.2f, 9);
+        // Bluetooth comes back, but must be stable before taking over
+        long t = 100;
+        for (; t < 3100; t += 100) {
+            assertFalse(arbiter.offer(ProviderArbiter.BLUETOOTH, T0 + t, 0.8f, 12));
+            if (t % 1000 == 0) {
+                arbiter.offer(ProviderArbiter.NMEA, T0 + t, 1.2f, 9);
+            }
+        }
+        assertTrue(arbiter.offer(ProviderArbiter.BLUETOOTH, T0 + t, 0.8f, 12));
+        assertEquals(ProviderArbiter.BLUETOOTH, arbiter.active());
+    }
+
+    @Test
+    public void worseSourceDoesNotTakeOver() {
+        // Android location never beats fresh phone nmea
+        for (long t = 0; t < 10000; t += 1000) {
+            assertTrue(arbiter.offer(ProviderArbiter.NMEA, T0 + t, 1.2f, 9));
+            assertFalse(arbiter.offer(ProviderArbiter.ANDROID, T0 + t + 10, Float.NaN, -1));
+        }
+    }
+
+    @Test
+    public void reset() {
+        arbiter.offer(ProviderArbiter.BLUETOOTH, T0, 0.8f, 12);
+        arbiter.reset();
+        assertEquals(ProviderArbiter.NONE, arbiter.active());
+        assertTrue(arbiter.offer(ProviderArbiter.ANDROID, T0 + 100, Float.NaN, -1));
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.platypii.baseline.location;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that satellites are assembled from multi-part GSV messages
+ */
+public class SatelliteTableTest {
+
+    @Test
+    public void multipartGsv() {
+        final SatelliteTable table = new SatelliteTable();
+        table.updateGSV(NMEA.splitNmea("$GPGSV,2,1,06,02,47,067,38,05,20,306,30,06,56,127,44,12,10,025,*7B"));
+        // Not published until the group is complete
+        assertEquals(0, table.inView());
+        table.updateGSV(NMEA.splitNmea("$GPGSV,2,2,06,13,03,145,,19,41,195,41*7C"));
+        assertEquals(6, table.count[SatelliteTable.GPS]);
+        assertEquals(2, table.prn[0]);
+        assertEquals(47, table.elevation[0]);
+        assertEquals(67, table.azimuth[0]);
+        assertEquals(38, table.snr[0]);
+        // Missing snr means not tracking
+        assertEquals(-1, table.snr[4]);
+        table.updateGSV(NMEA.splitNmea("$GLGSV,1,1,02,65,30,100,35,72,60,200,40*6A"));
+        assertEquals(2, table.count[SatelliteTable.GLONASS]);
+        assertEquals(8, table.inView());
+    }
+
+    @Test
+    public void usedInFix() {
+        final SatelliteTable table = new SatelliteTable();
+        table.updateGSV(NMEA.splitNmea("$GPGSV,1,1,03,02,47,067,38,05,20,306,30,06,56,127,44*7B"));
+        table.updateGSA(NMEA.splitNmea("$GPGSA,A,3,02,06,,,,,,,,,,,1.8,1.0,1.5*33"));
+        assertTrue(table.used[0]);
+        assertFalse(table.used[1]);
+        assertTrue(table.used[2]);
+        // GNGSA with PRNs in the GLONASS range
+        table.updateGSV(NMEA.splitNmea("$GLGSV,1,1,01,65,30,100,35*6A"));
+        table.updateGSA(NMEA.splitNmea("$GNGSA,A,3,65,,,,,,,,,,,,1.8,1.0,1.5*33"));
+        assertTrue(table.used[SatelliteTable.MAX_SATELLITES]);
+    }
+
+    @Test
+    public void mixedGsv() {
+        final SatelliteTable table = new SatelliteTable();
+        // GN talker, sorted into constellations by satellite id
+        table.updateGSV(NMEA.splitNmea("$GNGSV,2,1,05,02,47,067,38,70,20,306,30,305,56,127,44,410,10,025,*7B"));
+        table.updateGSV(NMEA.splitNmea("$GNGSV,2,2,05,13,03,145,*7C"));
+        assertEquals(5, table.inView());
+        assertEquals(2, table.count[SatelliteTable.GPS]);
+        assertEquals(1, table.count[SatelliteTable.GLONASS]);
+        assertEquals(1, table.count[SatelliteTable.GALILEO]);
+        assertEquals(1, table.count[SatelliteTable.BEIDOU]);
+        assertEquals(305, table.prn[SatelliteTable.GALILEO * SatelliteTable.MAX_SATELLITES]);
+        // Next group replaces the last one in every constellation
+        table.updateGSV(NMEA.splitNmea("$GNGSV,1,1,01,02,47,067,38*7B"));
+        assertEquals(1, table.inView());
+    }
+
+}
@@ -0,0 +1,285 @@
+package com.platypii.baseline.sim;
+
+import com.platypii.baseline.altimeter.BaroAltimeter;
+import com.platypii.baseline.altimeter.BaroFilter;
+import com.platypii.baseline.altimeter.MyAltimeter;
+import com.platypii.baseline.location.LocationProviderReplay;
+import com.platypii.baseline.location.LocationProviderTrack;
+import com.platypii.baseline.location.NmeaCapture;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.util.SyncedList;
+import android.support.annotation.NonNull;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that simulated flights are plausible, and drive each stage of the pipeline
+ * from a simulated flight at increasing rates, checking that each stage gives the right results.
+ * Throughput against real time is only checked when opted in: ./gradlew test -Dbenchmark
+ */
+public class FlightSimulatorTest {
+
+    private static final boolean benchmark = System.getProperty("benchmark") != null;
+
+    @Test
+    public void flightPhases() {
+        final FlightSimulator sim = new FlightSimulator();
+        final double[] maxAltitude = {0};
+        final double[] minClimb = {0};
+        final int[] counts = new int[3];
+        final long duration = sim.run(new FlightSimulator.Listener() {
+            @Override
+            public void onNmea(long millis, @NonNull String nmea) {
+                assertValid(nmea);
+                counts[0]++;
+                maxAltitude[0] = Math.max(maxAltitude[0], sim.altitude);
+                minClimb[0] = Math.min(minClimb[0], sim.climb);
+            }
+            @Override
+            public void onPressure(long nano, float pressure) {
+                counts[1]++;
+            }
+            @Override
+            public void onAccel(long nano, float x, float y, float z) {
+                counts[2]++;
+            }
+        });
+        assertEquals(FlightSimulator.LANDED, sim.phase);
+        assertEquals(4000, maxAltitude[0], 10);
+        assertEquals(-55, minClimb[0], 1);
+        // Canopy flies back to the dropzone
+        assertTrue(Math.hypot(sim.north, sim.east) < 500);
+        // Rates
+        final double seconds = duration * 1e-3;
+        assertEquals(3 * 5, counts[0] / seconds, 0.1);
+        assertEquals(25, counts[1] / seconds, 0.1);
+        assertEquals(100, counts[2] / seconds, 0.1);
+    }
+
+    @Test
+    public void wingsuit() {
+        final FlightSimulator sim = new FlightSimulator();
+        sim.wingsuit = true;
+        sim.gpsRate = 1;
+        final double[] maxSpeed = {0};
+        sim.run(new Listener() {
+            @Override
+            public void onNmea(long millis, @NonNull String nmea) {
+                if (sim.phase == FlightSimulator.FREEFALL) {
+                    maxSpeed[0] = Math.max(maxSpeed[0], Math.hypot(sim.vN, sim.vE));
+                }
+            }
+        });
+        assertEquals(45, maxSpeed[0], 6);
+    }
+
+    @Test
+    public void pressureAltitude() {
+        assertEquals(3000, BaroFilter.pressureToAltitude(FlightSimulator.altitudeToPressure(3000)), 0.001);
+    }
+
+    /**
+     * NMEA parser, from a simulated capture replayed at maximum speed
+     */
+    @Test
+    public void saturateNmea() throws IOException {
+        for (double rate : new double[] {1, 10, 100}) {
+            final File file = File.createTempFile("sim", ".nmea.txt.gz");
+            try {
+                final FlightSimulator sim = fastFlight();
+                sim.gpsRate = rate;
+                final NmeaCapture capture = new NmeaCapture(file);
+                final long duration = sim.run(new Listener() {
+                    @Override
+                    public void onNmea(long millis, @NonNull String nmea) {
+                        capture.write(millis, nmea);
+                    }
+                });
+                capture.close();
+                final LocationProviderReplay replay = new LocationProviderReplay(new MyAltimeter(null), file, LocationProviderReplay.MAX_SPEED);
+                replay.replay();
+                assertNotNull(replay.lastLoc);
+                assertFasterThanRealTime("nmea", rate, replay.elapsedNanos, duration);
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Barometric altimeter filter
+     */
+    @Test
+    public void saturateBaro() {
+        for (double rate : new double[] {10, 100, 1000}) {
+            final FlightSimulator sim = fastFlight();
+            sim.baroRate = rate;
+            final BaroAltimeter baro = new BaroAltimeter();
+            final long[] nanos = {0};
+            final long duration = sim.run(new Listener() {
+                @Override
+                public void onPressure(long nano, float pressure) {
+                    final long start = System.nanoTime();
+                    baro.replayPressure(nano, pressure);
+                    nanos[0] += System.nanoTime() - start;
+                }
+            });
+            assertFasterThanRealTime("baro", rate, nanos[0], duration);
+            // Filter keeps up with the sensor, and lands at ground level
+            assertEquals(rate, baro.refreshRate, rate * 0.01);
+            assertEquals(sim.groundAltitude + sim.altitude, baro.pressure_altitude_filtered, 5);
+        }
+    }
+
+    /**
+     * Sensor history list, appended by the sensor thread and copied by the ui
+     */
+    @Test
+    public void saturateSyncedList() {
+        for (double rate : new double[] {100, 1000}) {
+            final FlightSimulator sim = fastFlight();
+            sim.accelRate = rate;
+            final SyncedList<Float> list = new SyncedList<>();
+            list.setMaxSize(1000);
+            final long[] nanos = {0};
+            final long[] count = {0};
+            final long duration = sim.run(new Listener() {
+                @Override
+                public void onAccel(long nano, float x, float y, float z) {
+                    final long start = System.nanoTime();
+                    list.append(z);
+                    // Plot reads the list at 30 fps
+                    if (count[0] % (long) (rate / 30) == 0) {
+                        synchronized (list) {
+                            for (Float value : list) {
+                                assertNotNull(value);
+                            }
+                        }
+                    }
+                    nanos[0] += System.nanoTime() - start;
+                    count[0]++;
+                }
+            });
+            int retained = 0;
+            for (Float value : list) {
+                retained++;
+            }
+            assertEquals(1000, retained);
+            assertFasterThanRealTime("synced list", rate, nanos[0], duration);
+        }
+    }
+
+    /**
+     * Track file rows, written as the track logger does, then replayed
+     */
+    @Test
+    public void saturateTrackLog() throws IOException {
+        for (double rate : new double[] {10, 100, 1000}) {
+            final File file = File.createTempFile("sim", ".csv.gz");
+            try {
+                final FlightSimulator sim = fastFlight();
+                sim.gpsRate = rate / 10;
+                sim.baroRate = rate;
+                final BufferedWriter log = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file))));
+                log.write(Measurement.header + "\n");
+                final long[] count = {0};
+                final long writeStart = System.nanoTime();
+                final long duration = sim.run(new Listener() {
+                    @Override
+                    public void onNmea(long millis, @NonNull String nmea) {
+                        if (nmea.startsWith("$GPGGA")) {
+                            write(new MLocation(millis, sim.latitude, sim.longitude, sim.groundAltitude + sim.altitude, sim.climb,
+                                    sim.vN, sim.vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 10, -1));
+                        }
+                    }
+                    @Override
+                    public void onPressure(long nano, float pressure) {
+                        write(new MPressure(sim.startMillis + nano / 1000000L, nano, Double.NaN, Double.NaN, pressure));
+                    }
+                    private void write(@NonNull Measurement measurement) {
+                        try {
+                            log.write(measurement.toRow());
+                            log.write('\n');
+                            count[0]++;
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+                log.close();
+                assertFasterThanRealTime("track write", rate, System.nanoTime() - writeStart, duration);
+
+                final LocationProviderTrack replay = new LocationProviderTrack(new MyAltimeter(null), file, LocationProviderTrack.MAX_SPEED, new LocationProviderTrack.SensorListener() {
+                    @Override
+                    public void onPressure(long nano, float pressure) {}
+                    @Override
+                    public void onSensor(int type, long nano, float x, float y, float z) {}
+                    @Override
+                    public void onReplayFinished() {}
+                });
+                assertEquals(count[0], replay.replay());
+                assertFasterThanRealTime("track read", rate, replay.elapsedNanos, duration);
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Short flight without ground time, for the saturation tests
+     */
+    @NonNull
+    private static FlightSimulator fastFlight() {
+        final FlightSimulator sim = new FlightSimulator();
+        sim.groundTime = 0;
+        sim.exitAltitude = 1500;
+        sim.deployAltitude = 800;
+        sim.climbRate = 50;
+        return sim;
+    }
+
+    /**
+     * Processing must keep well ahead of the sensors, with headroom for slow phones.
+     * Depends on wall-clock time, so only checked when benchmarking.
+     */
+    private static void assertFasterThanRealTime(@NonNull String stage, double rate, long nanos, long durationMillis) {
+        if (!benchmark) return;
+        final double realTime = durationMillis * 1e6 / nanos;
+        assertTrue(String.format(Locale.US, "%s @ %.0f Hz: %.0fx real time", stage, rate, realTime), realTime > 20);
+    }
+
+    private static void assertValid(@NonNull String nmea) {
+        assertTrue(nmea, nmea.startsWith("$"));
+        final int star = nmea.indexOf('*');
+        int checksum = 0;
+        for (int i = 1; i < star; i++) {
+            checksum ^= nmea.charAt(i);
+        }
+        assertEquals(nmea, checksum, Integer.parseInt(nmea.substring(star + 1), 16));
+    }
+
+    /**
+     * Listener with empty defaults
+     */
+    private static class Listener implements FlightSimulator.Listener {
+        @Override
+        public void onNmea(long millis, @NonNull String nmea) {}
+        @Override
+        public void onPressure(long nano, float pressure) {}
+        @Override
+        public void onAccel(long nano, float x, float y, float z) {}
+    }
+
+}
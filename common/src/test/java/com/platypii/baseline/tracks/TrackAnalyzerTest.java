@@ -0,0 +1,139 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.diagnostics.FlightRecorder;
+import com.platypii.baseline.diagnostics.Metrics;
+import com.platypii.baseline.location.TimeOffset;
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.measurements.Measurement;
+import com.platypii.baseline.sim.FlightSimulator;
+import android.support.annotation.NonNull;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that jump events are found in a simulated track
+ */
+public class TrackAnalyzerTest {
+
+    @Test
+    public void skydive() throws IOException {
+        final FlightSimulator sim = new FlightSimulator();
+        final File file = File.createTempFile("sim", ".csv.gz");
+        try {
+            final long duration = writeTrack(sim, file);
+            final StringWriter kml = new StringWriter();
+            final TrackSummary summary = TrackAnalyzer.analyze(file, "sim.csv.gz", Collections.<TrackExporter>singletonList(new KmlExporter(kml)));
+
+            assertEquals(0, summary.badRows);
+            assertEquals(duration * 1e-3, summary.duration, 1);
+            assertEquals(5, summary.gpsHz(), 0.1);
+            assertEquals(0, summary.gaps);
+            // Events are found a few seconds late, from the lag of the filtered climb rate
+            assertEquals(4000, summary.exitAltitude, 200);
+            assertEquals(1000, summary.deployAltitude, 200);
+            assertEquals(4000, summary.maxAltitude, 20);
+            assertEquals(55, summary.maxFallRate, 5);
+            assertTrue(summary.freefallTime() > 45 && summary.freefallTime() < 70);
+            assertTrue(summary.canopyTime() > 150);
+            assertTrue(summary.landingTime < summary.duration);
+            assertEquals(summary.gpsFixes, count(kml.toString(), "<gx:coord>"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void wingsuit() throws IOException {
+        final FlightSimulator sim = new FlightSimulator();
+        sim.wingsuit = true;
+        final File file = File.createTempFile("sim", ".csv.gz");
+        try {
+            writeTrack(sim, file);
+            final TrackSummary summary = TrackAnalyzer.analyze(file, "sim.csv.gz", Collections.<TrackExporter>emptyList());
+            assertEquals(2.2, summary.glideMean, 0.5);
+            assertTrue(summary.freefallTime() > 120);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void staysOutOfLiveDiagnostics() throws IOException {
+        final FlightSimulator sim = new FlightSimulator();
+        final File file = File.createTempFile("sim", ".csv.gz");
+        try {
+            writeTrack(sim, file);
+            final long doubleUpdates = Metrics.counter("errors.baro.double_update").get();
+            FlightRecorder.record(FlightRecorder.BLUETOOTH, -42);
+            TimeOffset.phoneOffsetMillis = 3600000;
+            final TrackSummary summary = TrackAnalyzer.analyze(file, "sim.csv.gz", Collections.<TrackExporter>emptyList());
+            assertEquals(4000, summary.exitAltitude, 200);
+            // No auto stop events in the live recorder
+            final StringWriter recorder = new StringWriter();
+            FlightRecorder.write(recorder);
+            assertTrue(recorder.toString().endsWith(",bluetooth,-42\n"));
+            assertEquals(doubleUpdates, Metrics.counter("errors.baro.double_update").get());
+        } finally {
+            TimeOffset.phoneOffsetMillis = 0;
+            file.delete();
+        }
+    }
+
+    /**
+     * Write a simulated flight in the track logger format
+     */
+    static long writeTrack(@NonNull FlightSimulator sim, @NonNull File file) throws IOException {
+        final Writer log = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file))));
+        try {
+            log.write(Measurement.header + "\n");
+            return sim.run(new FlightSimulator.Listener() {
+                @Override
+                public void onNmea(long millis, @NonNull String nmea) {
+                    if (nmea.startsWith("$GPGGA")) {
+                        final double lat = sim.latitude + sim.north / 111195.0;
+                        final double lon = sim.longitude + sim.east / (111195.0 * Math.cos(Math.toRadians(sim.latitude)));
+                        write(new MLocation(millis, lat, lon, sim.groundAltitude + sim.altitude, sim.climb,
+                                sim.vN, sim.vE, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 10, -1));
+                    }
+                }
+                @Override
+                public void onPressure(long nano, float pressure) {
+                    write(new MPressure(sim.startMillis + nano / 1000000L, nano, Double.NaN, Double.NaN, pressure));
+                }
+                @Override
+                public void onAccel(long nano, float x, float y, float z) {}
+                private void write(@NonNull Measurement measurement) {
+                    try {
+                        log.write(measurement.toRow());
+                        log.write('\n');
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        } finally {
+            log.close();
+        }
+    }
+
+    private static long count(@NonNull String str, @NonNull String sub) {
+        long count = 0;
+        for (int i = str.indexOf(sub); i >= 0; i = str.indexOf(sub, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.sim.FlightSimulator;
+import android.support.annotation.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that batches merge results, resume from saved summaries, and can be cancelled
+ */
+public class TrackBatchTest {
+
+    @Test
+    public void parallel() throws IOException {
+        final File dir = createTracks(4);
+        try {
+            final List<File> files = tracks(dir);
+            final Listener listener = new Listener();
+            final TrackBatch batch = new TrackBatch(files, listener);
+            final TrackStats stats = batch.runParallel(Runtime.getRuntime().availableProcessors());
+            assertEquals(4, stats.tracks);
+            assertEquals(4, stats.jumps);
+            assertEquals(0, stats.failed);
+            assertEquals(4, batch.processed.get());
+            assertEquals(4, listener.done);
+            assertEquals(1000, stats.deployAltitude.mean(), 200);
+
+            // Second run reads the saved summaries
+            final TrackBatch again = new TrackBatch(files, new Listener());
+            final TrackStats saved = again.run();
+            assertEquals(4, again.skipped.get());
+            assertEquals(0, again.processed.get());
+            assertEquals(stats.freefallTime, saved.freefallTime, 0.5);
+            assertEquals(stats.maxFallRate, saved.maxFallRate, 0.1);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void cancel() throws IOException {
+        final File dir = createTracks(2);
+        try {
+            final List<File> files = tracks(dir);
+            final Listener listener = new Listener();
+            final TrackBatch batch = new TrackBatch(files, listener);
+            // Cancel after the first track
+            listener.cancelAfter = batch;
+            final TrackStats stats = batch.run();
+            assertTrue(batch.isCancelled());
+            assertEquals(1, stats.tracks);
+
+            // Resume
+            final TrackBatch resumed = new TrackBatch(files, new Listener());
+            assertEquals(2, resumed.run().tracks);
+            assertEquals(1, resumed.skipped.get());
+            assertEquals(1, resumed.processed.get());
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void summaryRow() {
+        final TrackSummary summary = new TrackSummary("track.csv.gz", 1234);
+        summary.gpsFixes = 50;
+        summary.duration = 10;
+        summary.exitTime = 2;
+        summary.deployTime = 5.5;
+        final TrackSummary parsed = TrackSummary.fromRow(summary.toRow());
+        assertNotNull(parsed);
+        assertEquals(summary.toRow(), parsed.toRow());
+        assertEquals(null, TrackSummary.fromRow("track.csv.gz,1234"));
+    }
+
+    private static class Listener implements TrackBatch.Listener {
+        int done = 0;
+        TrackBatch cancelAfter;
+        @Override
+        public synchronized void onProgress(int done, int total) {
+            this.done = done;
+            if (cancelAfter != null) {
+                cancelAfter.cancel();
+            }
+        }
+        @Override
+        public boolean isBusy() {
+            return false;
+        }
+    }
+
+    @NonNull
+    private static File createTracks(int count) throws IOException {
+        final File dir = File.createTempFile("tracks", "");
+        dir.delete();
+        dir.mkdir();
+        for (int i = 0; i < count; i++) {
+            final FlightSimulator sim = new FlightSimulator();
+            sim.seed = i;
+            TrackAnalyzerTest.writeTrack(sim, new File(dir, "track_" + i + ".csv.gz"));
+        }
+        return dir;
+    }
+
+    @NonNull
+    private static List<File> tracks(@NonNull File dir) {
+        final List<File> files = new ArrayList<>();
+        for (File file : dir.listFiles()) {
+            if (file.getName().endsWith(".csv.gz")) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static void delete(@NonNull File dir) {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+}
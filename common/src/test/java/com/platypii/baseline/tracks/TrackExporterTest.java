@@ -0,0 +1,160 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.Measurement;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that tracks export to each format
+ */
+public class TrackExporterTest {
+
+    private static final MLocation loc1 = new MLocation(1500000000100L, 47.6, -122.3, 1000, -50, 10, -5, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 9, -1);
+    private static final MLocation loc2 = new MLocation(1500000000300L, 47.61, -122.31, 990.25, -50, 10, -5, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 9, -1);
+
+    @Test
+    public void kml() throws IOException {
+        final String kml = export("kml");
+        assertTrue(kml.startsWith("<?xml"));
+        assertTrue(kml.contains("<name>Jump &amp; more</name>"));
+        assertTrue(kml.contains("<when>2017-07-14T02:40:00.100Z</when><gx:coord>-122.3000000 47.6000000 1000.0</gx:coord>"));
+        assertTrue(kml.contains("<when>2017-07-14T02:40:00.300Z</when><gx:coord>-122.3100000 47.6100000 990.3</gx:coord>"));
+        assertTrue(kml.endsWith("</kml>\n"));
+    }
+
+    @Test
+    public void gpx() throws IOException {
+        final String gpx = export("gpx");
+        assertTrue(gpx.contains("<trkpt lat=\"47.6000000\" lon=\"-122.3000000\"><ele>1000.0</ele><time>2017-07-14T02:40:00.100Z</time></trkpt>"));
+        assertTrue(gpx.endsWith("</gpx>\n"));
+    }
+
+    @Test
+    public void csv() throws IOException {
+        final String[] lines = export("csv").split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("time,lat,lon,alt,velN,velE,climb", lines[0]);
+        assertEquals("2017-07-14T02:40:00.100Z,47.6000000,-122.3000000,1000.0,10.00,-5.00,-50.00", lines[1]);
+    }
+
+    @Test
+    public void geojson() throws IOException {
+        final String json = export("geojson");
+        assertTrue(json.startsWith("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\""));
+        assertTrue(json.contains("[-122.3000000,47.6000000,1000.0],\n[-122.3100000,47.6100000,990.3]"));
+        assertTrue(json.contains("\"start\":\"2017-07-14T02:40:00.100Z\",\"end\":\"2017-07-14T02:40:00.300Z\""));
+    }
+
+    @Test
+    public void missingValues() throws IOException {
+        final MLocation loc = new MLocation(1500000000100L, 47.6, -122.3, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 9, -1);
+        final String[] formats = {"kml", "gpx", "geojson", "csv"};
+        final String[] expected = {
+                "<gx:coord>-122.3000000 47.6000000</gx:coord>",
+                "<trkpt lat=\"47.6000000\" lon=\"-122.3000000\"><time>2017-07-14T02:40:00.100Z</time></trkpt>",
+                "[-122.3000000,47.6000000]",
+                "2017-07-14T02:40:00.100Z,47.6000000,-122.3000000,,,,\n"
+        };
+        for (int i = 0; i < formats.length; i++) {
+            final StringWriter out = new StringWriter();
+            final TrackExporter exporter = TrackExporter.create(formats[i], out);
+            exporter.begin("missing");
+            exporter.point(loc);
+            exporter.end();
+            assertTrue(out.toString(), out.toString().contains(expected[i]));
+        }
+    }
+
+    @Test
+    public void simplify() throws IOException {
+        final StringWriter out = new StringWriter();
+        final TrackSimplifier simplifier = new TrackSimplifier(new CsvExporter(out), 1);
+        simplifier.begin("line");
+        // Straight north, then a corner east
+        for (int i = 0; i <= 100; i++) {
+            simplifier.point(location(i, i * 0.0001, 0));
+        }
+        for (int i = 1; i <= 100; i++) {
+            simplifier.point(location(100 + i, 0.01, i * 0.0001));
+        }
+        simplifier.end();
+        assertEquals(201, simplifier.points);
+        assertEquals(3, simplifier.kept);
+        assertEquals(4, out.toString().split("\n").length);
+    }
+
+    @Test
+    public void simplifyMissingAltitude() throws IOException {
+        final TrackSimplifier simplifier = new TrackSimplifier(new CsvExporter(new StringWriter()), 1);
+        simplifier.begin("line");
+        // Same corner, from fixes without altitude
+        for (int i = 0; i <= 100; i++) {
+            simplifier.point(location(i * 1000, 47.6 + i * 0.0001, -122.3, Double.NaN));
+        }
+        for (int i = 1; i <= 100; i++) {
+            simplifier.point(location((100 + i) * 1000, 47.61, -122.3 + i * 0.0001, Double.NaN));
+        }
+        simplifier.end();
+        assertEquals(201, simplifier.points);
+        assertEquals(3, simplifier.kept);
+    }
+
+    /**
+     * A 1 hour track at 10 Hz, streamed from the reader into each format
+     */
+    @Test
+    public void exportLarge() throws IOException {
+        final StringBuilder track = new StringBuilder(Measurement.header).append('\n');
+        for (int i = 0; i < 36000; i++) {
+            track.append(location(i * 100, 47.6 + i * 1e-6, -122.3, 4000 - i * 0.1).toRow()).append('\n');
+        }
+        for (String format : new String[] {"kml", "gpx", "geojson", "csv"}) {
+            final StringWriter out = new StringWriter();
+            final long count = TrackExporter.create(format, out).export(new TrackReader(new StringReader(track.toString())), "large");
+            assertEquals(36000, count);
+            // About 100 bytes per point
+            assertTrue(format, out.getBuffer().length() < count * 120);
+        }
+    }
+
+    @Test
+    public void appendFixed() {
+        final TrackExporter exporter = new CsvExporter(new StringWriter());
+        exporter.appendFixed(-0.05, 2);
+        exporter.sb.append(' ');
+        exporter.appendFixed(-0.001, 2);
+        exporter.sb.append(' ');
+        exporter.appendFixed(3.007, 3);
+        exporter.sb.append(' ');
+        exporter.appendFixed(Double.NaN, 1);
+        exporter.sb.append(' ');
+        exporter.appendFixed(Double.POSITIVE_INFINITY, 1);
+        assertEquals("-0.05 0.00 3.007  ", exporter.sb.toString());
+    }
+
+    private static MLocation location(long millis, double lat, double lon, double alt) {
+        return new MLocation(1500000000000L + millis, lat, lon, alt, Double.NaN, 0, 0, Float.NaN, Float.NaN, Float.NaN, Float.NaN, 9, -1);
+    }
+
+    private static MLocation location(long seconds, double dLat, double dLon) {
+        return location(seconds * 1000, 47.6 + dLat, -122.3 + dLon, 1000);
+    }
+
+    private static String export(String format) throws IOException {
+        final StringWriter out = new StringWriter();
+        final TrackExporter exporter = TrackExporter.create(format, out);
+        assertEquals(format, exporter.extension());
+        exporter.begin("Jump & more");
+        exporter.point(loc1);
+        exporter.point(loc2);
+        exporter.end();
+        return out.toString();
+    }
+
+}
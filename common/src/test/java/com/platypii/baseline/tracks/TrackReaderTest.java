@@ -0,0 +1,82 @@
+package com.platypii.baseline.tracks;
+
+import com.platypii.baseline.measurements.MLocation;
+import com.platypii.baseline.measurements.MPressure;
+import com.platypii.baseline.measurements.Measurement;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that track files are read back row by row
+ */
+public class TrackReaderTest {
+
+    static final String TRACK = Measurement.header + "\n" +
+            new MPressure(1500000000000L, 2000000000L, 0, 0, 1013.25f).toRow() + "\n" +
+            new MLocation(1500000000100L, 47.6, -122.3, 1000, 0, 10, -5, 3, 1.5f, 0.9f, 1.2f, 9, 14).toRow() + "\n" +
+            ",2000200000,acc,,,,,,,,,,,,,,9.810000\n" +
+            ",2000300000,rot,,,,,,,,,,,0.100000,0.200000,0.300000\n" +
+            ",2000400000,grv,,,,,,,,0.000000,9.800000,0.100000\n" +
+            "garbage,row\n" +
+            new MLocation(1500000000300L, 47.61, -122.31, 1001, 0, Double.NaN, Double.NaN, 3, 1.5f, 0.9f, 1.2f, -1, 14).toRow() + "\n";
+
+    @Test
+    public void readRows() throws IOException {
+        final TrackReader reader = new TrackReader(new StringReader(TRACK));
+        assertTrue(reader.next());
+        assertEquals(TrackReader.ALT, reader.type);
+        assertEquals(1500000000000L, reader.millis);
+        assertEquals(2000000000L, reader.nano);
+        assertEquals(1013.25f, reader.pressure, 0.01);
+
+        assertTrue(reader.next());
+        assertEquals(TrackReader.GPS, reader.type);
+        final MLocation loc = reader.location();
+        assertEquals(1500000000100L, loc.millis);
+        assertEquals(47.6, loc.latitude, 0.000001);
+        assertEquals(-122.3, loc.longitude, 0.000001);
+        assertEquals(1000, loc.altitude_gps, 0.001);
+        assertEquals(10, loc.vN, 0.001);
+        assertEquals(-5, loc.vE, 0.001);
+        assertEquals(9, loc.satellitesUsed);
+
+        assertTrue(reader.next());
+        assertEquals(TrackReader.ACC, reader.type);
+        assertEquals(-1, reader.millis);
+        assertEquals(9.81f, reader.x, 0.001);
+
+        assertTrue(reader.next());
+        assertEquals(TrackReader.ROT, reader.type);
+        assertEquals(0.3f, reader.z, 0.001);
+
+        assertTrue(reader.next());
+        assertEquals(TrackReader.GRV, reader.type);
+        assertEquals(9.8f, reader.y, 0.001);
+
+        // Bad row is skipped
+        assertTrue(reader.next());
+        assertEquals(TrackReader.GPS, reader.type);
+        assertTrue(Double.isNaN(reader.vN));
+        assertEquals(-1, reader.numSV);
+        assertEquals(1, reader.badRows);
+
+        assertFalse(reader.next());
+        assertEquals(7, reader.rows);
+    }
+
+    @Test
+    public void columnsByName() throws IOException {
+        // Older tracks without sensor columns
+        final TrackReader reader = new TrackReader(new StringReader("millis,sensor,lat,lon,hMSL\n1500000000000,gps,47.6,-122.3,1000\n"));
+        assertTrue(reader.next());
+        assertEquals(47.6, reader.latitude, 0.000001);
+        assertEquals(1000, reader.altitude, 0.001);
+        assertTrue(Double.isNaN(reader.vN));
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.platypii.baseline.util;
+
+import com.platypii.baseline.diagnostics.Metrics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ensure that errors are rate limited
+ */
+public class ReporterTest {
+
+    private int built = 0;
+
+    @Test
+    public void rateLimit() {
+        final Reporter reporter = new Reporter("ReporterTest", "test.rate_limit");
+        for (int i = 0; i < 100; i++) {
+            reporter.e(() -> {
+                built++;
+                return "error";
+            });
+        }
+        assertEquals(100, reporter.count());
+        assertEquals(100, Metrics.counter("errors.test.rate_limit").get());
+        // Only the first few messages are built
+        assertEquals(5, built);
+    }
+
+}
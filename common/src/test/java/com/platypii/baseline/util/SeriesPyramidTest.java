@@ -0,0 +1,102 @@
+package com.platypii.baseline.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that pyramid rendering keeps the extremes of the series
+ */
+public class SeriesPyramidTest {
+
+    @Test
+    public void small() {
+        final SeriesPyramid series = new SeriesPyramid();
+        series.addPoint(0, 1);
+        series.addPoint(1, 3);
+        series.addPoint(2, 2);
+        final List<double[]> points = render(series, Double.NaN, Double.NaN, 100);
+        assertEquals(3, points.size());
+        assertEquals(3, points.get(1)[1], 0);
+        assertEquals(1, series.bounds.y.min, 0);
+        assertEquals(3, series.bounds.y.max, 0);
+    }
+
+    @Test
+    public void extremes() {
+        final SeriesPyramid series = new SeriesPyramid();
+        final int n = 100000;
+        for (int i = 0; i < n; i++) {
+            series.addPoint(i, Math.sin(i * 0.01));
+        }
+        series.addPoint(n, Double.NaN);
+        // Spike in the middle
+        final SeriesPyramid spiked = new SeriesPyramid();
+        for (int i = 0; i < n; i++) {
+            spiked.addPoint(i, i == 54321 ? 50 : 0);
+        }
+        final List<double[]> points = render(spiked, Double.NaN, Double.NaN, 300);
+        assertTrue(points.size() <= 8 * 300);
+        assertTrue(contains(points, 54321, 50));
+        assertEquals(0, points.get(0)[0], 0);
+        assertEquals(n - 1, points.get(points.size() - 1)[0], 0);
+        // Increasing x
+        for (int i = 1; i < points.size(); i++) {
+            assertTrue(points.get(i)[0] > points.get(i - 1)[0]);
+        }
+        // Min and max survive at every zoom
+        final List<double[]> wave = render(series, Double.NaN, Double.NaN, 100);
+        double min = 0;
+        double max = 0;
+        for (double[] point : wave) {
+            min = Math.min(min, point[1]);
+            max = Math.max(max, point[1]);
+        }
+        assertEquals(-1, min, 0.0001);
+        assertEquals(1, max, 0.0001);
+    }
+
+    @Test
+    public void zoom() {
+        final SeriesPyramid series = new SeriesPyramid();
+        for (int i = 0; i < 10000; i++) {
+            series.addPoint(i * 0.1, i);
+        }
+        // Zoomed in to 20 raw samples, draws them all plus one each side
+        final List<double[]> points = render(series, 100, 102, 500);
+        assertEquals(22, points.size());
+        assertEquals(99.9, points.get(0)[0], 0.0001);
+        assertEquals(102, points.get(21)[0], 0.0001);
+    }
+
+    @Test
+    public void reset() {
+        final SeriesPyramid series = new SeriesPyramid();
+        for (int i = 0; i < 100; i++) {
+            series.addPoint(i, i);
+        }
+        series.reset();
+        assertEquals(0, render(series, Double.NaN, Double.NaN, 10).size());
+        series.addPoint(0, 5);
+        series.addPoint(1, 6);
+        assertEquals(2, render(series, Double.NaN, Double.NaN, 10).size());
+    }
+
+    private static List<double[]> render(SeriesPyramid series, double xMin, double xMax, int pixels) {
+        final List<double[]> points = new ArrayList<>();
+        final int count = series.render(xMin, xMax, pixels, (x, y) -> points.add(new double[] {x, y}));
+        assertEquals(count, points.size());
+        return points;
+    }
+
+    private static boolean contains(List<double[]> points, double x, double y) {
+        for (double[] point : points) {
+            if (point[0] == x && point[1] == y) return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.platypii.baseline.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Ensure that simplified paths keep their shape
+ */
+public class SimplifyTest {
+
+    // Square wave with a spike: corners at 0, 10, 20, 30 and a spike at 25
+    private static final double[] x = new double[41];
+    private static final double[] y = new double[41];
+    static {
+        for (int i = 0; i <= 40; i++) {
+            x[i] = i;
+            y[i] = (i / 10) % 2 == 0 ? 0 : 5;
+        }
+        y[25] = 20;
+    }
+
+    @Test
+    public void rdp() {
+        final int[] out = new int[x.length];
+        final int n = Simplify.rdp(x, y, x.length, 0.1, out);
+        // Ends, the spike and its neighbours, and both sides of each step
+        assertEquals(0, out[0]);
+        assertEquals(40, out[n - 1]);
+        assertTrue(contains(out, n, 25));
+        assertTrue(contains(out, n, 9) && contains(out, n, 10));
+        assertTrue(n < 15);
+        // Everything within tolerance of the simplified path
+        assertTrue(maxError(out, n) <= 0.1);
+        // Huge tolerance keeps only the ends
+        assertEquals(2, Simplify.rdp(x, y, x.length, 100, out));
+    }
+
+    @Test
+    public void rdpImportance() {
+        final double[] importance = new double[x.length];
+        Simplify.rdpImportance(x, y, x.length, importance);
+        final int[] direct = new int[x.length];
+        final int[] thresholded = new int[x.length];
+        for (double tolerance : new double[] {0.1, 1, 3, 10}) {
+            final int n = Simplify.rdp(x, y, x.length, tolerance, direct);
+            assertEquals(n, Simplify.threshold(importance, x.length, tolerance, thresholded));
+            for (int i = 0; i < n; i++) {
+                assertEquals(direct[i], thresholded[i]);
+            }
+        }
+    }
+
+    @Test
+    public void visvalingam() {
+        final int[] out = new int[x.length];
+        final int n = Simplify.visvalingam(x, y, x.length, 1, out);
+        assertEquals(0, out[0]);
+        assertEquals(40, out[n - 1]);
+        assertTrue(contains(out, n, 25));
+        assertTrue(n < 15);
+    }
+
+    @Test
+    public void visvalingamRemovalOrder() {
+        // Irregular path, so that no two areas tie
+        final int n = 60;
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i + 0.3 * Math.sin(i * 2.3);
+            y[i] = Math.sin(i * 1.7) * (i + 1);
+        }
+        final double[] importance = new double[n];
+        Simplify.visvalingamImportance(x, y, n, importance);
+        // Remove the smallest triangle one at a time, and check importance in removal order
+        final boolean[] removed = new boolean[n];
+        double last = 0;
+        for (int step = 0; step < n - 2; step++) {
+            int min = -1;
+            double minArea = Double.POSITIVE_INFINITY;
+            for (int i = 1; i < n - 1; i++) {
+                if (!removed[i]) {
+                    final double area = area(x, y, neighbour(removed, i, -1), i, neighbour(removed, i, 1));
+                    if (area < minArea) {
+                        minArea = area;
+                        min = i;
+                    }
+                }
+            }
+            removed[min] = true;
+            assertTrue(importance[min] >= last);
+            last = Math.max(minArea, last);
+            assertEquals(last, importance[min], 1e-9);
+        }
+    }
+
+    @Test
+    public void lttb() {
+        final int[] out = new int[x.length];
+        final int n = Simplify.lttb(x, y, x.length, 8, out);
+        assertEquals(8, n);
+        assertEquals(0, out[0]);
+        assertEquals(40, out[7]);
+        // Peak survives
+        assertTrue(contains(out, n, 25));
+        // Fewer points than threshold returns all
+        assertEquals(x.length, Simplify.lttb(x, y, x.length, 100, out));
+        // First point, then the end points
+        assertEquals(1, Simplify.lttb(x, y, x.length, 1, out));
+        assertEquals(0, out[0]);
+        assertEquals(2, Simplify.lttb(x, y, x.length, 2, out));
+        assertEquals(40, out[1]);
+    }
+
+    @Test
+    public void levels() {
+        final SimplifyLevels levels = SimplifyLevels.rdp(x, y, x.length);
+        assertEquals(7, levels.levels());
+        assertArrayEquals(new int[] {0, 40}, levels.forPoints(2));
+        assertEquals(4, levels.forPoints(5).length);
+        assertEquals(x.length, levels.forPoints(1000).length);
+        // Tolerance picks a level that keeps every point rdp would
+        final int[] out = new int[x.length];
+        final int n = Simplify.rdp(x, y, x.length, 0.1, out);
+        final int[] level = levels.forTolerance(0.1);
+        assertTrue(level.length >= n);
+        for (int i = 0; i < n; i++) {
+            assertTrue(contains(level, level.length, out[i]));
+        }
+        // Lttb levels
+        final SimplifyLevels series = SimplifyLevels.lttb(x, y, x.length);
+        assertEquals(16, series.forPoints(20).length);
+        assertArrayEquals(new int[] {0, 40}, series.forPoints(2));
+        // Empty
+        assertEquals(0, SimplifyLevels.visvalingam(new double[0], new double[0], 0).forPoints(10).length);
+    }
+
+    @Test
+    public void toMeters() {
+        final double[] x = new double[2];
+        final double[] y = new double[2];
+        Simplify.toMeters(new double[] {47.6, 47.601}, new double[] {-122.3, -122.3}, 2, x, y);
+        assertEquals(0, x[1], 0.001);
+        assertEquals(111.2, y[1], 0.1);
+    }
+
+    /**
+     * Large path, with every algorithm
+     */
+    @Test
+    public void large() {
+        final int n = 100000;
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i;
+            y[i] = Math.sin(i * 0.001) * 100 + Math.sin(i * 0.37);
+        }
+        final int[] out = new int[n];
+        final int kept = Simplify.rdp(x, y, n, 1, out);
+        final SimplifyLevels levels = SimplifyLevels.visvalingam(x, y, n);
+        assertEquals(1000, Simplify.lttb(x, y, n, 1000, out));
+        // The fast wiggle is about the size of the tolerance, so rdp keeps some of it
+        assertTrue(kept > 1000 && kept < n / 4);
+        assertEquals(18, levels.levels());
+    }
+
+    private static int neighbour(boolean[] removed, int i, int direction) {
+        do {
+            i += direction;
+        } while (removed[i]);
+        return i;
+    }
+
+    private static double area(double[] x, double[] y, int a, int b, int c) {
+        return 0.5 * Math.abs((x[b] - x[a]) * (y[c] - y[a]) - (x[c] - x[a]) * (y[b] - y[a]));
+    }
+
+    private static boolean contains(int[] array, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            if (array[i] == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Largest distance of any original point from the simplified path
+     */
+    private static double maxError(int[] out, int n) {
+        double max = 0;
+        for (int s = 0; s + 1 < n; s++) {
+            final int a = out[s];
+            final int b = out[s + 1];
+            for (int i = a + 1; i < b; i++) {
+                final double t = (x[i] - x[a]) / (x[b] - x[a]);
+                max = Math.max(max, Math.abs(y[a] + t * (y[b] - y[a]) - y[i]));
+            }
+        }
+        return max;
+    }
+
+}
@@ -21,6 +21,21 @@ public class StatsTest {
         assertEquals("11.000 ± 0.667", stat.toString());
     }
 
+    @Test
+    public void merge() {
+        Stat left = new Stat();
+        left.addSample(10);
+        left.addSample(11);
+        Stat right = new Stat();
+        right.addSample(12);
+        left.merge(right);
+        left.merge(new Stat());
+
+        assertEquals(3, left.count());
+        assertEquals(11, left.mean(), 0.000001);
+        assertEquals(0.666667, left.var(), 0.000001);
+    }
+
     @Test
     public void empty() {
         Stat stat = new Stat();
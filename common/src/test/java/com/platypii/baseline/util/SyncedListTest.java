@@ -1,8 +1,10 @@
 package com.platypii.baseline.util;
 
+import java.util.Iterator;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 /**
  * Ensure that we are mathing correctly
@@ -33,4 +35,35 @@ public class SyncedListTest {
         assertEquals("SyncedList(foo, bar)", list.toString());
     }
 
+    @Test
+    public void since() {
+        SyncedList<String> list = new SyncedList<>();
+        list.setMaxSize(3);
+        list.append("foo");
+        list.append("bar");
+
+        Iterator<String> it = list.since(0);
+        assertEquals("foo", it.next());
+        assertEquals("bar", it.next());
+        assertFalse(it.hasNext());
+        final long count = list.count();
+        assertEquals(2, count);
+
+        // Only new values
+        list.append("baz");
+        it = list.since(count);
+        assertEquals("baz", it.next());
+        assertFalse(it.hasNext());
+        assertFalse(list.since(list.count()).hasNext());
+
+        // Values that were trimmed are skipped
+        list.append("a");
+        list.append("b");
+        list.append("c");
+        list.append("d");
+        it = list.since(count);
+        assertEquals("b", it.next());
+        assertEquals(7, list.count());
+    }
+
 }